@@ -5,6 +5,7 @@ import java.io.InputStream;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 
 import com.google.auth.oauth2.GoogleCredentials;
@@ -36,6 +37,7 @@ public class FirebaseConfig {
     }
 
     @Bean
+    @Profile("!local")
     public Firestore firestore() throws IOException {
         return FirestoreClient.getFirestore(firebaseApp());
     }
@@ -0,0 +1,57 @@
+package com.example.SlipStream.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import com.example.SlipStream.service.RequestReadContext;
+
+/**
+ * Opens a {@link RequestReadContext} around the handling of each inbound STOMP message, on the
+ * thread that handles it, and logs the repository reads it issued.
+ */
+@Component
+public class RequestReadContextChannelInterceptor implements ExecutorChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestReadContextChannelInterceptor.class);
+
+    private final boolean enabled;
+
+    public RequestReadContextChannelInterceptor(@Value("${slipstream.read-context.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel, @NonNull MessageHandler handler) {
+        if (enabled) {
+            RequestReadContext.open("STOMP " + SimpMessageHeaderAccessor.getMessageType(message.getHeaders())
+                    + " " + SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel, @NonNull MessageHandler handler,
+                                    Exception ex) {
+        if (!enabled) {
+            return;
+        }
+        RequestReadContext context = RequestReadContext.current();
+        if (context == null) {
+            return;
+        }
+        context.close();
+        if (context.getRepositoryReadCount() > 0 || context.getServedFromContextCount() > 0) {
+            logger.debug("{}: {} repository reads ({} pages), {} lookups served from the request context.",
+                    context.getDescription(), context.getRepositoryReadCount(), context.getPagesReadCount(),
+                    context.getServedFromContextCount());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.SlipStream.config;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.SlipStream.service.RequestReadContext;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Opens a {@link RequestReadContext} for each HTTP request and logs the repository reads it
+ * issued once the response is written.
+ */
+@Component
+public class RequestReadContextFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestReadContextFilter.class);
+
+    private final boolean enabled;
+
+    public RequestReadContextFilter(@Value("${slipstream.read-context.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RequestReadContext context = RequestReadContext.open(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            context.close();
+            if (context.getRepositoryReadCount() > 0 || context.getServedFromContextCount() > 0) {
+                logger.debug("{}: {} repository reads ({} pages), {} lookups served from the request context.",
+                        context.getDescription(), context.getRepositoryReadCount(), context.getPagesReadCount(),
+                        context.getServedFromContextCount());
+            }
+        }
+    }
+}
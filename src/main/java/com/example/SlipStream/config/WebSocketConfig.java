@@ -1,6 +1,7 @@
 package com.example.SlipStream.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -10,6 +11,12 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker // Enable WebSocket message handling, backed by a message broker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final RequestReadContextChannelInterceptor readContextInterceptor;
+
+    public WebSocketConfig(RequestReadContextChannelInterceptor readContextInterceptor) {
+        this.readContextInterceptor = readContextInterceptor;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple memory-based message broker to carry messages back to the client
@@ -30,4 +37,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // may be used if WebSocket is not available.
         registry.addEndpoint("/ws").withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Each inbound message gets its own read context, like an HTTP request
+        registration.interceptors(readContextInterceptor);
+    }
 }
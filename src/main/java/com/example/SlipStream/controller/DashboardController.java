@@ -1,6 +1,6 @@
 package com.example.SlipStream.controller;
 
-import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
 import com.example.SlipStream.model.Workspace;
 import com.example.SlipStream.service.PageService;
 import com.example.SlipStream.service.WorkspaceService;
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -37,15 +38,15 @@ public class DashboardController {
     private final PageService pageService;
 
     public static class PageNode {
-        private PageComponent page;
+        private PageSummary page;
         private List<PageNode> children;
 
-        public PageNode(PageComponent page) {
+        public PageNode(PageSummary page) {
             this.page = page;
             this.children = new ArrayList<>();
         }
 
-        public PageComponent getPage() {
+        public PageSummary getPage() {
             return page;
         }
 
@@ -57,7 +58,7 @@ public class DashboardController {
             this.children.add(child);
         }
 
-        public static List<PageNode> buildTree(List<PageComponent> pages) {
+        public static List<PageNode> buildTree(List<PageSummary> pages) {
             if (pages == null || pages.isEmpty()) {
                 return new ArrayList<>();
             }
@@ -65,7 +66,7 @@ public class DashboardController {
             List<PageNode> roots = new ArrayList<>();
             Map<String, PageNode> nodeMap = new HashMap<>();
 
-            for (PageComponent page : pages) {
+            for (PageSummary page : pages) {
                 if (page != null && page.getPageId() != null) {
                     nodeMap.put(page.getPageId(), new PageNode(page));
                 } else {
@@ -73,7 +74,7 @@ public class DashboardController {
                 }
             }
 
-            for (PageComponent page : pages) {
+            for (PageSummary page : pages) {
                 if (page == null || page.getPageId() == null) continue;
 
                 PageNode node = nodeMap.get(page.getPageId());
@@ -132,17 +133,24 @@ public class DashboardController {
         model.addAttribute("sharedPages", Collections.emptyList());
 
         try {
-            List<Workspace> workspaces = workspaceService.getWorkspacesForUser(currentUserEmail);
+            // Start the workspace, accessible-page and shared-page lookups together; the accessible-page
+            // lookup reuses the workspace lookup instead of querying workspaces a second time.
+            CompletableFuture<List<Workspace>> workspacesLookup = workspaceService.getWorkspacesForUserAsync(currentUserEmail);
+            CompletableFuture<List<PageSummary>> accessiblePagesLookup =
+                    pageService.getAllAccessiblePageSummariesForUserAsync(currentUserEmail, workspacesLookup);
+            CompletableFuture<List<PageSummary>> sharedPagesLookup = pageService.getSharedPageSummariesForUserAsync(currentUserEmail);
+
+            List<Workspace> workspaces = workspacesLookup.get();
             model.addAttribute("workspaces", workspaces);
             logger.info("Fetched {} workspaces for user {}", workspaces.size(), currentUserEmail);
 
             logger.debug("Attempting to fetch all accessible pages for user {}", currentUserEmail);
-            List<PageComponent> allAccessiblePages = pageService.getAllAccessiblePagesForUser(currentUserEmail);
+            List<PageSummary> allAccessiblePages = accessiblePagesLookup.get();
             logger.info("Fetched {} total accessible pages for user {}", allAccessiblePages.size(), currentUserEmail);
 
-            Map<String, PageComponent> allPagesMap = allAccessiblePages.stream()
+            Map<String, PageSummary> allPagesMap = allAccessiblePages.stream()
                 .filter(p -> p != null && p.getPageId() != null)
-                .collect(Collectors.toMap(PageComponent::getPageId, p -> p, (p1, p2) -> p1));
+                .collect(Collectors.toMap(PageSummary::getPageId, p -> p, (p1, p2) -> p1));
 
             Map<String, String> rootPageToWorkspaceIdMap = new HashMap<>();
             for (Workspace ws : workspaces) {
@@ -159,11 +167,11 @@ public class DashboardController {
             }
             logger.debug("Created root page to workspace ID map with {} entries.", rootPageToWorkspaceIdMap.size());
 
-            Map<String, List<PageComponent>> pagesByWorkspaceId = new HashMap<>();
-            List<PageComponent> independentPages = new ArrayList<>();
+            Map<String, List<PageSummary>> pagesByWorkspaceId = new HashMap<>();
+            List<PageSummary> independentPages = new ArrayList<>();
             Set<String> assignedPageIds = new HashSet<>();
 
-            for (PageComponent page : allAccessiblePages) {
+            for (PageSummary page : allAccessiblePages) {
                 if (page == null || page.getPageId() == null) continue;
 
                 String pageId = page.getPageId();
@@ -188,9 +196,9 @@ public class DashboardController {
             logger.debug("Independent pages count (before tree building): {}", independentPages.size());
 
             Map<String, List<PageNode>> workspacePageTrees = new HashMap<>();
-            for (Map.Entry<String, List<PageComponent>> entry : pagesByWorkspaceId.entrySet()) {
+            for (Map.Entry<String, List<PageSummary>> entry : pagesByWorkspaceId.entrySet()) {
                 String workspaceId = entry.getKey();
-                List<PageComponent> workspacePages = entry.getValue();
+                List<PageSummary> workspacePages = entry.getValue();
                 if (!workspacePages.isEmpty()) {
                     logger.debug("Building tree for workspace {} using {} pages.", workspaceId, workspacePages.size());
                     List<PageNode> pageNodes = PageNode.buildTree(workspacePages);
@@ -209,7 +217,7 @@ public class DashboardController {
                     workspacePageTrees.size(), independentPageNodes.size());
 
             // Fetch shared pages
-            List<PageComponent> sharedPages = pageService.getSharedPagesForUser(currentUserEmail);
+            List<PageSummary> sharedPages = new ArrayList<>(sharedPagesLookup.get());
             logger.info("Fetched {} shared pages for user {}", sharedPages.size(), currentUserEmail);
 
             // Sort the fetched shared pages by title
@@ -239,13 +247,13 @@ public class DashboardController {
         return "dashboard";
     }
 
-    private String findWorkspaceIdForPage(PageComponent page, Map<String, PageComponent> allPagesMap, Map<String, String> rootPageToWorkspaceIdMap) {
+    private String findWorkspaceIdForPage(PageSummary page, Map<String, PageSummary> allPagesMap, Map<String, String> rootPageToWorkspaceIdMap) {
         if (page == null || page.getPageId() == null) {
             return null;
         }
 
         Set<String> visited = new HashSet<>();
-        PageComponent current = page;
+        PageSummary current = page;
         String pageId = page.getPageId();
 
         logger.trace("Finding workspace for page: {}", pageId);
@@ -3,27 +3,50 @@ package com.example.SlipStream.controller;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.HtmlUtils;
 
+import com.example.SlipStream.model.ContainerPage;
 import com.example.SlipStream.model.PageComponent;
 import com.example.SlipStream.service.PageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 
 @Controller
 public class ExportController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+    private static final int MAX_SLUG_LENGTH = 60;
+
     @Autowired
     private PageService pageService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/export/{pageId}")
     public ResponseEntity<InputStreamResource> exportPageAsPdf(@PathVariable String pageId)
             throws IOException, InterruptedException, ExecutionException {
@@ -51,6 +74,132 @@ public class ExportController {
                 .body(new InputStreamResource(inputStream));
     }
 
+    /**
+     * Streams every page of a workspace tree, parents before children, for backups and indexing.
+     * {@code format=ndjson} (the default) writes one JSON object per page, with {@code ref} and
+     * {@code parentRef} set so the file can be fed back to the page import. {@code markdown} and
+     * {@code html} write a zip with one file per page, named by title and page id, carrying the
+     * page ids in a header. Pages are read in batches while the response is written.
+     */
+    @GetMapping("/workspaces/{workspaceId}/export")
+    public ResponseEntity<?> exportWorkspace(@PathVariable String workspaceId,
+                                             @RequestParam(defaultValue = "ndjson") String format) {
+        if (!format.equals("ndjson") && !format.equals("markdown") && !format.equals("html")) {
+            return new ResponseEntity<>("Unknown export format: " + format, HttpStatus.BAD_REQUEST);
+        }
+        Iterator<PageComponent> pages;
+        try {
+            pages = pageService.streamWorkspacePageTree(workspaceId);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (InterruptedException | ExecutionException e) {
+            return new ResponseEntity<>("Error exporting workspace: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        if (pages == null) {
+            return new ResponseEntity<>("Workspace not found.", HttpStatus.NOT_FOUND);
+        }
+
+        boolean zipped = !format.equals("ndjson");
+        boolean html = format.equals("html");
+        StreamingResponseBody body = out -> {
+            int count = 0;
+            try {
+                if (zipped) {
+                    ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+                    while (pages.hasNext()) {
+                        PageComponent page = pages.next();
+                        zip.putNextEntry(new ZipEntry(slug(page.getTitle()) + "-" + page.getPageId() + (html ? ".html" : ".md")));
+                        zip.write((html ? renderHtmlFile(page) : renderMarkdownFile(page)).getBytes(StandardCharsets.UTF_8));
+                        zip.closeEntry();
+                        count++;
+                    }
+                    // finish, not close: the response stream belongs to the container.
+                    zip.finish();
+                } else {
+                    while (pages.hasNext()) {
+                        out.write(objectMapper.writeValueAsBytes(toExportRecord(pages.next())));
+                        out.write('\n');
+                        count++;
+                    }
+                }
+                out.flush();
+                logger.info("Exported {} pages of workspace {} as {}.", count, workspaceId, format);
+            } catch (IllegalStateException e) {
+                // Headers are out already; failing the stream is the only way to tell the client.
+                logger.error("Export of workspace {} failed after {} pages: {}", workspaceId, count, e.getMessage(), e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"workspace-" + workspaceId + (zipped ? ".zip" : ".ndjson") + "\"")
+                .contentType(zipped ? MediaType.parseMediaType("application/zip") : MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private static Map<String, Object> toExportRecord(PageComponent page) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("ref", page.getPageId());
+        record.put("parentRef", page.getParentPageId());
+        record.put("type", page.isLeaf() ? "content" : "container");
+        record.put("title", page.getTitle());
+        record.put("content", page.getContent());
+        record.put("pageId", page.getPageId());
+        record.put("parentPageId", page.getParentPageId());
+        record.put("ancestorIds", page.getAncestorIds());
+        record.put("childrenIds", page instanceof ContainerPage ? ((ContainerPage) page).getChildrenIds() : List.of());
+        record.put("owner", page.getOwner());
+        record.put("published", page.isPublished());
+        record.put("createdAt", page.getCreatedAt());
+        record.put("lastUpdated", page.getLastUpdated());
+        record.put("version", page.getVersion());
+        return record;
+    }
+
+    private String renderMarkdownFile(PageComponent page) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("---\n");
+        builder.append("pageId: ").append(page.getPageId()).append('\n');
+        builder.append("parentPageId: ").append(page.getParentPageId() != null ? page.getParentPageId() : "").append('\n');
+        // A JSON string is also a valid YAML scalar, whatever the title contains.
+        builder.append("title: ").append(objectMapper.writeValueAsString(page.getTitle())).append('\n');
+        builder.append("owner: ").append(page.getOwner()).append('\n');
+        if (page.getLastUpdated() != null) {
+            builder.append("lastUpdated: ").append(page.getLastUpdated().toInstant()).append('\n');
+        }
+        builder.append("---\n\n");
+        builder.append("# ").append(page.getTitle() != null ? page.getTitle() : "").append("\n\n");
+        if (page.getContent() != null) {
+            builder.append(page.getContent()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    // Page content is Markdown rendered in the browser; without a server-side renderer the
+    // source is kept as preformatted text, as in the PDF export.
+    private static String renderHtmlFile(PageComponent page) {
+        String title = HtmlUtils.htmlEscape(page.getTitle() != null ? page.getTitle() : "");
+        StringBuilder builder = new StringBuilder();
+        builder.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n");
+        builder.append("<meta name=\"slipstream-page-id\" content=\"").append(HtmlUtils.htmlEscape(page.getPageId())).append("\">\n");
+        if (page.getParentPageId() != null) {
+            builder.append("<meta name=\"slipstream-parent-page-id\" content=\"").append(HtmlUtils.htmlEscape(page.getParentPageId())).append("\">\n");
+        }
+        builder.append("<title>").append(title).append("</title>\n</head>\n<body>\n");
+        builder.append("<h1>").append(title).append("</h1>\n");
+        builder.append("<div style=\"white-space: pre-wrap\">")
+                .append(HtmlUtils.htmlEscape(page.getContent() != null ? page.getContent() : ""))
+                .append("</div>\n</body>\n</html>\n");
+        return builder.toString();
+    }
+
+    private static String slug(String title) {
+        String slug = title != null ? title.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-+|-+$", "") : "";
+        if (slug.length() > MAX_SLUG_LENGTH) {
+            slug = slug.substring(0, MAX_SLUG_LENGTH).replaceAll("-+$", "");
+        }
+        return slug.isEmpty() ? "untitled" : slug;
+    }
+
     private void expandSubpages(PageComponent page) throws ExecutionException, InterruptedException {
         if (page.getChildren() != null) {
             for (int i = 0; i < page.getChildren().size(); i++) {
@@ -1,14 +1,27 @@
 package com.example.SlipStream.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.Map;
 import java.util.Collections;
+import java.util.zip.ZipException;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory; // Add logger import
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
@@ -23,9 +36,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageRevision;
+import com.example.SlipStream.model.PageSummary;
+import com.example.SlipStream.repository.PageSlice;
+import com.example.SlipStream.service.PageImportService;
 import com.example.SlipStream.service.PageService;
+import com.example.SlipStream.service.PageVersionConflictException;
 
 @RestController
 @RequestMapping("/api/pages")
@@ -34,10 +53,14 @@ public class PageController {
     private static final Logger logger = LoggerFactory.getLogger(PageController.class); // Add logger declaration
 
     private final PageService pageService;
+    private final PageImportService pageImportService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public PageController(PageService pageService) {
+    public PageController(PageService pageService, PageImportService pageImportService, ObjectMapper objectMapper) {
         this.pageService = pageService;
+        this.pageImportService = pageImportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -92,6 +115,76 @@ public class PageController {
         }
     }
 
+    /**
+     * Imports a tree of pages from NDJSON, or from a zip of NDJSON files when the content type is
+     * {@code application/zip}, under {@code parentPageId} or as root pages of {@code workspaceId}.
+     * The input is checked completely before anything is written. The response is NDJSON with a
+     * progress line per written chunk and a final line holding the new page ids by ref, or the
+     * error if the import failed and its pages were deleted again.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importPages(@RequestParam(required = false) String workspaceId,
+                                         @RequestParam(required = false) String parentPageId,
+                                         HttpServletRequest request) {
+        PageImportService.Plan plan;
+        try {
+            String contentType = request.getContentType();
+            boolean zipped = contentType != null && contentType.contains("zip");
+            plan = pageImportService.prepareImport(request.getInputStream(), zipped, workspaceId, parentPageId);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (ZipException e) {
+            return new ResponseEntity<>("Invalid zip archive: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            logger.error("Error preparing page import: {}", e.getMessage(), e);
+            return new ResponseEntity<>("Error preparing import: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        StreamingResponseBody body = out -> {
+            // A client that goes away does not stop the import; it only stops getting progress.
+            boolean[] disconnected = {false};
+            PageImportService.Progress progress = (written, total) -> {
+                if (disconnected[0]) {
+                    return;
+                }
+                try {
+                    writeLine(out, Map.of("written", written, "total", total));
+                } catch (IOException e) {
+                    disconnected[0] = true;
+                    logger.info("Import client disconnected after {} of {} pages, continuing.", written, total);
+                }
+            };
+            Map<String, Object> summary = new LinkedHashMap<>();
+            try {
+                PageImportService.Result result = pageImportService.runImport(plan, progress);
+                summary.put("status", "completed");
+                summary.put("written", result.getPageCount());
+                summary.put("rootPageIds", result.getRootPageIds());
+                summary.put("pageIds", result.getPageIdsByRef());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                summary.put("status", "failed");
+                summary.put("error", "Import interrupted");
+            } catch (IOException | ExecutionException | RuntimeException e) {
+                logger.error("Page import failed: {}", e.getMessage(), e);
+                summary.put("status", "failed");
+                summary.put("error", e.getMessage());
+            }
+            if (!disconnected[0]) {
+                writeLine(out, summary);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+
     @GetMapping("/{pageId}")
     public ResponseEntity<?> getPage(@PathVariable String pageId) {
         try {
@@ -108,35 +201,119 @@ public class PageController {
         }
     }
 
+    /**
+     * Without {@code limit} or {@code cursor} the full listing is streamed as a JSON array one slice
+     * at a time; with either parameter a single {@link PageSlice} is returned.
+     */
     @GetMapping
-    public ResponseEntity<List<PageComponent>> getAllPages() {
+    public ResponseEntity<?> getAllPages(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String cursor) {
+        if (limit == null && cursor == null) {
+            Iterator<PageComponent> pages = pageService.streamAllPages();
+            StreamingResponseBody body = out -> {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                    generator.writeStartArray();
+                    while (pages.hasNext()) {
+                        generator.writeObject(pages.next());
+                    }
+                    generator.writeEndArray();
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
         try {
-            List<PageComponent> pages = pageService.getAllPages();
-            return new ResponseEntity<>(pages, HttpStatus.OK);
+            return new ResponseEntity<>(pageService.listPages(cursor, limit), HttpStatus.OK);
         } catch (InterruptedException | ExecutionException e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @GetMapping("/children/{parentPageId}")
-    public ResponseEntity<List<PageComponent>> getChildPages(@PathVariable String parentPageId) {
+    public ResponseEntity<?> getChildPages(@PathVariable String parentPageId,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String cursor) {
         try {
+            if (limit != null || cursor != null) {
+                return new ResponseEntity<>(pageService.getChildPages(parentPageId, cursor, limit), HttpStatus.OK);
+            }
             List<PageComponent> childPages = pageService.getChildPages(parentPageId);
             return new ResponseEntity<>(childPages, HttpStatus.OK);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (InterruptedException | ExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/children/{parentPageId}/summaries")
+    public ResponseEntity<?> getChildPageSummaries(@PathVariable String parentPageId) {
+        try {
+            return new ResponseEntity<>(pageService.getChildPageSummaries(parentPageId), HttpStatus.OK);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (InterruptedException | ExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Summaries of every page the current user owns or can reach through a workspace, for
+     * building navigation trees without downloading page content.
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<?> getAccessiblePageSummaries() {
+        String currentUserEmail = SecurityContextHolder.getContext().getAuthentication() != null
+                ? SecurityContextHolder.getContext().getAuthentication().getName() : null;
+        if (currentUserEmail == null) {
+            return new ResponseEntity<>("Not authenticated.", HttpStatus.UNAUTHORIZED);
+        }
+        try {
+            List<PageSummary> summaries = pageService.getAllAccessiblePageSummariesForUser(currentUserEmail);
+            return new ResponseEntity<>(summaries, HttpStatus.OK);
+        } catch (InterruptedException | ExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/owned")
+    public ResponseEntity<?> getOwnedPages(@RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String cursor) {
+        String currentUserEmail = SecurityContextHolder.getContext().getAuthentication() != null
+                ? SecurityContextHolder.getContext().getAuthentication().getName() : null;
+        if (currentUserEmail == null) {
+            return new ResponseEntity<>("Not authenticated.", HttpStatus.UNAUTHORIZED);
+        }
+        try {
+            return new ResponseEntity<>(pageService.getPagesOwnedByUser(currentUserEmail, cursor, limit), HttpStatus.OK);
+        } catch (InterruptedException | ExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/workspace/{workspaceId}")
+    public ResponseEntity<?> getWorkspacePages(@PathVariable String workspaceId,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) String cursor) {
+        try {
+            return new ResponseEntity<>(pageService.getWorkspacePages(workspaceId, cursor, limit), HttpStatus.OK);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
         } catch (InterruptedException | ExecutionException e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @PutMapping("/{pageId}")
-    public ResponseEntity<String> updatePage(@PathVariable String pageId, @RequestBody UpdatePageRequestDTO updateDTO) {
+    public ResponseEntity<?> updatePage(@PathVariable String pageId, @RequestBody UpdatePageRequestDTO updateDTO) {
         try {
-            boolean updated = pageService.updatePage(pageId, updateDTO.getTitle(), updateDTO.getContent());
-            if (updated) {
-                return new ResponseEntity<>("Page update processed", HttpStatus.OK);
+            PageComponent updated = pageService.updatePage(pageId, updateDTO.getTitle(), updateDTO.getContent(), updateDTO.getVersion());
+            if (updated != null) {
+                return new ResponseEntity<>(Map.of("message", "Page update processed", "version", updated.getVersion()), HttpStatus.OK);
             } else {
                 return new ResponseEntity<>("Page not found or update failed.", HttpStatus.NOT_FOUND);
             }
+        } catch (PageVersionConflictException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage(), "currentVersion", e.getCurrentVersion()), HttpStatus.CONFLICT);
         } catch (AccessDeniedException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
         } catch (InterruptedException | ExecutionException e) {
@@ -226,6 +403,25 @@ public class PageController {
         }
     }
 
+    @PostMapping("/{pageId}/move")
+    public ResponseEntity<?> movePage(@PathVariable String pageId, @RequestBody MovePageRequestDTO moveRequest) {
+        try {
+            PageComponent moved = pageService.movePage(pageId, moveRequest.getParentPageId());
+            if (moved == null) {
+                return new ResponseEntity<>("Page or target parent not found.", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(Map.of("pageId", pageId, "parentPageId", moved.getParentPageId(),
+                    "ancestorIds", moved.getAncestorIds()), HttpStatus.OK);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error moving page {}: {}", pageId, e.getMessage(), e);
+            return new ResponseEntity<>("Error moving page: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PostMapping("/{pageId}/publish")
     public ResponseEntity<?> publishPage(@PathVariable String pageId) {
         try {
@@ -260,6 +456,84 @@ public class PageController {
         }
     }
 
+    /**
+     * An edit of the page that was buffered but not written because the page was saved elsewhere
+     * first; also broadcast to {@code /topic/pages/{pageId}/conflict} when it happens.
+     */
+    @GetMapping("/{pageId}/conflict")
+    public ResponseEntity<?> getConflictedEdit(@PathVariable String pageId) {
+        try {
+            PageComponent unsaved = pageService.getConflictedEdit(pageId);
+            if (unsaved == null) {
+                return new ResponseEntity<>("No conflicting edit for this page.", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(unsaved, HttpStatus.OK);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error reading conflicting edit of page {}: {}", pageId, e.getMessage(), e);
+            return new ResponseEntity<>("Error reading conflicting edit: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Revision history of a page, newest first and without content. Pass the smallest revision
+     * of a response as {@code before} to get the next older ones.
+     */
+    @GetMapping("/{pageId}/revisions")
+    public ResponseEntity<?> getPageRevisions(@PathVariable String pageId,
+                                              @RequestParam(required = false) Long before,
+                                              @RequestParam(required = false) Integer limit) {
+        try {
+            List<PageRevision> revisions = pageService.getPageRevisions(pageId, before, limit);
+            if (revisions == null) {
+                return new ResponseEntity<>("Page not found or access denied.", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(revisions, HttpStatus.OK);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error listing revisions of page {}: {}", pageId, e.getMessage(), e);
+            return new ResponseEntity<>("Error listing revisions: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * The page as it was at an ISO-8601 point in time, e.g. {@code ?time=2024-05-01T12:00:00Z}.
+     */
+    @GetMapping("/{pageId}/revisions/at")
+    public ResponseEntity<?> getPageRevisionAt(@PathVariable String pageId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date time) {
+        try {
+            PageRevision revision = pageService.getPageRevisionAt(pageId, time);
+            if (revision == null) {
+                return new ResponseEntity<>("No revision of this page at that time.", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(revision, HttpStatus.OK);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (IllegalStateException | InterruptedException | ExecutionException e) {
+            logger.error("Error reading page {} at {}: {}", pageId, time, e.getMessage(), e);
+            return new ResponseEntity<>("Error reading revision: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/{pageId}/revisions/{revision}")
+    public ResponseEntity<?> getPageRevision(@PathVariable String pageId, @PathVariable long revision) {
+        try {
+            PageRevision pageRevision = pageService.getPageRevision(pageId, revision);
+            if (pageRevision == null) {
+                return new ResponseEntity<>("Revision not found.", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(pageRevision, HttpStatus.OK);
+        } catch (AccessDeniedException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (IllegalStateException | InterruptedException | ExecutionException e) {
+            logger.error("Error reading revision {} of page {}: {}", revision, pageId, e.getMessage(), e);
+            return new ResponseEntity<>("Error reading revision: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     public static class PageRequestDTO {
         private String title;
         private String content;
@@ -338,9 +612,22 @@ public class PageController {
         }
     }
 
+    public static class MovePageRequestDTO {
+        private String parentPageId;
+
+        public String getParentPageId() {
+            return parentPageId;
+        }
+
+        public void setParentPageId(String parentPageId) {
+            this.parentPageId = parentPageId;
+        }
+    }
+
     public static class UpdatePageRequestDTO {
         private String title;
         private String content;
+        private Long version;
 
         public String getTitle() {
             return title;
@@ -357,5 +644,13 @@ public class PageController {
         public void setContent(String content) {
             this.content = content;
         }
+
+        public Long getVersion() {
+            return version;
+        }
+
+        public void setVersion(Long version) {
+            this.version = version;
+        }
     }
 }
\ No newline at end of file
@@ -28,6 +28,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import com.example.SlipStream.model.ContainerPage;
 import com.example.SlipStream.model.ContentPage;
 import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
 import com.example.SlipStream.service.PageService;
 
 @Controller
@@ -79,12 +80,13 @@ public class PageViewController {
             model.addAttribute("isPublished", page.isPublished());
             model.addAttribute("sharingInfo", page.getSharingInfo());
             model.addAttribute("canEdit", canEdit);
+            model.addAttribute("version", page.getVersion());
             model.addAttribute("currentUserEmail", currentUserEmail);
 
-            List<PageComponent> childPages = new ArrayList<>();
+            List<PageSummary> childPages = new ArrayList<>();
             if (!page.isLeaf()) {
                 try {
-                    childPages = pageService.getChildPages(pageId);
+                    childPages = pageService.getChildPageSummaries(pageId);
                 } catch (ExecutionException | InterruptedException childFetchException) {
                     logger.error("Error fetching child pages for {}: {}", pageId, childFetchException.getMessage());
                     model.addAttribute("childErrorMessage", "Could not load child pages.");
@@ -3,6 +3,7 @@ package com.example.SlipStream.model;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 public class ContainerPage extends PageComponent {
     private List<String> childrenIds; // Store only IDs of child pages
@@ -133,4 +134,23 @@ public class ContainerPage extends PageComponent {
     public boolean isLeaf() {
         return false;
     }
+
+    @Override
+    protected void collectDirtyFields(PageComponent clean, Set<String> dirty) {
+        if (!getChildrenIds().equals(((ContainerPage) clean).getChildrenIds())) {
+            dirty.add(FIELD_CHILDREN_IDS);
+        }
+    }
+
+    /**
+     * Copies the persisted state only; loaded children are not carried over.
+     */
+    @Override
+    public ContainerPage copy() {
+        ContainerPage copy = new ContainerPage();
+        copyInto(copy);
+        copy.summary = this.summary;
+        copy.childrenIds = this.childrenIds != null ? new ArrayList<>(this.childrenIds) : new ArrayList<>();
+        return copy;
+    }
 }
\ No newline at end of file
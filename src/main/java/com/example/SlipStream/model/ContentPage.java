@@ -54,4 +54,12 @@ public class ContentPage extends PageComponent {
     public boolean isLeaf() {
         return true;
     }
+
+    @Override
+    public ContentPage copy() {
+        ContentPage copy = new ContentPage();
+        copyInto(copy);
+        copy.content = this.content;
+        return copy;
+    }
 }
\ No newline at end of file
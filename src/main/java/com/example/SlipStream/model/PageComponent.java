@@ -1,14 +1,33 @@
 package com.example.SlipStream.model;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Abstract base class for all page components in the Composite Pattern
  */
 public abstract class PageComponent {
+    // Names of the persisted fields, as reported by getDirtyFields()
+    public static final String FIELD_TITLE = "title";
+    public static final String FIELD_CONTENT = "content";
+    public static final String FIELD_OWNER = "owner";
+    public static final String FIELD_PARENT_PAGE_ID = "parentPageId";
+    public static final String FIELD_IS_PUBLISHED = "isPublished";
+    public static final String FIELD_SHARING_INFO = "sharingInfo";
+    public static final String FIELD_WORKSPACE_ID = "workspaceId";
+    public static final String FIELD_CHILDREN_IDS = "childrenIds";
+    public static final String FIELD_ANCESTOR_IDS = "ancestorIds";
+
     protected String pageId;
     protected String title;
     protected String owner; // User email or ID of the owner
@@ -18,6 +37,11 @@ public abstract class PageComponent {
     protected boolean isPublished; // Flag for public access
     protected Map<String, String> sharingInfo; // Map<UserEmail, AccessLevel("view" or "edit")>
     private String workspaceId; // Workspace ID
+    protected List<String> ancestorIds; // Ids from the root page down to the parent; null if never computed
+    protected long version; // Incremented on every persisted write, used for optimistic concurrency
+    private transient Instant storedUpdateTime; // Update time of the stored document this state was read from
+    private transient List<String> storedBlockIds; // Content block ids of the stored document; null if content is inline
+    private transient PageComponent cleanState; // Snapshot of the state last read from or written to storage
 
     // Default constructor
     public PageComponent() {
@@ -42,6 +66,85 @@ public abstract class PageComponent {
     public abstract void removeChild(String componentId);
     public abstract boolean isLeaf();
 
+    /**
+     * Returns a detached copy of this page, so shared (e.g. cached) instances
+     * are never mutated by callers that modify a page before writing it back.
+     */
+    public abstract PageComponent copy();
+
+    protected void copyInto(PageComponent target) {
+        target.pageId = this.pageId;
+        target.title = this.title;
+        target.owner = this.owner;
+        target.createdAt = this.createdAt;
+        target.lastUpdated = this.lastUpdated;
+        target.parentPageId = this.parentPageId;
+        target.isPublished = this.isPublished;
+        target.sharingInfo = this.sharingInfo != null ? new HashMap<>(this.sharingInfo) : new HashMap<>();
+        target.workspaceId = this.workspaceId;
+        target.ancestorIds = this.ancestorIds != null ? new ArrayList<>(this.ancestorIds) : null;
+        target.version = this.version;
+        target.storedUpdateTime = this.storedUpdateTime;
+        target.storedBlockIds = this.storedBlockIds;
+        // Snapshots are never mutated, so copies can share them.
+        target.cleanState = this.cleanState;
+    }
+
+    /**
+     * Records the current state as the stored state; later changes are reported by {@link #getDirtyFields()}.
+     */
+    public void markClean() {
+        PageComponent snapshot = copy();
+        snapshot.cleanState = null;
+        this.cleanState = snapshot;
+    }
+
+    /**
+     * The state this page had when it was last read from or written to storage,
+     * or null if it has never been stored.
+     */
+    @JsonIgnore
+    public PageComponent getCleanState() {
+        return cleanState;
+    }
+
+    /**
+     * Names of the persisted fields that differ from the stored state. Pages that have
+     * never been stored (or changed type) report every field.
+     */
+    @JsonIgnore
+    public Set<String> getDirtyFields() {
+        Set<String> dirty = new LinkedHashSet<>();
+        if (cleanState == null || cleanState.isLeaf() != isLeaf()) {
+            dirty.add(FIELD_TITLE);
+            dirty.add(FIELD_CONTENT);
+            dirty.add(FIELD_OWNER);
+            dirty.add(FIELD_PARENT_PAGE_ID);
+            dirty.add(FIELD_IS_PUBLISHED);
+            dirty.add(FIELD_SHARING_INFO);
+            dirty.add(FIELD_WORKSPACE_ID);
+            dirty.add(FIELD_CHILDREN_IDS);
+            dirty.add(FIELD_ANCESTOR_IDS);
+            return dirty;
+        }
+        if (!Objects.equals(title, cleanState.title)) dirty.add(FIELD_TITLE);
+        if (!Objects.equals(getContent(), cleanState.getContent())) dirty.add(FIELD_CONTENT);
+        if (!Objects.equals(owner, cleanState.owner)) dirty.add(FIELD_OWNER);
+        if (!Objects.equals(parentPageId, cleanState.parentPageId)) dirty.add(FIELD_PARENT_PAGE_ID);
+        if (isPublished != cleanState.isPublished) dirty.add(FIELD_IS_PUBLISHED);
+        if (!getSharingInfo().equals(cleanState.getSharingInfo())) dirty.add(FIELD_SHARING_INFO);
+        if (!Objects.equals(workspaceId, cleanState.workspaceId)) dirty.add(FIELD_WORKSPACE_ID);
+        if (!Objects.equals(ancestorIds, cleanState.ancestorIds)) dirty.add(FIELD_ANCESTOR_IDS);
+        collectDirtyFields(cleanState, dirty);
+        return dirty;
+    }
+
+    /**
+     * Adds subclass-specific dirty fields; {@code clean} is of the same type as this page.
+     */
+    protected void collectDirtyFields(PageComponent clean, Set<String> dirty) {
+    }
+
     // Common getters and setters
     public String getPageId() {
         return pageId;
@@ -122,6 +225,73 @@ public abstract class PageComponent {
         this.workspaceId = workspaceId;
     }
 
+    /**
+     * Ids of the page's ancestors, root first and parent last, or null for pages stored before
+     * the path was maintained. Root pages have an empty path.
+     */
+    public List<String> getAncestorIds() {
+        return ancestorIds;
+    }
+
+    public void setAncestorIds(List<String> ancestorIds) {
+        this.ancestorIds = ancestorIds;
+    }
+
+    /**
+     * Whether {@link #getAncestorIds()} can be trusted; pages without a parent trivially have no ancestors.
+     */
+    @JsonIgnore
+    public boolean hasAncestorPath() {
+        return parentPageId == null || parentPageId.isEmpty() || (ancestorIds != null && !ancestorIds.isEmpty());
+    }
+
+    /**
+     * The ancestor path of a direct child of this page, or null if this page's own path is unknown.
+     */
+    @JsonIgnore
+    public List<String> getChildAncestorIds() {
+        if (!hasAncestorPath()) {
+            return null;
+        }
+        List<String> path = ancestorIds != null ? new ArrayList<>(ancestorIds) : new ArrayList<>();
+        path.add(pageId);
+        return path;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Server-side update time of the document this page was loaded from, or null for
+     * pages that have not been read from storage. Used as a write precondition.
+     */
+    @JsonIgnore
+    public Instant getStoredUpdateTime() {
+        return storedUpdateTime;
+    }
+
+    public void setStoredUpdateTime(Instant storedUpdateTime) {
+        this.storedUpdateTime = storedUpdateTime;
+    }
+
+    /**
+     * Ordered ids of the content blocks of the document this page was loaded from, or null
+     * when its content is stored inline. Read together with {@link #getStoredUpdateTime()}.
+     */
+    @JsonIgnore
+    public List<String> getStoredBlockIds() {
+        return storedBlockIds;
+    }
+
+    public void setStoredBlockIds(List<String> storedBlockIds) {
+        this.storedBlockIds = storedBlockIds != null ? Collections.unmodifiableList(new ArrayList<>(storedBlockIds)) : null;
+    }
+
     // Helper methods for sharing
     public void addShare(String userEmail, String accessLevel) {
         if (this.sharingInfo == null) {
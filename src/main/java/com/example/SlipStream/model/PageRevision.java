@@ -0,0 +1,76 @@
+package com.example.SlipStream.model;
+
+import java.util.Date;
+
+/**
+ * A saved state of a page as returned by the revision history. Listings leave {@code content}
+ * null; point-in-time reads fill it with the content rebuilt for that revision.
+ */
+public class PageRevision {
+    private String pageId;
+    private long revision;
+    private long pageVersion;
+    private String title;
+    private Date savedAt;
+    private String content;
+
+    public PageRevision() {
+    }
+
+    public PageRevision(String pageId, long revision, long pageVersion, String title, Date savedAt, String content) {
+        this.pageId = pageId;
+        this.revision = revision;
+        this.pageVersion = pageVersion;
+        this.title = title;
+        this.savedAt = savedAt;
+        this.content = content;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public void setPageId(String pageId) {
+        this.pageId = pageId;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    public long getPageVersion() {
+        return pageVersion;
+    }
+
+    public void setPageVersion(long pageVersion) {
+        this.pageVersion = pageVersion;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Date getSavedAt() {
+        return savedAt;
+    }
+
+    public void setSavedAt(Date savedAt) {
+        this.savedAt = savedAt;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+}
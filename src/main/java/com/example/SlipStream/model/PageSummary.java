@@ -0,0 +1,102 @@
+package com.example.SlipStream.model;
+
+import java.util.Date;
+
+/**
+ * Metadata of a page without its content or children, for listings and navigation trees.
+ * Repositories fill it from projection queries so page bodies are never downloaded for them.
+ */
+public class PageSummary {
+    private String pageId;
+    private String title;
+    private String parentPageId;
+    private String owner;
+    private String workspaceId;
+    private boolean leaf;
+    private boolean published;
+    private Date lastUpdated;
+
+    public PageSummary() {
+    }
+
+    public PageSummary(String pageId, String title, String parentPageId, String owner, String workspaceId,
+                       boolean leaf, boolean published, Date lastUpdated) {
+        this.pageId = pageId;
+        this.title = title;
+        this.parentPageId = parentPageId;
+        this.owner = owner;
+        this.workspaceId = workspaceId;
+        this.leaf = leaf;
+        this.published = published;
+        this.lastUpdated = lastUpdated;
+    }
+
+    public static PageSummary from(PageComponent page) {
+        return new PageSummary(page.getPageId(), page.getTitle(), page.getParentPageId(), page.getOwner(),
+                page.getWorkspaceId(), page.isLeaf(), page.isPublished(), page.getLastUpdated());
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public void setPageId(String pageId) {
+        this.pageId = pageId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getParentPageId() {
+        return parentPageId;
+    }
+
+    public void setParentPageId(String parentPageId) {
+        this.parentPageId = parentPageId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId(String workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    public boolean isLeaf() {
+        return leaf;
+    }
+
+    public void setLeaf(boolean leaf) {
+        this.leaf = leaf;
+    }
+
+    public boolean isPublished() {
+        return published;
+    }
+
+    public void setPublished(boolean published) {
+        this.published = published;
+    }
+
+    public Date getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(Date lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+}
@@ -95,6 +95,22 @@ public class Workspace {
         this.lastUpdated = lastUpdated;
     }
 
+    /**
+     * Returns a detached copy of this workspace, so shared instances are never mutated by
+     * callers that modify a workspace before writing it back.
+     */
+    public Workspace copy() {
+        Workspace copy = new Workspace();
+        copy.id = this.id;
+        copy.name = this.name;
+        copy.owner = this.owner;
+        copy.members = this.members != null ? new ArrayList<>(this.members) : null;
+        copy.rootPageIds = this.rootPageIds != null ? new ArrayList<>(this.rootPageIds) : null;
+        copy.createdAt = this.createdAt;
+        copy.lastUpdated = this.lastUpdated;
+        return copy;
+    }
+
     // Business logic methods (optional, could also be in service)
     public void addMember(String userId) {
         if (this.members == null) {
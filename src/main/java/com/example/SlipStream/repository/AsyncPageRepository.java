@@ -0,0 +1,26 @@
+package com.example.SlipStream.repository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
+
+/**
+ * Non-blocking page reads. The returned futures complete on the storage client's threads,
+ * so independent lookups can be started together and joined once.
+ */
+public interface AsyncPageRepository {
+    CompletableFuture<PageComponent> getPageAsync(String pageId);
+    CompletableFuture<PageBatchResult> fetchPagesByIdsAsync(List<String> pageIds);
+    CompletableFuture<List<PageComponent>> findPagesByOwnerAsync(String ownerEmail);
+    CompletableFuture<List<PageComponent>> findPagesSharedWithUserAsync(String userEmail);
+    CompletableFuture<List<PageComponent>> findPagesByWorkspaceIdsAsync(List<String> workspaceIds);
+    CompletableFuture<List<PageSummary>> findPageSummariesByOwnerAsync(String ownerEmail);
+    CompletableFuture<List<PageSummary>> findPageSummariesSharedWithUserAsync(String userEmail);
+    CompletableFuture<List<PageSummary>> findPageSummariesByWorkspaceIdsAsync(List<String> workspaceIds);
+    /**
+     * Summaries of the given pages in the order of their first id; missing pages are left out.
+     */
+    CompletableFuture<List<PageSummary>> findPageSummariesByIdsAsync(List<String> pageIds);
+}
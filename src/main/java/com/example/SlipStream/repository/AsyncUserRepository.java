@@ -0,0 +1,13 @@
+package com.example.SlipStream.repository;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.example.SlipStream.model.User;
+
+/**
+ * Non-blocking user lookups and writes.
+ */
+public interface AsyncUserRepository {
+    CompletableFuture<User> getUserByEmailAsync(String email);
+    CompletableFuture<Void> saveUserAsync(User user);
+}
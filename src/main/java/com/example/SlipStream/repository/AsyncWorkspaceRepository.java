@@ -0,0 +1,15 @@
+package com.example.SlipStream.repository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.example.SlipStream.model.Workspace;
+
+/**
+ * Non-blocking workspace reads.
+ */
+public interface AsyncWorkspaceRepository {
+    CompletableFuture<Workspace> getWorkspaceByIdAsync(String workspaceId);
+    CompletableFuture<List<Workspace>> getWorkspacesForUserAsync(String userEmail);
+    CompletableFuture<List<Workspace>> findWorkspacesByUserEmailAsync(String userEmail);
+}
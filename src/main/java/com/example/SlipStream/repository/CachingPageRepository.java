@@ -0,0 +1,447 @@
+package com.example.SlipStream.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
+import com.example.SlipStream.repository.cache.ExpiringLruCache;
+import com.example.SlipStream.repository.cache.SingleFlight;
+
+/**
+ * Read-through cache in front of the Firestore page repository.
+ * Single-page reads are served from a bounded, expiring LRU cache; every mutation
+ * either refreshes or invalidates the affected entries so readers never act on
+ * stale sharing information. Queries are passed straight through.
+ *
+ * Cache misses for the same page that overlap in time share one Firestore read
+ * (see {@link SingleFlight}), so a burst of viewers of an uncached page and its
+ * ancestors costs one read per page rather than one per viewer.
+ */
+@Repository
+@Primary
+@Profile("!local")
+public class CachingPageRepository implements PageRepository, AsyncPageRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingPageRepository.class);
+    private static final long STATS_LOG_INTERVAL = 1000;
+
+    private final PageRepository delegate;
+    private final AsyncPageRepository asyncDelegate;
+    private final ExpiringLruCache<String, PageComponent> cache;
+    // Loaded pages are shared by every caller of a read, so each caller is handed a copy.
+    private final SingleFlight<String, PageComponent> inFlightReads = new SingleFlight<>();
+
+    public CachingPageRepository(@Qualifier("firebasePageRepository") PageRepository delegate,
+                                 @Qualifier("firebasePageRepository") AsyncPageRepository asyncDelegate,
+                                 @Value("${slipstream.page-cache.max-size:10000}") int maxSize,
+                                 @Value("${slipstream.page-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.delegate = delegate;
+        this.asyncDelegate = asyncDelegate;
+        this.cache = new ExpiringLruCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+        logger.info("Page cache initialized (max size {}, TTL {}s).", maxSize, ttlSeconds);
+    }
+
+    @Override
+    public String createPage(PageComponent page) throws ExecutionException, InterruptedException {
+        String pageId = delegate.createPage(page);
+        refresh(pageId, page);
+        return pageId;
+    }
+
+    /**
+     * Bulk-created pages are not put in the cache; an import would otherwise push out every page
+     * that is actually being read.
+     */
+    @Override
+    public void createPages(List<PageComponent> pages) throws ExecutionException, InterruptedException {
+        delegate.createPages(pages);
+    }
+
+    @Override
+    public PageComponent getPage(String pageId) throws ExecutionException, InterruptedException {
+        return getPageAsync(pageId).get();
+    }
+
+    @Override
+    public CompletableFuture<PageComponent> getPageAsync(String pageId) {
+        if (pageId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        PageComponent cached = cache.get(pageId);
+        logStatisticsPeriodically();
+        if (cached != null) {
+            logger.trace("Page cache hit for {}", pageId);
+            return CompletableFuture.completedFuture(cached.copy());
+        }
+        return inFlightReads.execute(pageId, asyncDelegate::getPageAsync, this::cacheLoaded)
+                .thenApply(CachingPageRepository::copyOf);
+    }
+
+    @Override
+    public List<PageComponent> getPagesByIds(List<String> pageIds) throws ExecutionException, InterruptedException {
+        return new ArrayList<>(fetchPagesByIds(pageIds).getPages());
+    }
+
+    @Override
+    public PageBatchResult fetchPagesByIds(List<String> pageIds) throws ExecutionException, InterruptedException {
+        return fetchPagesByIdsAsync(pageIds).get();
+    }
+
+    @Override
+    public CompletableFuture<PageBatchResult> fetchPagesByIdsAsync(List<String> pageIds) {
+        if (pageIds == null || pageIds.isEmpty()) {
+            return CompletableFuture.completedFuture(PageBatchResult.empty());
+        }
+        Map<String, PageComponent> found = new HashMap<>();
+        List<String> uncachedIds = new ArrayList<>();
+        for (String pageId : pageIds) {
+            if (pageId == null || found.containsKey(pageId)) {
+                continue;
+            }
+            PageComponent cached = cache.get(pageId);
+            if (cached != null) {
+                found.put(pageId, cached.copy());
+            } else {
+                uncachedIds.add(pageId);
+            }
+        }
+        Map<String, CompletableFuture<PageComponent>> loads = uncachedIds.isEmpty()
+                ? Map.of()
+                : inFlightReads.executeAll(uncachedIds, ids -> asyncDelegate.fetchPagesByIdsAsync(ids).thenApply(result -> {
+                    Map<String, PageComponent> loaded = new HashMap<>();
+                    for (PageComponent page : result.getPages()) {
+                        loaded.put(page.getPageId(), page);
+                    }
+                    return loaded;
+                }), this::cacheLoaded);
+        return CompletableFuture.allOf(loads.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            loads.forEach((pageId, load) -> {
+                PageComponent page = load.join();
+                if (page != null) {
+                    found.put(pageId, page.copy());
+                }
+            });
+            List<PageComponent> pages = new ArrayList<>();
+            List<String> missingIds = new ArrayList<>();
+            for (String pageId : new LinkedHashSet<>(pageIds)) {
+                PageComponent page = pageId != null ? found.get(pageId) : null;
+                if (page != null) {
+                    pages.add(page);
+                } else if (pageId != null) {
+                    missingIds.add(pageId);
+                }
+            }
+            return new PageBatchResult(pages, missingIds);
+        });
+    }
+
+    @Override
+    public List<PageComponent> getAllPages() throws ExecutionException, InterruptedException {
+        return delegate.getAllPages();
+    }
+
+    @Override
+    public List<PageComponent> getChildPages(String parentPageId) throws ExecutionException, InterruptedException {
+        return delegate.getChildPages(parentPageId);
+    }
+
+    @Override
+    public List<PageSummary> getChildPageSummaries(String parentPageId) throws ExecutionException, InterruptedException {
+        return delegate.getChildPageSummaries(parentPageId);
+    }
+
+    @Override
+    public PageSlice listPages(String cursor, int limit) throws ExecutionException, InterruptedException {
+        return delegate.listPages(cursor, limit);
+    }
+
+    @Override
+    public PageSlice getChildPages(String parentPageId, String cursor, int limit) throws ExecutionException, InterruptedException {
+        return delegate.getChildPages(parentPageId, cursor, limit);
+    }
+
+    @Override
+    public PageSlice findPagesByOwner(String ownerEmail, String cursor, int limit) throws ExecutionException, InterruptedException {
+        return delegate.findPagesByOwner(ownerEmail, cursor, limit);
+    }
+
+    @Override
+    public PageSlice findPagesByWorkspaceIds(List<String> workspaceIds, String cursor, int limit) throws ExecutionException, InterruptedException {
+        return delegate.findPagesByWorkspaceIds(workspaceIds, cursor, limit);
+    }
+
+    @Override
+    public boolean updatePageContent(String pageId, String newContent) throws ExecutionException, InterruptedException {
+        try {
+            return delegate.updatePageContent(pageId, newContent);
+        } finally {
+            invalidate(pageId);
+        }
+    }
+
+    @Override
+    public boolean updatePage(PageComponent page) throws ExecutionException, InterruptedException {
+        if (page == null || page.getPageId() == null) {
+            return delegate.updatePage(page);
+        }
+        boolean updated = false;
+        try {
+            updated = delegate.updatePage(page);
+            return updated;
+        } finally {
+            if (updated) {
+                refresh(page.getPageId(), page);
+            } else {
+                invalidate(page.getPageId());
+            }
+        }
+    }
+
+    @Override
+    public PageUpdateResult updatePageVersioned(PageComponent page) throws ExecutionException, InterruptedException {
+        if (page == null || page.getPageId() == null) {
+            return delegate.updatePageVersioned(page);
+        }
+        PageUpdateResult result = null;
+        try {
+            result = delegate.updatePageVersioned(page);
+            return result;
+        } finally {
+            if (result != null && result.isUpdated()) {
+                refresh(page.getPageId(), page);
+            } else {
+                invalidate(page.getPageId());
+            }
+        }
+    }
+
+    @Override
+    public PageUpdateResult updatePageVersioned(PageComponent page, long baseVersion) throws ExecutionException, InterruptedException {
+        if (page == null || page.getPageId() == null) {
+            return delegate.updatePageVersioned(page, baseVersion);
+        }
+        PageUpdateResult result = null;
+        try {
+            result = delegate.updatePageVersioned(page, baseVersion);
+            return result;
+        } finally {
+            if (result != null && result.isUpdated()) {
+                refresh(page.getPageId(), page);
+            } else {
+                invalidate(page.getPageId());
+            }
+        }
+    }
+
+    @Override
+    public void updateAncestorIds(Map<String, List<String>> ancestorIdsByPageId) throws ExecutionException, InterruptedException {
+        try {
+            delegate.updateAncestorIds(ancestorIdsByPageId);
+        } finally {
+            ancestorIdsByPageId.keySet().forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public boolean deletePage(String pageId) throws ExecutionException, InterruptedException {
+        return !deletePages(List.of(pageId)).isEmpty();
+    }
+
+    @Override
+    public PageDeletionResult deletePages(List<String> rootPageIds) throws ExecutionException, InterruptedException {
+        // The delegate reports every deleted page and rewritten parent, so only those are dropped.
+        // If it fails part way we cannot tell which pages are gone, so the whole cache is cleared.
+        PageDeletionResult result = null;
+        try {
+            result = delegate.deletePages(rootPageIds);
+            return result;
+        } finally {
+            if (result != null) {
+                result.getDeletedIds().forEach(this::invalidate);
+                result.getRemovedChildrenByParent().keySet().forEach(this::invalidate);
+            } else {
+                inFlightReads.forgetAll();
+                cache.invalidateAll();
+            }
+        }
+    }
+
+    @Override
+    public List<PageComponent> findPagesByOwner(String ownerEmail) throws ExecutionException, InterruptedException {
+        return delegate.findPagesByOwner(ownerEmail);
+    }
+
+    @Override
+    public List<PageComponent> findPagesSharedWithUser(String userEmail) throws ExecutionException, InterruptedException {
+        return delegate.findPagesSharedWithUser(userEmail);
+    }
+
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesByOwnerAsync(String ownerEmail) {
+        return asyncDelegate.findPagesByOwnerAsync(ownerEmail);
+    }
+
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesSharedWithUserAsync(String userEmail) {
+        return asyncDelegate.findPagesSharedWithUserAsync(userEmail);
+    }
+
+    @Override
+    public boolean sharePageWithUser(String pageId, String userEmail, String accessLevel) throws ExecutionException, InterruptedException {
+        try {
+            return delegate.sharePageWithUser(pageId, userEmail, accessLevel);
+        } finally {
+            invalidate(pageId);
+        }
+    }
+
+    @Override
+    public boolean unsharePageWithUser(String pageId, String userEmail) throws ExecutionException, InterruptedException {
+        try {
+            return delegate.unsharePageWithUser(pageId, userEmail);
+        } finally {
+            invalidate(pageId);
+        }
+    }
+
+    @Override
+    public List<PageComponent> findPagesByWorkspaceIds(List<String> workspaceIds) throws ExecutionException, InterruptedException {
+        return delegate.findPagesByWorkspaceIds(workspaceIds);
+    }
+
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesByWorkspaceIdsAsync(List<String> workspaceIds) {
+        return asyncDelegate.findPagesByWorkspaceIdsAsync(workspaceIds);
+    }
+
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesByOwnerAsync(String ownerEmail) {
+        return asyncDelegate.findPageSummariesByOwnerAsync(ownerEmail);
+    }
+
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesSharedWithUserAsync(String userEmail) {
+        return asyncDelegate.findPageSummariesSharedWithUserAsync(userEmail);
+    }
+
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesByWorkspaceIdsAsync(List<String> workspaceIds) {
+        return asyncDelegate.findPageSummariesByWorkspaceIdsAsync(workspaceIds);
+    }
+
+    /**
+     * Cached pages are summarized in place; only the others are read, as summaries, and they are
+     * not cached since they lack content.
+     */
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesByIdsAsync(List<String> pageIds) {
+        Map<String, PageSummary> found = new HashMap<>();
+        List<String> uncachedIds = new ArrayList<>();
+        for (String pageId : new LinkedHashSet<>(pageIds)) {
+            PageComponent cached = pageId != null ? cache.get(pageId) : null;
+            if (cached != null) {
+                found.put(pageId, PageSummary.from(cached));
+            } else if (pageId != null) {
+                uncachedIds.add(pageId);
+            }
+        }
+        CompletableFuture<List<PageSummary>> loaded = uncachedIds.isEmpty()
+                ? CompletableFuture.completedFuture(List.of())
+                : asyncDelegate.findPageSummariesByIdsAsync(uncachedIds);
+        return loaded.thenApply(summaries -> {
+            for (PageSummary summary : summaries) {
+                found.put(summary.getPageId(), summary);
+            }
+            List<PageSummary> ordered = new ArrayList<>();
+            for (String pageId : new LinkedHashSet<>(pageIds)) {
+                PageSummary summary = pageId != null ? found.get(pageId) : null;
+                if (summary != null) {
+                    ordered.add(summary);
+                }
+            }
+            return ordered;
+        });
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public double getHitRate() {
+        return cache.getHitRate();
+    }
+
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    public long getCoalescedReadCount() {
+        return inFlightReads.getCoalescedCount();
+    }
+
+    /**
+     * Share of cache misses that joined a read of the same page already in flight.
+     */
+    public double getCoalescingRatio() {
+        return inFlightReads.getCoalescingRatio();
+    }
+
+    private void cacheLoaded(String pageId, PageComponent page) {
+        if (page != null) {
+            cache.put(pageId, page);
+        }
+    }
+
+    private static PageComponent copyOf(PageComponent page) {
+        return page != null ? page.copy() : null;
+    }
+
+    /**
+     * Caches a page just written. Reads in flight may have started before the write, so they are
+     * detached first and cannot overwrite the entry with what they read.
+     */
+    private void refresh(String pageId, PageComponent page) {
+        inFlightReads.forget(pageId);
+        cache.put(pageId, page.copy());
+    }
+
+    private void invalidate(String pageId) {
+        inFlightReads.forget(pageId);
+        cache.invalidate(pageId);
+    }
+
+    private void logStatisticsPeriodically() {
+        long lookups = cache.getHitCount() + cache.getMissCount();
+        if (lookups % STATS_LOG_INTERVAL == 0) {
+            logger.info("Page cache stats: {} lookups, hit rate {}%, size {}, {} evictions, {} expirations, {} invalidations, "
+                            + "{} of {} misses coalesced ({}%)",
+                    lookups, String.format("%.1f", cache.getHitRate() * 100), cache.size(),
+                    cache.getEvictionCount(), cache.getExpirationCount(), cache.getInvalidationCount(),
+                    inFlightReads.getCoalescedCount(), inFlightReads.getRequestCount(),
+                    String.format("%.1f", inFlightReads.getCoalescingRatio() * 100));
+        }
+    }
+}
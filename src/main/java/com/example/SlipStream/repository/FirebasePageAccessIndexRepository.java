@@ -0,0 +1,128 @@
+package com.example.SlipStream.repository;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteResult;
+import com.google.firebase.cloud.FirestoreClient;
+
+/**
+ * Page access index stored as one small document per user and page in {@value #COLLECTION_NAME},
+ * found by equality on {@code userEmail} or {@code pageId}. Document ids combine the URL-encoded
+ * email with the page id, so an upsert for the same user and page overwrites the previous entry.
+ */
+@Repository
+@Profile("!local")
+public class FirebasePageAccessIndexRepository implements PageAccessIndexRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebasePageAccessIndexRepository.class);
+
+    private static final String COLLECTION_NAME = "PageAccess";
+    private static final String FIELD_USER_EMAIL = "userEmail";
+    private static final String FIELD_PAGE_ID = "pageId";
+    private static final String FIELD_ACCESS = "access";
+    private static final int IN_QUERY_LIMIT = 30;
+
+    @Override
+    public CompletableFuture<List<PageAccessEntry>> findByUserAsync(String userEmail) {
+        ApiFuture<QuerySnapshot> future = collection(FirestoreClient.getFirestore())
+                .whereEqualTo(FIELD_USER_EMAIL, userEmail)
+                .get();
+        return FirestoreFutures.map(future, this::convertAll);
+    }
+
+    @Override
+    public List<PageAccessEntry> findByPageIds(Collection<String> pageIds) throws ExecutionException, InterruptedException {
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(pageIds));
+        if (distinctIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        CollectionReference collection = collection(FirestoreClient.getFirestore());
+        List<ApiFuture<QuerySnapshot>> queries = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i += IN_QUERY_LIMIT) {
+            queries.add(collection.whereIn(FIELD_PAGE_ID, distinctIds.subList(i, Math.min(i + IN_QUERY_LIMIT, distinctIds.size()))).get());
+        }
+        List<PageAccessEntry> entries = new ArrayList<>();
+        for (QuerySnapshot snapshot : ApiFutures.allAsList(queries).get()) {
+            entries.addAll(convertAll(snapshot));
+        }
+        return entries;
+    }
+
+    @Override
+    public List<PageAccessEntry> findAll() throws ExecutionException, InterruptedException {
+        return convertAll(collection(FirestoreClient.getFirestore()).get().get());
+    }
+
+    @Override
+    public void write(Collection<PageAccessEntry> upserts, Collection<PageAccessEntry> removals) throws ExecutionException, InterruptedException {
+        if (upserts.isEmpty() && removals.isEmpty()) {
+            return;
+        }
+        CollectionReference collection = collection(FirestoreClient.getFirestore());
+        BulkWriter writer = FirestoreClient.getFirestore().bulkWriter();
+        List<ApiFuture<WriteResult>> writes = new ArrayList<>();
+        try {
+            for (PageAccessEntry entry : removals) {
+                writes.add(writer.delete(collection.document(documentId(entry.getUserEmail(), entry.getPageId()))));
+            }
+            for (PageAccessEntry entry : upserts) {
+                Map<String, Object> data = new HashMap<>();
+                data.put(FIELD_USER_EMAIL, entry.getUserEmail());
+                data.put(FIELD_PAGE_ID, entry.getPageId());
+                data.put(FIELD_ACCESS, entry.getAccess());
+                writes.add(writer.set(collection.document(documentId(entry.getUserEmail(), entry.getPageId())), data));
+            }
+        } finally {
+            writer.close();
+        }
+        for (ApiFuture<WriteResult> write : writes) {
+            write.get();
+        }
+        logger.debug("Wrote {} access index entries and removed {}.", upserts.size(), removals.size());
+    }
+
+    @Override
+    public void deleteByPageIds(Collection<String> pageIds) throws ExecutionException, InterruptedException {
+        List<PageAccessEntry> entries = findByPageIds(pageIds);
+        write(List.of(), entries);
+    }
+
+    private static CollectionReference collection(Firestore firestore) {
+        return firestore.collection(COLLECTION_NAME);
+    }
+
+    private static String documentId(String userEmail, String pageId) {
+        // Emails may contain '/', which Firestore does not allow in document ids.
+        return URLEncoder.encode(userEmail, StandardCharsets.UTF_8) + ":" + pageId;
+    }
+
+    private List<PageAccessEntry> convertAll(QuerySnapshot snapshot) {
+        List<PageAccessEntry> entries = new ArrayList<>();
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            entries.add(new PageAccessEntry(document.getString(FIELD_USER_EMAIL), document.getString(FIELD_PAGE_ID),
+                    document.getString(FIELD_ACCESS)));
+        }
+        return entries;
+    }
+}
@@ -1,15 +1,25 @@
 package com.example.SlipStream.repository;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.Collections;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,8 +27,15 @@ import org.slf4j.LoggerFactory;
 import com.example.SlipStream.model.ContainerPage;
 import com.example.SlipStream.model.ContentPage;
 import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
+import com.example.SlipStream.repository.cache.ExpiringLruCache;
 import com.google.cloud.firestore.Query;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
@@ -28,12 +45,72 @@ import com.google.firebase.cloud.FirestoreClient;
 import com.google.cloud.firestore.WriteResult;
 import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.Precondition;
 
 @Repository
-public class FirebasePageRepository implements PageRepository {
+@Profile("!local")
+public class FirebasePageRepository implements PageRepository, AsyncPageRepository {
 
     private static final String COLLECTION_NAME = "Pages";
     private static final Logger logger = LoggerFactory.getLogger(FirebasePageRepository.class);
+    // Firestore accepts at most 30 values in an "in" filter; getAll is chunked to keep each RPC small.
+    private static final int IN_QUERY_LIMIT = 30;
+    private static final int BATCH_GET_CHUNK_SIZE = 100;
+    private static final int MAX_BLOCK_WRITE_ATTEMPTS = 3;
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+    // Denormalized from sharingInfo so shared-page lookups are array-contains queries.
+    static final String FIELD_SHARED_WITH = "sharedWith";
+    static final String FIELD_SHARED_WITH_VIEW = "sharedWithView";
+    static final String FIELD_SHARED_WITH_EDIT = "sharedWithEdit";
+    private static final Map<String, List<String>> NO_SHARING_ARRAYS = Map.of(
+            FIELD_SHARED_WITH, List.of(), FIELD_SHARED_WITH_VIEW, List.of(), FIELD_SHARED_WITH_EDIT, List.of());
+    // Fields read by summary queries; everything else (content above all) stays on the server.
+    private static final String[] SUMMARY_FIELDS = {
+            "pageId", "title", "parentPageId", "owner", "workspaceId", "isLeaf", "isPublished", "lastUpdated"};
+
+    // Ids recently confirmed missing; creates clear an entry, deletes add one.
+    private final ExpiringLruCache<String, Boolean> knownMissingIds;
+    // Older documents may be stored under an id other than their pageId field. Once the
+    // document id migration has run, the extra whereEqualTo("pageId") query can be skipped;
+    // this is configuration rather than runtime state so every instance makes the same choice.
+    private final boolean legacyIdLookupEnabled;
+    // Documents written before the sharedWith arrays existed are only found by the sharingInfo
+    // query; switch to the array query once the backfill has covered them. Like the legacy id
+    // lookup this is configuration, so every instance makes the same choice.
+    private final boolean sharedWithQueryEnabled;
+    // Upper bound on concurrent whereIn queries when a lookup spans more than IN_QUERY_LIMIT workspaces.
+    private final int workspaceQueryConcurrency;
+    // When set, page bodies are written as blocks (see PageBlockStore); both layouts are always readable.
+    private final boolean blockStorageEnabled;
+    private final PageContentCodec contentCodec;
+    private final PageDocumentCodec documentCodec;
+
+    public FirebasePageRepository(@Value("${slipstream.pages.legacy-id-lookup:true}") boolean legacyIdLookupEnabled,
+                                  @Value("${slipstream.pages.shared-with-query:false}") boolean sharedWithQueryEnabled,
+                                  @Value("${slipstream.pages.negative-cache.max-size:10000}") int negativeCacheSize,
+                                  @Value("${slipstream.pages.negative-cache.ttl-seconds:300}") long negativeCacheTtlSeconds,
+                                  @Value("${slipstream.pages.workspace-query-concurrency:4}") int workspaceQueryConcurrency,
+                                  @Value("${slipstream.pages.block-storage:false}") boolean blockStorageEnabled,
+                                  @Value("${slipstream.pages.compression.enabled:false}") boolean compressionEnabled,
+                                  @Value("${slipstream.pages.compression.threshold-bytes:16384}") int compressionThreshold,
+                                  @Value("${slipstream.pages.compression.level:1}") int compressionLevel) {
+        this.legacyIdLookupEnabled = legacyIdLookupEnabled;
+        this.sharedWithQueryEnabled = sharedWithQueryEnabled;
+        this.knownMissingIds = new ExpiringLruCache<>(negativeCacheSize, negativeCacheTtlSeconds, TimeUnit.SECONDS);
+        this.workspaceQueryConcurrency = Math.max(1, workspaceQueryConcurrency);
+        this.blockStorageEnabled = blockStorageEnabled;
+        this.contentCodec = new PageContentCodec(compressionEnabled, compressionThreshold, compressionLevel);
+        this.documentCodec = new PageDocumentCodec(contentCodec);
+    }
+
+    public boolean isLegacyIdLookupEnabled() {
+        return legacyIdLookupEnabled;
+    }
+
+    public boolean isSharedWithQueryEnabled() {
+        return sharedWithQueryEnabled;
+    }
 
     @Override
     public String createPage(PageComponent page) throws ExecutionException, InterruptedException {
@@ -48,38 +125,111 @@ public class FirebasePageRepository implements PageRepository {
         }
         page.setLastUpdated(new Date());
         
-        Map<String, Object> pageMap = convertToMap(page);
-        
-        firestore.collection(COLLECTION_NAME).document(page.getPageId()).set(pageMap).get();
+        Map<String, Object> pageMap = documentCodec.toMap(page);
+        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(page.getPageId());
+
+        WriteResult result;
+        if (blockStorageEnabled) {
+            PageBlockStore.Plan plan = PageBlockStore.plan(page.getContent(), null);
+            pageMap.remove("content");
+            pageMap.remove(PageContentCodec.FIELD_CONTENT_ENCODING);
+            pageMap.put(PageBlockStore.FIELD_BLOCK_IDS, plan.getBlockIds());
+            result = PageBlockStore.commit(firestore, docRef, plan, batch -> batch.set(docRef, pageMap));
+            page.setStoredBlockIds(plan.getBlockIds());
+        } else {
+            result = docRef.set(pageMap).get();
+        }
+        applyWrite(page, 0L, result);
+        knownMissingIds.invalidate(page.getPageId());
         return page.getPageId();
     }
 
+    /**
+     * Writes new pages through one {@link BulkWriter} with {@code create}, so an id that is already
+     * taken fails instead of being overwritten. Nothing is read first: the pages must already carry
+     * their ids, parents, children and ancestor paths. With block storage, the blocks of all pages
+     * are written and confirmed before any page that references them.
+     */
     @Override
-    public PageComponent getPage(String pageId) throws ExecutionException, InterruptedException {
-        System.out.println("Looking for page with pageId: " + pageId);
-        
+    public void createPages(List<PageComponent> pages) throws ExecutionException, InterruptedException {
+        if (pages.isEmpty()) {
+            return;
+        }
         Firestore firestore = FirestoreClient.getFirestore();
-        
-        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(pageId);
-        ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
-        
-        if (document.exists()) {
-            return convertToPageComponent(document);
+        Date now = new Date();
+        List<Map<String, Object>> pageMaps = new ArrayList<>(pages.size());
+        List<ApiFuture<WriteResult>> blockWrites = new ArrayList<>();
+        List<ApiFuture<WriteResult>> writes = new ArrayList<>(pages.size());
+        BulkWriter writer = firestore.bulkWriter();
+        try {
+            for (PageComponent page : pages) {
+                if (page.getCreatedAt() == null) {
+                    page.setCreatedAt(now);
+                }
+                page.setLastUpdated(now);
+                Map<String, Object> pageMap = documentCodec.toMap(page);
+                if (blockStorageEnabled) {
+                    PageBlockStore.Plan plan = PageBlockStore.plan(page.getContent(), null);
+                    PageBlockStore.write(writer, firestore.collection(COLLECTION_NAME).document(page.getPageId()), plan, blockWrites);
+                    pageMap.remove("content");
+                    pageMap.remove(PageContentCodec.FIELD_CONTENT_ENCODING);
+                    pageMap.put(PageBlockStore.FIELD_BLOCK_IDS, plan.getBlockIds());
+                    page.setStoredBlockIds(plan.getBlockIds());
+                }
+                pageMaps.add(pageMap);
+            }
+            if (!blockWrites.isEmpty()) {
+                writer.flush().get();
+                for (ApiFuture<WriteResult> write : blockWrites) {
+                    write.get();
+                }
+            }
+            for (int i = 0; i < pages.size(); i++) {
+                writes.add(writer.create(firestore.collection(COLLECTION_NAME).document(pages.get(i).getPageId()), pageMaps.get(i)));
+            }
+        } finally {
+            writer.close();
         }
-        
-        Query query = firestore.collection(COLLECTION_NAME).whereEqualTo("pageId", pageId);
-        ApiFuture<QuerySnapshot> querySnapshot = query.get();
-        
-        List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
-        System.out.println("Query complete. Found " + documents.size() + " matching documents");
-        
-        if (!documents.isEmpty()) {
-            return convertToPageComponent(documents.get(0));
+        for (int i = 0; i < pages.size(); i++) {
+            PageComponent page = pages.get(i);
+            applyWrite(page, 0L, writes.get(i).get());
+            knownMissingIds.invalidate(page.getPageId());
         }
-        
-        System.out.println("No document found with pageId: " + pageId);
-        return null;
+        logger.debug("Created {} pages with {} block writes.", pages.size(), blockWrites.size());
+    }
+
+    @Override
+    public PageComponent getPage(String pageId) throws ExecutionException, InterruptedException {
+        return getPageAsync(pageId).get();
+    }
+
+    @Override
+    public CompletableFuture<PageComponent> getPageAsync(String pageId) {
+        logger.debug("Looking for page with pageId: {}", pageId);
+        if (knownMissingIds.get(pageId) != null) {
+            logger.debug("Page {} is known to be missing, skipping lookup.", pageId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Firestore firestore = FirestoreClient.getFirestore();
+
+        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(pageId);
+        return FirestoreFutures.toCompletable(docRef.get()).thenCompose(document -> {
+            if (document.exists()) {
+                return withContent(documentCodec.toPage(document));
+            }
+            CompletableFuture<DocumentSnapshot> legacyLookup = legacyIdLookupEnabled
+                    ? findLegacyDocumentAsync(firestore, pageId)
+                    : CompletableFuture.completedFuture(null);
+            return legacyLookup.thenCompose(legacyDocument -> {
+                if (legacyDocument != null) {
+                    return withContent(documentCodec.toPage(legacyDocument));
+                }
+                logger.debug("No document found with pageId: {}", pageId);
+                knownMissingIds.put(pageId, Boolean.TRUE);
+                return CompletableFuture.completedFuture(null);
+            });
+        });
     }
 
     @Override
@@ -91,10 +241,10 @@ public class FirebasePageRepository implements PageRepository {
         List<QueryDocumentSnapshot> documents = future.get().getDocuments();
         
         for (QueryDocumentSnapshot document : documents) {
-            pages.add(convertToPageComponent(document));
+            pages.add(documentCodec.toPage(document));
         }
         
-        return pages;
+        return withContent(pages).get();
     }
 
     @Override
@@ -109,35 +259,140 @@ public class FirebasePageRepository implements PageRepository {
         List<QueryDocumentSnapshot> documents = future.get().getDocuments();
         
         for (QueryDocumentSnapshot document : documents) {
-            childPages.add(convertToPageComponent(document));
+            childPages.add(documentCodec.toPage(document));
         }
         
-        return childPages;
+        return withContent(childPages).get();
+    }
+
+    @Override
+    public List<PageSummary> getChildPageSummaries(String parentPageId) throws ExecutionException, InterruptedException {
+        Query query = FirestoreClient.getFirestore().collection(COLLECTION_NAME)
+                .whereEqualTo("parentPageId", parentPageId)
+                .select(SUMMARY_FIELDS);
+        return convertAllSummaries(query.get().get());
+    }
+
+    @Override
+    public PageSlice listPages(String cursor, int limit) throws ExecutionException, InterruptedException {
+        return querySlice(List.of(FirestoreClient.getFirestore().collection(COLLECTION_NAME)), cursor, limit);
+    }
+
+    @Override
+    public PageSlice getChildPages(String parentPageId, String cursor, int limit) throws ExecutionException, InterruptedException {
+        return querySlice(List.of(FirestoreClient.getFirestore().collection(COLLECTION_NAME)
+                .whereEqualTo("parentPageId", parentPageId)), cursor, limit);
+    }
+
+    @Override
+    public PageSlice findPagesByOwner(String ownerEmail, String cursor, int limit) throws ExecutionException, InterruptedException {
+        return querySlice(List.of(FirestoreClient.getFirestore().collection(COLLECTION_NAME)
+                .whereEqualTo("owner", ownerEmail)), cursor, limit);
+    }
+
+    /**
+     * Pages of many workspaces, one {@code whereIn} query per {@value #IN_QUERY_LIMIT} ids. Each
+     * query returns its next {@code limit + 1} documents after the cursor and the results are merged
+     * by document id, so a single cursor pages through all of them.
+     */
+    @Override
+    public PageSlice findPagesByWorkspaceIds(List<String> workspaceIds, String cursor, int limit) throws ExecutionException, InterruptedException {
+        if (workspaceIds == null || workspaceIds.isEmpty()) {
+            return PageSlice.empty();
+        }
+        Firestore firestore = FirestoreClient.getFirestore();
+        List<Query> queries = new ArrayList<>();
+        for (List<String> chunk : partition(new ArrayList<>(new LinkedHashSet<>(workspaceIds)), IN_QUERY_LIMIT)) {
+            queries.add(firestore.collection(COLLECTION_NAME).whereIn("workspaceId", chunk));
+        }
+        return querySlice(queries, cursor, limit);
+    }
+
+    /**
+     * Runs each query ordered by document id from just after {@code cursor}, fetching one extra
+     * document to tell whether another slice follows, and merges the results by document id.
+     */
+    private PageSlice querySlice(List<Query> queries, String cursor, int limit) throws ExecutionException, InterruptedException {
+        Firestore firestore = FirestoreClient.getFirestore();
+        List<ApiFuture<QuerySnapshot>> futures = new ArrayList<>();
+        for (Query query : queries) {
+            Query ordered = query.orderBy(FieldPath.documentId());
+            if (cursor != null && !cursor.isEmpty()) {
+                ordered = ordered.startAfter(firestore.collection(COLLECTION_NAME).document(cursor));
+            }
+            futures.add(ordered.limit(limit + 1).get());
+        }
+        TreeMap<String, QueryDocumentSnapshot> documentsById = new TreeMap<>();
+        for (QuerySnapshot snapshot : ApiFutures.allAsList(futures).get()) {
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                documentsById.put(document.getId(), document);
+            }
+        }
+        List<PageComponent> pages = new ArrayList<>();
+        String lastId = null;
+        String nextCursor = null;
+        for (QueryDocumentSnapshot document : documentsById.values()) {
+            if (pages.size() == limit) {
+                nextCursor = lastId;
+                break;
+            }
+            PageComponent page = documentCodec.toPage(document);
+            if (page != null) {
+                pages.add(page);
+            }
+            lastId = document.getId();
+        }
+        return new PageSlice(withContent(pages).get(), nextCursor);
     }
 
     @Override
     public boolean updatePageContent(String pageId, String newContent) throws ExecutionException, InterruptedException {
+        if (knownMissingIds.get(pageId) != null) {
+            return false;
+        }
+        if (blockStorageEnabled) {
+            PageComponent page = getPage(pageId);
+            if (page == null) {
+                return false;
+            }
+            if (page.isLeaf()) {
+                ((ContentPage) page).setContent(newContent);
+            } else {
+                ((ContainerPage) page).setSummary(newContent);
+            }
+            return updatePage(page);
+        }
         Firestore firestore = FirestoreClient.getFirestore();
-        
+
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(pageId);
-        ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
-        
-        if (document.exists()) {
-            docRef.update("content", newContent, "lastUpdated", new Date()).get();
-            return true;
+        PageContentCodec.Encoded encoded = contentCodec.encode(newContent);
+        if (!legacyIdLookupEnabled) {
+            // Document ids are guaranteed to match pageId, so a blind update is a single round trip.
+            try {
+                docRef.update("content", encoded.getValue(), PageContentCodec.FIELD_CONTENT_ENCODING, encoded.getEncoding(),
+                        PageBlockStore.FIELD_BLOCK_IDS, FieldValue.delete(), "lastUpdated", new Date()).get();
+                return true;
+            } catch (ExecutionException e) {
+                if (hasStatus(e, StatusCode.Code.NOT_FOUND)) {
+                    knownMissingIds.put(pageId, Boolean.TRUE);
+                    return false;
+                }
+                throw e;
+            }
         }
-        
-        Query query = firestore.collection(COLLECTION_NAME).whereEqualTo("pageId", pageId);
-        QuerySnapshot querySnapshot = query.get().get();
-        
-        if (querySnapshot.isEmpty()) {
-            return false;
+
+        DocumentSnapshot document = docRef.get().get();
+        if (!document.exists()) {
+            document = findLegacyDocument(firestore, pageId);
+            if (document == null) {
+                knownMissingIds.put(pageId, Boolean.TRUE);
+                return false;
+            }
+            docRef = document.getReference();
         }
-        
-        docRef = querySnapshot.getDocuments().get(0).getReference();
-        
-        docRef.update("content", newContent, "lastUpdated", new Date()).get();
+
+        docRef.update("content", encoded.getValue(), PageContentCodec.FIELD_CONTENT_ENCODING, encoded.getEncoding(),
+                PageBlockStore.FIELD_BLOCK_IDS, FieldValue.delete(), "lastUpdated", new Date()).get();
         return true;
     }
 
@@ -149,105 +404,436 @@ public class FirebasePageRepository implements PageRepository {
         
         Firestore db = FirestoreClient.getFirestore();
         DocumentReference docRef = db.collection(COLLECTION_NAME).document(page.getPageId());
-        
-        DocumentSnapshot document = docRef.get().get();
-        if (!document.exists()) {
-            return false;
+
+        // The caller does not ask for a version check, but its copy may be older than the stored
+        // document. The write is pinned to the update time of the stored state it builds on, so the
+        // new version can be derived from that state's version: first the one the page was read
+        // at, which costs no extra round trip, then the current one if another write came first.
+        // update() fails with NOT_FOUND on a missing document, so no existence read is needed.
+        long baseVersion = page.getVersion();
+        Timestamp baseUpdateTime = page.getStoredUpdateTime() != null
+                ? Timestamp.ofTimeSecondsAndNanos(page.getStoredUpdateTime().getEpochSecond(), page.getStoredUpdateTime().getNano())
+                : null;
+        for (int attempt = 1; ; attempt++) {
+            if (baseUpdateTime == null) {
+                DocumentSnapshot current = docRef.get(FieldMask.of("version", PageBlockStore.FIELD_BLOCK_IDS)).get();
+                if (!current.exists()) {
+                    // Only a read that also tried the legacy lookup may mark the page missing.
+                    knownMissingIds.invalidate(page.getPageId());
+                    return false;
+                }
+                baseVersion = PageDocumentCodec.readVersion(current);
+                baseUpdateTime = current.getUpdateTime();
+                page.setStoredBlockIds(PageDocumentCodec.readBlockIds(current));
+            }
+            long newVersion = baseVersion + 1;
+            try {
+                WriteResult result = writePage(docRef, Precondition.updatedAt(baseUpdateTime), page, buildFieldUpdates(page, newVersion));
+                if (result == null) {
+                    knownMissingIds.invalidate(page.getPageId());
+                    return false;
+                }
+                applyWrite(page, newVersion, result);
+                return true;
+            } catch (ExecutionException e) {
+                if (hasStatus(e, StatusCode.Code.NOT_FOUND)) {
+                    knownMissingIds.invalidate(page.getPageId());
+                    return false;
+                }
+                if (attempt >= MAX_UPDATE_ATTEMPTS || !hasStatus(e, StatusCode.Code.FAILED_PRECONDITION)) {
+                    throw e;
+                }
+                logger.debug("Page {} changed since version {} was read; retrying the update ({} of {}).",
+                        page.getPageId(), baseVersion, attempt, MAX_UPDATE_ATTEMPTS);
+                baseUpdateTime = null;
+            }
         }
-        
-        Map<String, Object> pageMap = convertToMap(page);
-        ApiFuture<WriteResult> result = docRef.set(pageMap);
-        result.get();
-        
-        return true;
     }
 
+    /**
+     * Writes the page only if the stored document has not changed since it was read, using the
+     * document update time captured at read time as a precondition. The write is a single round
+     * trip; only a rejected write costs an extra read, to report the version that won.
+     */
     @Override
-    public boolean deletePage(String pageId) throws ExecutionException, InterruptedException {
+    public PageUpdateResult updatePageVersioned(PageComponent page) throws ExecutionException, InterruptedException {
+        if (page == null || page.getPageId() == null || page.getPageId().isEmpty()) {
+            return PageUpdateResult.notFound();
+        }
+        if (page.getStoredUpdateTime() == null) {
+            // Nothing to compare against (page was not read from the store); fall back to a plain update.
+            return updatePage(page) ? PageUpdateResult.updated(page.getVersion()) : PageUpdateResult.notFound();
+        }
+        return writeVersioned(page, page.getVersion(), page.getVersion() + 1);
+    }
+
+    /**
+     * Writes the page at its own version if the stored document has not changed since the read
+     * that produced {@code baseVersion}; used for edits that were assigned their version before
+     * being written. The precondition is the same update time check as above.
+     */
+    @Override
+    public PageUpdateResult updatePageVersioned(PageComponent page, long baseVersion) throws ExecutionException, InterruptedException {
+        if (page == null || page.getPageId() == null || page.getPageId().isEmpty()) {
+            return PageUpdateResult.notFound();
+        }
+        if (page.getStoredUpdateTime() == null) {
+            throw new IllegalArgumentException("Page " + page.getPageId() + " was not read from the store.");
+        }
+        return writeVersioned(page, baseVersion, page.getVersion());
+    }
+
+    private PageUpdateResult writeVersioned(PageComponent page, long baseVersion, long newVersion)
+            throws ExecutionException, InterruptedException {
+        Firestore db = FirestoreClient.getFirestore();
+        DocumentReference docRef = db.collection(COLLECTION_NAME).document(page.getPageId());
+
+        List<Object> updates = buildFieldUpdates(page, newVersion);
+        Instant readTime = page.getStoredUpdateTime();
+        Precondition precondition = Precondition.updatedAt(
+                Timestamp.ofTimeSecondsAndNanos(readTime.getEpochSecond(), readTime.getNano()));
+        try {
+            WriteResult result = writePage(docRef, precondition, page, updates);
+            applyWrite(page, newVersion, result);
+            return PageUpdateResult.updated(newVersion);
+        } catch (ExecutionException e) {
+            if (hasStatus(e, StatusCode.Code.NOT_FOUND)) {
+                knownMissingIds.invalidate(page.getPageId());
+                return PageUpdateResult.notFound();
+            }
+            if (!hasStatus(e, StatusCode.Code.FAILED_PRECONDITION)) {
+                throw e;
+            }
+        }
+
+        DocumentSnapshot current = docRef.get().get();
+        if (!current.exists()) {
+            return PageUpdateResult.notFound();
+        }
+        long currentVersion = PageDocumentCodec.readVersion(current);
+        logger.info("Rejected stale write to page {}: based on version {}, stored version is {}.",
+                page.getPageId(), baseVersion, currentVersion);
+        return PageUpdateResult.conflict(currentVersion);
+    }
+
+    /**
+     * Rewrites the ancestor path of many pages through one {@link BulkWriter}. Only the path
+     * field is written, so it does not count as an edit and leaves page versions unchanged.
+     */
+    @Override
+    public void updateAncestorIds(Map<String, List<String>> ancestorIdsByPageId) throws ExecutionException, InterruptedException {
+        if (ancestorIdsByPageId.isEmpty()) {
+            return;
+        }
         Firestore firestore = FirestoreClient.getFirestore();
-        
-        PageComponent page = getPage(pageId);
-        if (page == null) {
-            return false;
+        BulkWriter writer = firestore.bulkWriter();
+        List<ApiFuture<WriteResult>> writes = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : ancestorIdsByPageId.entrySet()) {
+            writes.add(writer.update(firestore.collection(COLLECTION_NAME).document(entry.getKey()),
+                    PageComponent.FIELD_ANCESTOR_IDS, entry.getValue()));
         }
-        
-        if (page.getParentPageId() != null && !page.getParentPageId().isEmpty()) {
-            PageComponent parentPage = getPage(page.getParentPageId());
-            if (parentPage instanceof ContainerPage) {
-                ContainerPage container = (ContainerPage) parentPage;
-                List<String> childrenIds = container.getChildrenIds();
-                if (childrenIds != null) {
-                    childrenIds.remove(pageId);
-                    updatePage(container);
+        writer.close();
+        for (ApiFuture<WriteResult> write : writes) {
+            write.get();
+        }
+        logger.debug("Updated ancestor paths of {} pages.", ancestorIdsByPageId.size());
+    }
+
+    @Override
+    public boolean deletePage(String pageId) throws ExecutionException, InterruptedException {
+        return !deletePages(List.of(pageId)).isEmpty();
+    }
+
+    /**
+     * Deletes the given pages and all their descendants. The subtrees are collected level by level
+     * with batched reads, then every surviving parent gets a single {@code arrayRemove} update and
+     * all pages are deleted through one {@link BulkWriter}.
+     */
+    @Override
+    public PageDeletionResult deletePages(List<String> rootPageIds) throws ExecutionException, InterruptedException {
+        Firestore firestore = FirestoreClient.getFirestore();
+
+        Map<String, PageComponent> subtree = new LinkedHashMap<>();
+        List<PageComponent> level = fetchPagesByIdsAsync(rootPageIds, false).get().getPages();
+        List<PageComponent> roots = level;
+        while (!level.isEmpty()) {
+            List<String> childIds = new ArrayList<>();
+            for (PageComponent page : level) {
+                if (subtree.putIfAbsent(page.getPageId(), page) == null && page instanceof ContainerPage) {
+                    childIds.addAll(((ContainerPage) page).getChildrenIds());
                 }
             }
+            childIds.removeIf(subtree::containsKey);
+            level = childIds.isEmpty() ? Collections.emptyList() : fetchPagesByIdsAsync(childIds, false).get().getPages();
         }
-        
-        if (page instanceof ContainerPage) {
-            ContainerPage container = (ContainerPage) page;
-            List<String> childrenIds = container.getChildrenIds();
-            if (childrenIds != null) {
-                for (String childId : new ArrayList<>(childrenIds)) {
-                    deletePage(childId);
+        if (subtree.isEmpty()) {
+            return PageDeletionResult.empty();
+        }
+
+        Map<String, List<String>> removedByParent = new LinkedHashMap<>();
+        for (PageComponent root : roots) {
+            String parentId = root.getParentPageId();
+            if (parentId != null && !parentId.isEmpty() && !subtree.containsKey(parentId)) {
+                removedByParent.computeIfAbsent(parentId, id -> new ArrayList<>()).add(root.getPageId());
+            }
+        }
+
+        BulkWriter writer = firestore.bulkWriter();
+        List<ApiFuture<WriteResult>> writes = new ArrayList<>();
+        Map<String, ApiFuture<WriteResult>> parentWrites = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : removedByParent.entrySet()) {
+            DocumentReference parentRef = firestore.collection(COLLECTION_NAME).document(entry.getKey());
+            parentWrites.put(entry.getKey(), writer.update(parentRef,
+                    "childrenIds", FieldValue.arrayRemove(entry.getValue().toArray()),
+                    "lastUpdated", new Date(),
+                    "version", FieldValue.increment(1)));
+        }
+        for (PageComponent page : subtree.values()) {
+            DocumentReference pageRef = firestore.collection(COLLECTION_NAME).document(page.getPageId());
+            if (page.getStoredBlockIds() != null) {
+                for (String blockId : new LinkedHashSet<>(page.getStoredBlockIds())) {
+                    writes.add(writer.delete(pageRef.collection(PageBlockStore.SUBCOLLECTION).document(blockId)));
                 }
             }
+            writes.add(writer.delete(pageRef));
         }
-        
-        firestore.collection(COLLECTION_NAME).document(pageId).delete().get();
-        return true;
+        writer.close();
+
+        for (ApiFuture<WriteResult> write : writes) {
+            write.get();
+        }
+        Map<String, List<String>> updatedParents = new LinkedHashMap<>();
+        for (Map.Entry<String, ApiFuture<WriteResult>> entry : parentWrites.entrySet()) {
+            try {
+                entry.getValue().get();
+                updatedParents.put(entry.getKey(), removedByParent.get(entry.getKey()));
+            } catch (ExecutionException e) {
+                // The parent may have been deleted concurrently; the child pages are gone either way.
+                logger.warn("Could not remove deleted children from parent page {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        for (String pageId : subtree.keySet()) {
+            knownMissingIds.put(pageId, Boolean.TRUE);
+        }
+        logger.info("Deleted {} pages under {} root(s) and updated {} parent(s).", subtree.size(), roots.size(), updatedParents.size());
+        return new PageDeletionResult(new ArrayList<>(subtree.keySet()), updatedParents);
     }
-    
+
     @Override
     public List<PageComponent> getPagesByIds(List<String> pageIds) throws ExecutionException, InterruptedException {
+        PageBatchResult result = fetchPagesByIds(pageIds);
+        if (result.hasMissing()) {
+            logger.warn("Pages with IDs {} not found while fetching by IDs.", result.getMissingIds());
+        }
+        return new ArrayList<>(result.getPages());
+    }
+
+    /**
+     * Fetches pages with batched {@code getAll} reads, chunked to {@value #BATCH_GET_CHUNK_SIZE}
+     * documents and issued concurrently. Ids whose document is not found by id fall back to
+     * one {@code whereIn("pageId")} query per {@value #IN_QUERY_LIMIT} ids rather than one per id.
+     */
+    @Override
+    public PageBatchResult fetchPagesByIds(List<String> pageIds) throws ExecutionException, InterruptedException {
+        return fetchPagesByIdsAsync(pageIds).get();
+    }
+
+    @Override
+    public CompletableFuture<PageBatchResult> fetchPagesByIdsAsync(List<String> pageIds) {
+        return fetchPagesByIdsAsync(pageIds, true);
+    }
+
+    /**
+     * @param loadContent whether to read the content blocks of pages stored as blocks; callers
+     *                    that only need structure (e.g. subtree deletion) skip those reads.
+     */
+    private CompletableFuture<PageBatchResult> fetchPagesByIdsAsync(List<String> pageIds, boolean loadContent) {
         if (pageIds == null || pageIds.isEmpty()) {
-            return new ArrayList<>();
+            return CompletableFuture.completedFuture(PageBatchResult.empty());
         }
         Firestore firestore = FirestoreClient.getFirestore();
-        List<PageComponent> pages = new ArrayList<>();
-        for (String pageId : pageIds) {
-            try {
-                PageComponent page = getPage(pageId);
+        List<String> distinctIds = pageIds.stream()
+                .filter(id -> id != null && !id.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        List<String> lookupIds = distinctIds.stream()
+                .filter(id -> knownMissingIds.get(id) == null)
+                .collect(Collectors.toList());
+
+        List<ApiFuture<List<DocumentSnapshot>>> futures = new ArrayList<>();
+        for (List<String> chunk : partition(lookupIds, BATCH_GET_CHUNK_SIZE)) {
+            DocumentReference[] refs = chunk.stream()
+                    .map(id -> firestore.collection(COLLECTION_NAME).document(id))
+                    .toArray(DocumentReference[]::new);
+            futures.add(firestore.getAll(refs));
+        }
+
+        Map<String, PageComponent> pagesById = new HashMap<>();
+        List<String> notFoundById = new ArrayList<>();
+        return FirestoreFutures.toCompletable(ApiFutures.allAsList(futures)).thenCompose(results -> {
+            for (List<DocumentSnapshot> snapshots : results) {
+                for (DocumentSnapshot snapshot : snapshots) {
+                    PageComponent page = snapshot.exists() ? documentCodec.toPage(snapshot) : null;
+                    if (page != null) {
+                        pagesById.put(snapshot.getId(), page);
+                    } else {
+                        notFoundById.add(snapshot.getId());
+                    }
+                }
+            }
+            if (!legacyIdLookupEnabled || notFoundById.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            List<ApiFuture<QuerySnapshot>> legacyQueries = new ArrayList<>();
+            for (List<String> chunk : partition(notFoundById, IN_QUERY_LIMIT)) {
+                legacyQueries.add(firestore.collection(COLLECTION_NAME).whereIn("pageId", chunk).get());
+            }
+            return FirestoreFutures.map(ApiFutures.allAsList(legacyQueries), querySnapshots -> {
+                for (QuerySnapshot querySnapshot : querySnapshots) {
+                    for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
+                        PageComponent page = documentCodec.toPage(document);
+                        if (page != null && page.getPageId() != null) {
+                            pagesById.putIfAbsent(page.getPageId(), page);
+                        }
+                    }
+                }
+                return null;
+            });
+        }).thenCompose(ignored -> {
+            List<PageComponent> pages = new ArrayList<>();
+            List<String> missingIds = new ArrayList<>();
+            for (String pageId : distinctIds) {
+                PageComponent page = pagesById.get(pageId);
                 if (page != null) {
                     pages.add(page);
                 } else {
-                    logger.warn("Page with ID {} not found while fetching by IDs.", pageId);
+                    missingIds.add(pageId);
+                    knownMissingIds.put(pageId, Boolean.TRUE);
                 }
-            } catch (Exception e) {
-                 logger.error("Error fetching page with ID {} by IDs: {}", pageId, e.getMessage(), e);
             }
+            logger.debug("Batched fetch of {} pages in {} requests: {} found, {} missing.",
+                    distinctIds.size(), futures.size(), pages.size(), missingIds.size());
+            CompletableFuture<List<PageComponent>> loaded = loadContent
+                    ? withContent(pages)
+                    : CompletableFuture.completedFuture(pages);
+            return loaded.thenApply(loadedPages -> new PageBatchResult(loadedPages, missingIds));
+        });
+    }
+
+    /**
+     * Batched {@code getAll} reads limited to the summary fields, with the same fallback to a
+     * {@code pageId} query for documents not stored under their page id as full page reads.
+     */
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesByIdsAsync(List<String> pageIds) {
+        List<String> distinctIds = pageIds.stream()
+                .filter(id -> id != null && !id.isEmpty() && knownMissingIds.get(id) == null)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
         }
-        return pages;
+        Firestore firestore = FirestoreClient.getFirestore();
+        FieldMask mask = FieldMask.of(SUMMARY_FIELDS);
+        List<ApiFuture<List<DocumentSnapshot>>> futures = new ArrayList<>();
+        for (List<String> chunk : partition(distinctIds, BATCH_GET_CHUNK_SIZE)) {
+            DocumentReference[] refs = chunk.stream()
+                    .map(id -> firestore.collection(COLLECTION_NAME).document(id))
+                    .toArray(DocumentReference[]::new);
+            futures.add(firestore.getAll(refs, mask));
+        }
+
+        Map<String, PageSummary> summariesById = new HashMap<>();
+        List<String> notFoundById = new ArrayList<>();
+        return FirestoreFutures.toCompletable(ApiFutures.allAsList(futures)).thenCompose(results -> {
+            for (List<DocumentSnapshot> snapshots : results) {
+                for (DocumentSnapshot snapshot : snapshots) {
+                    if (snapshot.exists()) {
+                        summariesById.put(snapshot.getId(), PageDocumentCodec.toSummary(snapshot));
+                    } else {
+                        notFoundById.add(snapshot.getId());
+                    }
+                }
+            }
+            if (!legacyIdLookupEnabled || notFoundById.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            List<ApiFuture<QuerySnapshot>> legacyQueries = new ArrayList<>();
+            for (List<String> chunk : partition(notFoundById, IN_QUERY_LIMIT)) {
+                legacyQueries.add(firestore.collection(COLLECTION_NAME).whereIn("pageId", chunk).select(SUMMARY_FIELDS).get());
+            }
+            return FirestoreFutures.map(ApiFutures.allAsList(legacyQueries), querySnapshots -> {
+                for (QuerySnapshot querySnapshot : querySnapshots) {
+                    for (PageSummary summary : convertAllSummaries(querySnapshot)) {
+                        summariesById.putIfAbsent(summary.getPageId(), summary);
+                    }
+                }
+                return null;
+            });
+        }).thenApply(ignored -> {
+            List<PageSummary> summaries = new ArrayList<>();
+            for (String pageId : distinctIds) {
+                PageSummary summary = summariesById.get(pageId);
+                if (summary != null) {
+                    summaries.add(summary);
+                }
+            }
+            return summaries;
+        });
     }
 
     @Override
     public List<PageComponent> findPagesByOwner(String ownerEmail) throws ExecutionException, InterruptedException {
+        return findPagesByOwnerAsync(ownerEmail).get();
+    }
+
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesByOwnerAsync(String ownerEmail) {
         Firestore firestore = FirestoreClient.getFirestore();
-        List<PageComponent> pages = new ArrayList<>();
         Query query = firestore.collection(COLLECTION_NAME).whereEqualTo("owner", ownerEmail);
-        ApiFuture<QuerySnapshot> future = query.get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-        for (QueryDocumentSnapshot document : documents) {
-            pages.add(convertToPageComponent(document));
-        }
-        return pages;
+        return FirestoreFutures.map(query.get(), this::convertAll).thenCompose(this::withContent);
     }
 
     @Override
-    public List<PageComponent> findPagesSharedWithUser(String userEmail) throws ExecutionException, InterruptedException {
-        Firestore firestore = FirestoreClient.getFirestore();
-        List<PageComponent> pages = new ArrayList<>();
-        logger.debug("Repository: Finding pages where sharingInfo map contains key '{}'", userEmail);
+    public CompletableFuture<List<PageSummary>> findPageSummariesByOwnerAsync(String ownerEmail) {
+        Query query = FirestoreClient.getFirestore().collection(COLLECTION_NAME)
+                .whereEqualTo("owner", ownerEmail)
+                .select(SUMMARY_FIELDS);
+        return FirestoreFutures.map(query.get(), this::convertAllSummaries);
+    }
 
-        FieldPath fieldPath = FieldPath.of("sharingInfo", userEmail);
+    /**
+     * Summaries of the pages shared with a user, excluding pages the user owns. Uses the same
+     * lookup as {@link #findPagesSharedWithUserAsync(String)}, which already guarantees the match.
+     */
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesSharedWithUserAsync(String userEmail) {
+        Query query = sharedWithUserQuery(FirestoreClient.getFirestore(), userEmail).select(SUMMARY_FIELDS);
+        return FirestoreFutures.map(query.get(), snapshot -> {
+            List<PageSummary> summaries = new ArrayList<>();
+            for (PageSummary summary : convertAllSummaries(snapshot)) {
+                if (!userEmail.equals(summary.getOwner())) {
+                    summaries.add(summary);
+                }
+            }
+            return summaries;
+        });
+    }
 
-        Query query = firestore.collection(COLLECTION_NAME).whereNotEqualTo(fieldPath, null);
+    @Override
+    public List<PageComponent> findPagesSharedWithUser(String userEmail) throws ExecutionException, InterruptedException {
+        return findPagesSharedWithUserAsync(userEmail).get();
+    }
 
-        ApiFuture<QuerySnapshot> future = query.get();
-        try {
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesSharedWithUserAsync(String userEmail) {
+        Query query = sharedWithUserQuery(FirestoreClient.getFirestore(), userEmail);
+        return FirestoreFutures.map(query.get(), snapshot -> {
+            List<PageComponent> pages = new ArrayList<>();
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
             logger.debug("Repository: Query for shared pages returned {} documents.", documents.size());
             for (QueryDocumentSnapshot document : documents) {
-                PageComponent page = convertToPageComponent(document);
+                PageComponent page = documentCodec.toPage(document);
                 if (page != null && page.getSharingInfo() != null && page.getSharingInfo().containsKey(userEmail)) {
                      if (!userEmail.equals(page.getOwner())) {
                         pages.add(page);
@@ -259,15 +845,22 @@ public class FirebasePageRepository implements PageRepository {
                     logger.warn("Repository: Document {} matched shared query but validation failed.", document.getId());
                 }
             }
-        } catch (ExecutionException | InterruptedException e) {
-            logger.error("Repository: Error executing query for pages shared with user {}: {}", userEmail, e.getMessage(), e);
-            throw e;
-        } catch (Exception e) {
-             logger.error("Repository: Unexpected error querying pages shared with user {}: {}", userEmail, e.getMessage(), e);
-             throw new RuntimeException("Failed to query shared pages due to repository error.", e);
+            logger.info("Repository: Found {} pages shared with user {} (excluding owned).", pages.size(), userEmail);
+            return pages;
+        }).thenCompose(this::withContent).whenComplete((pages, error) -> {
+            if (error != null) {
+                logger.error("Repository: Error executing query for pages shared with user {}: {}", userEmail, error.getMessage(), error);
+            }
+        });
+    }
+
+    private Query sharedWithUserQuery(Firestore firestore, String userEmail) {
+        if (sharedWithQueryEnabled) {
+            logger.debug("Repository: Finding pages whose sharedWith array contains '{}'", userEmail);
+            return firestore.collection(COLLECTION_NAME).whereArrayContains(FIELD_SHARED_WITH, userEmail);
         }
-        logger.info("Repository: Found {} pages shared with user {} (excluding owned).", pages.size(), userEmail);
-        return pages;
+        logger.debug("Repository: Finding pages where sharingInfo map contains key '{}'", userEmail);
+        return firestore.collection(COLLECTION_NAME).whereNotEqualTo(FieldPath.of("sharingInfo", userEmail), null);
     }
 
     @Override
@@ -284,15 +877,16 @@ public class FirebasePageRepository implements PageRepository {
         Firestore firestore = FirestoreClient.getFirestore();
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(pageId);
 
-        // Use dot notation for nested fields in the map key
-        String fieldPathString = "sharingInfo." + userEmail;
-
-        Map<String, Object> updates = new HashMap<>();
-        updates.put(fieldPathString, accessLevel); // Use the string path as the key
-        updates.put("lastUpdated", new Date());
+        // The map entry and the lookup arrays change in one write, so they never disagree.
+        String otherLevelField = "view".equals(accessLevel) ? FIELD_SHARED_WITH_EDIT : FIELD_SHARED_WITH_VIEW;
+        String levelField = "view".equals(accessLevel) ? FIELD_SHARED_WITH_VIEW : FIELD_SHARED_WITH_EDIT;
 
-        logger.info("Updating sharing for page {}: Setting {} = {}", pageId, fieldPathString, accessLevel);
-        ApiFuture<WriteResult> future = docRef.update(updates);
+        logger.info("Updating sharing for page {}: Setting sharingInfo.{} = {}", pageId, userEmail, accessLevel);
+        ApiFuture<WriteResult> future = docRef.update(FieldPath.of("sharingInfo", userEmail), accessLevel,
+                FieldPath.of(FIELD_SHARED_WITH), FieldValue.arrayUnion(userEmail),
+                FieldPath.of(levelField), FieldValue.arrayUnion(userEmail),
+                FieldPath.of(otherLevelField), FieldValue.arrayRemove(userEmail),
+                FieldPath.of("lastUpdated"), new Date());
 
         try {
             future.get();
@@ -307,6 +901,7 @@ public class FirebasePageRepository implements PageRepository {
         }
     }
 
+    @Override
     public boolean unsharePageWithUser(String pageId, String userEmail) throws ExecutionException, InterruptedException {
          if (userEmail == null || userEmail.isEmpty()) {
              logger.error("User email cannot be null or empty for unsharing page {}", pageId);
@@ -316,15 +911,12 @@ public class FirebasePageRepository implements PageRepository {
         Firestore firestore = FirestoreClient.getFirestore();
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(pageId);
 
-        // Use dot notation for nested fields in the map key
-        String fieldPathString = "sharingInfo." + userEmail;
-
-        Map<String, Object> updates = new HashMap<>();
-        updates.put(fieldPathString, FieldValue.delete()); // Use the string path as the key
-        updates.put("lastUpdated", new Date());
-
         logger.info("Attempting to remove user {} from sharingInfo map for page {}", userEmail, pageId);
-        ApiFuture<WriteResult> future = docRef.update(updates);
+        ApiFuture<WriteResult> future = docRef.update(FieldPath.of("sharingInfo", userEmail), FieldValue.delete(),
+                FieldPath.of(FIELD_SHARED_WITH), FieldValue.arrayRemove(userEmail),
+                FieldPath.of(FIELD_SHARED_WITH_VIEW), FieldValue.arrayRemove(userEmail),
+                FieldPath.of(FIELD_SHARED_WITH_EDIT), FieldValue.arrayRemove(userEmail),
+                FieldPath.of("lastUpdated"), new Date());
 
         try {
             future.get();
@@ -341,87 +933,360 @@ public class FirebasePageRepository implements PageRepository {
 
     @Override
     public List<PageComponent> findPagesByWorkspaceIds(List<String> workspaceIds) throws ExecutionException, InterruptedException {
+        return findPagesByWorkspaceIdsAsync(workspaceIds).get();
+    }
+
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesByWorkspaceIdsAsync(List<String> workspaceIds) {
+        return queryWorkspaceChunks(workspaceIds, query -> query, this::convertAll, PageComponent::getPageId)
+                .thenCompose(this::withContent);
+    }
+
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesByWorkspaceIdsAsync(List<String> workspaceIds) {
+        return queryWorkspaceChunks(workspaceIds, query -> query.select(SUMMARY_FIELDS), this::convertAllSummaries, PageSummary::getPageId);
+    }
+
+    /**
+     * One {@code whereIn} query per {@value #IN_QUERY_LIMIT} workspace ids. The chunks are spread
+     * over at most {@code workspaceQueryConcurrency} lanes that each run their queries one after
+     * another, and every result is merged into the deduplicated output as soon as it arrives.
+     */
+    private <T> CompletableFuture<List<T>> queryWorkspaceChunks(List<String> workspaceIds, UnaryOperator<Query> shape,
+                                                               Function<QuerySnapshot, List<T>> convert, Function<T, String> idOf) {
         if (workspaceIds == null || workspaceIds.isEmpty()) {
-            return Collections.emptyList();
+            return CompletableFuture.completedFuture(Collections.emptyList());
         }
-        
+
         Firestore firestore = FirestoreClient.getFirestore();
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(workspaceIds));
+        distinctIds.remove(null);
+        if (distinctIds.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        List<List<String>> chunks = partition(distinctIds, IN_QUERY_LIMIT);
+        int lanes = Math.min(chunks.size(), workspaceQueryConcurrency);
+        Map<String, T> merged = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> laneFutures = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < chunks.size(); i += lanes) {
+                Query query = shape.apply(firestore.collection(COLLECTION_NAME).whereIn("workspaceId", chunks.get(i)));
+                chain = chain.thenCompose(ignored -> FirestoreFutures.map(query.get(), snapshot -> {
+                    List<T> results = convert.apply(snapshot);
+                    synchronized (merged) {
+                        for (T result : results) {
+                            if (result != null) {
+                                merged.putIfAbsent(idOf.apply(result), result);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            laneFutures.add(chain);
+        }
+        if (chunks.size() > 1) {
+            logger.debug("Querying pages of {} workspaces in {} chunks over {} lanes.", distinctIds.size(), chunks.size(), lanes);
+        }
+        return CompletableFuture.allOf(laneFutures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            synchronized (merged) {
+                return new ArrayList<>(merged.values());
+            }
+        });
+    }
+
+    private DocumentSnapshot findLegacyDocument(Firestore firestore, String pageId) throws ExecutionException, InterruptedException {
+        return findLegacyDocumentAsync(firestore, pageId).get();
+    }
+
+    private CompletableFuture<DocumentSnapshot> findLegacyDocumentAsync(Firestore firestore, String pageId) {
+        ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("pageId", pageId)
+                .limit(1)
+                .get();
+        return FirestoreFutures.map(future, snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            if (documents.isEmpty()) {
+                return null;
+            }
+            logger.debug("Found page {} under legacy document id {}", pageId, documents.get(0).getId());
+            return documents.get(0);
+        });
+    }
+
+    private CompletableFuture<List<PageComponent>> withContent(List<PageComponent> pages) {
+        return PageBlockStore.loadContent(FirestoreClient.getFirestore(), COLLECTION_NAME, pages);
+    }
+
+    private CompletableFuture<PageComponent> withContent(PageComponent page) {
+        if (page == null || page.getStoredBlockIds() == null) {
+            return CompletableFuture.completedFuture(page);
+        }
+        return withContent(Collections.singletonList(page)).thenApply(pages -> pages.get(0));
+    }
+
+    private List<PageSummary> convertAllSummaries(QuerySnapshot snapshot) {
+        List<PageSummary> summaries = new ArrayList<>();
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            summaries.add(PageDocumentCodec.toSummary(document));
+        }
+        return summaries;
+    }
+
+    private List<PageComponent> convertAll(QuerySnapshot snapshot) {
         List<PageComponent> pages = new ArrayList<>();
-        
-        Query query = firestore.collection(COLLECTION_NAME).whereIn("workspaceId", workspaceIds);
-        ApiFuture<QuerySnapshot> future = query.get();
-        
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-        for (QueryDocumentSnapshot document : documents) {
-            pages.add(convertToPageComponent(document));
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            pages.add(documentCodec.toPage(document));
         }
-        
         return pages;
     }
-    
-    private Map<String, Object> convertToMap(PageComponent page) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("pageId", page.getPageId());
-        map.put("title", page.getTitle());
-        map.put("parentPageId", page.getParentPageId());
-        map.put("owner", page.getOwner());
-        map.put("createdAt", page.getCreatedAt());
-        map.put("lastUpdated", page.getLastUpdated());
-        map.put("isLeaf", page.isLeaf());
-        map.put("isPublished", page.isPublished());
-        map.put("sharingInfo", page.getSharingInfo() != null ? page.getSharingInfo() : new HashMap<>());
-
-        map.put("content", page.getContent());
-        
-        if (!page.isLeaf() && page instanceof ContainerPage) {
-            List<String> childrenIds = ((ContainerPage) page).getChildrenIds();
-            map.put("childrenIds", childrenIds != null ? childrenIds : new ArrayList<String>());
+
+    static boolean hasStatus(Throwable error, StatusCode.Code code) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException && ((ApiException) cause).getStatusCode().getCode() == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void applyWrite(PageComponent page, long newVersion, WriteResult result) {
+        page.setVersion(newVersion);
+        Timestamp updateTime = result.getUpdateTime();
+        page.setStoredUpdateTime(updateTime != null
+                ? Instant.ofEpochSecond(updateTime.getSeconds(), updateTime.getNanos())
+                : null);
+        page.markClean();
+    }
+
+    /**
+     * Builds alternating field path / value pairs for an update. Only fields changed since the
+     * page was read are written; sharing entries are written per user and child additions or
+     * removals become array transforms, so concurrent writers of unrelated entries do not
+     * overwrite each other. Pages without a stored baseline are written in full.
+     */
+    private List<Object> buildFieldUpdates(PageComponent page, long newVersion) {
+        List<Object> updates = new ArrayList<>();
+        PageComponent clean = page.getCleanState();
+        if (clean == null || clean.isLeaf() != page.isLeaf()) {
+            documentCodec.toMap(page).forEach((field, value) -> {
+                updates.add(FieldPath.of(field));
+                updates.add(value);
+            });
         } else {
-            map.put("childrenIds", new ArrayList<String>());
+            for (String field : page.getDirtyFields()) {
+                switch (field) {
+                    case PageComponent.FIELD_SHARING_INFO:
+                        addSharingUpdates(clean.getSharingInfo(), page.getSharingInfo(), updates);
+                        break;
+                    case PageComponent.FIELD_CHILDREN_IDS:
+                        addChildrenUpdates(((ContainerPage) clean).getChildrenIds(), ((ContainerPage) page).getChildrenIds(), updates);
+                        break;
+                    case PageComponent.FIELD_CONTENT:
+                        PageContentCodec.Encoded encoded = contentCodec.encode(page.getContent());
+                        updates.add(FieldPath.of(PageComponent.FIELD_CONTENT));
+                        updates.add(encoded.getValue());
+                        updates.add(FieldPath.of(PageContentCodec.FIELD_CONTENT_ENCODING));
+                        updates.add(encoded.getEncoding());
+                        break;
+                    default:
+                        updates.add(FieldPath.of(field));
+                        updates.add(fieldValue(page, field));
+                }
+            }
+            updates.add(FieldPath.of("lastUpdated"));
+            updates.add(page.getLastUpdated());
         }
-        
-        return map;
+        updates.add(FieldPath.of("version"));
+        updates.add(newVersion);
+        return updates;
     }
-    
-    private PageComponent convertToPageComponent(DocumentSnapshot document) {
-        Map<String, Object> data = document.getData();
-        if (data == null) return null;
-        
-        Boolean isLeaf = (Boolean) data.get("isLeaf");
-        PageComponent component;
-        
-        if (isLeaf != null && isLeaf) {
-            component = new ContentPage();
-            String content = (String) data.get("content");
-            ((ContentPage) component).setContent(content);
+
+    private static Object fieldValue(PageComponent page, String field) {
+        switch (field) {
+            case PageComponent.FIELD_TITLE: return page.getTitle();
+            case PageComponent.FIELD_CONTENT: return page.getContent();
+            case PageComponent.FIELD_OWNER: return page.getOwner();
+            case PageComponent.FIELD_PARENT_PAGE_ID: return page.getParentPageId();
+            case PageComponent.FIELD_IS_PUBLISHED: return page.isPublished();
+            case PageComponent.FIELD_WORKSPACE_ID: return page.getWorkspaceId();
+            case PageComponent.FIELD_ANCESTOR_IDS: return page.getAncestorIds();
+            default: throw new IllegalArgumentException("Unknown page field: " + field);
+        }
+    }
+
+    private static void addSharingUpdates(Map<String, String> before, Map<String, String> after, List<Object> updates) {
+        // FieldPath.of keeps emails intact; a dotted string path would split them at every '.'.
+        for (String userEmail : before.keySet()) {
+            if (!after.containsKey(userEmail)) {
+                updates.add(FieldPath.of("sharingInfo", userEmail));
+                updates.add(FieldValue.delete());
+            }
+        }
+        after.forEach((userEmail, accessLevel) -> {
+            if (!accessLevel.equals(before.get(userEmail))) {
+                updates.add(FieldPath.of("sharingInfo", userEmail));
+                updates.add(accessLevel);
+            }
+        });
+        Map<String, List<String>> arraysBefore = sharingArrays(before);
+        sharingArrays(after).forEach((field, members) -> addArrayUpdate(field, arraysBefore.get(field), members, updates));
+    }
+
+    /**
+     * Writes the change of a set-like array field as a single union or remove transform when it
+     * only grows or only shrinks, and as the full array otherwise (one transform per field per write).
+     */
+    private static void addArrayUpdate(String field, List<String> before, List<String> after, List<Object> updates) {
+        List<String> added = after.stream().filter(value -> !before.contains(value)).collect(Collectors.toList());
+        List<String> removed = before.stream().filter(value -> !after.contains(value)).collect(Collectors.toList());
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        updates.add(FieldPath.of(field));
+        if (removed.isEmpty()) {
+            updates.add(FieldValue.arrayUnion(added.toArray()));
+        } else if (added.isEmpty()) {
+            updates.add(FieldValue.arrayRemove(removed.toArray()));
         } else {
-            component = new ContainerPage();
-            String summary = (String) data.get("content");
-            ((ContainerPage) component).setSummary(summary);
-            
-            List<String> childrenIds = (List<String>) data.get("childrenIds");
-            if (childrenIds != null) {
-                ((ContainerPage) component).setChildrenIds(childrenIds);
+            updates.add(after);
+        }
+    }
+
+    /**
+     * The sharedWith lookup arrays derived from a sharingInfo map.
+     */
+    static Map<String, List<String>> sharingArrays(Map<String, String> sharingInfo) {
+        if (sharingInfo == null || sharingInfo.isEmpty()) {
+            return NO_SHARING_ARRAYS;
+        }
+        List<String> all = new ArrayList<>();
+        List<String> view = new ArrayList<>();
+        List<String> edit = new ArrayList<>();
+        sharingInfo.forEach((userEmail, accessLevel) -> {
+            all.add(userEmail);
+            if ("edit".equals(accessLevel)) {
+                edit.add(userEmail);
+            } else if ("view".equals(accessLevel)) {
+                view.add(userEmail);
             }
+        });
+        Collections.sort(all);
+        Collections.sort(view);
+        Collections.sort(edit);
+        Map<String, List<String>> arrays = new LinkedHashMap<>();
+        arrays.put(FIELD_SHARED_WITH, all);
+        arrays.put(FIELD_SHARED_WITH_VIEW, view);
+        arrays.put(FIELD_SHARED_WITH_EDIT, edit);
+        return arrays;
+    }
+
+    private static void addChildrenUpdates(List<String> before, List<String> after, List<Object> updates) {
+        List<String> added = after.stream().filter(id -> !before.contains(id)).collect(Collectors.toList());
+        List<String> removed = before.stream().filter(id -> !after.contains(id)).collect(Collectors.toList());
+        List<String> appended = new ArrayList<>(before);
+        appended.addAll(added);
+        List<String> remaining = new ArrayList<>(before);
+        remaining.removeAll(removed);
+
+        updates.add(FieldPath.of("childrenIds"));
+        if (removed.isEmpty() && appended.equals(after)) {
+            updates.add(FieldValue.arrayUnion(added.toArray()));
+        } else if (added.isEmpty() && remaining.equals(after)) {
+            updates.add(FieldValue.arrayRemove(removed.toArray()));
+        } else {
+            // Reordered, or added and removed at once: a field takes only one transform per write.
+            updates.add(new ArrayList<>(after));
         }
-        
-        component.setPageId((String) data.get("pageId"));
-        component.setTitle((String) data.get("title"));
-        component.setOwner((String) data.get("owner"));
-        component.setParentPageId((String) data.get("parentPageId"));
-        component.setPublished(data.get("isPublished") != null ? (Boolean) data.get("isPublished") : false);
-        component.setWorkspaceId((String) data.get("workspaceId"));
-
-        Map<String, String> sharingInfo = (Map<String, String>) data.get("sharingInfo");
-        component.setSharingInfo(sharingInfo != null ? sharingInfo : new HashMap<>());
-        
-        if (data.get("createdAt") instanceof com.google.cloud.Timestamp) {
-            component.setCreatedAt(((com.google.cloud.Timestamp) data.get("createdAt")).toDate());
+    }
+
+    /**
+     * Writes the field updates of a page. With block storage on, a changed body goes to blocks
+     * instead of the inline content field. With a precondition, the blocks of the document it pins
+     * are the ones the page was read with. Without one, the current block ids are read first and
+     * pinned by their update time, and the write is retried if the document changes in between.
+     * With block storage off, a changed body is written inline and any blocks are dropped.
+     *
+     * @return the write result, or null if the document does not exist.
+     */
+    private WriteResult writePage(DocumentReference docRef, Precondition precondition, PageComponent page, List<Object> updates)
+            throws ExecutionException, InterruptedException {
+        int contentIndex = updates.indexOf(FieldPath.of(PageComponent.FIELD_CONTENT));
+        if (contentIndex < 0) {
+            return writeFields(docRef, precondition, updates).get();
         }
-        if (data.get("lastUpdated") instanceof com.google.cloud.Timestamp) {
-            component.setLastUpdated(((com.google.cloud.Timestamp) data.get("lastUpdated")).toDate());
+        if (!blockStorageEnabled) {
+            List<String> storedBlockIds = page.getStoredBlockIds();
+            List<Object> inlineUpdates = new ArrayList<>(updates);
+            inlineUpdates.add(FieldPath.of(PageBlockStore.FIELD_BLOCK_IDS));
+            inlineUpdates.add(FieldValue.delete());
+            WriteResult result = writeFields(docRef, precondition, inlineUpdates).get();
+            page.setStoredBlockIds(null);
+            if (storedBlockIds != null) {
+                PageBlockStore.deleteBlocks(docRef.getFirestore(), docRef, new ArrayList<>(new LinkedHashSet<>(storedBlockIds)));
+            }
+            return result;
         }
-        
-        return component;
+        if (precondition != null) {
+            return writeBlocks(docRef, precondition, page, updates, contentIndex, page.getStoredBlockIds());
+        }
+        for (int attempt = 1; ; attempt++) {
+            DocumentSnapshot current = docRef.getFirestore()
+                    .getAll(new DocumentReference[] {docRef}, FieldMask.of(PageBlockStore.FIELD_BLOCK_IDS))
+                    .get().get(0);
+            if (!current.exists()) {
+                return null;
+            }
+            Precondition unchanged = Precondition.updatedAt(current.getUpdateTime());
+            try {
+                return writeBlocks(docRef, unchanged, page, updates, contentIndex, PageDocumentCodec.readBlockIds(current));
+            } catch (ExecutionException e) {
+                if (attempt >= MAX_BLOCK_WRITE_ATTEMPTS || !hasStatus(e, StatusCode.Code.FAILED_PRECONDITION)) {
+                    throw e;
+                }
+                logger.debug("Page {} changed while its blocks were written; retrying ({} of {}).",
+                        page.getPageId(), attempt, MAX_BLOCK_WRITE_ATTEMPTS);
+            }
+        }
+    }
+
+    private WriteResult writeBlocks(DocumentReference docRef, Precondition precondition, PageComponent page, List<Object> updates,
+                                    int contentIndex, List<String> storedBlockIds) throws ExecutionException, InterruptedException {
+        PageBlockStore.Plan plan = PageBlockStore.plan(page.getContent(), storedBlockIds);
+        List<Object> blockUpdates = new ArrayList<>(updates);
+        blockUpdates.set(contentIndex + 1, FieldValue.delete());
+        int encodingIndex = blockUpdates.indexOf(FieldPath.of(PageContentCodec.FIELD_CONTENT_ENCODING));
+        if (encodingIndex >= 0) {
+            blockUpdates.set(encodingIndex + 1, FieldValue.delete());
+        }
+        blockUpdates.add(FieldPath.of(PageBlockStore.FIELD_BLOCK_IDS));
+        blockUpdates.add(plan.getBlockIds());
+        FieldPath firstField = (FieldPath) blockUpdates.get(0);
+        Object firstValue = blockUpdates.get(1);
+        Object[] moreFieldsAndValues = blockUpdates.subList(2, blockUpdates.size()).toArray();
+        WriteResult result = PageBlockStore.commit(docRef.getFirestore(), docRef, plan,
+                batch -> batch.update(docRef, precondition, firstField, firstValue, moreFieldsAndValues));
+        page.setStoredBlockIds(plan.getBlockIds());
+        logger.debug("Wrote page {} as {} blocks: {} written, {} deleted.", page.getPageId(),
+                plan.getBlockIds().size(), plan.getBlocksToWrite().size(), plan.getBlocksToDelete().size());
+        return result;
+    }
+
+    private static ApiFuture<WriteResult> writeFields(DocumentReference docRef, Precondition precondition, List<Object> updates) {
+        FieldPath firstField = (FieldPath) updates.get(0);
+        Object firstValue = updates.get(1);
+        Object[] moreFieldsAndValues = updates.subList(2, updates.size()).toArray();
+        return precondition != null
+                ? docRef.update(precondition, firstField, firstValue, moreFieldsAndValues)
+                : docRef.update(firstField, firstValue, moreFieldsAndValues);
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            chunks.add(items.subList(i, Math.min(i + size, items.size())));
+        }
+        return chunks;
     }
-}
\ No newline at end of file
+}
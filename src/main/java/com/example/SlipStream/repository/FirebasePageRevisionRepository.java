@@ -0,0 +1,248 @@
+package com.example.SlipStream.repository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.firebase.cloud.FirestoreClient;
+
+/**
+ * Revisions stored in a {@code revisions} subcollection of each page document, one document per
+ * revision under its zero-padded number. Appends use {@code create}, so two instances can never
+ * store the same revision number. A small document per page in {@value #HEADS_COLLECTION}
+ * counts the revisions appended since the last compaction, which is how compaction finds its
+ * work without scanning every page.
+ *
+ * Snapshot content and inserted text go through {@link PageContentCodec}, so large snapshots
+ * are deflated like large page bodies.
+ */
+@Repository
+@Profile("!local")
+public class FirebasePageRevisionRepository implements PageRevisionRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebasePageRevisionRepository.class);
+
+    private static final String PAGES_COLLECTION = "Pages";
+    private static final String SUBCOLLECTION = "revisions";
+    private static final String HEADS_COLLECTION = "PageRevisionHeads";
+    private static final String FIELD_NEW_REVISIONS = "revisionsSinceCompaction";
+    private static final String FIELD_INSERTED_ENCODING = "insertedEncoding";
+    private static final int MAX_BATCH_WRITES = 500;
+    // Listings leave the content and inserted text on the server.
+    private static final String[] METADATA_FIELDS = {
+            "pageId", "revision", "pageVersion", "title", "savedAt", "snapshotRevision", "baseRevision", "offset", "removed"};
+
+    private final PageContentCodec contentCodec;
+
+    public FirebasePageRevisionRepository(@Value("${slipstream.pages.compression.threshold-bytes:16384}") int compressionThreshold,
+                                          @Value("${slipstream.pages.compression.level:1}") int compressionLevel) {
+        // Revisions are new, so no reader predates the deflate format and compression is always on.
+        this.contentCodec = new PageContentCodec(true, compressionThreshold, compressionLevel);
+    }
+
+    @Override
+    public boolean appendRevision(PageRevisionRecord record) throws ExecutionException, InterruptedException {
+        Firestore firestore = FirestoreClient.getFirestore();
+        WriteBatch batch = firestore.batch();
+        batch.create(revisions(firestore, record.getPageId()).document(documentId(record.getRevision())), toMap(record));
+        Map<String, Object> head = new HashMap<>();
+        head.put("pageId", record.getPageId());
+        head.put("latestRevision", record.getRevision());
+        head.put(FIELD_NEW_REVISIONS, FieldValue.increment(1));
+        batch.set(firestore.collection(HEADS_COLLECTION).document(record.getPageId()), head, SetOptions.merge());
+        try {
+            batch.commit().get();
+            return true;
+        } catch (ExecutionException e) {
+            if (FirebasePageRepository.hasStatus(e, StatusCode.Code.ALREADY_EXISTS)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public PageRevisionRecord getLatestRevision(String pageId) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = revisions(FirestoreClient.getFirestore(), pageId)
+                .orderBy("revision", Query.Direction.DESCENDING)
+                .limit(1)
+                .get().get().getDocuments();
+        return documents.isEmpty() ? null : toRecord(documents.get(0));
+    }
+
+    @Override
+    public PageRevisionRecord getRevision(String pageId, long revision) throws ExecutionException, InterruptedException {
+        DocumentSnapshot document = revisions(FirestoreClient.getFirestore(), pageId).document(documentId(revision)).get().get();
+        return document.exists() ? toRecord(document) : null;
+    }
+
+    @Override
+    public PageRevisionRecord findRevisionAt(String pageId, Date savedAt) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = revisions(FirestoreClient.getFirestore(), pageId)
+                .whereLessThanOrEqualTo("savedAt", savedAt)
+                .orderBy("savedAt", Query.Direction.DESCENDING)
+                .limit(1)
+                .get().get().getDocuments();
+        return documents.isEmpty() ? null : toRecord(documents.get(0));
+    }
+
+    @Override
+    public List<PageRevisionRecord> getRevisions(String pageId, long fromRevision, long toRevision) throws ExecutionException, InterruptedException {
+        List<PageRevisionRecord> records = new ArrayList<>();
+        for (QueryDocumentSnapshot document : revisions(FirestoreClient.getFirestore(), pageId)
+                .whereGreaterThanOrEqualTo("revision", fromRevision)
+                .whereLessThanOrEqualTo("revision", toRevision)
+                .orderBy("revision")
+                .get().get().getDocuments()) {
+            records.add(toRecord(document));
+        }
+        return records;
+    }
+
+    @Override
+    public List<PageRevisionRecord> listRevisions(String pageId, Long beforeRevision, int limit) throws ExecutionException, InterruptedException {
+        Query query = revisions(FirestoreClient.getFirestore(), pageId).select(METADATA_FIELDS);
+        if (beforeRevision != null) {
+            query = query.whereLessThan("revision", beforeRevision);
+        }
+        List<PageRevisionRecord> records = new ArrayList<>();
+        for (QueryDocumentSnapshot document : query.orderBy("revision", Query.Direction.DESCENDING).limit(limit).get().get().getDocuments()) {
+            records.add(toRecord(document));
+        }
+        return records;
+    }
+
+    @Override
+    public List<String> findPagesToCompact(int minNewRevisions, int limit) throws ExecutionException, InterruptedException {
+        List<String> pageIds = new ArrayList<>();
+        for (QueryDocumentSnapshot document : FirestoreClient.getFirestore().collection(HEADS_COLLECTION)
+                .whereGreaterThanOrEqualTo(FIELD_NEW_REVISIONS, minNewRevisions)
+                .limit(limit)
+                .get().get().getDocuments()) {
+            pageIds.add(document.getId());
+        }
+        return pageIds;
+    }
+
+    @Override
+    public void replaceRevisions(String pageId, List<PageRevisionRecord> rewritten, List<Long> dropped) throws ExecutionException, InterruptedException {
+        Firestore firestore = FirestoreClient.getFirestore();
+        CollectionReference revisions = revisions(firestore, pageId);
+        // Records are written oldest first, so a rewritten delta's base is always written before it.
+        for (int i = 0; i < rewritten.size(); i += MAX_BATCH_WRITES) {
+            WriteBatch batch = firestore.batch();
+            for (PageRevisionRecord record : rewritten.subList(i, Math.min(i + MAX_BATCH_WRITES, rewritten.size()))) {
+                batch.set(revisions.document(documentId(record.getRevision())), toMap(record));
+            }
+            batch.commit().get();
+        }
+        List<ApiFuture<List<WriteResult>>> deletes = new ArrayList<>();
+        for (int i = 0; i < dropped.size(); i += MAX_BATCH_WRITES) {
+            WriteBatch batch = firestore.batch();
+            for (Long revision : dropped.subList(i, Math.min(i + MAX_BATCH_WRITES, dropped.size()))) {
+                batch.delete(revisions.document(documentId(revision)));
+            }
+            deletes.add(batch.commit());
+        }
+        ApiFutures.allAsList(deletes).get();
+        firestore.collection(HEADS_COLLECTION).document(pageId).update(FIELD_NEW_REVISIONS, 0).get();
+        logger.debug("Compacted revisions of page {}: {} rewritten, {} dropped.", pageId, rewritten.size(), dropped.size());
+    }
+
+    @Override
+    public void deleteRevisions(String pageId) throws ExecutionException, InterruptedException {
+        Firestore firestore = FirestoreClient.getFirestore();
+        List<DocumentReference> refs = new ArrayList<>();
+        for (DocumentReference ref : revisions(firestore, pageId).listDocuments()) {
+            refs.add(ref);
+        }
+        refs.add(firestore.collection(HEADS_COLLECTION).document(pageId));
+        List<ApiFuture<List<WriteResult>>> deletes = new ArrayList<>();
+        for (int i = 0; i < refs.size(); i += MAX_BATCH_WRITES) {
+            WriteBatch batch = firestore.batch();
+            for (DocumentReference ref : refs.subList(i, Math.min(i + MAX_BATCH_WRITES, refs.size()))) {
+                batch.delete(ref);
+            }
+            deletes.add(batch.commit());
+        }
+        ApiFutures.allAsList(deletes).get();
+        logger.debug("Deleted {} revisions of page {}.", refs.size() - 1, pageId);
+    }
+
+    private static CollectionReference revisions(Firestore firestore, String pageId) {
+        return firestore.collection(PAGES_COLLECTION).document(pageId).collection(SUBCOLLECTION);
+    }
+
+    // Zero-padded so document ids sort like revision numbers in the console.
+    private static String documentId(long revision) {
+        return String.format("%012d", revision);
+    }
+
+    private Map<String, Object> toMap(PageRevisionRecord record) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("pageId", record.getPageId());
+        map.put("revision", record.getRevision());
+        map.put("pageVersion", record.getPageVersion());
+        map.put("title", record.getTitle());
+        map.put("savedAt", record.getSavedAt());
+        map.put("snapshotRevision", record.getSnapshotRevision());
+        map.put("baseRevision", record.getBaseRevision());
+        if (record.isSnapshot()) {
+            PageContentCodec.Encoded encoded = contentCodec.encode(record.getContent());
+            map.put("content", encoded.getValue());
+            map.put(PageContentCodec.FIELD_CONTENT_ENCODING, encoded.getEncoding());
+        } else {
+            map.put("offset", record.getOffset());
+            map.put("removed", record.getRemoved());
+            PageContentCodec.Encoded encoded = contentCodec.encode(record.getInserted());
+            map.put("inserted", encoded.getValue());
+            map.put(FIELD_INSERTED_ENCODING, encoded.getEncoding());
+        }
+        return map;
+    }
+
+    private static PageRevisionRecord toRecord(DocumentSnapshot document) {
+        String pageId = document.getString("pageId");
+        long revision = longField(document, "revision");
+        long pageVersion = longField(document, "pageVersion");
+        String title = document.getString("title");
+        Timestamp savedAt = document.getTimestamp("savedAt");
+        Date savedAtDate = savedAt != null ? savedAt.toDate() : null;
+        long snapshotRevision = longField(document, "snapshotRevision");
+        if (snapshotRevision == revision) {
+            return PageRevisionRecord.snapshot(pageId, revision, pageVersion, title, savedAtDate,
+                    PageContentCodec.decode(document.get("content"), document.get(PageContentCodec.FIELD_CONTENT_ENCODING)));
+        }
+        return PageRevisionRecord.delta(pageId, revision, pageVersion, title, savedAtDate, snapshotRevision,
+                longField(document, "baseRevision"), (int) longField(document, "offset"), (int) longField(document, "removed"),
+                PageContentCodec.decode(document.get("inserted"), document.get(FIELD_INSERTED_ENCODING)));
+    }
+
+    private static long longField(DocumentSnapshot document, String field) {
+        Long value = document.getLong(field);
+        return value != null ? value : 0L;
+    }
+}
@@ -9,35 +9,48 @@ import com.google.cloud.firestore.WriteResult;
 import com.google.firebase.cloud.FirestoreClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 @Repository // Mark this as a Spring bean
-public class FirebaseUserRepository implements UserRepository {
+@Profile("!local")
+public class FirebaseUserRepository implements UserRepository, AsyncUserRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(FirebaseUserRepository.class);
     private static final String COLLECTION_NAME = "Users";
 
     @Override
     public User getUserByEmail(String email) throws ExecutionException, InterruptedException {
+        return getUserByEmailAsync(email).get();
+    }
+
+    @Override
+    public CompletableFuture<User> getUserByEmailAsync(String email) {
         Firestore db = FirestoreClient.getFirestore();
         // Assuming email is used as the document ID for simplicity
         DocumentReference docRef = db.collection(COLLECTION_NAME).document(email);
         ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
-
-        if (document.exists()) {
-            logger.debug("User found in Firestore: {}", email);
-            return document.toObject(User.class);
-        } else {
-            logger.debug("User not found in Firestore: {}", email);
-            return null;
-        }
+        return FirestoreFutures.map(future, document -> {
+            if (document.exists()) {
+                logger.debug("User found in Firestore: {}", email);
+                return document.toObject(User.class);
+            } else {
+                logger.debug("User not found in Firestore: {}", email);
+                return null;
+            }
+        });
     }
 
     @Override
     public void saveUser(User user) throws ExecutionException, InterruptedException {
+        saveUserAsync(user).get(); // Wait for write to complete
+    }
+
+    @Override
+    public CompletableFuture<Void> saveUserAsync(User user) {
         if (user == null || user.getEmail() == null || user.getEmail().isEmpty()) {
             logger.error("Cannot save user with null or empty email.");
             throw new IllegalArgumentException("User email cannot be null or empty.");
@@ -46,7 +59,9 @@ public class FirebaseUserRepository implements UserRepository {
         // Use email as the document ID
         DocumentReference docRef = db.collection(COLLECTION_NAME).document(user.getEmail());
         ApiFuture<WriteResult> future = docRef.set(user); // Overwrites if exists, creates if not
-        future.get(); // Wait for write to complete
-        logger.info("User saved/updated successfully in Firestore: {}", user.getEmail());
+        return FirestoreFutures.map(future, result -> {
+            logger.info("User saved/updated successfully in Firestore: {}", user.getEmail());
+            return null;
+        });
     }
 }
@@ -2,22 +2,30 @@ package com.example.SlipStream.repository;
 
 import com.example.SlipStream.model.Workspace;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
 import com.google.cloud.firestore.*;
 import com.google.firebase.cloud.FirestoreClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 @Repository
-public class FirebaseWorkspaceRepository implements WorkspaceRepository {
+@Profile("!local")
+public class FirebaseWorkspaceRepository implements WorkspaceRepository, AsyncWorkspaceRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(FirebaseWorkspaceRepository.class);
     private static final String COLLECTION_NAME = "Workspaces";
+    private static final int ARRAY_CONTAINS_ANY_LIMIT = 30;
 
     private Firestore getFirestore() {
         return FirestoreClient.getFirestore();
@@ -43,15 +51,20 @@ public class FirebaseWorkspaceRepository implements WorkspaceRepository {
 
     @Override
     public Workspace getWorkspaceById(String workspaceId) throws ExecutionException, InterruptedException {
+        return getWorkspaceByIdAsync(workspaceId).get();
+    }
+
+    @Override
+    public CompletableFuture<Workspace> getWorkspaceByIdAsync(String workspaceId) {
         DocumentReference docRef = getFirestore().collection(COLLECTION_NAME).document(workspaceId);
-        ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
-        if (document.exists()) {
-            return convertToWorkspace(document); // Use conversion method
-        } else {
-            logger.warn("Workspace not found with ID: {}", workspaceId);
-            return null;
-        }
+        return FirestoreFutures.map(docRef.get(), document -> {
+            if (document.exists()) {
+                return convertToWorkspace(document); // Use conversion method
+            } else {
+                logger.warn("Workspace not found with ID: {}", workspaceId);
+                return null;
+            }
+        });
     }
 
     @Override
@@ -74,13 +87,20 @@ public class FirebaseWorkspaceRepository implements WorkspaceRepository {
 
     @Override
     public List<Workspace> getWorkspacesForUser(String userEmail) throws ExecutionException, InterruptedException {
+        return getWorkspacesForUserAsync(userEmail).get();
+    }
+
+    @Override
+    public CompletableFuture<List<Workspace>> getWorkspacesForUserAsync(String userEmail) {
         logger.debug("Fetching workspaces where user '{}' is a member.", userEmail);
         ApiFuture<QuerySnapshot> future = getFirestore().collection(COLLECTION_NAME)
                 .whereArrayContains("members", userEmail)
                 .get();
-        List<Workspace> workspaces = processQuerySnapshot(future);
-        logger.debug("Found {} workspaces for user '{}'.", workspaces.size(), userEmail);
-        return workspaces;
+        return FirestoreFutures.map(future, snapshot -> {
+            List<Workspace> workspaces = convertAll(snapshot);
+            logger.debug("Found {} workspaces for user '{}'.", workspaces.size(), userEmail);
+            return workspaces;
+        });
     }
 
     @Override
@@ -140,6 +160,18 @@ public class FirebaseWorkspaceRepository implements WorkspaceRepository {
         return true;
     }
 
+    @Override
+    public boolean addRootPagesToWorkspace(String workspaceId, List<String> pageIds) throws ExecutionException, InterruptedException {
+        if (pageIds.isEmpty()) {
+            return true;
+        }
+        DocumentReference workspaceRef = getFirestore().collection(COLLECTION_NAME).document(workspaceId);
+        ApiFuture<WriteResult> future = workspaceRef.update("rootPageIds", FieldValue.arrayUnion(pageIds.toArray()), "lastUpdated", new Date());
+        future.get();
+        logger.info("{} root pages added to workspace {}", pageIds.size(), workspaceId);
+        return true;
+    }
+
     @Override
     public boolean removeRootPageFromWorkspace(String workspaceId, String pageId) throws ExecutionException, InterruptedException {
         DocumentReference workspaceRef = getFirestore().collection(COLLECTION_NAME).document(workspaceId);
@@ -149,6 +181,29 @@ public class FirebaseWorkspaceRepository implements WorkspaceRepository {
         return true;
     }
 
+    @Override
+    public List<Workspace> findWorkspacesByRootPageIds(List<String> rootPageIds) throws ExecutionException, InterruptedException {
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(rootPageIds));
+        List<ApiFuture<QuerySnapshot>> queries = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i += ARRAY_CONTAINS_ANY_LIMIT) {
+            queries.add(getFirestore().collection(COLLECTION_NAME)
+                    .whereArrayContainsAny("rootPageIds", new ArrayList<>(distinctIds.subList(i, Math.min(i + ARRAY_CONTAINS_ANY_LIMIT, distinctIds.size()))))
+                    .get());
+        }
+        Map<String, Workspace> workspaces = new LinkedHashMap<>();
+        for (QuerySnapshot snapshot : ApiFutures.allAsList(queries).get()) {
+            for (Workspace workspace : convertAll(snapshot)) {
+                workspaces.putIfAbsent(workspace.getId(), workspace);
+            }
+        }
+        return new ArrayList<>(workspaces.values());
+    }
+
+    @Override
+    public List<Workspace> getAllWorkspaces() throws ExecutionException, InterruptedException {
+        return processQuerySnapshot(getFirestore().collection(COLLECTION_NAME).get());
+    }
+
     private Workspace convertToWorkspace(DocumentSnapshot document) {
         if (document == null || !document.exists()) {
             return null;
@@ -161,9 +216,12 @@ public class FirebaseWorkspaceRepository implements WorkspaceRepository {
     }
 
     private List<Workspace> processQuerySnapshot(ApiFuture<QuerySnapshot> future) throws ExecutionException, InterruptedException {
+        return convertAll(future.get());
+    }
+
+    private List<Workspace> convertAll(QuerySnapshot snapshot) {
         List<Workspace> workspaces = new ArrayList<>();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-        for (QueryDocumentSnapshot document : documents) {
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
             workspaces.add(convertToWorkspace(document));
         }
         return workspaces;
@@ -171,12 +229,19 @@ public class FirebaseWorkspaceRepository implements WorkspaceRepository {
 
     @Override
     public List<Workspace> findWorkspacesByUserEmail(String userEmail) throws ExecutionException, InterruptedException {
+        return findWorkspacesByUserEmailAsync(userEmail).get();
+    }
+
+    @Override
+    public CompletableFuture<List<Workspace>> findWorkspacesByUserEmailAsync(String userEmail) {
         logger.debug("Repository: Finding workspaces for user email: {}", userEmail);
         ApiFuture<QuerySnapshot> future = getFirestore().collection(COLLECTION_NAME)
                 .whereArrayContains("members", userEmail)
                 .get();
-        List<Workspace> workspaces = processQuerySnapshot(future);
-        logger.info("Repository: Found {} workspaces for user {}", workspaces.size(), userEmail);
-        return workspaces;
+        return FirestoreFutures.map(future, snapshot -> {
+            List<Workspace> workspaces = convertAll(snapshot);
+            logger.info("Repository: Found {} workspaces for user {}", workspaces.size(), userEmail);
+            return workspaces;
+        });
     }
 }
@@ -0,0 +1,53 @@
+package com.example.SlipStream.repository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Bridges Firestore {@link ApiFuture}s to {@link CompletableFuture}s without parking a thread.
+ * Callbacks run on the thread that completes the Firestore future, so continuations attached
+ * to the returned futures should stay cheap (document conversion, filtering).
+ */
+public final class FirestoreFutures {
+
+    private FirestoreFutures() {
+    }
+
+    public static <T> CompletableFuture<T> toCompletable(ApiFuture<T> future) {
+        CompletableFuture<T> completable = new CompletableFuture<>();
+        ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                completable.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                completable.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return completable;
+    }
+
+    /**
+     * Completes with the results of all futures, in order, once every one of them has completed.
+     */
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Converts the result of a Firestore future once it completes.
+     */
+    public static <T, R> CompletableFuture<R> map(ApiFuture<T> future, Function<? super T, ? extends R> mapper) {
+        return toCompletable(future).thenApply(mapper);
+    }
+}
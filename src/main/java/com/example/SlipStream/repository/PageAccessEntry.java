@@ -0,0 +1,77 @@
+package com.example.SlipStream.repository;
+
+import java.util.Objects;
+
+/**
+ * One entry of the page access index: the best access a user has to a page, from the page's own
+ * owner and shares, those of its ancestors, or membership of the workspace its tree belongs to.
+ */
+public final class PageAccessEntry {
+
+    public static final String OWNER = "owner";
+    public static final String EDIT = "edit";
+    public static final String VIEW = "view";
+    // Listed through workspace membership without a grant on the page or its ancestors.
+    public static final String MEMBER = "member";
+
+    private final String userEmail;
+    private final String pageId;
+    private final String access;
+
+    public PageAccessEntry(String userEmail, String pageId, String access) {
+        this.userEmail = userEmail;
+        this.pageId = pageId;
+        this.access = access;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public String getAccess() {
+        return access;
+    }
+
+    /**
+     * Orders access levels from {@link #MEMBER} up to {@link #OWNER}; unknown levels rank lowest.
+     */
+    public static int rank(String access) {
+        if (access == null) {
+            return -1;
+        }
+        switch (access) {
+            case OWNER: return 3;
+            case EDIT: return 2;
+            case VIEW: return 1;
+            case MEMBER: return 0;
+            default: return -1;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PageAccessEntry)) {
+            return false;
+        }
+        PageAccessEntry other = (PageAccessEntry) o;
+        return Objects.equals(userEmail, other.userEmail) && Objects.equals(pageId, other.pageId)
+                && Objects.equals(access, other.access);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userEmail, pageId, access);
+    }
+
+    @Override
+    public String toString() {
+        return userEmail + " -> " + pageId + " (" + access + ")";
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.SlipStream.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Inverted index of page access, one {@link PageAccessEntry} per user and page, so the pages a
+ * user can reach are read with a single lookup. Entries are derived data: they are computed and
+ * kept up to date by {@code PageAccessIndexService} and can always be rebuilt from the pages.
+ */
+public interface PageAccessIndexRepository {
+
+    CompletableFuture<List<PageAccessEntry>> findByUserAsync(String userEmail);
+
+    List<PageAccessEntry> findByPageIds(Collection<String> pageIds) throws ExecutionException, InterruptedException;
+
+    List<PageAccessEntry> findAll() throws ExecutionException, InterruptedException;
+
+    /**
+     * Stores {@code upserts}, replacing any entry for the same user and page, and deletes the
+     * entries for the user and page of each of {@code removals}.
+     */
+    void write(Collection<PageAccessEntry> upserts, Collection<PageAccessEntry> removals) throws ExecutionException, InterruptedException;
+
+    void deleteByPageIds(Collection<String> pageIds) throws ExecutionException, InterruptedException;
+}
@@ -0,0 +1,127 @@
+package com.example.SlipStream.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.SlipStream.model.PageComponent;
+
+/**
+ * One-off migration that stores the {@code ancestorIds} path on every page. Paths are computed in
+ * memory from the {@code parentPageId} links and only pages whose stored path differs are written.
+ * Pages whose parent chain is broken or cyclic keep no path and are resolved by walking parents.
+ *
+ * Enable with {@code slipstream.pages.backfill-ancestor-ids=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "slipstream.pages.backfill-ancestor-ids", havingValue = "true")
+public class PageAncestorBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageAncestorBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final PageRepository pageRepository;
+
+    public PageAncestorBackfill(PageRepository pageRepository) {
+        this.pageRepository = pageRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        backfill();
+    }
+
+    /**
+     * @return the number of pages whose ancestor path was written.
+     */
+    public int backfill() throws ExecutionException, InterruptedException {
+        logger.info("Starting page ancestor path backfill.");
+        Map<String, PageComponent> pagesById = new HashMap<>();
+        for (PageComponent page : pageRepository.getAllPages()) {
+            if (page.getPageId() != null) {
+                pagesById.put(page.getPageId(), page);
+            }
+        }
+
+        Map<String, List<String>> paths = new HashMap<>();
+        Map<String, List<String>> changed = new LinkedHashMap<>();
+        int broken = 0;
+        for (PageComponent page : pagesById.values()) {
+            List<String> path = resolvePath(page, pagesById, paths);
+            if (path == null) {
+                broken++;
+            } else if (!path.equals(page.getAncestorIds())) {
+                changed.put(page.getPageId(), path);
+            }
+        }
+
+        List<String> pageIds = new ArrayList<>(changed.keySet());
+        for (int i = 0; i < pageIds.size(); i += BATCH_SIZE) {
+            Map<String, List<String>> batch = new LinkedHashMap<>();
+            for (String pageId : pageIds.subList(i, Math.min(i + BATCH_SIZE, pageIds.size()))) {
+                batch.put(pageId, changed.get(pageId));
+            }
+            pageRepository.updateAncestorIds(batch);
+            logger.info("Page ancestor path backfill progress: {} of {} pages written.", Math.min(i + BATCH_SIZE, pageIds.size()), pageIds.size());
+        }
+        logger.info("Page ancestor path backfill finished: {} scanned, {} written, {} with a broken parent chain.",
+                pagesById.size(), changed.size(), broken);
+        return changed.size();
+    }
+
+    /**
+     * Computes the root-first path of a page, memoizing the paths of the pages it passes through.
+     * Returns null if the chain reaches a missing parent or loops.
+     */
+    private static List<String> resolvePath(PageComponent page, Map<String, PageComponent> pagesById, Map<String, List<String>> paths) {
+        List<PageComponent> chain = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        PageComponent current = page;
+        List<String> basePath = null;
+        while (basePath == null) {
+            if (paths.containsKey(current.getPageId())) {
+                basePath = paths.get(current.getPageId());
+                break;
+            }
+            if (!visited.add(current.getPageId())) {
+                return null;
+            }
+            chain.add(current);
+            String parentId = current.getParentPageId();
+            if (parentId == null || parentId.isEmpty()) {
+                basePath = new ArrayList<>();
+                paths.put(current.getPageId(), basePath);
+                chain.remove(chain.size() - 1);
+                break;
+            }
+            current = pagesById.get(parentId);
+            if (current == null) {
+                return null;
+            }
+        }
+        // Unwind from the topmost resolved page down to the requested one.
+        List<String> path = basePath;
+        String pathOwner = current.getPageId();
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            List<String> childPath = new ArrayList<>(path);
+            childPath.add(pathOwner);
+            PageComponent child = chain.get(i);
+            paths.put(child.getPageId(), childPath);
+            path = childPath;
+            pathOwner = child.getPageId();
+        }
+        return paths.get(page.getPageId());
+    }
+}
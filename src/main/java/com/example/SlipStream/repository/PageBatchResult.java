@@ -0,0 +1,37 @@
+package com.example.SlipStream.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.example.SlipStream.model.PageComponent;
+
+/**
+ * Result of a batched multi-get: the pages that were found, in the order the caller
+ * requested them, and the requested ids for which no page exists.
+ */
+public class PageBatchResult {
+
+    private final List<PageComponent> pages;
+    private final List<String> missingIds;
+
+    public PageBatchResult(List<PageComponent> pages, List<String> missingIds) {
+        this.pages = pages != null ? pages : Collections.emptyList();
+        this.missingIds = missingIds != null ? missingIds : Collections.emptyList();
+    }
+
+    public static PageBatchResult empty() {
+        return new PageBatchResult(Collections.emptyList(), Collections.emptyList());
+    }
+
+    public List<PageComponent> getPages() {
+        return pages;
+    }
+
+    public List<String> getMissingIds() {
+        return missingIds;
+    }
+
+    public boolean hasMissing() {
+        return !missingIds.isEmpty();
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.SlipStream.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.SlipStream.model.ContainerPage;
+import com.example.SlipStream.model.ContentPage;
+import com.example.SlipStream.model.PageComponent;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+
+/**
+ * Page content stored as ordered blocks in a {@code blocks} subcollection of the page document.
+ *
+ * Content is cut after every blank line, and blocks longer than {@value #MAX_BLOCK_CHARS}
+ * characters are cut again, so no page body is bound by the document size limit. A block's id is
+ * derived from its text and the page document keeps the ordered ids in {@code blockIds}. Unchanged
+ * blocks therefore keep their ids and documents across saves: a save writes only blocks that are
+ * new and deletes only blocks the page no longer uses. Concatenating the blocks in order gives
+ * back the exact content.
+ */
+final class PageBlockStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageBlockStore.class);
+
+    static final String SUBCOLLECTION = "blocks";
+    static final String FIELD_BLOCK_IDS = "blockIds";
+    private static final String FIELD_TEXT = "text";
+    private static final int MAX_BLOCK_CHARS = 64 * 1024;
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int READ_CHUNK_SIZE = 100;
+
+    private PageBlockStore() {
+    }
+
+    /**
+     * The blocks a page body is stored as, and the block writes needed to get there from the
+     * blocks of the stored document.
+     */
+    static final class Plan {
+        private final List<String> blockIds;
+        private final Map<String, String> blocksToWrite;
+        private final List<String> blocksToDelete;
+
+        private Plan(List<String> blockIds, Map<String, String> blocksToWrite, List<String> blocksToDelete) {
+            this.blockIds = blockIds;
+            this.blocksToWrite = blocksToWrite;
+            this.blocksToDelete = blocksToDelete;
+        }
+
+        List<String> getBlockIds() {
+            return blockIds;
+        }
+
+        Map<String, String> getBlocksToWrite() {
+            return blocksToWrite;
+        }
+
+        List<String> getBlocksToDelete() {
+            return blocksToDelete;
+        }
+    }
+
+    /**
+     * @param storedBlockIds block ids of the stored document, or null if its content is inline.
+     */
+    static Plan plan(String content, List<String> storedBlockIds) {
+        Set<String> stored = storedBlockIds != null ? new LinkedHashSet<>(storedBlockIds) : Collections.emptySet();
+        List<String> blockIds = new ArrayList<>();
+        Map<String, String> blocksToWrite = new LinkedHashMap<>();
+        for (String text : split(content)) {
+            String blockId = blockId(text);
+            blockIds.add(blockId);
+            if (!stored.contains(blockId)) {
+                blocksToWrite.putIfAbsent(blockId, text);
+            }
+        }
+        List<String> blocksToDelete = new ArrayList<>(stored);
+        blocksToDelete.removeAll(blockIds);
+        return new Plan(blockIds, blocksToWrite, blocksToDelete);
+    }
+
+    /**
+     * Cuts content after each run of two or more line breaks and at {@value #MAX_BLOCK_CHARS}
+     * characters. Null and empty content have no blocks.
+     */
+    static List<String> split(String content) {
+        List<String> blocks = new ArrayList<>();
+        if (content == null) {
+            return blocks;
+        }
+        int length = content.length();
+        int start = 0;
+        while (start < length) {
+            int end = content.indexOf("\n\n", start);
+            end = end < 0 ? length : end + 2;
+            while (end < length && content.charAt(end) == '\n') {
+                end++;
+            }
+            while (end - start > MAX_BLOCK_CHARS) {
+                int cut = start + MAX_BLOCK_CHARS;
+                if (Character.isHighSurrogate(content.charAt(cut - 1))) {
+                    cut--;
+                }
+                blocks.add(content.substring(start, cut));
+                start = cut;
+            }
+            blocks.add(content.substring(start, end));
+            start = end;
+        }
+        return blocks;
+    }
+
+    static String blockId(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder id = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                id.append(String.format("%02x", digest[i]));
+            }
+            return id.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Commits the block changes of a plan together with the page document write. When they fit in
+     * one batch, blocks and page change atomically, so a failed precondition on the page leaves
+     * the blocks untouched too. Larger changes write the new blocks first and delete the unused
+     * ones last, so the page never references a block that does not exist; a failure in between
+     * leaves only unreferenced blocks behind.
+     *
+     * @return the write result of the page document.
+     */
+    static WriteResult commit(Firestore firestore, DocumentReference pageRef, Plan plan, Consumer<WriteBatch> pageWrite)
+            throws ExecutionException, InterruptedException {
+        CollectionReference blocks = pageRef.collection(SUBCOLLECTION);
+        List<Map.Entry<String, String>> writes = new ArrayList<>(plan.getBlocksToWrite().entrySet());
+        List<String> deletes = plan.getBlocksToDelete();
+
+        if (writes.size() + deletes.size() + 1 <= MAX_BATCH_WRITES) {
+            WriteBatch batch = firestore.batch();
+            for (Map.Entry<String, String> block : writes) {
+                batch.set(blocks.document(block.getKey()), Map.of(FIELD_TEXT, block.getValue()));
+            }
+            pageWrite.accept(batch);
+            for (String blockId : deletes) {
+                batch.delete(blocks.document(blockId));
+            }
+            return batch.commit().get().get(writes.size());
+        }
+
+        List<ApiFuture<List<WriteResult>>> blockWrites = new ArrayList<>();
+        for (int i = 0; i < writes.size(); i += MAX_BATCH_WRITES) {
+            WriteBatch batch = firestore.batch();
+            for (Map.Entry<String, String> block : writes.subList(i, Math.min(i + MAX_BATCH_WRITES, writes.size()))) {
+                batch.set(blocks.document(block.getKey()), Map.of(FIELD_TEXT, block.getValue()));
+            }
+            blockWrites.add(batch.commit());
+        }
+        ApiFutures.allAsList(blockWrites).get();
+
+        WriteBatch pageBatch = firestore.batch();
+        pageWrite.accept(pageBatch);
+        WriteResult result = pageBatch.commit().get().get(0);
+        deleteBlocks(firestore, pageRef, deletes);
+        return result;
+    }
+
+    /**
+     * Queues the block writes of a plan on a bulk writer, for pages created without a batch. The
+     * caller has to wait for these writes before writing the page that references the blocks.
+     */
+    static void write(BulkWriter writer, DocumentReference pageRef, Plan plan, List<ApiFuture<WriteResult>> writes) {
+        CollectionReference blocks = pageRef.collection(SUBCOLLECTION);
+        for (Map.Entry<String, String> block : plan.getBlocksToWrite().entrySet()) {
+            writes.add(writer.set(blocks.document(block.getKey()), Map.of(FIELD_TEXT, block.getValue())));
+        }
+    }
+
+    static void deleteBlocks(Firestore firestore, DocumentReference pageRef, List<String> blockIds)
+            throws ExecutionException, InterruptedException {
+        CollectionReference blocks = pageRef.collection(SUBCOLLECTION);
+        List<ApiFuture<List<WriteResult>>> deletes = new ArrayList<>();
+        for (int i = 0; i < blockIds.size(); i += MAX_BATCH_WRITES) {
+            WriteBatch batch = firestore.batch();
+            for (String blockId : blockIds.subList(i, Math.min(i + MAX_BATCH_WRITES, blockIds.size()))) {
+                batch.delete(blocks.document(blockId));
+            }
+            deletes.add(batch.commit());
+        }
+        ApiFutures.allAsList(deletes).get();
+    }
+
+    /**
+     * Reads the blocks of every page in the list that stores its content in blocks, with batched
+     * {@code getAll} reads shared by all pages, and sets the assembled content on each of them.
+     * Pages with inline content are returned as they are, without any read.
+     */
+    static CompletableFuture<List<PageComponent>> loadContent(Firestore firestore, String collection, List<PageComponent> pages) {
+        Map<String, DocumentReference> refsByPath = new LinkedHashMap<>();
+        for (PageComponent page : pages) {
+            if (page == null || page.getStoredBlockIds() == null) {
+                continue;
+            }
+            DocumentReference pageRef = firestore.collection(collection).document(page.getPageId());
+            for (String blockId : page.getStoredBlockIds()) {
+                DocumentReference blockRef = pageRef.collection(SUBCOLLECTION).document(blockId);
+                refsByPath.putIfAbsent(blockRef.getPath(), blockRef);
+            }
+        }
+        if (refsByPath.isEmpty()) {
+            pages.stream()
+                    .filter(page -> page != null && page.getStoredBlockIds() != null)
+                    .forEach(page -> setContent(page, ""));
+            return CompletableFuture.completedFuture(pages);
+        }
+
+        List<DocumentReference> refs = new ArrayList<>(refsByPath.values());
+        List<ApiFuture<List<DocumentSnapshot>>> reads = new ArrayList<>();
+        for (int i = 0; i < refs.size(); i += READ_CHUNK_SIZE) {
+            reads.add(firestore.getAll(refs.subList(i, Math.min(i + READ_CHUNK_SIZE, refs.size())).toArray(new DocumentReference[0])));
+        }
+        return FirestoreFutures.map(ApiFutures.allAsList(reads), results -> {
+            Map<String, String> textByPath = new HashMap<>();
+            for (List<DocumentSnapshot> snapshots : results) {
+                for (DocumentSnapshot snapshot : snapshots) {
+                    if (snapshot.exists()) {
+                        textByPath.put(snapshot.getReference().getPath(), snapshot.getString(FIELD_TEXT));
+                    }
+                }
+            }
+            for (PageComponent page : pages) {
+                if (page == null || page.getStoredBlockIds() == null) {
+                    continue;
+                }
+                DocumentReference pageRef = firestore.collection(collection).document(page.getPageId());
+                StringBuilder content = new StringBuilder();
+                for (String blockId : page.getStoredBlockIds()) {
+                    String text = textByPath.get(pageRef.collection(SUBCOLLECTION).document(blockId).getPath());
+                    if (text != null) {
+                        content.append(text);
+                    } else {
+                        logger.error("Page {} references missing content block {}.", page.getPageId(), blockId);
+                    }
+                }
+                setContent(page, content.toString());
+            }
+            logger.debug("Assembled content of pages from {} blocks in {} reads.", refs.size(), reads.size());
+            return pages;
+        });
+    }
+
+    private static void setContent(PageComponent page, String content) {
+        // The setters stamp lastUpdated; this is stored content, not an edit.
+        Date lastUpdated = page.getLastUpdated();
+        if (page instanceof ContentPage) {
+            ((ContentPage) page).setContent(content);
+        } else if (page instanceof ContainerPage) {
+            ((ContainerPage) page).setSummary(content);
+        }
+        page.setLastUpdated(lastUpdated);
+        page.markClean();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.SlipStream.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.google.cloud.firestore.Blob;
+
+/**
+ * Encodes page bodies for the {@code content} field. Bodies of at least {@code threshold} UTF-8
+ * bytes are deflated into a {@link Blob} and marked with {@code contentEncoding = "deflate"};
+ * smaller bodies, and bodies that do not shrink, stay plain strings with no marker. Decoding
+ * goes by the marker, so documents written before compression existed read unchanged and both
+ * formats can live side by side during a rollout.
+ */
+final class PageContentCodec {
+
+    static final String FIELD_CONTENT_ENCODING = "contentEncoding";
+    static final String ENCODING_DEFLATE = "deflate";
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int level;
+
+    PageContentCodec(boolean enabled, int threshold, int level) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    /**
+     * The stored form of a body: the value for {@code content} and the marker for
+     * {@value #FIELD_CONTENT_ENCODING}, null for plain strings.
+     */
+    static final class Encoded {
+        private final Object value;
+        private final String encoding;
+
+        private Encoded(Object value, String encoding) {
+            this.value = value;
+            this.encoding = encoding;
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        String getEncoding() {
+            return encoding;
+        }
+    }
+
+    Encoded encode(String content) {
+        if (!enabled || content == null) {
+            return new Encoded(content, null);
+        }
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < threshold) {
+            return new Encoded(content, null);
+        }
+        byte[] compressed = deflate(raw, level);
+        if (compressed.length >= raw.length) {
+            return new Encoded(content, null);
+        }
+        return new Encoded(Blob.fromBytes(compressed), ENCODING_DEFLATE);
+    }
+
+    /**
+     * Reads a stored body in either format.
+     *
+     * @throws IllegalStateException if the marker is unknown or the compressed data is corrupt.
+     */
+    static String decode(Object value, Object encoding) {
+        if (value == null) {
+            return null;
+        }
+        if (encoding == null) {
+            if (value instanceof String) {
+                return (String) value;
+            }
+            throw new IllegalStateException("Binary page content without a content encoding");
+        }
+        if (!ENCODING_DEFLATE.equals(encoding)) {
+            throw new IllegalStateException("Unknown page content encoding: " + encoding);
+        }
+        if (!(value instanceof Blob)) {
+            throw new IllegalStateException("Deflated page content is not binary: " + value.getClass().getName());
+        }
+        return new String(inflate(((Blob) value).toBytes()), StandardCharsets.UTF_8);
+    }
+
+    static byte[] deflate(byte[] raw, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated deflated page content");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt deflated page content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.SlipStream.repository;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+import com.example.SlipStream.model.PageComponent;
+
+/**
+ * Iterates over a cursor-paginated listing, fetching the next slice only when the current one
+ * is used up, so at most one slice of pages is held in memory at a time.
+ */
+public class PageCursorIterator implements Iterator<PageComponent> {
+
+    @FunctionalInterface
+    public interface SliceFetcher {
+        PageSlice fetch(String cursor, int limit) throws ExecutionException, InterruptedException;
+    }
+
+    private final SliceFetcher fetcher;
+    private final int batchSize;
+    private Iterator<PageComponent> current = Collections.emptyIterator();
+    private String cursor;
+    private boolean exhausted;
+
+    public PageCursorIterator(SliceFetcher fetcher, int batchSize) {
+        this.fetcher = fetcher;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext() && !exhausted) {
+            fetchNext();
+        }
+        return current.hasNext();
+    }
+
+    @Override
+    public PageComponent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private void fetchNext() {
+        try {
+            PageSlice slice = fetcher.fetch(cursor, batchSize);
+            current = slice.getPages().iterator();
+            cursor = slice.getNextCursor();
+            exhausted = cursor == null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching the next slice of pages", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to fetch the next slice of pages", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.SlipStream.repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a subtree delete: every page id that was deleted, and for each surviving parent
+ * the ids removed from its child list. Parents inside the deleted subtrees are not listed.
+ */
+public class PageDeletionResult {
+
+    private final List<String> deletedIds;
+    private final Map<String, List<String>> removedChildrenByParent;
+
+    public PageDeletionResult(List<String> deletedIds, Map<String, List<String>> removedChildrenByParent) {
+        this.deletedIds = deletedIds != null ? deletedIds : Collections.emptyList();
+        this.removedChildrenByParent = removedChildrenByParent != null ? removedChildrenByParent : Collections.emptyMap();
+    }
+
+    public static PageDeletionResult empty() {
+        return new PageDeletionResult(Collections.emptyList(), Collections.emptyMap());
+    }
+
+    public List<String> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public Map<String, List<String>> getRemovedChildrenByParent() {
+        return removedChildrenByParent;
+    }
+
+    public boolean isEmpty() {
+        return deletedIds.isEmpty();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.SlipStream.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.SlipStream.model.ContainerPage;
+import com.example.SlipStream.model.ContentPage;
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+
+/**
+ * Field-by-field mapping between pages and Firestore page documents.
+ *
+ * Reads decode only the fields a page uses, looked up by prebuilt {@link FieldPath}s, instead of
+ * {@link DocumentSnapshot#getData()}, which decodes and copies every field into a new map. The
+ * snapshot's string accessors are not used: each call parses its dotted field name into a new
+ * path. The collections the snapshot returns are already fresh, so they are handed to the page as
+ * they are.
+ * Writes fill one presized map and use shared immutable empty collections for absent lists and maps.
+ */
+final class PageDocumentCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageDocumentCodec.class);
+
+    // Number of fields toMap writes, so the map never rehashes.
+    private static final int DOCUMENT_FIELDS = 17;
+
+    private static final FieldPath PAGE_ID = FieldPath.of("pageId");
+    private static final FieldPath TITLE = FieldPath.of("title");
+    private static final FieldPath PARENT_PAGE_ID = FieldPath.of("parentPageId");
+    private static final FieldPath OWNER = FieldPath.of("owner");
+    private static final FieldPath WORKSPACE_ID = FieldPath.of("workspaceId");
+    private static final FieldPath CREATED_AT = FieldPath.of("createdAt");
+    private static final FieldPath LAST_UPDATED = FieldPath.of("lastUpdated");
+    private static final FieldPath IS_LEAF = FieldPath.of("isLeaf");
+    private static final FieldPath IS_PUBLISHED = FieldPath.of("isPublished");
+    private static final FieldPath SHARING_INFO = FieldPath.of("sharingInfo");
+    private static final FieldPath ANCESTOR_IDS = FieldPath.of("ancestorIds");
+    private static final FieldPath CHILDREN_IDS = FieldPath.of("childrenIds");
+    private static final FieldPath CONTENT = FieldPath.of("content");
+    private static final FieldPath CONTENT_ENCODING = FieldPath.of(PageContentCodec.FIELD_CONTENT_ENCODING);
+    private static final FieldPath BLOCK_IDS = FieldPath.of(PageBlockStore.FIELD_BLOCK_IDS);
+    private static final FieldPath VERSION = FieldPath.of("version");
+
+    private final PageContentCodec contentCodec;
+
+    PageDocumentCodec(PageContentCodec contentCodec) {
+        this.contentCodec = contentCodec;
+    }
+
+    Map<String, Object> toMap(PageComponent page) {
+        Map<String, Object> map = new HashMap<>(DOCUMENT_FIELDS * 4 / 3 + 1);
+        map.put("pageId", page.getPageId());
+        map.put("title", page.getTitle());
+        map.put("parentPageId", page.getParentPageId());
+        map.put("owner", page.getOwner());
+        map.put("workspaceId", page.getWorkspaceId());
+        map.put("createdAt", page.getCreatedAt());
+        map.put("lastUpdated", page.getLastUpdated());
+        map.put("isLeaf", page.isLeaf());
+        map.put("isPublished", page.isPublished());
+        Map<String, String> sharingInfo = page.getSharingInfo();
+        map.put("sharingInfo", sharingInfo != null ? sharingInfo : Collections.emptyMap());
+        map.putAll(FirebasePageRepository.sharingArrays(sharingInfo));
+        map.put("ancestorIds", page.getAncestorIds());
+
+        PageContentCodec.Encoded encoded = contentCodec.encode(page.getContent());
+        map.put("content", encoded.getValue());
+        map.put(PageContentCodec.FIELD_CONTENT_ENCODING, encoded.getEncoding());
+
+        List<String> childrenIds = page instanceof ContainerPage ? ((ContainerPage) page).getChildrenIds() : null;
+        map.put("childrenIds", childrenIds != null ? childrenIds : Collections.emptyList());
+        return map;
+    }
+
+    /**
+     * Reads a page document, or returns null if the document does not exist. The page is marked
+     * clean, so later changes to it are written as field updates.
+     */
+    @SuppressWarnings("unchecked")
+    PageComponent toPage(DocumentSnapshot document) {
+        if (!document.exists()) {
+            return null;
+        }
+        PageComponent component;
+        if (Boolean.TRUE.equals(document.get(IS_LEAF))) {
+            ContentPage page = new ContentPage();
+            page.setContent(readContent(document));
+            component = page;
+        } else {
+            ContainerPage container = new ContainerPage();
+            container.setSummary(readContent(document));
+            List<String> childrenIds = (List<String>) document.get(CHILDREN_IDS);
+            if (childrenIds != null) {
+                container.setChildrenIds(childrenIds);
+            }
+            component = container;
+        }
+
+        component.setPageId((String) document.get(PAGE_ID));
+        component.setTitle((String) document.get(TITLE));
+        component.setOwner((String) document.get(OWNER));
+        component.setParentPageId((String) document.get(PARENT_PAGE_ID));
+        component.setPublished(Boolean.TRUE.equals(document.get(IS_PUBLISHED)));
+        component.setWorkspaceId((String) document.get(WORKSPACE_ID));
+        component.setAncestorIds((List<String>) document.get(ANCESTOR_IDS));
+        component.setStoredBlockIds(readBlockIds(document));
+
+        Map<String, String> sharingInfo = (Map<String, String>) document.get(SHARING_INFO);
+        if (sharingInfo != null) {
+            component.setSharingInfo(sharingInfo);
+        }
+
+        Date createdAt = toDate(document.get(CREATED_AT));
+        if (createdAt != null) {
+            component.setCreatedAt(createdAt);
+        }
+        Date lastUpdated = toDate(document.get(LAST_UPDATED));
+        if (lastUpdated != null) {
+            component.setLastUpdated(lastUpdated);
+        }
+        component.setVersion(readVersion(document));
+        Timestamp updateTime = document.getUpdateTime();
+        if (updateTime != null) {
+            component.setStoredUpdateTime(Instant.ofEpochSecond(updateTime.getSeconds(), updateTime.getNanos()));
+        }
+        component.markClean();
+        return component;
+    }
+
+    static PageSummary toSummary(DocumentSnapshot document) {
+        String pageId = (String) document.get(PAGE_ID);
+        return new PageSummary(
+                pageId != null ? pageId : document.getId(),
+                (String) document.get(TITLE),
+                (String) document.get(PARENT_PAGE_ID),
+                (String) document.get(OWNER),
+                (String) document.get(WORKSPACE_ID),
+                Boolean.TRUE.equals(document.get(IS_LEAF)),
+                Boolean.TRUE.equals(document.get(IS_PUBLISHED)),
+                toDate(document.get(LAST_UPDATED)));
+    }
+
+    static long readVersion(DocumentSnapshot document) {
+        Object version = document.get(VERSION);
+        return version instanceof Number ? ((Number) version).longValue() : 0L;
+    }
+
+    /**
+     * The ids of the blocks the document's body is stored in, or null if it is stored inline.
+     */
+    static List<String> readBlockIds(DocumentSnapshot document) {
+        Object value = document.get(BLOCK_IDS);
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<String> blockIds = new ArrayList<>();
+        for (Object blockId : (List<?>) value) {
+            blockIds.add((String) blockId);
+        }
+        return blockIds;
+    }
+
+    private static String readContent(DocumentSnapshot document) {
+        try {
+            return PageContentCodec.decode(document.get(CONTENT), document.get(CONTENT_ENCODING));
+        } catch (IllegalStateException e) {
+            // One unreadable body should not fail every listing the page appears in.
+            logger.error("Could not decode content of page document {}: {}", document.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static Date toDate(Object value) {
+        return value instanceof Timestamp ? ((Timestamp) value).toDate() : null;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.SlipStream.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.firebase.cloud.FirestoreClient;
+
+/**
+ * One-off migration that guarantees every page document is stored under its {@code pageId}.
+ * Documents stored under another id are copied to {@code Pages/{pageId}} and the old document
+ * is removed; documents without a {@code pageId} field get one.
+ *
+ * The migration does not switch off the fallback {@code whereEqualTo("pageId")} query: that
+ * switch is read from configuration by every instance. Once a run reports no conflicts, set
+ * {@code slipstream.pages.legacy-id-lookup=false} on all instances and restart them; until every
+ * instance runs with it, misses on the others still cost the extra query. Instances started
+ * with the lookup disabled must not be deployed before the migration has completed.
+ *
+ * Enable with {@code slipstream.pages.migrate-document-ids=true}.
+ */
+@Component
+@Profile("!local")
+@ConditionalOnProperty(name = "slipstream.pages.migrate-document-ids", havingValue = "true")
+public class PageDocumentIdMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageDocumentIdMigration.class);
+    private static final String COLLECTION_NAME = "Pages";
+    private static final int PAGE_SIZE = 200;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        int conflicts = migrate();
+        if (conflicts == 0) {
+            logger.info("Page document id migration complete; set slipstream.pages.legacy-id-lookup=false on every instance to skip the pageId fallback query.");
+        } else {
+            logger.warn("Page document id migration left {} conflicting documents; legacy pageId lookup stays enabled.", conflicts);
+        }
+    }
+
+    /**
+     * Walks the collection in document-id order and rewrites mismatched documents.
+     *
+     * @return the number of documents that could not be migrated because their target id is taken.
+     */
+    public int migrate() throws ExecutionException, InterruptedException {
+        Firestore firestore = FirestoreClient.getFirestore();
+        CollectionReference pages = firestore.collection(COLLECTION_NAME);
+        int scanned = 0;
+        int moved = 0;
+        int backfilled = 0;
+        int conflicts = 0;
+        DocumentSnapshot last = null;
+
+        logger.info("Starting page document id migration.");
+        while (true) {
+            Query query = pages.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+            if (last != null) {
+                query = query.startAfter(last);
+            }
+            List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+            if (documents.isEmpty()) {
+                break;
+            }
+            last = documents.get(documents.size() - 1);
+            scanned += documents.size();
+
+            Map<String, QueryDocumentSnapshot> toMove = new HashMap<>();
+            WriteBatch batch = firestore.batch();
+            int operations = 0;
+            for (QueryDocumentSnapshot document : documents) {
+                String pageId = document.getString("pageId");
+                if (pageId == null || pageId.isEmpty()) {
+                    batch.update(document.getReference(), "pageId", document.getId());
+                    operations++;
+                    backfilled++;
+                } else if (!pageId.equals(document.getId())) {
+                    toMove.put(pageId, document);
+                }
+            }
+
+            if (!toMove.isEmpty()) {
+                List<String> targetIds = new ArrayList<>(toMove.keySet());
+                DocumentReference[] targets = targetIds.stream().map(pages::document).toArray(DocumentReference[]::new);
+                for (DocumentSnapshot target : firestore.getAll(targets).get()) {
+                    QueryDocumentSnapshot source = toMove.get(target.getId());
+                    if (target.exists()) {
+                        logger.warn("Cannot move page document {} to {}: target document already exists.", source.getId(), target.getId());
+                        conflicts++;
+                        continue;
+                    }
+                    batch.create(target.getReference(), source.getData());
+                    batch.delete(source.getReference());
+                    operations += 2;
+                    moved++;
+                }
+            }
+
+            if (operations > 0) {
+                batch.commit().get();
+            }
+            logger.info("Page document id migration progress: {} scanned, {} moved, {} backfilled, {} conflicts.",
+                    scanned, moved, backfilled, conflicts);
+        }
+        logger.info("Page document id migration finished: {} scanned, {} moved, {} backfilled, {} conflicts.",
+                scanned, moved, backfilled, conflicts);
+        return conflicts;
+    }
+}
@@ -1,21 +1,39 @@
 package com.example.SlipStream.repository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
 
 public interface PageRepository {
     String createPage(PageComponent page) throws ExecutionException, InterruptedException;
+    void createPages(List<PageComponent> pages) throws ExecutionException, InterruptedException;
     PageComponent getPage(String pageId) throws ExecutionException, InterruptedException;
     List<PageComponent> getAllPages() throws ExecutionException, InterruptedException;
     List<PageComponent> getChildPages(String parentPageId) throws ExecutionException, InterruptedException;
+    List<PageSummary> getChildPageSummaries(String parentPageId) throws ExecutionException, InterruptedException;
+    PageSlice listPages(String cursor, int limit) throws ExecutionException, InterruptedException;
+    PageSlice getChildPages(String parentPageId, String cursor, int limit) throws ExecutionException, InterruptedException;
+    PageSlice findPagesByOwner(String ownerEmail, String cursor, int limit) throws ExecutionException, InterruptedException;
+    PageSlice findPagesByWorkspaceIds(List<String> workspaceIds, String cursor, int limit) throws ExecutionException, InterruptedException;
     boolean updatePageContent(String pageId, String newContent) throws ExecutionException, InterruptedException;
     boolean deletePage(String pageId) throws ExecutionException, InterruptedException;
+    PageDeletionResult deletePages(List<String> rootPageIds) throws ExecutionException, InterruptedException;
     boolean updatePage(PageComponent page) throws ExecutionException, InterruptedException;
+    PageUpdateResult updatePageVersioned(PageComponent page) throws ExecutionException, InterruptedException;
+    /**
+     * Writes {@code page} at the version it already carries, unless the stored page has moved
+     * past {@code baseVersion}, the version the page was read at.
+     */
+    PageUpdateResult updatePageVersioned(PageComponent page, long baseVersion) throws ExecutionException, InterruptedException;
+    void updateAncestorIds(Map<String, List<String>> ancestorIdsByPageId) throws ExecutionException, InterruptedException;
     List<PageComponent> getPagesByIds(List<String> pageIds) throws ExecutionException, InterruptedException;
+    PageBatchResult fetchPagesByIds(List<String> pageIds) throws ExecutionException, InterruptedException;
     List<PageComponent> findPagesByOwner(String ownerEmail) throws ExecutionException, InterruptedException;
     List<PageComponent> findPagesSharedWithUser(String userEmail) throws ExecutionException, InterruptedException;
     boolean sharePageWithUser(String pageId, String userEmail, String accessLevel) throws ExecutionException, InterruptedException;
+    boolean unsharePageWithUser(String pageId, String userEmail) throws ExecutionException, InterruptedException;
     List<PageComponent> findPagesByWorkspaceIds(List<String> workspaceIds) throws ExecutionException, InterruptedException;
 }
\ No newline at end of file
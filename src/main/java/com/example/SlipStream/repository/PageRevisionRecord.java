@@ -0,0 +1,111 @@
+package com.example.SlipStream.repository;
+
+import java.util.Date;
+
+/**
+ * One stored revision of a page. A snapshot carries the full content; a delta carries the edit
+ * that turns the content of {@code baseRevision} into this revision's content, as a single
+ * splice: {@code removed} characters at {@code offset} are replaced by {@code inserted}.
+ *
+ * {@code snapshotRevision} is the snapshot the delta chain starts from (a snapshot's own
+ * revision), so any revision is rebuilt from the records between the two.
+ */
+public final class PageRevisionRecord {
+
+    private final String pageId;
+    private final long revision;
+    private final long pageVersion;
+    private final String title;
+    private final Date savedAt;
+    private final long snapshotRevision;
+    private final long baseRevision;
+    private final String content;
+    private final int offset;
+    private final int removed;
+    private final String inserted;
+
+    private PageRevisionRecord(String pageId, long revision, long pageVersion, String title, Date savedAt,
+                               long snapshotRevision, long baseRevision, String content,
+                               int offset, int removed, String inserted) {
+        this.pageId = pageId;
+        this.revision = revision;
+        this.pageVersion = pageVersion;
+        this.title = title;
+        this.savedAt = savedAt;
+        this.snapshotRevision = snapshotRevision;
+        this.baseRevision = baseRevision;
+        this.content = content;
+        this.offset = offset;
+        this.removed = removed;
+        this.inserted = inserted;
+    }
+
+    public static PageRevisionRecord snapshot(String pageId, long revision, long pageVersion, String title, Date savedAt,
+                                              String content) {
+        return new PageRevisionRecord(pageId, revision, pageVersion, title, savedAt, revision, 0L,
+                content != null ? content : "", 0, 0, null);
+    }
+
+    public static PageRevisionRecord delta(String pageId, long revision, long pageVersion, String title, Date savedAt,
+                                           long snapshotRevision, long baseRevision, int offset, int removed, String inserted) {
+        return new PageRevisionRecord(pageId, revision, pageVersion, title, savedAt, snapshotRevision, baseRevision,
+                null, offset, removed, inserted != null ? inserted : "");
+    }
+
+    public boolean isSnapshot() {
+        return snapshotRevision == revision;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public long getPageVersion() {
+        return pageVersion;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Date getSavedAt() {
+        return savedAt;
+    }
+
+    public long getSnapshotRevision() {
+        return snapshotRevision;
+    }
+
+    /**
+     * The revision this delta applies to; 0 for snapshots.
+     */
+    public long getBaseRevision() {
+        return baseRevision;
+    }
+
+    /**
+     * The full content of a snapshot; null for deltas.
+     */
+    public String getContent() {
+        return content;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    /**
+     * The text a delta inserts at {@code offset}; null for snapshots.
+     */
+    public String getInserted() {
+        return inserted;
+    }
+}
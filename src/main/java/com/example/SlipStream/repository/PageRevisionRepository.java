@@ -0,0 +1,54 @@
+package com.example.SlipStream.repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Append-only store of page revisions. Revision numbers are per page and increase with every
+ * append; compaction may leave gaps. Reads return records as stored, content is rebuilt by
+ * {@code PageRevisionService}.
+ */
+public interface PageRevisionRepository {
+
+    /**
+     * Stores a new revision.
+     *
+     * @return false if the page already has a revision with this number, e.g. because another
+     *         instance appended first.
+     */
+    boolean appendRevision(PageRevisionRecord record) throws ExecutionException, InterruptedException;
+
+    PageRevisionRecord getLatestRevision(String pageId) throws ExecutionException, InterruptedException;
+
+    PageRevisionRecord getRevision(String pageId, long revision) throws ExecutionException, InterruptedException;
+
+    /**
+     * The newest revision saved at or before {@code savedAt}, or null if there is none.
+     */
+    PageRevisionRecord findRevisionAt(String pageId, Date savedAt) throws ExecutionException, InterruptedException;
+
+    /**
+     * Revisions numbered {@code fromRevision} to {@code toRevision} inclusive, oldest first.
+     */
+    List<PageRevisionRecord> getRevisions(String pageId, long fromRevision, long toRevision) throws ExecutionException, InterruptedException;
+
+    /**
+     * Revisions older than {@code beforeRevision} (all if null), newest first, at most {@code limit}.
+     * Implementations may leave out content and inserted text.
+     */
+    List<PageRevisionRecord> listRevisions(String pageId, Long beforeRevision, int limit) throws ExecutionException, InterruptedException;
+
+    /**
+     * Pages with at least {@code minNewRevisions} revisions appended since their last compaction.
+     */
+    List<String> findPagesToCompact(int minNewRevisions, int limit) throws ExecutionException, InterruptedException;
+
+    /**
+     * Applies a compaction: writes the re-encoded records first, so every stored delta keeps a
+     * readable base, then deletes the dropped revisions and resets the page's count of new revisions.
+     */
+    void replaceRevisions(String pageId, List<PageRevisionRecord> rewritten, List<Long> dropped) throws ExecutionException, InterruptedException;
+
+    void deleteRevisions(String pageId) throws ExecutionException, InterruptedException;
+}
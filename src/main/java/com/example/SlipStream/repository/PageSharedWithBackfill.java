@@ -0,0 +1,98 @@
+package com.example.SlipStream.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.firebase.cloud.FirestoreClient;
+
+/**
+ * One-off migration that writes the {@code sharedWith}, {@code sharedWithView} and
+ * {@code sharedWithEdit} arrays derived from each page's {@code sharingInfo} map.
+ *
+ * The backfill does not switch shared-page lookups to the indexed {@code array-contains} query:
+ * that switch is read from configuration by every instance. Once a run has finished, set
+ * {@code slipstream.pages.shared-with-query=true} on all instances and restart them; instances
+ * started with it before the backfill has finished miss pages shared before the arrays existed.
+ *
+ * Enable with {@code slipstream.pages.backfill-shared-with=true}.
+ */
+@Component
+@Profile("!local")
+@ConditionalOnProperty(name = "slipstream.pages.backfill-shared-with", havingValue = "true")
+public class PageSharedWithBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageSharedWithBackfill.class);
+    private static final String COLLECTION_NAME = "Pages";
+    private static final int PAGE_SIZE = 200;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        backfill();
+        logger.info("sharedWith backfill complete; set slipstream.pages.shared-with-query=true on every instance to look up shared pages by the sharedWith arrays.");
+    }
+
+    /**
+     * Walks the collection in document-id order and rewrites documents whose arrays are missing or stale.
+     *
+     * @return the number of documents updated.
+     */
+    @SuppressWarnings("unchecked")
+    public int backfill() throws ExecutionException, InterruptedException {
+        Firestore firestore = FirestoreClient.getFirestore();
+        CollectionReference pages = firestore.collection(COLLECTION_NAME);
+        int scanned = 0;
+        int updated = 0;
+        DocumentSnapshot last = null;
+
+        logger.info("Starting sharedWith backfill.");
+        while (true) {
+            Query query = pages.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+            if (last != null) {
+                query = query.startAfter(last);
+            }
+            List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+            if (documents.isEmpty()) {
+                break;
+            }
+            last = documents.get(documents.size() - 1);
+            scanned += documents.size();
+
+            WriteBatch batch = firestore.batch();
+            int operations = 0;
+            for (QueryDocumentSnapshot document : documents) {
+                Map<String, String> sharingInfo = (Map<String, String>) document.get("sharingInfo");
+                Map<String, List<String>> arrays = FirebasePageRepository.sharingArrays(sharingInfo);
+                boolean stale = arrays.entrySet().stream()
+                        .anyMatch(entry -> !Objects.equals(entry.getValue(), document.get(entry.getKey())));
+                if (stale) {
+                    batch.update(document.getReference(), (Map<String, Object>) (Map<String, ?>) arrays);
+                    operations++;
+                }
+            }
+            if (operations > 0) {
+                batch.commit().get();
+                updated += operations;
+            }
+            logger.info("sharedWith backfill progress: {} scanned, {} updated.", scanned, updated);
+        }
+        logger.info("sharedWith backfill finished: {} scanned, {} updated.", scanned, updated);
+        return updated;
+    }
+}
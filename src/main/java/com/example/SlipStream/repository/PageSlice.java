@@ -0,0 +1,37 @@
+package com.example.SlipStream.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.example.SlipStream.model.PageComponent;
+
+/**
+ * One page of a cursor-paginated listing, ordered by page id. {@code nextCursor} is passed back
+ * to fetch the following slice and is null once the listing is exhausted.
+ */
+public class PageSlice {
+
+    private final List<PageComponent> pages;
+    private final String nextCursor;
+
+    public PageSlice(List<PageComponent> pages, String nextCursor) {
+        this.pages = pages != null ? pages : Collections.emptyList();
+        this.nextCursor = nextCursor;
+    }
+
+    public static PageSlice empty() {
+        return new PageSlice(Collections.emptyList(), null);
+    }
+
+    public List<PageComponent> getPages() {
+        return pages;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.SlipStream.repository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+import com.example.SlipStream.model.ContainerPage;
+import com.example.SlipStream.model.PageComponent;
+
+/**
+ * Iterates over the page trees below a list of root pages, each page before its children,
+ * reading up to {@code batchSize} pending pages with one batched fetch. Only ids of pages not
+ * yet read are held besides the current batch, so memory does not grow with the number of pages
+ * visited.
+ *
+ * A child is only visited if its {@code parentPageId} points back at the page listing it, so
+ * stale {@code childrenIds} entries and cycles cannot make a page appear twice. An optional filter
+ * decides which visited pages are returned; the children of pages it drops are still visited.
+ */
+public class PageTreeIterator implements Iterator<PageComponent> {
+
+    @FunctionalInterface
+    public interface BatchFetcher {
+        List<PageComponent> fetch(List<String> pageIds) throws ExecutionException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    public interface BatchFilter {
+        List<PageComponent> filter(List<PageComponent> pages) throws ExecutionException, InterruptedException;
+    }
+
+    private final BatchFetcher fetcher;
+    private final BatchFilter filter;
+    private final int batchSize;
+    // Pending child id -> parent id, most recently discovered on top; roots have no parent.
+    private final Deque<String[]> pending = new ArrayDeque<>();
+    private Iterator<PageComponent> current = Collections.emptyIterator();
+
+    public PageTreeIterator(List<String> rootPageIds, BatchFetcher fetcher, int batchSize) {
+        this(rootPageIds, fetcher, pages -> pages, batchSize);
+    }
+
+    public PageTreeIterator(List<String> rootPageIds, BatchFetcher fetcher, BatchFilter filter, int batchSize) {
+        this.fetcher = fetcher;
+        this.filter = filter;
+        this.batchSize = batchSize;
+        for (int i = rootPageIds.size() - 1; i >= 0; i--) {
+            pending.push(new String[] {rootPageIds.get(i), null});
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext() && !pending.isEmpty()) {
+            fetchNext();
+        }
+        return current.hasNext();
+    }
+
+    @Override
+    public PageComponent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private void fetchNext() {
+        Map<String, String> parentById = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        while (!pending.isEmpty() && ids.size() < batchSize) {
+            String[] entry = pending.pop();
+            if (!parentById.containsKey(entry[0])) {
+                parentById.put(entry[0], entry[1]);
+                ids.add(entry[0]);
+            }
+        }
+        List<PageComponent> visited = new ArrayList<>();
+        List<PageComponent> returned;
+        try {
+            for (PageComponent page : fetcher.fetch(ids)) {
+                String expectedParent = parentById.get(page.getPageId());
+                if (expectedParent == null || expectedParent.equals(page.getParentPageId())) {
+                    visited.add(page);
+                }
+            }
+            returned = filter.filter(visited);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching the next batch of pages", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to fetch the next batch of pages", e);
+        }
+
+        // Pushed in reverse so the children of the first page come off the stack first.
+        for (int i = visited.size() - 1; i >= 0; i--) {
+            PageComponent page = visited.get(i);
+            if (page instanceof ContainerPage) {
+                List<String> childIds = ((ContainerPage) page).getChildrenIds();
+                for (int j = childIds.size() - 1; j >= 0; j--) {
+                    pending.push(new String[] {childIds.get(j), page.getPageId()});
+                }
+            }
+        }
+        current = returned.iterator();
+    }
+}
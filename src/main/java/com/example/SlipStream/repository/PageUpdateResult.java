@@ -0,0 +1,48 @@
+package com.example.SlipStream.repository;
+
+/**
+ * Outcome of a version-checked page write.
+ */
+public class PageUpdateResult {
+
+    public enum Status {
+        UPDATED,
+        CONFLICT,
+        NOT_FOUND
+    }
+
+    private final Status status;
+    private final long currentVersion;
+
+    private PageUpdateResult(Status status, long currentVersion) {
+        this.status = status;
+        this.currentVersion = currentVersion;
+    }
+
+    public static PageUpdateResult updated(long newVersion) {
+        return new PageUpdateResult(Status.UPDATED, newVersion);
+    }
+
+    public static PageUpdateResult conflict(long currentVersion) {
+        return new PageUpdateResult(Status.CONFLICT, currentVersion);
+    }
+
+    public static PageUpdateResult notFound() {
+        return new PageUpdateResult(Status.NOT_FOUND, -1);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isUpdated() {
+        return status == Status.UPDATED;
+    }
+
+    /**
+     * The stored version after the write, or the version that won on a conflict.
+     */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
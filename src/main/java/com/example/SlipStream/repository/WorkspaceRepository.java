@@ -26,7 +26,13 @@ public interface WorkspaceRepository {
 
     boolean addRootPageToWorkspace(String workspaceId, String pageId) throws ExecutionException, InterruptedException;
 
+    boolean addRootPagesToWorkspace(String workspaceId, List<String> pageIds) throws ExecutionException, InterruptedException;
+
     boolean removeRootPageFromWorkspace(String workspaceId, String pageId) throws ExecutionException, InterruptedException;
 
     List<Workspace> findWorkspacesByUserEmail(String userEmail) throws ExecutionException, InterruptedException; // New method
+
+    List<Workspace> findWorkspacesByRootPageIds(List<String> rootPageIds) throws ExecutionException, InterruptedException;
+
+    List<Workspace> getAllWorkspaces() throws ExecutionException, InterruptedException;
 }
@@ -0,0 +1,135 @@
+package com.example.SlipStream.repository.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller starts the load and every caller
+ * arriving while it is in flight gets the same future instead of loading again. Nothing is kept
+ * once a load completes, so this only merges requests that overlap in time.
+ *
+ * {@link #forget} detaches the load in flight for a key, so callers arriving afterwards start a
+ * fresh one. Writers call it once a write has landed, before invalidating cached copies; the
+ * detached load still completes its waiting callers but its {@code onLoaded} callback is skipped,
+ * so a value read before the write is never cached after it.
+ */
+public class SingleFlight<K, V> {
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private boolean forgotten;
+    }
+
+    private final Map<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public CompletableFuture<V> execute(K key, Function<K, CompletableFuture<V>> loader, BiConsumer<K, V> onLoaded) {
+        return executeAll(List.of(key), keys -> loader.apply(key).thenApply(value -> {
+            Map<K, V> values = new LinkedHashMap<>();
+            values.put(key, value);
+            return values;
+        }), onLoaded).get(key);
+    }
+
+    /**
+     * Loads the keys not already in flight with one call to {@code loader} and joins the loads in
+     * flight for the others. Keys absent from the loaded map complete with null.
+     *
+     * @param onLoaded called for each loaded key before its callers are completed, unless the key
+     *                 was forgotten meanwhile; not called if the load fails.
+     * @return one future per distinct key, in the order of {@code keys}.
+     */
+    public Map<K, CompletableFuture<V>> executeAll(Collection<K> keys, Function<List<K>, CompletableFuture<Map<K, V>>> loader,
+                                                   BiConsumer<K, V> onLoaded) {
+        Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+        Map<K, Flight<V>> led = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (results.containsKey(key)) {
+                continue;
+            }
+            requests.incrementAndGet();
+            Flight<V> flight = new Flight<>();
+            Flight<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.incrementAndGet();
+                results.put(key, existing.future);
+            } else {
+                led.put(key, flight);
+                results.put(key, flight.future);
+            }
+        }
+        if (led.isEmpty()) {
+            return results;
+        }
+
+        CompletableFuture<Map<K, V>> loaded;
+        try {
+            loaded = loader.apply(new ArrayList<>(led.keySet()));
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((values, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            led.forEach((key, flight) -> {
+                V value = cause == null && values != null ? values.get(key) : null;
+                synchronized (flight) {
+                    if (cause == null && !flight.forgotten) {
+                        onLoaded.accept(key, value);
+                    }
+                    inFlight.remove(key, flight);
+                }
+                if (cause != null) {
+                    flight.future.completeExceptionally(cause);
+                } else {
+                    flight.future.complete(value);
+                }
+            });
+        });
+        return results;
+    }
+
+    public void forget(K key) {
+        Flight<V> flight = inFlight.remove(key);
+        if (flight != null) {
+            synchronized (flight) {
+                flight.forgotten = true;
+            }
+        }
+    }
+
+    public void forgetAll() {
+        for (K key : new ArrayList<>(inFlight.keySet())) {
+            forget(key);
+        }
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Share of requests that joined a load already in flight.
+     */
+    public double getCoalescingRatio() {
+        long total = requests.get();
+        return total == 0 ? 0.0 : (double) coalesced.get() / total;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
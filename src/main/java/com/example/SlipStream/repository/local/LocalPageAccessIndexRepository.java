@@ -0,0 +1,114 @@
+package com.example.SlipStream.repository.local;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.SlipStream.repository.PageAccessEntry;
+import com.example.SlipStream.repository.PageAccessIndexRepository;
+
+/**
+ * Page access index backed by the embedded append-only log, one record per user and page holding
+ * the access level. All entries are kept in memory with user and page indexes.
+ */
+@Repository
+@Profile("local")
+public class LocalPageAccessIndexRepository implements PageAccessIndexRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalPageAccessIndexRepository.class);
+
+    private final LogStore store;
+    // user + '\n' + page id -> access
+    private final Map<String, String> accessByKey = new HashMap<>();
+    private final SecondaryIndex byUser = new SecondaryIndex();
+    private final SecondaryIndex byPage = new SecondaryIndex();
+
+    public LocalPageAccessIndexRepository(LocalStoreManager storeManager) {
+        this.store = storeManager.access();
+        store.forEach((key, bytes) -> {
+            int separator = key.indexOf('\n');
+            if (separator > 0) {
+                index(key.substring(0, separator), key.substring(separator + 1), new String(bytes, StandardCharsets.UTF_8));
+            }
+        });
+        logger.info("Indexed {} page access entries from the local store.", accessByKey.size());
+    }
+
+    @Override
+    public CompletableFuture<List<PageAccessEntry>> findByUserAsync(String userEmail) {
+        List<PageAccessEntry> entries = new ArrayList<>();
+        synchronized (this) {
+            for (String pageId : byUser.get(userEmail)) {
+                String access = accessByKey.get(key(userEmail, pageId));
+                if (access != null) {
+                    entries.add(new PageAccessEntry(userEmail, pageId, access));
+                }
+            }
+        }
+        return CompletableFuture.completedFuture(entries);
+    }
+
+    @Override
+    public synchronized List<PageAccessEntry> findByPageIds(Collection<String> pageIds) {
+        List<PageAccessEntry> entries = new ArrayList<>();
+        for (String pageId : pageIds) {
+            for (String userEmail : byPage.get(pageId)) {
+                String access = accessByKey.get(key(userEmail, pageId));
+                if (access != null) {
+                    entries.add(new PageAccessEntry(userEmail, pageId, access));
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized List<PageAccessEntry> findAll() {
+        List<PageAccessEntry> entries = new ArrayList<>(accessByKey.size());
+        accessByKey.forEach((key, access) -> {
+            int separator = key.indexOf('\n');
+            entries.add(new PageAccessEntry(key.substring(0, separator), key.substring(separator + 1), access));
+        });
+        return entries;
+    }
+
+    @Override
+    public synchronized void write(Collection<PageAccessEntry> upserts, Collection<PageAccessEntry> removals) {
+        for (PageAccessEntry entry : removals) {
+            String key = key(entry.getUserEmail(), entry.getPageId());
+            if (accessByKey.remove(key) != null) {
+                byUser.remove(entry.getUserEmail(), entry.getPageId());
+                byPage.remove(entry.getPageId(), entry.getUserEmail());
+                store.delete(key);
+            }
+        }
+        for (PageAccessEntry entry : upserts) {
+            store.put(key(entry.getUserEmail(), entry.getPageId()), entry.getAccess().getBytes(StandardCharsets.UTF_8));
+            index(entry.getUserEmail(), entry.getPageId(), entry.getAccess());
+        }
+    }
+
+    @Override
+    public synchronized void deleteByPageIds(Collection<String> pageIds) {
+        write(List.of(), findByPageIds(pageIds));
+    }
+
+    private void index(String userEmail, String pageId, String access) {
+        accessByKey.put(key(userEmail, pageId), access);
+        byUser.add(userEmail, pageId);
+        byPage.add(pageId, userEmail);
+    }
+
+    private static String key(String userEmail, String pageId) {
+        return userEmail + "\n" + pageId;
+    }
+}
@@ -0,0 +1,547 @@
+package com.example.SlipStream.repository.local;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.SlipStream.model.ContainerPage;
+import com.example.SlipStream.model.ContentPage;
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
+import com.example.SlipStream.repository.AsyncPageRepository;
+import com.example.SlipStream.repository.PageBatchResult;
+import com.example.SlipStream.repository.PageDeletionResult;
+import com.example.SlipStream.repository.PageRepository;
+import com.example.SlipStream.repository.PageSlice;
+import com.example.SlipStream.repository.PageUpdateResult;
+
+/**
+ * Page repository backed by the embedded append-only log. Reads are served from the log through
+ * its in-memory offset index; owner, sharing, workspace and parent lookups use in-memory secondary
+ * indexes rebuilt from the log at startup. Writes are serialized, so read-modify-write operations
+ * need no preconditions.
+ */
+@Repository
+@Profile("local")
+public class LocalPageRepository implements PageRepository, AsyncPageRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalPageRepository.class);
+
+    private final LogStore store;
+    private final SecondaryIndex byOwner = new SecondaryIndex();
+    private final SecondaryIndex bySharedUser = new SecondaryIndex();
+    private final SecondaryIndex byWorkspace = new SecondaryIndex();
+    private final SecondaryIndex byParent = new SecondaryIndex();
+
+    public LocalPageRepository(LocalStoreManager storeManager) {
+        this.store = storeManager.pages();
+        store.forEach((pageId, bytes) -> index(LocalRecordCodec.decodePage(bytes)));
+        logger.info("Indexed {} pages from the local store.", store.size());
+    }
+
+    @Override
+    public synchronized String createPage(PageComponent page) {
+        if (page.getPageId() == null || page.getPageId().isEmpty()) {
+            page.setPageId("page_" + UUID.randomUUID().toString());
+        }
+        if (page.getCreatedAt() == null) {
+            page.setCreatedAt(new Date());
+        }
+        page.setLastUpdated(new Date());
+        page.setVersion(0L);
+        write(null, page);
+        return page.getPageId();
+    }
+
+    @Override
+    public synchronized void createPages(List<PageComponent> pages) {
+        for (PageComponent page : pages) {
+            if (store.get(page.getPageId()) != null) {
+                throw new IllegalArgumentException("Page " + page.getPageId() + " already exists");
+            }
+        }
+        Date now = new Date();
+        for (PageComponent page : pages) {
+            if (page.getCreatedAt() == null) {
+                page.setCreatedAt(now);
+            }
+            page.setLastUpdated(now);
+            page.setVersion(0L);
+            write(null, page);
+        }
+    }
+
+    @Override
+    public PageComponent getPage(String pageId) {
+        if (pageId == null) {
+            return null;
+        }
+        byte[] bytes = store.get(pageId);
+        return bytes != null ? LocalRecordCodec.decodePage(bytes) : null;
+    }
+
+    @Override
+    public List<PageComponent> getAllPages() {
+        List<PageComponent> pages = new ArrayList<>();
+        store.forEach((pageId, bytes) -> pages.add(LocalRecordCodec.decodePage(bytes)));
+        return pages;
+    }
+
+    @Override
+    public List<PageComponent> getChildPages(String parentPageId) {
+        return load(byParent.get(parentPageId));
+    }
+
+    @Override
+    public PageSlice listPages(String cursor, int limit) {
+        return slice(store.keys(), cursor, limit);
+    }
+
+    @Override
+    public List<PageSummary> getChildPageSummaries(String parentPageId) {
+        return summarize(getChildPages(parentPageId));
+    }
+
+    @Override
+    public PageSlice getChildPages(String parentPageId, String cursor, int limit) {
+        return slice(byParent.get(parentPageId), cursor, limit);
+    }
+
+    @Override
+    public PageSlice findPagesByOwner(String ownerEmail, String cursor, int limit) {
+        return slice(byOwner.get(ownerEmail), cursor, limit);
+    }
+
+    @Override
+    public PageSlice findPagesByWorkspaceIds(List<String> workspaceIds, String cursor, int limit) {
+        if (workspaceIds == null || workspaceIds.isEmpty()) {
+            return PageSlice.empty();
+        }
+        Set<String> pageIds = new LinkedHashSet<>();
+        for (String workspaceId : workspaceIds) {
+            pageIds.addAll(byWorkspace.get(workspaceId));
+        }
+        return slice(pageIds, cursor, limit);
+    }
+
+    @Override
+    public synchronized boolean updatePageContent(String pageId, String newContent) {
+        PageComponent stored = getPage(pageId);
+        if (stored == null) {
+            return false;
+        }
+        PageComponent updated = stored.copy();
+        if (updated instanceof ContentPage) {
+            ((ContentPage) updated).setContent(newContent);
+        } else {
+            ((ContainerPage) updated).setSummary(newContent);
+        }
+        updated.setLastUpdated(new Date());
+        updated.setVersion(stored.getVersion() + 1);
+        write(stored, updated);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean updatePage(PageComponent page) {
+        if (page == null || page.getPageId() == null || page.getPageId().isEmpty()) {
+            return false;
+        }
+        PageComponent stored = getPage(page.getPageId());
+        if (stored == null) {
+            return false;
+        }
+        // The caller's copy may be older than the stored page; versions only move forward.
+        long newVersion = stored.getVersion() + 1;
+        PageComponent merged = merge(stored, page);
+        merged.setVersion(newVersion);
+        write(stored, merged);
+        page.setVersion(newVersion);
+        page.markClean();
+        return true;
+    }
+
+    @Override
+    public synchronized PageUpdateResult updatePageVersioned(PageComponent page) {
+        if (page == null || page.getPageId() == null || page.getPageId().isEmpty()) {
+            return PageUpdateResult.notFound();
+        }
+        PageComponent stored = getPage(page.getPageId());
+        if (stored == null) {
+            return PageUpdateResult.notFound();
+        }
+        if (stored.getVersion() != page.getVersion()) {
+            logger.info("Rejected stale write to page {}: based on version {}, stored version is {}.",
+                    page.getPageId(), page.getVersion(), stored.getVersion());
+            return PageUpdateResult.conflict(stored.getVersion());
+        }
+        updatePage(page);
+        return PageUpdateResult.updated(page.getVersion());
+    }
+
+    @Override
+    public synchronized PageUpdateResult updatePageVersioned(PageComponent page, long baseVersion) {
+        if (page == null || page.getPageId() == null || page.getPageId().isEmpty()) {
+            return PageUpdateResult.notFound();
+        }
+        PageComponent stored = getPage(page.getPageId());
+        if (stored == null) {
+            return PageUpdateResult.notFound();
+        }
+        if (stored.getVersion() != baseVersion) {
+            logger.info("Rejected stale write to page {}: based on version {}, stored version is {}.",
+                    page.getPageId(), baseVersion, stored.getVersion());
+            return PageUpdateResult.conflict(stored.getVersion());
+        }
+        PageComponent merged = merge(stored, page);
+        merged.setVersion(page.getVersion());
+        write(stored, merged);
+        page.markClean();
+        return PageUpdateResult.updated(page.getVersion());
+    }
+
+    @Override
+    public synchronized void updateAncestorIds(Map<String, List<String>> ancestorIdsByPageId) {
+        for (Map.Entry<String, List<String>> entry : ancestorIdsByPageId.entrySet()) {
+            PageComponent stored = getPage(entry.getKey());
+            if (stored != null) {
+                PageComponent updated = stored.copy();
+                updated.setAncestorIds(new ArrayList<>(entry.getValue()));
+                write(stored, updated);
+            }
+        }
+    }
+
+    @Override
+    public boolean deletePage(String pageId) {
+        return !deletePages(List.of(pageId)).isEmpty();
+    }
+
+    @Override
+    public synchronized PageDeletionResult deletePages(List<String> rootPageIds) {
+        Map<String, PageComponent> subtree = new LinkedHashMap<>();
+        List<PageComponent> roots = load(rootPageIds);
+        List<PageComponent> level = roots;
+        while (!level.isEmpty()) {
+            List<String> childIds = new ArrayList<>();
+            for (PageComponent page : level) {
+                if (subtree.putIfAbsent(page.getPageId(), page) == null && page instanceof ContainerPage) {
+                    childIds.addAll(((ContainerPage) page).getChildrenIds());
+                }
+            }
+            childIds.removeIf(subtree::containsKey);
+            level = load(childIds);
+        }
+
+        Map<String, List<String>> removedByParent = new LinkedHashMap<>();
+        for (PageComponent root : roots) {
+            String parentId = root.getParentPageId();
+            if (parentId != null && !parentId.isEmpty() && !subtree.containsKey(parentId)) {
+                removedByParent.computeIfAbsent(parentId, id -> new ArrayList<>()).add(root.getPageId());
+            }
+        }
+        Map<String, List<String>> updatedParents = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : removedByParent.entrySet()) {
+            PageComponent parent = getPage(entry.getKey());
+            if (parent instanceof ContainerPage) {
+                PageComponent updatedParent = parent.copy();
+                ((ContainerPage) updatedParent).getChildrenIds().removeAll(entry.getValue());
+                updatedParent.setLastUpdated(new Date());
+                updatedParent.setVersion(parent.getVersion() + 1);
+                write(parent, updatedParent);
+                updatedParents.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (PageComponent page : subtree.values()) {
+            unindex(page);
+            store.delete(page.getPageId());
+        }
+        logger.debug("Deleted {} pages under {} root(s) from the local store.", subtree.size(), roots.size());
+        return new PageDeletionResult(new ArrayList<>(subtree.keySet()), updatedParents);
+    }
+
+    @Override
+    public List<PageComponent> getPagesByIds(List<String> pageIds) {
+        return new ArrayList<>(fetchPagesByIds(pageIds).getPages());
+    }
+
+    @Override
+    public PageBatchResult fetchPagesByIds(List<String> pageIds) {
+        if (pageIds == null || pageIds.isEmpty()) {
+            return PageBatchResult.empty();
+        }
+        List<PageComponent> pages = new ArrayList<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String pageId : new LinkedHashSet<>(pageIds)) {
+            if (pageId == null || pageId.isEmpty()) {
+                continue;
+            }
+            PageComponent page = getPage(pageId);
+            if (page != null) {
+                pages.add(page);
+            } else {
+                missingIds.add(pageId);
+            }
+        }
+        return new PageBatchResult(pages, missingIds);
+    }
+
+    @Override
+    public List<PageComponent> findPagesByOwner(String ownerEmail) {
+        return load(byOwner.get(ownerEmail));
+    }
+
+    @Override
+    public List<PageComponent> findPagesSharedWithUser(String userEmail) {
+        List<PageComponent> pages = new ArrayList<>();
+        for (PageComponent page : load(bySharedUser.get(userEmail))) {
+            if (!userEmail.equals(page.getOwner())) {
+                pages.add(page);
+            }
+        }
+        return pages;
+    }
+
+    @Override
+    public synchronized boolean sharePageWithUser(String pageId, String userEmail, String accessLevel) {
+        if (!"view".equals(accessLevel) && !"edit".equals(accessLevel)) {
+            logger.error("Invalid access level '{}' provided for sharing page {}", accessLevel, pageId);
+            return false;
+        }
+        if (userEmail == null || userEmail.isEmpty()) {
+            logger.error("User email cannot be null or empty for sharing page {}", pageId);
+            return false;
+        }
+        PageComponent stored = getPage(pageId);
+        if (stored == null) {
+            return false;
+        }
+        PageComponent updated = stored.copy();
+        updated.getSharingInfo().put(userEmail, accessLevel);
+        updated.setLastUpdated(new Date());
+        updated.setVersion(stored.getVersion() + 1);
+        write(stored, updated);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean unsharePageWithUser(String pageId, String userEmail) {
+        if (userEmail == null || userEmail.isEmpty()) {
+            logger.error("User email cannot be null or empty for unsharing page {}", pageId);
+            return false;
+        }
+        PageComponent stored = getPage(pageId);
+        if (stored == null) {
+            return false;
+        }
+        PageComponent updated = stored.copy();
+        updated.getSharingInfo().remove(userEmail);
+        updated.setLastUpdated(new Date());
+        updated.setVersion(stored.getVersion() + 1);
+        write(stored, updated);
+        return true;
+    }
+
+    @Override
+    public List<PageComponent> findPagesByWorkspaceIds(List<String> workspaceIds) {
+        if (workspaceIds == null || workspaceIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> pageIds = new LinkedHashSet<>();
+        for (String workspaceId : workspaceIds) {
+            pageIds.addAll(byWorkspace.get(workspaceId));
+        }
+        return load(pageIds);
+    }
+
+    @Override
+    public CompletableFuture<PageComponent> getPageAsync(String pageId) {
+        return completed(() -> getPage(pageId));
+    }
+
+    @Override
+    public CompletableFuture<PageBatchResult> fetchPagesByIdsAsync(List<String> pageIds) {
+        return completed(() -> fetchPagesByIds(pageIds));
+    }
+
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesByOwnerAsync(String ownerEmail) {
+        return completed(() -> findPagesByOwner(ownerEmail));
+    }
+
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesSharedWithUserAsync(String userEmail) {
+        return completed(() -> findPagesSharedWithUser(userEmail));
+    }
+
+    @Override
+    public CompletableFuture<List<PageComponent>> findPagesByWorkspaceIdsAsync(List<String> workspaceIds) {
+        return completed(() -> findPagesByWorkspaceIds(workspaceIds));
+    }
+
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesByOwnerAsync(String ownerEmail) {
+        return completed(() -> summarize(findPagesByOwner(ownerEmail)));
+    }
+
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesSharedWithUserAsync(String userEmail) {
+        return completed(() -> summarize(findPagesSharedWithUser(userEmail)));
+    }
+
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesByWorkspaceIdsAsync(List<String> workspaceIds) {
+        return completed(() -> summarize(findPagesByWorkspaceIds(workspaceIds)));
+    }
+
+    @Override
+    public CompletableFuture<List<PageSummary>> findPageSummariesByIdsAsync(List<String> pageIds) {
+        return completed(() -> summarize(fetchPagesByIds(pageIds).getPages()));
+    }
+
+    // Records are decoded whole, so summaries are cut from full pages; nothing crosses a network.
+    private static List<PageSummary> summarize(List<PageComponent> pages) {
+        List<PageSummary> summaries = new ArrayList<>(pages.size());
+        for (PageComponent page : pages) {
+            summaries.add(PageSummary.from(page));
+        }
+        return summaries;
+    }
+
+    /**
+     * Reads are local and fast, so the async variants complete before returning.
+     */
+    private static <T> CompletableFuture<T> completed(Supplier<T> read) {
+        try {
+            return CompletableFuture.completedFuture(read.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Orders the ids, skips those up to and including {@code cursor} and loads the next {@code limit}.
+     */
+    private PageSlice slice(Collection<String> pageIds, String cursor, int limit) {
+        TreeSet<String> ordered = new TreeSet<>(pageIds);
+        SortedSet<String> remaining = cursor != null && !cursor.isEmpty() ? ordered.tailSet(cursor, false) : ordered;
+        List<String> sliceIds = new ArrayList<>();
+        String nextCursor = null;
+        for (String pageId : remaining) {
+            if (sliceIds.size() == limit) {
+                nextCursor = sliceIds.get(sliceIds.size() - 1);
+                break;
+            }
+            sliceIds.add(pageId);
+        }
+        return new PageSlice(load(sliceIds), nextCursor);
+    }
+
+    private List<PageComponent> load(Collection<String> pageIds) {
+        List<PageComponent> pages = new ArrayList<>();
+        for (String pageId : pageIds) {
+            PageComponent page = getPage(pageId);
+            if (page != null) {
+                pages.add(page);
+            }
+        }
+        return pages;
+    }
+
+    private void write(PageComponent previous, PageComponent page) {
+        store.put(page.getPageId(), LocalRecordCodec.encodePage(page));
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(page);
+    }
+
+    private void index(PageComponent page) {
+        byOwner.add(page.getOwner(), page.getPageId());
+        bySharedUser.addAll(page.getSharingInfo().keySet(), page.getPageId());
+        byWorkspace.add(page.getWorkspaceId(), page.getPageId());
+        byParent.add(page.getParentPageId(), page.getPageId());
+    }
+
+    private void unindex(PageComponent page) {
+        byOwner.remove(page.getOwner(), page.getPageId());
+        bySharedUser.removeAll(page.getSharingInfo().keySet(), page.getPageId());
+        byWorkspace.remove(page.getWorkspaceId(), page.getPageId());
+        byParent.remove(page.getParentPageId(), page.getPageId());
+    }
+
+    /**
+     * Applies the fields the caller changed since reading the page onto the stored state, so
+     * concurrent edits of unrelated fields (or of other users' sharing entries, or other
+     * children) are kept, matching the field-level writes of the Firestore repository.
+     */
+    private static PageComponent merge(PageComponent stored, PageComponent page) {
+        PageComponent clean = page.getCleanState();
+        if (clean == null || clean.isLeaf() != page.isLeaf() || stored.isLeaf() != page.isLeaf()) {
+            return page.copy();
+        }
+        PageComponent merged = stored.copy();
+        for (String field : page.getDirtyFields()) {
+            switch (field) {
+                case PageComponent.FIELD_TITLE:
+                    merged.setTitle(page.getTitle());
+                    break;
+                case PageComponent.FIELD_CONTENT:
+                    if (merged instanceof ContentPage) {
+                        ((ContentPage) merged).setContent(page.getContent());
+                    } else {
+                        ((ContainerPage) merged).setSummary(page.getContent());
+                    }
+                    break;
+                case PageComponent.FIELD_OWNER:
+                    merged.setOwner(page.getOwner());
+                    break;
+                case PageComponent.FIELD_PARENT_PAGE_ID:
+                    merged.setParentPageId(page.getParentPageId());
+                    break;
+                case PageComponent.FIELD_IS_PUBLISHED:
+                    merged.setPublished(page.isPublished());
+                    break;
+                case PageComponent.FIELD_WORKSPACE_ID:
+                    merged.setWorkspaceId(page.getWorkspaceId());
+                    break;
+                case PageComponent.FIELD_ANCESTOR_IDS:
+                    merged.setAncestorIds(page.getAncestorIds());
+                    break;
+                case PageComponent.FIELD_SHARING_INFO:
+                    Map<String, String> sharing = merged.getSharingInfo();
+                    clean.getSharingInfo().keySet().stream()
+                            .filter(userEmail -> !page.getSharingInfo().containsKey(userEmail))
+                            .forEach(sharing::remove);
+                    sharing.putAll(page.getSharingInfo());
+                    break;
+                case PageComponent.FIELD_CHILDREN_IDS:
+                    List<String> before = ((ContainerPage) clean).getChildrenIds();
+                    List<String> after = ((ContainerPage) page).getChildrenIds();
+                    List<String> children = ((ContainerPage) merged).getChildrenIds();
+                    children.removeIf(childId -> before.contains(childId) && !after.contains(childId));
+                    after.stream().filter(childId -> !before.contains(childId) && !children.contains(childId)).forEach(children::add);
+                    break;
+                default:
+                    break;
+            }
+        }
+        merged.setLastUpdated(page.getLastUpdated());
+        return merged;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.SlipStream.repository.local;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.SlipStream.repository.PageRevisionRecord;
+import com.example.SlipStream.repository.PageRevisionRepository;
+
+/**
+ * Revision store backed by the embedded append-only log, one record per revision keyed by page
+ * id and zero-padded revision number. Revision numbers and save times are indexed in memory;
+ * records are read from the log on demand. Counts of revisions since the last compaction are
+ * not persisted, so after a restart every page with revisions is compacted once.
+ */
+@Repository
+@Profile("local")
+public class LocalPageRevisionRepository implements PageRevisionRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalPageRevisionRepository.class);
+
+    private final LogStore store;
+    // pageId -> revision -> savedAt millis
+    private final Map<String, NavigableMap<Long, Long>> revisionsByPage = new HashMap<>();
+    private final Map<String, Integer> newRevisionsByPage = new HashMap<>();
+
+    public LocalPageRevisionRepository(LocalStoreManager storeManager) {
+        this.store = storeManager.revisions();
+        store.forEach((key, bytes) -> index(LocalRecordCodec.decodeRevision(bytes)));
+        revisionsByPage.forEach((pageId, revisions) -> newRevisionsByPage.put(pageId, revisions.size()));
+        logger.info("Indexed {} revisions of {} pages from the local store.", store.size(), revisionsByPage.size());
+    }
+
+    @Override
+    public synchronized boolean appendRevision(PageRevisionRecord record) {
+        NavigableMap<Long, Long> revisions = revisionsByPage.get(record.getPageId());
+        if (revisions != null && revisions.containsKey(record.getRevision())) {
+            return false;
+        }
+        store.put(key(record.getPageId(), record.getRevision()), LocalRecordCodec.encodeRevision(record));
+        index(record);
+        newRevisionsByPage.merge(record.getPageId(), 1, Integer::sum);
+        return true;
+    }
+
+    @Override
+    public synchronized PageRevisionRecord getLatestRevision(String pageId) {
+        NavigableMap<Long, Long> revisions = revisionsByPage.get(pageId);
+        return revisions != null && !revisions.isEmpty() ? load(pageId, revisions.lastKey()) : null;
+    }
+
+    @Override
+    public PageRevisionRecord getRevision(String pageId, long revision) {
+        return load(pageId, revision);
+    }
+
+    @Override
+    public synchronized PageRevisionRecord findRevisionAt(String pageId, Date savedAt) {
+        NavigableMap<Long, Long> revisions = revisionsByPage.get(pageId);
+        if (revisions == null) {
+            return null;
+        }
+        // Save times only grow with revision numbers, so the newest match is the last one found.
+        Long found = null;
+        for (Map.Entry<Long, Long> entry : revisions.entrySet()) {
+            if (entry.getValue() > savedAt.getTime()) {
+                break;
+            }
+            found = entry.getKey();
+        }
+        return found != null ? load(pageId, found) : null;
+    }
+
+    @Override
+    public List<PageRevisionRecord> getRevisions(String pageId, long fromRevision, long toRevision) {
+        List<PageRevisionRecord> records = new ArrayList<>();
+        for (Long revision : revisionNumbers(pageId, fromRevision, toRevision)) {
+            PageRevisionRecord record = load(pageId, revision);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public List<PageRevisionRecord> listRevisions(String pageId, Long beforeRevision, int limit) {
+        List<Long> numbers = revisionNumbers(pageId, 0L, beforeRevision != null ? beforeRevision - 1 : Long.MAX_VALUE);
+        List<PageRevisionRecord> records = new ArrayList<>();
+        for (int i = numbers.size() - 1; i >= 0 && records.size() < limit; i--) {
+            PageRevisionRecord record = load(pageId, numbers.get(i));
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized List<String> findPagesToCompact(int minNewRevisions, int limit) {
+        List<String> pageIds = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : newRevisionsByPage.entrySet()) {
+            if (pageIds.size() >= limit) {
+                break;
+            }
+            if (entry.getValue() >= minNewRevisions) {
+                pageIds.add(entry.getKey());
+            }
+        }
+        return pageIds;
+    }
+
+    @Override
+    public synchronized void replaceRevisions(String pageId, List<PageRevisionRecord> rewritten, List<Long> dropped) {
+        for (PageRevisionRecord record : rewritten) {
+            store.put(key(pageId, record.getRevision()), LocalRecordCodec.encodeRevision(record));
+            index(record);
+        }
+        NavigableMap<Long, Long> revisions = revisionsByPage.get(pageId);
+        for (Long revision : dropped) {
+            store.delete(key(pageId, revision));
+            if (revisions != null) {
+                revisions.remove(revision);
+            }
+        }
+        newRevisionsByPage.put(pageId, 0);
+    }
+
+    @Override
+    public synchronized void deleteRevisions(String pageId) {
+        NavigableMap<Long, Long> revisions = revisionsByPage.remove(pageId);
+        newRevisionsByPage.remove(pageId);
+        if (revisions != null) {
+            for (Long revision : revisions.keySet()) {
+                store.delete(key(pageId, revision));
+            }
+        }
+    }
+
+    private synchronized List<Long> revisionNumbers(String pageId, long fromRevision, long toRevision) {
+        NavigableMap<Long, Long> revisions = revisionsByPage.get(pageId);
+        if (revisions == null || fromRevision > toRevision) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(revisions.subMap(fromRevision, true, toRevision, true).keySet());
+    }
+
+    private PageRevisionRecord load(String pageId, long revision) {
+        byte[] bytes = store.get(key(pageId, revision));
+        return bytes != null ? LocalRecordCodec.decodeRevision(bytes) : null;
+    }
+
+    private void index(PageRevisionRecord record) {
+        long savedAt = record.getSavedAt() != null ? record.getSavedAt().getTime() : 0L;
+        revisionsByPage.computeIfAbsent(record.getPageId(), pageId -> new TreeMap<>()).put(record.getRevision(), savedAt);
+    }
+
+    private static String key(String pageId, long revision) {
+        return pageId + "/" + String.format("%012d", revision);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.SlipStream.repository.local;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.SlipStream.model.ContainerPage;
+import com.example.SlipStream.model.ContentPage;
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.User;
+import com.example.SlipStream.model.Workspace;
+import com.example.SlipStream.repository.PageRevisionRecord;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON encoding of the records kept in the local logs. Pages use the same field names as the
+ * Firestore documents; workspaces and users are mapped field by field.
+ */
+final class LocalRecordCodec {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    // Workspace has no setter for every field, so beans are read and written through their fields.
+    private static final ObjectMapper FIELD_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+    private LocalRecordCodec() {
+    }
+
+    static byte[] encodePage(PageComponent page) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pageId", page.getPageId());
+        map.put("title", page.getTitle());
+        map.put("parentPageId", page.getParentPageId());
+        map.put("owner", page.getOwner());
+        map.put("workspaceId", page.getWorkspaceId());
+        map.put("createdAt", page.getCreatedAt() != null ? page.getCreatedAt().getTime() : null);
+        map.put("lastUpdated", page.getLastUpdated() != null ? page.getLastUpdated().getTime() : null);
+        map.put("isLeaf", page.isLeaf());
+        map.put("isPublished", page.isPublished());
+        map.put("sharingInfo", page.getSharingInfo());
+        map.put("ancestorIds", page.getAncestorIds());
+        map.put("content", page.getContent());
+        map.put("childrenIds", page instanceof ContainerPage ? ((ContainerPage) page).getChildrenIds() : new ArrayList<String>());
+        map.put("version", page.getVersion());
+        return write(MAPPER, map);
+    }
+
+    @SuppressWarnings("unchecked")
+    static PageComponent decodePage(byte[] bytes) {
+        Map<String, Object> data;
+        try {
+            data = MAPPER.readValue(bytes, MAP_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        PageComponent component;
+        if (Boolean.TRUE.equals(data.get("isLeaf"))) {
+            component = new ContentPage();
+            ((ContentPage) component).setContent((String) data.get("content"));
+        } else {
+            ContainerPage container = new ContainerPage();
+            container.setSummary((String) data.get("content"));
+            List<String> childrenIds = (List<String>) data.get("childrenIds");
+            container.setChildrenIds(childrenIds != null ? new ArrayList<>(childrenIds) : new ArrayList<>());
+            component = container;
+        }
+        component.setPageId((String) data.get("pageId"));
+        component.setTitle((String) data.get("title"));
+        component.setOwner((String) data.get("owner"));
+        component.setParentPageId((String) data.get("parentPageId"));
+        component.setPublished(Boolean.TRUE.equals(data.get("isPublished")));
+        component.setWorkspaceId((String) data.get("workspaceId"));
+        Map<String, String> sharingInfo = (Map<String, String>) data.get("sharingInfo");
+        component.setSharingInfo(sharingInfo != null ? new HashMap<>(sharingInfo) : new HashMap<>());
+        List<String> ancestorIds = (List<String>) data.get("ancestorIds");
+        component.setAncestorIds(ancestorIds != null ? new ArrayList<>(ancestorIds) : null);
+        if (data.get("createdAt") instanceof Number) {
+            component.setCreatedAt(new Date(((Number) data.get("createdAt")).longValue()));
+        }
+        if (data.get("lastUpdated") instanceof Number) {
+            component.setLastUpdated(new Date(((Number) data.get("lastUpdated")).longValue()));
+        }
+        if (data.get("version") instanceof Number) {
+            component.setVersion(((Number) data.get("version")).longValue());
+        }
+        component.markClean();
+        return component;
+    }
+
+    static byte[] encodeRevision(PageRevisionRecord record) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pageId", record.getPageId());
+        map.put("revision", record.getRevision());
+        map.put("pageVersion", record.getPageVersion());
+        map.put("title", record.getTitle());
+        map.put("savedAt", record.getSavedAt() != null ? record.getSavedAt().getTime() : null);
+        map.put("snapshotRevision", record.getSnapshotRevision());
+        map.put("baseRevision", record.getBaseRevision());
+        if (record.isSnapshot()) {
+            map.put("content", record.getContent());
+        } else {
+            map.put("offset", record.getOffset());
+            map.put("removed", record.getRemoved());
+            map.put("inserted", record.getInserted());
+        }
+        return write(MAPPER, map);
+    }
+
+    static PageRevisionRecord decodeRevision(byte[] bytes) {
+        Map<String, Object> data;
+        try {
+            data = MAPPER.readValue(bytes, MAP_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String pageId = (String) data.get("pageId");
+        long revision = longValue(data.get("revision"));
+        long pageVersion = longValue(data.get("pageVersion"));
+        String title = (String) data.get("title");
+        Date savedAt = data.get("savedAt") instanceof Number ? new Date(((Number) data.get("savedAt")).longValue()) : null;
+        long snapshotRevision = longValue(data.get("snapshotRevision"));
+        if (snapshotRevision == revision) {
+            return PageRevisionRecord.snapshot(pageId, revision, pageVersion, title, savedAt, (String) data.get("content"));
+        }
+        return PageRevisionRecord.delta(pageId, revision, pageVersion, title, savedAt, snapshotRevision,
+                longValue(data.get("baseRevision")), (int) longValue(data.get("offset")), (int) longValue(data.get("removed")),
+                (String) data.get("inserted"));
+    }
+
+    static byte[] encodeWorkspace(Workspace workspace) {
+        return write(FIELD_MAPPER, workspace);
+    }
+
+    static Workspace decodeWorkspace(byte[] bytes) {
+        return read(FIELD_MAPPER, bytes, Workspace.class);
+    }
+
+    static byte[] encodeUser(User user) {
+        return write(FIELD_MAPPER, user);
+    }
+
+    static User decodeUser(byte[] bytes) {
+        return read(FIELD_MAPPER, bytes, User.class);
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static byte[] write(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T read(ObjectMapper mapper, byte[] bytes, Class<T> type) {
+        try {
+            return mapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
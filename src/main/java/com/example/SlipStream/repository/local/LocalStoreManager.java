@@ -0,0 +1,103 @@
+package com.example.SlipStream.repository.local;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the log files of the embedded storage engine used by the {@code local} profile and
+ * compacts them in the background once enough of a log is superseded records.
+ */
+@Component
+@Profile("local")
+public class LocalStoreManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalStoreManager.class);
+
+    private final LogStore pages;
+    private final LogStore workspaces;
+    private final LogStore users;
+    private final LogStore revisions;
+    private final LogStore access;
+    private final double compactionGarbageRatio;
+    private final long compactionMinBytes;
+    private final ScheduledExecutorService compactor;
+
+    public LocalStoreManager(@Value("${slipstream.local-store.directory:./data}") String directory,
+                             @Value("${slipstream.local-store.sync-writes:true}") boolean syncWrites,
+                             @Value("${slipstream.local-store.compaction.garbage-ratio:0.5}") double compactionGarbageRatio,
+                             @Value("${slipstream.local-store.compaction.min-bytes:1048576}") long compactionMinBytes,
+                             @Value("${slipstream.local-store.compaction.interval-seconds:60}") long compactionIntervalSeconds) throws IOException {
+        Path root = Paths.get(directory);
+        this.pages = LogStore.open(root.resolve("pages.log"), syncWrites);
+        this.workspaces = LogStore.open(root.resolve("workspaces.log"), syncWrites);
+        this.users = LogStore.open(root.resolve("users.log"), syncWrites);
+        this.revisions = LogStore.open(root.resolve("revisions.log"), syncWrites);
+        this.access = LogStore.open(root.resolve("access.log"), syncWrites);
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        this.compactionMinBytes = compactionMinBytes;
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "local-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+        logger.info("Local store opened in {} (sync writes: {}).", root.toAbsolutePath(), syncWrites);
+    }
+
+    public LogStore pages() {
+        return pages;
+    }
+
+    public LogStore workspaces() {
+        return workspaces;
+    }
+
+    public LogStore users() {
+        return users;
+    }
+
+    public LogStore revisions() {
+        return revisions;
+    }
+
+    public LogStore access() {
+        return access;
+    }
+
+    void compactIfNeeded() {
+        for (LogStore store : List.of(pages, workspaces, users, revisions, access)) {
+            try {
+                if (store.getFileSize() >= compactionMinBytes && store.getGarbageRatio() >= compactionGarbageRatio) {
+                    store.compact();
+                }
+            } catch (Exception e) {
+                logger.error("Background compaction failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        compactor.shutdownNow();
+        for (LogStore store : List.of(pages, workspaces, users, revisions, access)) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                logger.error("Failed to close local store: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
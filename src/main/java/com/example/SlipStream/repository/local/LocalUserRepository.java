@@ -0,0 +1,55 @@
+package com.example.SlipStream.repository.local;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.SlipStream.model.User;
+import com.example.SlipStream.repository.AsyncUserRepository;
+import com.example.SlipStream.repository.UserRepository;
+
+/**
+ * User repository backed by the embedded append-only log, keyed by email.
+ */
+@Repository
+@Profile("local")
+public class LocalUserRepository implements UserRepository, AsyncUserRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalUserRepository.class);
+
+    private final LogStore store;
+
+    public LocalUserRepository(LocalStoreManager storeManager) {
+        this.store = storeManager.users();
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        byte[] bytes = email != null ? store.get(email) : null;
+        return bytes != null ? LocalRecordCodec.decodeUser(bytes) : null;
+    }
+
+    @Override
+    public void saveUser(User user) {
+        if (user == null || user.getEmail() == null || user.getEmail().isEmpty()) {
+            logger.error("Cannot save user with null or empty email.");
+            throw new IllegalArgumentException("User email cannot be null or empty.");
+        }
+        store.put(user.getEmail(), LocalRecordCodec.encodeUser(user));
+        logger.info("User saved/updated successfully in local store: {}", user.getEmail());
+    }
+
+    @Override
+    public CompletableFuture<User> getUserByEmailAsync(String email) {
+        return CompletableFuture.completedFuture(getUserByEmail(email));
+    }
+
+    @Override
+    public CompletableFuture<Void> saveUserAsync(User user) {
+        saveUser(user);
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.SlipStream.repository.local;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.example.SlipStream.model.Workspace;
+import com.example.SlipStream.repository.AsyncWorkspaceRepository;
+import com.example.SlipStream.repository.WorkspaceRepository;
+
+/**
+ * Workspace repository backed by the embedded append-only log, with in-memory owner, member and root page indexes.
+ */
+@Repository
+@Profile("local")
+public class LocalWorkspaceRepository implements WorkspaceRepository, AsyncWorkspaceRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalWorkspaceRepository.class);
+
+    private final LogStore store;
+    private final SecondaryIndex byOwner = new SecondaryIndex();
+    private final SecondaryIndex byMember = new SecondaryIndex();
+    private final SecondaryIndex byRootPage = new SecondaryIndex();
+
+    public LocalWorkspaceRepository(LocalStoreManager storeManager) {
+        this.store = storeManager.workspaces();
+        store.forEach((workspaceId, bytes) -> index(LocalRecordCodec.decodeWorkspace(bytes)));
+        logger.info("Indexed {} workspaces from the local store.", store.size());
+    }
+
+    @Override
+    public synchronized String createWorkspace(Workspace workspace) {
+        if (workspace.getId() == null || workspace.getId().isEmpty()) {
+            throw new IllegalArgumentException("Workspace ID must be set before creation.");
+        }
+        if (workspace.getCreatedAt() == null) {
+            workspace.setCreatedAt(new Date());
+        }
+        workspace.setLastUpdated(new Date());
+        write(getWorkspaceById(workspace.getId()), workspace);
+        logger.info("Workspace created with ID: {}", workspace.getId());
+        return workspace.getId();
+    }
+
+    @Override
+    public Workspace getWorkspaceById(String workspaceId) {
+        byte[] bytes = workspaceId != null ? store.get(workspaceId) : null;
+        return bytes != null ? LocalRecordCodec.decodeWorkspace(bytes) : null;
+    }
+
+    @Override
+    public List<Workspace> getWorkspacesByOwner(String ownerId) {
+        return newestFirst(load(byOwner.get(ownerId)));
+    }
+
+    @Override
+    public List<Workspace> getWorkspacesByMember(String memberId) {
+        return newestFirst(load(byMember.get(memberId)));
+    }
+
+    @Override
+    public List<Workspace> getWorkspacesForUser(String userEmail) {
+        return load(byMember.get(userEmail));
+    }
+
+    @Override
+    public synchronized boolean updateWorkspace(Workspace workspace) {
+        if (workspace.getId() == null || workspace.getId().isEmpty()) {
+            throw new IllegalArgumentException("Workspace ID must be set for update.");
+        }
+        workspace.setLastUpdated(new Date());
+        write(getWorkspaceById(workspace.getId()), workspace);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean deleteWorkspace(String workspaceId) {
+        Workspace workspace = getWorkspaceById(workspaceId);
+        if (workspace != null) {
+            unindex(workspace);
+            store.delete(workspaceId);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean addMemberToWorkspace(String workspaceId, String memberId) {
+        Workspace workspace = getWorkspaceById(workspaceId);
+        if (workspace == null) {
+            return false;
+        }
+        Workspace updated = LocalRecordCodec.decodeWorkspace(LocalRecordCodec.encodeWorkspace(workspace));
+        updated.addMember(memberId);
+        updated.setLastUpdated(new Date());
+        write(workspace, updated);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeMemberFromWorkspace(String workspaceId, String memberId) {
+        Workspace workspace = getWorkspaceById(workspaceId);
+        if (workspace == null) {
+            return false;
+        }
+        if (memberId != null && memberId.equals(workspace.getOwner())) {
+            logger.warn("Attempted to remove owner {} from workspace {}", memberId, workspaceId);
+            return false;
+        }
+        Workspace updated = LocalRecordCodec.decodeWorkspace(LocalRecordCodec.encodeWorkspace(workspace));
+        updated.removeMember(memberId);
+        updated.setLastUpdated(new Date());
+        write(workspace, updated);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean addRootPageToWorkspace(String workspaceId, String pageId) {
+        Workspace workspace = getWorkspaceById(workspaceId);
+        if (workspace == null) {
+            return false;
+        }
+        workspace.addRootPage(pageId);
+        workspace.setLastUpdated(new Date());
+        store.put(workspaceId, LocalRecordCodec.encodeWorkspace(workspace));
+        byRootPage.add(pageId, workspaceId);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean addRootPagesToWorkspace(String workspaceId, List<String> pageIds) {
+        Workspace workspace = getWorkspaceById(workspaceId);
+        if (workspace == null) {
+            return false;
+        }
+        // Workspace.addRootPage scans the list for every id, which is quadratic for a large import.
+        Set<String> rootPageIds = new LinkedHashSet<>();
+        if (workspace.getRootPageIds() != null) {
+            rootPageIds.addAll(workspace.getRootPageIds());
+        }
+        rootPageIds.addAll(pageIds);
+        workspace.setRootPageIds(new ArrayList<>(rootPageIds));
+        workspace.setLastUpdated(new Date());
+        store.put(workspaceId, LocalRecordCodec.encodeWorkspace(workspace));
+        pageIds.forEach(pageId -> byRootPage.add(pageId, workspaceId));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeRootPageFromWorkspace(String workspaceId, String pageId) {
+        Workspace workspace = getWorkspaceById(workspaceId);
+        if (workspace == null) {
+            return false;
+        }
+        workspace.removeRootPage(pageId);
+        workspace.setLastUpdated(new Date());
+        store.put(workspaceId, LocalRecordCodec.encodeWorkspace(workspace));
+        byRootPage.remove(pageId, workspaceId);
+        return true;
+    }
+
+    @Override
+    public List<Workspace> findWorkspacesByUserEmail(String userEmail) {
+        return getWorkspacesForUser(userEmail);
+    }
+
+    @Override
+    public List<Workspace> findWorkspacesByRootPageIds(List<String> rootPageIds) {
+        Set<String> workspaceIds = new LinkedHashSet<>();
+        for (String rootPageId : rootPageIds) {
+            workspaceIds.addAll(byRootPage.get(rootPageId));
+        }
+        return load(workspaceIds);
+    }
+
+    @Override
+    public List<Workspace> getAllWorkspaces() {
+        return load(store.keys());
+    }
+
+    @Override
+    public CompletableFuture<Workspace> getWorkspaceByIdAsync(String workspaceId) {
+        return CompletableFuture.completedFuture(getWorkspaceById(workspaceId));
+    }
+
+    @Override
+    public CompletableFuture<List<Workspace>> getWorkspacesForUserAsync(String userEmail) {
+        return CompletableFuture.completedFuture(getWorkspacesForUser(userEmail));
+    }
+
+    @Override
+    public CompletableFuture<List<Workspace>> findWorkspacesByUserEmailAsync(String userEmail) {
+        return CompletableFuture.completedFuture(findWorkspacesByUserEmail(userEmail));
+    }
+
+    private List<Workspace> load(Collection<String> workspaceIds) {
+        List<Workspace> workspaces = new ArrayList<>();
+        for (String workspaceId : workspaceIds) {
+            Workspace workspace = getWorkspaceById(workspaceId);
+            if (workspace != null) {
+                workspaces.add(workspace);
+            }
+        }
+        return workspaces;
+    }
+
+    private static List<Workspace> newestFirst(List<Workspace> workspaces) {
+        workspaces.sort(Comparator.comparing(Workspace::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return workspaces;
+    }
+
+    private void write(Workspace previous, Workspace workspace) {
+        store.put(workspace.getId(), LocalRecordCodec.encodeWorkspace(workspace));
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(workspace);
+    }
+
+    private void index(Workspace workspace) {
+        byOwner.add(workspace.getOwner(), workspace.getId());
+        byMember.addAll(workspace.getMembers(), workspace.getId());
+        byRootPage.addAll(workspace.getRootPageIds(), workspace.getId());
+    }
+
+    private void unindex(Workspace workspace) {
+        byOwner.remove(workspace.getOwner(), workspace.getId());
+        byMember.removeAll(workspace.getMembers(), workspace.getId());
+        byRootPage.removeAll(workspace.getRootPageIds(), workspace.getId());
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.SlipStream.repository.local;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only key/value log with an in-memory index of the latest record per key.
+ *
+ * Each record is framed as {@code [int bodyLength][int crc32(body)][body]} where the body is
+ * {@code [byte type][int keyLength][key utf-8][value]}. A put appends a new record and repoints
+ * the index; a delete appends a tombstone. On open the log is replayed to rebuild the index and
+ * a torn or corrupt tail (from a crash mid-append) is truncated at the last intact record.
+ * {@link #compact()} rewrites only the live records into a fresh file and swaps it in atomically.
+ */
+public class LogStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStore.class);
+
+    private static final int HEADER_SIZE = 8;
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    // Guards replay against a garbage length field turning into a huge allocation.
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private final Path path;
+    private final boolean syncWrites;
+    private final Map<String, RecordLocation> index = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+    private long endOffset;
+    private long liveBytes;
+
+    private LogStore(Path path, boolean syncWrites) {
+        this.path = path;
+        this.syncWrites = syncWrites;
+    }
+
+    /**
+     * Opens (creating if needed) the log at {@code path} and replays it.
+     *
+     * @param syncWrites force every append to disk before returning.
+     */
+    public static LogStore open(Path path, boolean syncWrites) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        LogStore store = new LogStore(path, syncWrites);
+        store.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        store.recover();
+        return store;
+    }
+
+    public byte[] get(String key) {
+        lock.readLock().lock();
+        try {
+            RecordLocation location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            Record record = readRecord(channel, location.offset);
+            if (record == null || !record.key.equals(key)) {
+                throw new UncheckedIOException(new IOException("Corrupt record for key " + key + " at offset " + location.offset + " in " + path));
+            }
+            return record.value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    public void put(String key, byte[] value) {
+        append(TYPE_PUT, key, value);
+    }
+
+    public boolean delete(String key) {
+        if (!index.containsKey(key)) {
+            return false;
+        }
+        append(TYPE_DELETE, key, new byte[0]);
+        return true;
+    }
+
+    /**
+     * Visits every live key and its current value. Values are read under the read lock,
+     * so concurrent writers wait until the scan finishes.
+     */
+    public void forEach(BiConsumer<String, byte[]> consumer) {
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, RecordLocation> entry : index.entrySet()) {
+                Record record = readRecord(channel, entry.getValue().offset);
+                if (record != null) {
+                    consumer.accept(entry.getKey(), record.value);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long getFileSize() {
+        lock.readLock().lock();
+        try {
+            return endOffset;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fraction of the log occupied by superseded records and tombstones.
+     */
+    public double getGarbageRatio() {
+        lock.readLock().lock();
+        try {
+            return endOffset == 0 ? 0.0 : 1.0 - (double) liveBytes / endOffset;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records into a new file and atomically replaces the log with it.
+     * Writers are blocked for the duration; readers wait only for the final swap.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long before = endOffset;
+            Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+            Map<String, RecordLocation> newIndex = new ConcurrentHashMap<>();
+            long offset = 0;
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Map.Entry<String, RecordLocation> entry : index.entrySet()) {
+                    Record record = readRecord(channel, entry.getValue().offset);
+                    if (record == null) {
+                        throw new IOException("Corrupt record for key " + entry.getKey() + " during compaction of " + path);
+                    }
+                    ByteBuffer frame = frame(TYPE_PUT, record.key, record.value);
+                    int length = frame.remaining();
+                    writeFully(out, frame, offset);
+                    newIndex.put(entry.getKey(), new RecordLocation(offset, length));
+                    offset += length;
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index.clear();
+            index.putAll(newIndex);
+            endOffset = offset;
+            liveBytes = offset;
+            logger.info("Compacted {}: {} -> {} bytes, {} live records.", path.getFileName(), before, offset, newIndex.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(true);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(byte type, String key, byte[] value) {
+        lock.writeLock().lock();
+        try {
+            ByteBuffer frame = frame(type, key, value);
+            int length = frame.remaining();
+            writeFully(channel, frame, endOffset);
+            if (syncWrites) {
+                channel.force(false);
+            }
+            RecordLocation previous = type == TYPE_PUT
+                    ? index.put(key, new RecordLocation(endOffset, length))
+                    : index.remove(key);
+            if (previous != null) {
+                liveBytes -= previous.length;
+            }
+            if (type == TYPE_PUT) {
+                liveBytes += length;
+            }
+            endOffset += length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        int records = 0;
+        while (offset < size) {
+            Record record = readRecord(channel, offset);
+            if (record == null) {
+                break;
+            }
+            int length = record.frameLength;
+            RecordLocation previous = record.type == TYPE_PUT
+                    ? index.put(record.key, new RecordLocation(offset, length))
+                    : index.remove(record.key);
+            if (previous != null) {
+                liveBytes -= previous.length;
+            }
+            if (record.type == TYPE_PUT) {
+                liveBytes += length;
+            }
+            offset += length;
+            records++;
+        }
+        if (offset < size) {
+            logger.warn("Truncating {} from {} to {} bytes: incomplete or corrupt record at the tail.", path, size, offset);
+            channel.truncate(offset);
+            channel.force(true);
+        }
+        endOffset = offset;
+        logger.info("Opened {}: replayed {} records, {} live keys, {} bytes.", path.getFileName(), records, index.size(), offset);
+    }
+
+    /**
+     * Reads and validates the record at {@code offset}; returns null if it is incomplete or fails its checksum.
+     */
+    private static Record readRecord(FileChannel channel, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (!readFully(channel, header, offset)) {
+            return null;
+        }
+        header.flip();
+        int bodyLength = header.getInt();
+        int crc = header.getInt();
+        if (bodyLength < 5 || bodyLength > MAX_RECORD_SIZE) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        if (!readFully(channel, body, offset + HEADER_SIZE)) {
+            return null;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(body.array());
+        if ((int) checksum.getValue() != crc) {
+            return null;
+        }
+        body.flip();
+        byte type = body.get();
+        int keyLength = body.getInt();
+        if ((type != TYPE_PUT && type != TYPE_DELETE) || keyLength < 0 || keyLength > body.remaining()) {
+            return null;
+        }
+        byte[] keyBytes = new byte[keyLength];
+        body.get(keyBytes);
+        byte[] value = new byte[body.remaining()];
+        body.get(value);
+        return new Record(type, new String(keyBytes, StandardCharsets.UTF_8), value, HEADER_SIZE + bodyLength);
+    }
+
+    private static ByteBuffer frame(byte type, String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + 4 + keyBytes.length + value.length);
+        body.put(type).putInt(keyBytes.length).put(keyBytes).put(value);
+        CRC32 checksum = new CRC32();
+        checksum.update(body.array());
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + body.capacity());
+        frame.putInt(body.capacity()).putInt((int) checksum.getValue()).put(body.array());
+        frame.flip();
+        return frame;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static final class RecordLocation {
+        private final long offset;
+        private final int length;
+
+        private RecordLocation(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class Record {
+        private final byte type;
+        private final String key;
+        private final byte[] value;
+        private final int frameLength;
+
+        private Record(byte type, String key, byte[] value, int frameLength) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+            this.frameLength = frameLength;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.SlipStream.repository.local;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory multimap from an attribute value (owner, workspace, ...) to the ids of the records
+ * carrying it. Rebuilt from the log on startup and maintained on every write.
+ */
+class SecondaryIndex {
+
+    private final Map<String, Set<String>> entries = new ConcurrentHashMap<>();
+
+    void add(String key, String id) {
+        if (key != null) {
+            entries.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    void addAll(Collection<String> keys, String id) {
+        keys.forEach(key -> add(key, id));
+    }
+
+    void remove(String key, String id) {
+        if (key != null) {
+            entries.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    void removeAll(Collection<String> keys, String id) {
+        keys.forEach(key -> remove(key, id));
+    }
+
+    /**
+     * Snapshot of the ids indexed under {@code key}.
+     */
+    Set<String> get(String key) {
+        Set<String> ids = key != null ? entries.get(key) : null;
+        return ids != null ? new LinkedHashSet<>(ids) : Collections.emptySet();
+    }
+}
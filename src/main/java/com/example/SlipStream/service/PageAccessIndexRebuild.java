@@ -0,0 +1,28 @@
+package com.example.SlipStream.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the page access index at startup, before it is first enabled or to repair it after
+ * failed incremental updates. Only entries that differ from the stored ones are written.
+ *
+ * Enable with {@code slipstream.access-index.rebuild=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "slipstream.access-index.rebuild", havingValue = "true")
+public class PageAccessIndexRebuild implements ApplicationRunner {
+
+    private final PageAccessIndexService accessIndexService;
+
+    public PageAccessIndexRebuild(PageAccessIndexService accessIndexService) {
+        this.accessIndexService = accessIndexService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        accessIndexService.rebuild();
+    }
+}
@@ -0,0 +1,349 @@
+package com.example.SlipStream.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.SlipStream.model.ContainerPage;
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.Workspace;
+import com.example.SlipStream.repository.PageAccessEntry;
+import com.example.SlipStream.repository.PageAccessIndexRepository;
+import com.example.SlipStream.repository.PageRepository;
+import com.example.SlipStream.repository.PageTreeIterator;
+import com.example.SlipStream.repository.WorkspaceRepository;
+
+/**
+ * Maintains the inverted index of the pages each user can reach, so listing them is one lookup
+ * instead of separate owner, workspace and sharing queries that miss inherited access.
+ *
+ * A user's entry for a page holds the best of: {@code owner} of the page; {@code edit} or
+ * {@code view} from a share on the page, or inherited from an ancestor that is shared with the
+ * user or owned by them (owning an ancestor gives edit); {@code member} of a workspace whose root
+ * pages include the top of the page's tree. Publication is not indexed, as it is not per user.
+ *
+ * Changes are applied by recomputing the subtree below the changed page and writing only the
+ * entries that differ. Updates run after the page write has succeeded and never fail it; an index
+ * left behind by a failed update is repaired by {@link #rebuild()}. While disabled nothing is
+ * written, so turning the index on requires one rebuild.
+ */
+@Service
+public class PageAccessIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageAccessIndexService.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final PageAccessIndexRepository indexRepository;
+    private final PageRepository pageRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final boolean enabled;
+
+    public PageAccessIndexService(PageAccessIndexRepository indexRepository, PageRepository pageRepository,
+                                  WorkspaceRepository workspaceRepository,
+                                  @Value("${slipstream.access-index.enabled:false}") boolean enabled) {
+        this.indexRepository = indexRepository;
+        this.pageRepository = pageRepository;
+        this.workspaceRepository = workspaceRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<List<String>> findAccessiblePageIdsAsync(String userEmail) {
+        return indexRepository.findByUserAsync(userEmail).thenApply(entries -> entries.stream()
+                .map(PageAccessEntry::getPageId)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Recomputes the entries of every user for the given pages and their descendants, after
+     * pages were created, moved or attached to a workspace.
+     */
+    public void refreshSubtrees(List<String> rootPageIds) {
+        refreshSubtrees(rootPageIds, null);
+    }
+
+    /**
+     * Recomputes only the entries of {@code userEmail}, after a change that affects that user
+     * alone such as a share or workspace membership change.
+     */
+    public void refreshSubtrees(List<String> rootPageIds, String userEmail) {
+        if (!enabled || rootPageIds == null || rootPageIds.isEmpty()) {
+            return;
+        }
+        try {
+            for (PageComponent root : pageRepository.fetchPagesByIds(rootPageIds).getPages()) {
+                refreshSubtree(root, userEmail);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while updating the access index for pages {}.", rootPageIds);
+        } catch (Exception e) {
+            logger.error("Failed to update the access index for pages {}; a rebuild restores it: {}", rootPageIds, e.getMessage(), e);
+        }
+    }
+
+    public void removePages(Collection<String> pageIds) {
+        if (!enabled || pageIds.isEmpty()) {
+            return;
+        }
+        try {
+            indexRepository.deleteByPageIds(pageIds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while removing {} deleted pages from the access index.", pageIds.size());
+        } catch (Exception e) {
+            logger.error("Failed to remove {} deleted pages from the access index; a rebuild restores it: {}", pageIds.size(), e.getMessage(), e);
+        }
+    }
+
+    private void refreshSubtree(PageComponent root, String userEmail) throws ExecutionException, InterruptedException {
+        List<PageComponent> ancestors = loadAncestors(root);
+        String treeRootId = ancestors.isEmpty() ? root.getPageId() : ancestors.get(ancestors.size() - 1).getPageId();
+        Set<String> members = membersByRootPageId(workspaceRepository.findWorkspacesByRootPageIds(List.of(treeRootId)))
+                .getOrDefault(treeRootId, Set.of());
+        Map<String, String> inherited = new HashMap<>();
+        for (int i = ancestors.size() - 1; i >= 0; i--) {
+            inherited = passedDown(inherited, ancestors.get(i));
+        }
+
+        Map<String, Map<String, String>> passedDownByPageId = new HashMap<>();
+        Map<String, Map<String, String>> batch = new LinkedHashMap<>();
+        int pages = 0;
+        Iterator<PageComponent> subtree = new PageTreeIterator(List.of(root.getPageId()),
+                pageIds -> pageRepository.fetchPagesByIds(pageIds).getPages(), BATCH_SIZE);
+        while (subtree.hasNext()) {
+            PageComponent page = subtree.next();
+            Map<String, String> fromParent = page.getPageId().equals(root.getPageId())
+                    ? inherited
+                    : passedDownByPageId.getOrDefault(page.getParentPageId(), Map.of());
+            batch.put(page.getPageId(), effective(fromParent, page, members));
+            if (page instanceof ContainerPage) {
+                passedDownByPageId.put(page.getPageId(), passedDown(fromParent, page));
+            }
+            if (batch.size() >= BATCH_SIZE) {
+                apply(batch, userEmail);
+                pages += batch.size();
+                batch.clear();
+            }
+        }
+        apply(batch, userEmail);
+        pages += batch.size();
+        logger.debug("Refreshed access index entries{} for {} pages below {}.",
+                userEmail != null ? " of " + userEmail : "", pages, root.getPageId());
+    }
+
+    /**
+     * Writes the difference between the computed access of some pages and their stored entries.
+     *
+     * @param userEmail if set, entries of other users are left as they are.
+     */
+    private void apply(Map<String, Map<String, String>> accessByPageId, String userEmail) throws ExecutionException, InterruptedException {
+        if (accessByPageId.isEmpty()) {
+            return;
+        }
+        List<PageAccessEntry> existing = indexRepository.findByPageIds(accessByPageId.keySet());
+        List<PageAccessEntry> desired = new ArrayList<>();
+        accessByPageId.forEach((pageId, access) -> access.forEach((user, level) -> {
+            if (userEmail == null || userEmail.equals(user)) {
+                desired.add(new PageAccessEntry(user, pageId, level));
+            }
+        }));
+        if (userEmail != null) {
+            existing.removeIf(entry -> !userEmail.equals(entry.getUserEmail()));
+        }
+        write(desired, existing);
+    }
+
+    /**
+     * Recomputes the whole index from all pages and workspaces and writes the entries that differ
+     * from the stored ones.
+     *
+     * @return the number of entries written or removed.
+     */
+    public int rebuild() throws ExecutionException, InterruptedException {
+        logger.info("Starting page access index rebuild.");
+        Map<String, PageComponent> pagesById = new LinkedHashMap<>();
+        for (PageComponent page : pageRepository.getAllPages()) {
+            if (page.getPageId() != null) {
+                pagesById.put(page.getPageId(), page);
+            }
+        }
+        Map<String, List<PageComponent>> childrenByParentId = new HashMap<>();
+        List<PageComponent> treeRoots = new ArrayList<>();
+        for (PageComponent page : pagesById.values()) {
+            String parentId = page.getParentPageId();
+            if (parentId == null || parentId.isEmpty() || !pagesById.containsKey(parentId)) {
+                treeRoots.add(page);
+            } else {
+                childrenByParentId.computeIfAbsent(parentId, id -> new ArrayList<>()).add(page);
+            }
+        }
+        Map<String, Set<String>> membersByRootPageId = membersByRootPageId(workspaceRepository.getAllWorkspaces());
+
+        List<PageAccessEntry> desired = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (PageComponent treeRoot : treeRoots) {
+            Set<String> members = membersByRootPageId.getOrDefault(treeRoot.getPageId(), Set.of());
+            Deque<Object[]> pending = new ArrayDeque<>();
+            pending.push(new Object[] {treeRoot, Map.<String, String>of()});
+            while (!pending.isEmpty()) {
+                Object[] next = pending.pop();
+                PageComponent page = (PageComponent) next[0];
+                @SuppressWarnings("unchecked")
+                Map<String, String> fromParent = (Map<String, String>) next[1];
+                if (!visited.add(page.getPageId())) {
+                    continue;
+                }
+                effective(fromParent, page, members).forEach((user, level) -> desired.add(new PageAccessEntry(user, page.getPageId(), level)));
+                List<PageComponent> children = childrenByParentId.getOrDefault(page.getPageId(), List.of());
+                if (!children.isEmpty()) {
+                    Map<String, String> toChildren = passedDown(fromParent, page);
+                    for (PageComponent child : children) {
+                        pending.push(new Object[] {child, toChildren});
+                    }
+                }
+            }
+        }
+        // Pages on a parent cycle are reached from no tree root and keep only their own grants.
+        int detached = 0;
+        for (PageComponent page : pagesById.values()) {
+            if (!visited.contains(page.getPageId())) {
+                detached++;
+                effective(Map.of(), page, Set.of()).forEach((user, level) -> desired.add(new PageAccessEntry(user, page.getPageId(), level)));
+            }
+        }
+
+        int changes = write(desired, indexRepository.findAll());
+        logger.info("Page access index rebuild finished: {} pages, {} entries, {} written or removed, {} pages on a parent cycle.",
+                pagesById.size(), desired.size(), changes, detached);
+        return changes;
+    }
+
+    /**
+     * Replaces {@code existing} by {@code desired}, writing only entries whose access differs.
+     *
+     * @return the number of entries written or removed.
+     */
+    private int write(List<PageAccessEntry> desired, List<PageAccessEntry> existing) throws ExecutionException, InterruptedException {
+        Map<String, PageAccessEntry> existingByKey = new HashMap<>();
+        for (PageAccessEntry entry : existing) {
+            existingByKey.put(key(entry), entry);
+        }
+        List<PageAccessEntry> upserts = new ArrayList<>();
+        for (PageAccessEntry entry : desired) {
+            PageAccessEntry stored = existingByKey.remove(key(entry));
+            if (!entry.equals(stored)) {
+                upserts.add(entry);
+            }
+        }
+        List<PageAccessEntry> removals = new ArrayList<>(existingByKey.values());
+        indexRepository.write(upserts, removals);
+        return upserts.size() + removals.size();
+    }
+
+    /**
+     * What a page grants its descendants on top of what it inherited: its owner and editors get
+     * edit, its viewers view.
+     */
+    private static Map<String, String> passedDown(Map<String, String> inherited, PageComponent page) {
+        Map<String, String> access = new HashMap<>(inherited);
+        grant(access, page.getOwner(), PageAccessEntry.EDIT);
+        grantShares(access, page);
+        return access;
+    }
+
+    private static Map<String, String> effective(Map<String, String> inherited, PageComponent page, Set<String> members) {
+        Map<String, String> access = new HashMap<>(inherited);
+        grant(access, page.getOwner(), PageAccessEntry.OWNER);
+        grantShares(access, page);
+        for (String member : members) {
+            grant(access, member, PageAccessEntry.MEMBER);
+        }
+        return access;
+    }
+
+    private static void grantShares(Map<String, String> access, PageComponent page) {
+        if (page.getSharingInfo() != null) {
+            page.getSharingInfo().forEach((user, level) -> {
+                if (PageAccessEntry.EDIT.equals(level) || PageAccessEntry.VIEW.equals(level)) {
+                    grant(access, user, level);
+                }
+            });
+        }
+    }
+
+    private static void grant(Map<String, String> access, String userEmail, String level) {
+        if (userEmail != null && !userEmail.isEmpty() && PageAccessEntry.rank(level) > PageAccessEntry.rank(access.get(userEmail))) {
+            access.put(userEmail, level);
+        }
+    }
+
+    private static Map<String, Set<String>> membersByRootPageId(List<Workspace> workspaces) {
+        Map<String, Set<String>> members = new HashMap<>();
+        for (Workspace workspace : workspaces) {
+            for (String rootPageId : workspace.getRootPageIds()) {
+                Set<String> rootMembers = members.computeIfAbsent(rootPageId, id -> new HashSet<>());
+                rootMembers.addAll(workspace.getMembers());
+                if (workspace.getOwner() != null) {
+                    rootMembers.add(workspace.getOwner());
+                }
+            }
+        }
+        return members;
+    }
+
+    /**
+     * The ancestors of a page, nearest first, read in one batch from its stored path or parent by
+     * parent for pages stored without one. Stops at the first missing ancestor.
+     */
+    private List<PageComponent> loadAncestors(PageComponent page) throws ExecutionException, InterruptedException {
+        List<PageComponent> ancestors = new ArrayList<>();
+        if (page.hasAncestorPath()) {
+            List<String> ancestorIds = page.getAncestorIds() != null ? page.getAncestorIds() : List.of();
+            Map<String, PageComponent> ancestorsById = new HashMap<>();
+            if (!ancestorIds.isEmpty()) {
+                for (PageComponent ancestor : pageRepository.fetchPagesByIds(ancestorIds).getPages()) {
+                    ancestorsById.put(ancestor.getPageId(), ancestor);
+                }
+            }
+            for (int i = ancestorIds.size() - 1; i >= 0 && ancestorsById.containsKey(ancestorIds.get(i)); i--) {
+                ancestors.add(ancestorsById.get(ancestorIds.get(i)));
+            }
+            return ancestors;
+        }
+        Set<String> visited = new HashSet<>();
+        String parentId = page.getParentPageId();
+        while (parentId != null && !parentId.isEmpty() && visited.add(parentId)) {
+            PageComponent parent = pageRepository.getPage(parentId);
+            if (parent == null) {
+                break;
+            }
+            ancestors.add(parent);
+            parentId = parent.getParentPageId();
+        }
+        return ancestors;
+    }
+
+    private static String key(PageAccessEntry entry) {
+        return entry.getUserEmail() + "\n" + entry.getPageId();
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.SlipStream.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import com.example.SlipStream.model.ContainerPage;
+import com.example.SlipStream.model.ContentPage;
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.Workspace;
+import com.example.SlipStream.repository.PageRepository;
+import com.example.SlipStream.repository.WorkspaceRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk import of page trees. The input is NDJSON, one page per line:
+ * {@code {"ref": "a", "parentRef": "root", "title": "...", "content": "...", "type": "content"}},
+ * where {@code ref} is any id unique within the import and {@code parentRef} points at another
+ * line, in any order. Lines without a parent are the roots of the import; they go under the
+ * target page, or become root pages of the target workspace.
+ *
+ * An import runs in two passes. {@link #prepareImport} reads the whole input, validates it,
+ * assigns page ids and ancestor paths in memory and spools the lines to a temporary file, so
+ * nothing is written for an input that turns out to be invalid. {@link #runImport} then writes
+ * the pages in chunks through {@link PageRepository#createPages}, complete with their children,
+ * and attaches the roots with one update of the parent page or workspace at the end. Pages with
+ * children are stored as containers whatever their type. Imported pages get no revision history
+ * until they are first edited.
+ */
+@Service
+public class PageImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageImportService.class);
+
+    private final PageService pageService;
+    private final PageRepository pageRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final PageAccessIndexService accessIndexService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxPages;
+
+    public PageImportService(PageService pageService, PageRepository pageRepository, WorkspaceRepository workspaceRepository,
+                             PageAccessIndexService accessIndexService, ObjectMapper objectMapper,
+                             @Value("${slipstream.import.chunk-size:500}") int chunkSize,
+                             @Value("${slipstream.import.max-pages:100000}") int maxPages) {
+        this.pageService = pageService;
+        this.pageRepository = pageRepository;
+        this.workspaceRepository = workspaceRepository;
+        this.accessIndexService = accessIndexService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Receives the number of pages written so far after every chunk.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        void pagesWritten(int written, int total);
+    }
+
+    /**
+     * A validated import waiting to be written. Holds a temporary file until {@link #runImport}
+     * or {@link #discard} is called.
+     */
+    public static final class Plan {
+        private final String workspaceId;
+        private final String parentPageId;
+        private final String owner;
+        private final List<Node> nodes;
+        private final Path spool;
+
+        private Plan(String workspaceId, String parentPageId, String owner, List<Node> nodes, Path spool) {
+            this.workspaceId = workspaceId;
+            this.parentPageId = parentPageId;
+            this.owner = owner;
+            this.nodes = nodes;
+            this.spool = spool;
+        }
+
+        public int getPageCount() {
+            return nodes.size();
+        }
+
+        public void discard() {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                logger.warn("Could not delete import spool file {}: {}", spool, e.getMessage());
+            }
+        }
+    }
+
+    public static final class Result {
+        private final int pageCount;
+        private final List<String> rootPageIds;
+        private final Map<String, String> pageIdsByRef;
+
+        private Result(int pageCount, List<String> rootPageIds, Map<String, String> pageIdsByRef) {
+            this.pageCount = pageCount;
+            this.rootPageIds = rootPageIds;
+            this.pageIdsByRef = pageIdsByRef;
+        }
+
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        public List<String> getRootPageIds() {
+            return rootPageIds;
+        }
+
+        public Map<String, String> getPageIdsByRef() {
+            return pageIdsByRef;
+        }
+    }
+
+    private static final class Node {
+        private final String ref;
+        private final String parentRef;
+        private final int line;
+        private final boolean container;
+        private final String pageId = "page_" + UUID.randomUUID();
+        private final List<String> childrenIds = new ArrayList<>();
+        private Node parent;
+        private List<String> ancestorIds;
+
+        private Node(String ref, String parentRef, int line, boolean container) {
+            this.ref = ref;
+            this.parentRef = parentRef;
+            this.line = line;
+            this.container = container;
+        }
+    }
+
+    /**
+     * Checks access to the target, reads and validates the input and prepares the import. At
+     * least one of {@code workspaceId} and {@code parentPageId} is required; the current user
+     * needs edit access to the parent page and must be a member of the workspace.
+     *
+     * @param zipped if true, the input is a zip archive and its {@code .ndjson} and {@code .jsonl}
+     *               entries are read in order.
+     * @throws IllegalArgumentException if the target does not exist or the input is invalid.
+     */
+    public Plan prepareImport(InputStream input, boolean zipped, String workspaceId, String parentPageId)
+            throws IOException, ExecutionException, InterruptedException {
+        String owner = pageService.getCurrentUserEmail();
+        if (owner == null) {
+            throw new AccessDeniedException("Importing pages requires an authenticated user.");
+        }
+        boolean hasWorkspace = workspaceId != null && !workspaceId.isEmpty();
+        boolean hasParent = parentPageId != null && !parentPageId.isEmpty();
+        if (!hasWorkspace && !hasParent) {
+            throw new IllegalArgumentException("A workspaceId or parentPageId is required.");
+        }
+
+        List<String> basePath = new ArrayList<>();
+        if (hasParent) {
+            PageComponent parent = pageService.getPageForEditing(parentPageId);
+            if (parent == null) {
+                throw new IllegalArgumentException("Parent page " + parentPageId + " not found.");
+            }
+            basePath = pageService.ancestorPathOf(parent);
+            basePath.add(parentPageId);
+            if (!hasWorkspace) {
+                workspaceId = parent.getWorkspaceId();
+            }
+        }
+        if (hasWorkspace) {
+            Workspace workspace = workspaceRepository.getWorkspaceById(workspaceId);
+            if (workspace == null) {
+                throw new IllegalArgumentException("Workspace " + workspaceId + " not found.");
+            }
+            if (!owner.equals(workspace.getOwner()) && !workspace.getMembers().contains(owner)) {
+                throw new AccessDeniedException("User " + owner + " is not a member of workspace " + workspaceId);
+            }
+        }
+
+        Path spool = Files.createTempFile("slipstream-import-", ".ndjson");
+        try {
+            List<Node> nodes = new ArrayList<>();
+            Map<String, Node> byRef = new HashMap<>();
+            try (BufferedWriter writer = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+                if (zipped) {
+                    ZipInputStream zip = new ZipInputStream(input, StandardCharsets.UTF_8);
+                    ZipEntry entry;
+                    while ((entry = zip.getNextEntry()) != null) {
+                        String name = entry.getName().toLowerCase(Locale.ROOT);
+                        if (!entry.isDirectory() && (name.endsWith(".ndjson") || name.endsWith(".jsonl"))) {
+                            // The reader is not closed: that would close the archive.
+                            readLines(new BufferedReader(new InputStreamReader(zip, StandardCharsets.UTF_8)), writer, nodes, byRef);
+                        }
+                    }
+                } else {
+                    readLines(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), writer, nodes, byRef);
+                }
+            }
+            if (nodes.isEmpty()) {
+                throw new IllegalArgumentException("The import contains no pages.");
+            }
+            linkTree(nodes, byRef, basePath);
+            logger.info("Prepared import of {} pages into {} for {}.", nodes.size(),
+                    hasParent ? "page " + parentPageId : "workspace " + workspaceId, owner);
+            return new Plan(workspaceId, hasParent ? parentPageId : null, owner, nodes, spool);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a prepared import and attaches its roots. If a write fails, the pages written so
+     * far are deleted again before the error is rethrown.
+     */
+    public Result runImport(Plan plan, Progress progress) throws IOException, ExecutionException, InterruptedException {
+        List<String> written = new ArrayList<>(plan.nodes.size());
+        List<String> rootPageIds = new ArrayList<>();
+        Map<String, String> pageIdsByRef = new LinkedHashMap<>();
+        long started = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(plan.spool, StandardCharsets.UTF_8)) {
+            List<PageComponent> chunk = new ArrayList<>(chunkSize);
+            for (Node node : plan.nodes) {
+                chunk.add(toPage(node, objectMapper.readTree(reader.readLine()), plan));
+                pageIdsByRef.put(node.ref, node.pageId);
+                if (node.parent == null) {
+                    rootPageIds.add(node.pageId);
+                }
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, written);
+                    progress.pagesWritten(written.size(), plan.nodes.size());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, written);
+                progress.pagesWritten(written.size(), plan.nodes.size());
+            }
+
+            boolean attached = plan.parentPageId != null
+                    ? pageService.addChildPages(plan.parentPageId, rootPageIds)
+                    : workspaceRepository.addRootPagesToWorkspace(plan.workspaceId, rootPageIds);
+            RequestReadContext.invalidateWorkspaces();
+            if (!attached) {
+                throw new IllegalStateException("Could not attach the imported pages to "
+                        + (plan.parentPageId != null ? "page " + plan.parentPageId : "workspace " + plan.workspaceId));
+            }
+        } catch (IOException | ExecutionException | InterruptedException | RuntimeException e) {
+            rollback(written);
+            throw e;
+        } finally {
+            plan.discard();
+        }
+        accessIndexService.refreshSubtrees(rootPageIds);
+        logger.info("Imported {} pages ({} roots) in {} ms.", written.size(), rootPageIds.size(), (System.nanoTime() - started) / 1_000_000);
+        return new Result(written.size(), rootPageIds, pageIdsByRef);
+    }
+
+    private void readLines(BufferedReader reader, BufferedWriter spool, List<Node> nodes, Map<String, Node> byRef) throws IOException {
+        String line;
+        int lineNumber = nodes.size();
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            lineNumber++;
+            JsonNode json;
+            try {
+                json = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Page " + lineNumber + ": invalid JSON (" + e.getOriginalMessage() + ").");
+            }
+            if (json == null || !json.isObject()) {
+                throw new IllegalArgumentException("Page " + lineNumber + ": expected a JSON object.");
+            }
+            String ref = textField(json, "ref");
+            if (ref == null || ref.isEmpty()) {
+                throw new IllegalArgumentException("Page " + lineNumber + ": \"ref\" is required.");
+            }
+            if (byRef.containsKey(ref)) {
+                throw new IllegalArgumentException("Page " + lineNumber + ": duplicate ref \"" + ref + "\".");
+            }
+            String type = textField(json, "type");
+            if (type != null && !type.equals("container") && !type.equals("content")) {
+                throw new IllegalArgumentException("Page " + lineNumber + ": unknown type \"" + type + "\".");
+            }
+            if (nodes.size() >= maxPages) {
+                throw new IllegalArgumentException("An import is limited to " + maxPages + " pages.");
+            }
+            String parentRef = textField(json, "parentRef");
+            Node node = new Node(ref, parentRef != null && !parentRef.isEmpty() ? parentRef : null, lineNumber, "container".equals(type));
+            nodes.add(node);
+            byRef.put(ref, node);
+            spool.write(line);
+            spool.newLine();
+        }
+    }
+
+    /**
+     * Resolves parent refs, fills in children in input order and computes ancestor paths by
+     * walking down from the roots; pages not reached that way are part of a cycle.
+     */
+    private static void linkTree(List<Node> nodes, Map<String, Node> byRef, List<String> basePath) {
+        Deque<Node> pending = new ArrayDeque<>();
+        Map<Node, List<Node>> children = new HashMap<>();
+        for (Node node : nodes) {
+            if (node.parentRef == null) {
+                node.ancestorIds = basePath;
+                pending.add(node);
+                continue;
+            }
+            Node parent = byRef.get(node.parentRef);
+            if (parent == null) {
+                throw new IllegalArgumentException("Page " + node.line + ": unknown parentRef \"" + node.parentRef + "\".");
+            }
+            node.parent = parent;
+            parent.childrenIds.add(node.pageId);
+            children.computeIfAbsent(parent, p -> new ArrayList<>()).add(node);
+        }
+        int reached = pending.size();
+        while (!pending.isEmpty()) {
+            Node node = pending.poll();
+            for (Node child : children.getOrDefault(node, List.of())) {
+                List<String> path = new ArrayList<>(node.ancestorIds);
+                path.add(node.pageId);
+                child.ancestorIds = path;
+                pending.add(child);
+                reached++;
+            }
+        }
+        if (reached < nodes.size()) {
+            for (Node node : nodes) {
+                if (node.ancestorIds == null) {
+                    throw new IllegalArgumentException("Page " + node.line + ": \"" + node.ref + "\" is part of a parentRef cycle.");
+                }
+            }
+        }
+    }
+
+    private static PageComponent toPage(Node node, JsonNode json, Plan plan) {
+        String parentPageId = node.parent != null ? node.parent.pageId : plan.parentPageId;
+        String title = textField(json, "title");
+        String content = textField(json, "content");
+        PageComponent page;
+        if (node.container || !node.childrenIds.isEmpty()) {
+            ContainerPage container = new ContainerPage(title, content, parentPageId, plan.owner);
+            container.setChildrenIds(new ArrayList<>(node.childrenIds));
+            page = container;
+        } else {
+            page = new ContentPage(title, content, parentPageId, plan.owner);
+        }
+        page.setPageId(node.pageId);
+        page.setWorkspaceId(plan.workspaceId);
+        page.setAncestorIds(new ArrayList<>(node.ancestorIds));
+        return page;
+    }
+
+    /**
+     * Writes one chunk. Its ids are recorded before the write, since a failed bulk write may still
+     * have created some of the pages; deleting the ones it did not create is harmless.
+     */
+    private void writeChunk(List<PageComponent> chunk, List<String> written) throws ExecutionException, InterruptedException {
+        for (PageComponent page : chunk) {
+            written.add(page.getPageId());
+        }
+        pageRepository.createPages(chunk);
+        chunk.clear();
+    }
+
+    private void rollback(List<String> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        logger.warn("Import failed after writing up to {} pages, deleting them again.", written.size());
+        try {
+            pageRepository.deletePages(written);
+        } catch (ExecutionException | RuntimeException e) {
+            logger.error("Could not delete {} pages of a failed import: {}", written.size(), e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while deleting {} pages of a failed import.", written.size());
+        }
+    }
+
+    private static String textField(JsonNode json, String field) {
+        JsonNode value = json.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.SlipStream.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.repository.cache.ExpiringLruCache;
+
+/**
+ * Access levels pages inherit from their ancestors, per user and page: the best level any
+ * ancestor grants the user and the ancestor it comes from. Only the parent chain is memoized;
+ * the owner, shares and publication of the page itself are always taken from the page being
+ * checked, which the caller has just read.
+ *
+ * Each entry remembers the ancestors it was resolved from. Invalidating a page drops its own
+ * entries and every entry resolved through it, so a sharing change, delete or move of one page
+ * leaves the rest of the cache intact. Entries also expire after a TTL, which bounds how long a
+ * change made through another instance goes unnoticed.
+ */
+@Component
+public class PagePermissionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PagePermissionCache.class);
+    // Index entries of expired or evicted cache entries are only removed on invalidation; past
+    // this many per cache slot the index and cache are dropped together.
+    private static final int MAX_INDEX_ENTRIES_PER_SLOT = 8;
+
+    enum Level { NONE, VIEW, EDIT }
+
+    static final class Entry {
+        private final Level level;
+        private final String sourcePageId;
+        private final String parentPageId;
+        private final List<String> resolvedFrom;
+
+        Entry(Level level, String sourcePageId, String parentPageId, List<String> resolvedFrom) {
+            this.level = level;
+            this.sourcePageId = sourcePageId;
+            this.parentPageId = parentPageId;
+            this.resolvedFrom = resolvedFrom;
+        }
+
+        Level getLevel() {
+            return level;
+        }
+
+        /**
+         * The ancestor granting {@link #getLevel()}, or null if the level is {@code NONE}.
+         */
+        String getSourcePageId() {
+            return sourcePageId;
+        }
+
+        boolean allows(String requiredAccessLevel) {
+            if ("edit".equals(requiredAccessLevel)) {
+                return level == Level.EDIT;
+            }
+            return "view".equals(requiredAccessLevel) && level != Level.NONE;
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxIndexEntries;
+    private final ExpiringLruCache<String, Entry> entries;
+    // page id -> keys of the entries resolved through it, including the page's own entries
+    private final Map<String, Set<String>> keysByPageId = new HashMap<>();
+    private int indexEntries;
+    private long invalidations;
+
+    public PagePermissionCache(@Value("${slipstream.permissions.cache.enabled:true}") boolean enabled,
+                               @Value("${slipstream.permissions.cache.size:10000}") int size,
+                               @Value("${slipstream.permissions.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxIndexEntries = size * MAX_INDEX_ENTRIES_PER_SLOT;
+        this.entries = new ExpiringLruCache<>(size, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The cached inherited access of a user to a page, or null if there is none or it was
+     * resolved while the page had a different parent.
+     */
+    Entry get(String userEmail, PageComponent page) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.get(key(userEmail, page.getPageId()));
+        return entry != null && Objects.equals(entry.parentPageId, page.getParentPageId()) ? entry : null;
+    }
+
+    /**
+     * Marks the start of a resolution; pass the result to {@link #put} so an entry resolved
+     * while an invalidation was going on is not stored.
+     */
+    synchronized long stamp() {
+        return invalidations;
+    }
+
+    synchronized void put(String userEmail, String pageId, Entry entry, long stamp) {
+        if (!enabled || stamp != invalidations) {
+            return;
+        }
+        String key = key(userEmail, pageId);
+        entries.put(key, entry);
+        index(pageId, key);
+        for (String ancestorId : entry.resolvedFrom) {
+            index(ancestorId, key);
+        }
+        if (indexEntries > maxIndexEntries) {
+            logger.debug("Permission cache index reached {} entries, clearing the cache.", indexEntries);
+            clear();
+        }
+    }
+
+    /**
+     * Drops the entries of the given pages and of all pages whose access was resolved through them.
+     */
+    synchronized void invalidate(Collection<String> pageIds) {
+        invalidations++;
+        for (String pageId : pageIds) {
+            Set<String> keys = keysByPageId.remove(pageId);
+            if (keys != null) {
+                indexEntries -= keys.size();
+                keys.forEach(entries::invalidate);
+            }
+        }
+    }
+
+    synchronized void clear() {
+        invalidations++;
+        entries.invalidateAll();
+        keysByPageId.clear();
+        indexEntries = 0;
+    }
+
+    private void index(String pageId, String key) {
+        if (keysByPageId.computeIfAbsent(pageId, id -> new HashSet<>()).add(key)) {
+            indexEntries++;
+        }
+    }
+
+    private static String key(String userEmail, String pageId) {
+        return (userEmail != null ? userEmail : "") + "\n" + pageId;
+    }
+}
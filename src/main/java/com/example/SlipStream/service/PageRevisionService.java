@@ -0,0 +1,476 @@
+package com.example.SlipStream.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageRevision;
+import com.example.SlipStream.repository.PageRevisionRecord;
+import com.example.SlipStream.repository.PageRevisionRepository;
+import com.example.SlipStream.repository.cache.ExpiringLruCache;
+
+/**
+ * Revision history of page titles and content. Every committed save is appended as a delta
+ * against the previous revision, and every {@code snapshotInterval}-th revision of a chain is a
+ * full snapshot, so rebuilding any revision reads at most {@code snapshotInterval} records.
+ *
+ * A background job thins out old history: revisions younger than {@code keepAllHours} are all
+ * kept, older ones down to the last revision of each hour for {@code keepHourlyDays} days and
+ * the last revision of each day after that. The snapshot chain of a page's latest revision is
+ * never touched by compaction, since new revisions are appended to it.
+ *
+ * Saves are recorded on the maintenance thread, in the order they were committed, so recording
+ * neither delays nor fails a save: errors are logged and the save goes ahead without a revision.
+ */
+@Service
+public class PageRevisionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageRevisionService.class);
+
+    static final int DEFAULT_LIST_LIMIT = 50;
+    static final int MAX_LIST_LIMIT = 500;
+    private static final int MAX_APPEND_ATTEMPTS = 3;
+    private static final int COMPACTION_BATCH_SIZE = 100;
+    private static final int HEAD_CACHE_SIZE = 1000;
+    private static final long HEAD_CACHE_TTL_MINUTES = 10;
+    // Larger bodies are rebuilt from the store on their next save rather than held in memory.
+    private static final int MAX_CACHED_CONTENT_CHARS = 256 * 1024;
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final PageRevisionRepository revisionRepository;
+    private final boolean enabled;
+    private final int snapshotInterval;
+    private final long keepAllMillis;
+    private final long keepHourlyMillis;
+    private final int compactionMinRevisions;
+    // Latest revision of recently saved pages, so autosaves compute their delta without a read.
+    private final ExpiringLruCache<String, Head> heads;
+    private final ScheduledExecutorService maintenance;
+
+    public PageRevisionService(PageRevisionRepository revisionRepository,
+                               @Value("${slipstream.revisions.enabled:true}") boolean enabled,
+                               @Value("${slipstream.revisions.snapshot-interval:20}") int snapshotInterval,
+                               @Value("${slipstream.revisions.keep-all-hours:24}") long keepAllHours,
+                               @Value("${slipstream.revisions.keep-hourly-days:7}") long keepHourlyDays,
+                               @Value("${slipstream.revisions.compaction.interval-minutes:60}") long compactionIntervalMinutes,
+                               @Value("${slipstream.revisions.compaction.min-revisions:50}") int compactionMinRevisions) {
+        this.revisionRepository = revisionRepository;
+        this.enabled = enabled;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+        this.keepAllMillis = TimeUnit.HOURS.toMillis(keepAllHours);
+        this.keepHourlyMillis = TimeUnit.DAYS.toMillis(keepHourlyDays);
+        this.compactionMinRevisions = Math.max(1, compactionMinRevisions);
+        this.heads = new ExpiringLruCache<>(HEAD_CACHE_SIZE, HEAD_CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "page-revision-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            maintenance.scheduleWithFixedDelay(this::compactAll, compactionIntervalMinutes, compactionIntervalMinutes, TimeUnit.MINUTES);
+            logger.info("Page revisions enabled (snapshot every {} revisions, compaction every {} min).", this.snapshotInterval, compactionIntervalMinutes);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends the title and content of a page that has just been written as its next revision,
+     * in the background. Saves that change neither are skipped.
+     */
+    public void recordSave(PageComponent page) {
+        if (!enabled || page == null || page.getPageId() == null) {
+            return;
+        }
+        String pageId = page.getPageId();
+        long pageVersion = page.getVersion();
+        String title = page.getTitle();
+        String content = page.getContent() != null ? page.getContent() : "";
+        try {
+            maintenance.execute(() -> record(pageId, pageVersion, title, content));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Revision of page {} at version {} was not recorded: shutting down.", pageId, pageVersion);
+        }
+    }
+
+    void record(String pageId, long pageVersion, String title, String content) {
+        try {
+            for (int attempt = 1; attempt <= MAX_APPEND_ATTEMPTS; attempt++) {
+                Head head = loadHead(pageId);
+                if (head != null && Objects.equals(head.title, title) && head.content.equals(content)) {
+                    return;
+                }
+                PageRevisionRecord record = nextRecord(pageId, pageVersion, title, content, head);
+                if (revisionRepository.appendRevision(record)) {
+                    Head next = new Head(record.getRevision(), record.getSnapshotRevision(),
+                            record.isSnapshot() ? 0 : head.chainLength + 1, title, content);
+                    if (content.length() <= MAX_CACHED_CONTENT_CHARS) {
+                        heads.put(pageId, next);
+                    } else {
+                        heads.invalidate(pageId);
+                    }
+                    logger.debug("Recorded revision {} of page {} as a {}.", record.getRevision(), pageId, record.isSnapshot() ? "snapshot" : "delta");
+                    return;
+                }
+                // Another instance appended first; start again from the stored latest revision.
+                heads.invalidate(pageId);
+            }
+            logger.warn("Gave up recording a revision of page {} after {} concurrent appends.", pageId, MAX_APPEND_ATTEMPTS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while recording a revision of page {}.", pageId);
+        } catch (Exception e) {
+            heads.invalidate(pageId);
+            logger.error("Failed to record a revision of page {}: {}", pageId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Revisions of a page without content, newest first.
+     *
+     * @param beforeRevision only revisions older than this one, for paging; null for the newest.
+     */
+    public List<PageRevision> listRevisions(String pageId, Long beforeRevision, Integer limit) throws ExecutionException, InterruptedException {
+        int clamped = limit == null || limit <= 0 ? DEFAULT_LIST_LIMIT : Math.min(limit, MAX_LIST_LIMIT);
+        List<PageRevision> revisions = new ArrayList<>();
+        for (PageRevisionRecord record : revisionRepository.listRevisions(pageId, beforeRevision, clamped)) {
+            revisions.add(toRevision(record, null));
+        }
+        return revisions;
+    }
+
+    /**
+     * The page as of one revision, or null if the page has no such revision.
+     */
+    public PageRevision getRevision(String pageId, long revision) throws ExecutionException, InterruptedException {
+        PageRevisionRecord record = revisionRepository.getRevision(pageId, revision);
+        return record != null ? toRevision(record, rebuild(record).content) : null;
+    }
+
+    /**
+     * The page as it was at a point in time: the newest revision saved at or before it, or null
+     * if the page had no revision yet.
+     */
+    public PageRevision getRevisionAt(String pageId, Date at) throws ExecutionException, InterruptedException {
+        PageRevisionRecord record = revisionRepository.findRevisionAt(pageId, at);
+        return record != null ? toRevision(record, rebuild(record).content) : null;
+    }
+
+    /**
+     * Drops the history of deleted pages in the background.
+     */
+    public void deleteRevisions(Collection<String> pageIds) {
+        if (pageIds.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(pageIds);
+        ids.forEach(heads::invalidate);
+        try {
+            maintenance.execute(() -> {
+                for (String pageId : ids) {
+                    try {
+                        revisionRepository.deleteRevisions(pageId);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        logger.error("Failed to delete revisions of page {}: {}", pageId, e.getMessage(), e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Revisions of {} deleted pages were not removed: shutting down.", ids.size());
+        }
+    }
+
+    void compactAll() {
+        try {
+            List<String> pageIds = revisionRepository.findPagesToCompact(compactionMinRevisions, COMPACTION_BATCH_SIZE);
+            int dropped = 0;
+            for (String pageId : pageIds) {
+                try {
+                    dropped += compact(pageId);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    logger.error("Failed to compact revisions of page {}: {}", pageId, e.getMessage(), e);
+                }
+            }
+            if (!pageIds.isEmpty()) {
+                logger.info("Compacted revisions of {} pages, dropped {} revisions.", pageIds.size(), dropped);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Revision compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Thins out the revisions of one page that are older than the snapshot chain of its latest
+     * revision, re-encoding the survivors so every delta applies to the kept revision before it.
+     *
+     * @return the number of revisions dropped.
+     */
+    int compact(String pageId) throws ExecutionException, InterruptedException {
+        PageRevisionRecord latest = revisionRepository.getLatestRevision(pageId);
+        if (latest == null) {
+            return 0;
+        }
+        List<PageRevisionRecord> older = revisionRepository.getRevisions(pageId, 0L, latest.getSnapshotRevision() - 1);
+        Set<Long> kept = retained(older, System.currentTimeMillis());
+        if (kept.size() == older.size()) {
+            revisionRepository.replaceRevisions(pageId, List.of(), List.of());
+            return 0;
+        }
+
+        Map<Long, PageRevisionRecord> byRevision = index(older);
+        List<PageRevisionRecord> rewritten = new ArrayList<>();
+        List<Long> dropped = new ArrayList<>();
+        long previousRevision = -1;
+        String previousContent = null;
+        long keptRevision = 0;
+        String keptContent = null;
+        long chainSnapshot = 0;
+        int chainLength = 0;
+        for (PageRevisionRecord record : older) {
+            String content;
+            if (record.isSnapshot()) {
+                content = record.getContent();
+            } else if (record.getBaseRevision() == previousRevision) {
+                content = apply(previousContent, record);
+            } else {
+                content = rebuild(record, byRevision).content;
+            }
+            previousRevision = record.getRevision();
+            previousContent = content;
+
+            if (!kept.contains(record.getRevision())) {
+                dropped.add(record.getRevision());
+                continue;
+            }
+            if (record.isSnapshot()) {
+                chainSnapshot = record.getRevision();
+                chainLength = 0;
+            } else if (keptRevision != 0 && record.getBaseRevision() == keptRevision
+                    && record.getSnapshotRevision() == chainSnapshot && chainLength + 1 < snapshotInterval) {
+                chainLength++;
+            } else if (keptRevision == 0 || chainLength + 1 >= snapshotInterval) {
+                rewritten.add(PageRevisionRecord.snapshot(pageId, record.getRevision(), record.getPageVersion(),
+                        record.getTitle(), record.getSavedAt(), content));
+                chainSnapshot = record.getRevision();
+                chainLength = 0;
+            } else {
+                Splice splice = Splice.between(keptContent, content);
+                rewritten.add(PageRevisionRecord.delta(pageId, record.getRevision(), record.getPageVersion(), record.getTitle(),
+                        record.getSavedAt(), chainSnapshot, keptRevision, splice.offset, splice.removed, splice.inserted));
+                chainLength++;
+            }
+            keptRevision = record.getRevision();
+            keptContent = content;
+        }
+        revisionRepository.replaceRevisions(pageId, rewritten, dropped);
+        logger.debug("Compacted page {}: kept {} of {} older revisions, re-encoded {}.", pageId, kept.size(), older.size(), rewritten.size());
+        return dropped.size();
+    }
+
+    /**
+     * Revisions to keep: all recent ones, otherwise the last one of each hour or day bucket.
+     */
+    private Set<Long> retained(List<PageRevisionRecord> records, long now) {
+        long keepAllAfter = now - keepAllMillis;
+        long hourlyAfter = keepAllAfter - keepHourlyMillis;
+        Map<Long, Long> lastByHour = new HashMap<>();
+        Map<Long, Long> lastByDay = new HashMap<>();
+        Set<Long> kept = new HashSet<>();
+        for (PageRevisionRecord record : records) {
+            long savedAt = record.getSavedAt() != null ? record.getSavedAt().getTime() : 0L;
+            if (savedAt >= keepAllAfter) {
+                kept.add(record.getRevision());
+            } else if (savedAt >= hourlyAfter) {
+                lastByHour.put(savedAt / HOUR_MILLIS, record.getRevision());
+            } else {
+                lastByDay.put(savedAt / DAY_MILLIS, record.getRevision());
+            }
+        }
+        kept.addAll(lastByHour.values());
+        kept.addAll(lastByDay.values());
+        return kept;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PageRevisionRecord nextRecord(String pageId, long pageVersion, String title, String content, Head head) {
+        Date savedAt = new Date();
+        if (head == null || head.chainLength + 1 >= snapshotInterval) {
+            long revision = head != null ? head.revision + 1 : 1L;
+            return PageRevisionRecord.snapshot(pageId, revision, pageVersion, title, savedAt, content);
+        }
+        Splice splice = Splice.between(head.content, content);
+        return PageRevisionRecord.delta(pageId, head.revision + 1, pageVersion, title, savedAt,
+                head.snapshotRevision, head.revision, splice.offset, splice.removed, splice.inserted);
+    }
+
+    private Head loadHead(String pageId) throws ExecutionException, InterruptedException {
+        Head head = heads.get(pageId);
+        if (head != null) {
+            return head;
+        }
+        PageRevisionRecord latest = revisionRepository.getLatestRevision(pageId);
+        if (latest == null) {
+            return null;
+        }
+        Rebuilt rebuilt = rebuild(latest);
+        return new Head(latest.getRevision(), latest.getSnapshotRevision(), rebuilt.chainLength, latest.getTitle(), rebuilt.content);
+    }
+
+    private Rebuilt rebuild(PageRevisionRecord target) throws ExecutionException, InterruptedException {
+        if (target.isSnapshot()) {
+            return new Rebuilt(target.getContent(), 0);
+        }
+        List<PageRevisionRecord> range = revisionRepository.getRevisions(target.getPageId(), target.getSnapshotRevision(), target.getRevision());
+        return rebuild(target, index(range));
+    }
+
+    /**
+     * Follows base revisions back to the snapshot and applies the deltas forward. Going by base
+     * rather than by position keeps rebuilds correct while a compaction is half applied.
+     */
+    private static Rebuilt rebuild(PageRevisionRecord target, Map<Long, PageRevisionRecord> byRevision) {
+        Deque<PageRevisionRecord> deltas = new ArrayDeque<>();
+        PageRevisionRecord record = target;
+        while (!record.isSnapshot()) {
+            deltas.push(record);
+            PageRevisionRecord base = byRevision.get(record.getBaseRevision());
+            if (base == null) {
+                throw new IllegalStateException("Revision " + record.getRevision() + " of page " + target.getPageId()
+                        + " refers to missing revision " + record.getBaseRevision());
+            }
+            record = base;
+        }
+        int chainLength = deltas.size();
+        String content = record.getContent();
+        while (!deltas.isEmpty()) {
+            content = apply(content, deltas.pop());
+        }
+        return new Rebuilt(content, chainLength);
+    }
+
+    private static String apply(String content, PageRevisionRecord delta) {
+        int end = delta.getOffset() + delta.getRemoved();
+        if (delta.getOffset() < 0 || end > content.length()) {
+            throw new IllegalStateException("Revision " + delta.getRevision() + " of page " + delta.getPageId()
+                    + " does not apply to its base revision");
+        }
+        return content.substring(0, delta.getOffset()) + delta.getInserted() + content.substring(end);
+    }
+
+    private static Map<Long, PageRevisionRecord> index(List<PageRevisionRecord> records) {
+        Map<Long, PageRevisionRecord> byRevision = new HashMap<>();
+        for (PageRevisionRecord record : records) {
+            byRevision.put(record.getRevision(), record);
+        }
+        return byRevision;
+    }
+
+    private static PageRevision toRevision(PageRevisionRecord record, String content) {
+        return new PageRevision(record.getPageId(), record.getRevision(), record.getPageVersion(), record.getTitle(),
+                record.getSavedAt(), content);
+    }
+
+    /**
+     * The single edit between two texts: everything between their common prefix and common
+     * suffix is replaced. Editor saves usually touch one region, so this stays small without a
+     * full diff. Cut points never split a surrogate pair, so the inserted text is always valid
+     * on its own.
+     */
+    static final class Splice {
+        final int offset;
+        final int removed;
+        final String inserted;
+
+        private Splice(int offset, int removed, String inserted) {
+            this.offset = offset;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+
+        static Splice between(String before, String after) {
+            int limit = Math.min(before.length(), after.length());
+            int prefix = 0;
+            while (prefix < limit && before.charAt(prefix) == after.charAt(prefix)) {
+                prefix++;
+            }
+            if (prefix > 0 && Character.isHighSurrogate(before.charAt(prefix - 1))) {
+                prefix--;
+            }
+            int suffix = 0;
+            while (suffix < limit - prefix
+                    && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+                suffix++;
+            }
+            if (suffix > 0 && Character.isLowSurrogate(after.charAt(after.length() - suffix))) {
+                suffix--;
+            }
+            return new Splice(prefix, before.length() - prefix - suffix, after.substring(prefix, after.length() - suffix));
+        }
+    }
+
+    private static final class Head {
+        final long revision;
+        final long snapshotRevision;
+        final int chainLength;
+        final String title;
+        final String content;
+
+        Head(long revision, long snapshotRevision, int chainLength, String title, String content) {
+            this.revision = revision;
+            this.snapshotRevision = snapshotRevision;
+            this.chainLength = chainLength;
+            this.title = title;
+            this.content = content;
+        }
+    }
+
+    private static final class Rebuilt {
+        final String content;
+        final int chainLength;
+
+        Rebuilt(String content, int chainLength) {
+            this.content = content;
+            this.chainLength = chainLength;
+        }
+    }
+}
@@ -5,11 +5,15 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import java.util.Map;
 import java.util.Set;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -26,8 +30,18 @@ import org.springframework.stereotype.Service;
 import com.example.SlipStream.model.ContainerPage;
 import com.example.SlipStream.model.ContentPage;
 import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageRevision;
+import com.example.SlipStream.model.PageSummary;
 import com.example.SlipStream.model.Workspace;
+import com.example.SlipStream.repository.AsyncPageRepository;
+import com.example.SlipStream.repository.AsyncWorkspaceRepository;
+import com.example.SlipStream.repository.PageBatchResult;
+import com.example.SlipStream.repository.PageCursorIterator;
+import com.example.SlipStream.repository.PageDeletionResult;
 import com.example.SlipStream.repository.PageRepository;
+import com.example.SlipStream.repository.PageSlice;
+import com.example.SlipStream.repository.PageTreeIterator;
+import com.example.SlipStream.repository.PageUpdateResult;
 
 import com.example.SlipStream.repository.WorkspaceRepository;
 
@@ -35,7 +49,6 @@ import com.example.SlipStream.repository.WorkspaceRepository;
 import com.example.SlipStream.service.observer.PageSubject;
 import com.example.SlipStream.service.observer.PageSubjectManager;
 
-import org.springframework.beans.factory.annotation.Qualifier;
 
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QuerySnapshot;
@@ -45,17 +58,36 @@ import com.google.cloud.firestore.FieldPath;
 public class PageService {
 
     private static final Logger logger = LoggerFactory.getLogger(PageService.class);
+    static final int DEFAULT_PAGE_LIMIT = 100;
+    static final int MAX_PAGE_LIMIT = 1000;
+    private static final int STREAM_BATCH_SIZE = 500;
     private final PageRepository pageRepository;
+    private final AsyncPageRepository asyncPageRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final WorkspaceRepository workspaceRepository;
+    private final AsyncWorkspaceRepository asyncWorkspaceRepository;
     private final PageSubjectManager subjectManager; // Add subjectManager field
+    private final PageWriteBuffer writeBuffer;
+    private final PageRevisionService revisionService;
+    private final PagePermissionCache permissionCache;
+    private final PageAccessIndexService accessIndexService;
 
     @Autowired
-    public PageService(PageRepository pageRepository, SimpMessagingTemplate messagingTemplate, @Qualifier("firebaseWorkspaceRepository") WorkspaceRepository workspaceRepository, PageSubjectManager subjectManager) { // Add subjectManager to constructor
+    public PageService(PageRepository pageRepository, AsyncPageRepository asyncPageRepository, SimpMessagingTemplate messagingTemplate,
+                       WorkspaceRepository workspaceRepository,
+                       AsyncWorkspaceRepository asyncWorkspaceRepository, PageSubjectManager subjectManager, // Add subjectManager to constructor
+                       PageWriteBuffer writeBuffer, PageRevisionService revisionService, PagePermissionCache permissionCache,
+                       PageAccessIndexService accessIndexService) {
         this.pageRepository = pageRepository;
+        this.asyncPageRepository = asyncPageRepository;
         this.messagingTemplate = messagingTemplate;
         this.workspaceRepository = workspaceRepository;
+        this.asyncWorkspaceRepository = asyncWorkspaceRepository;
         this.subjectManager = subjectManager; // Assign subjectManager
+        this.writeBuffer = writeBuffer;
+        this.revisionService = revisionService;
+        this.permissionCache = permissionCache;
+        this.accessIndexService = accessIndexService;
 
     }
 
@@ -66,12 +98,15 @@ public class PageService {
             throw new IllegalStateException("Cannot create page without an authenticated owner.");
         }
         ContentPage page = new ContentPage(title, content, parentPageId, pageOwner);
+        page.setAncestorIds(resolveChildAncestorIds(parentPageId));
         String pageId = pageRepository.createPage(page);
         page.setPageId(pageId);
+        revisionService.recordSave(page);
         logger.info("Created Content Page: ID={}, Title='{}', Owner={}", pageId, title, pageOwner);
 
         if (workspaceId != null && !workspaceId.isEmpty()) {
             boolean addedToWorkspace = workspaceRepository.addRootPageToWorkspace(workspaceId, pageId);
+            RequestReadContext.invalidateWorkspaces();
             if (!addedToWorkspace) {
                 logger.warn("Failed to add page {} to workspace {}", pageId, workspaceId);
             } else {
@@ -84,6 +119,7 @@ public class PageService {
         if (parentPageId != null && !parentPageId.isEmpty()) {
             updateParentChildRelationship(parentPageId, pageId);
         }
+        accessIndexService.refreshSubtrees(List.of(pageId));
 
         return pageId;
     }
@@ -95,12 +131,15 @@ public class PageService {
             throw new IllegalStateException("Cannot create page without an authenticated owner.");
         }
         ContainerPage page = new ContainerPage(title, summary, parentPageId, pageOwner);
+        page.setAncestorIds(resolveChildAncestorIds(parentPageId));
         String pageId = pageRepository.createPage(page);
         page.setPageId(pageId);
+        revisionService.recordSave(page);
         logger.info("Created Container Page: ID={}, Title='{}', Owner={}", pageId, title, pageOwner);
 
         if (workspaceId != null && !workspaceId.isEmpty()) {
             boolean addedToWorkspace = workspaceRepository.addRootPageToWorkspace(workspaceId, pageId);
+            RequestReadContext.invalidateWorkspaces();
             if (!addedToWorkspace) {
                 logger.warn("Failed to add page {} to workspace {}", pageId, workspaceId);
             } else {
@@ -113,29 +152,47 @@ public class PageService {
         if (parentPageId != null && !parentPageId.isEmpty()) {
             updateParentChildRelationship(parentPageId, pageId);
         }
+        accessIndexService.refreshSubtrees(List.of(pageId));
 
         return pageId;
     }
 
     public String createPage(PageComponent page) throws ExecutionException, InterruptedException {
+        if (page.getAncestorIds() == null) {
+            page.setAncestorIds(resolveChildAncestorIds(page.getParentPageId()));
+        }
         String pageId = pageRepository.createPage(page);
+        revisionService.recordSave(page);
 
         String parentPageId = page.getParentPageId();
         if (parentPageId != null && !parentPageId.isEmpty()) {
             updateParentChildRelationship(parentPageId, pageId);
         }
+        accessIndexService.refreshSubtrees(List.of(pageId));
 
         return pageId;
     }
 
     private void updateParentChildRelationship(String parentPageId, String childPageId)
             throws ExecutionException, InterruptedException {
+        addChildPages(parentPageId, List.of(childPageId));
+    }
+
+    /**
+     * Appends child ids to a page with a single write, turning a content page into a container
+     * first. Ids the parent already lists are skipped.
+     *
+     * @return false if the parent does not exist or could not be updated.
+     */
+    boolean addChildPages(String parentPageId, List<String> childPageIds)
+            throws ExecutionException, InterruptedException {
 
+        writeBuffer.flush(parentPageId);
         PageComponent parentPage = pageRepository.getPage(parentPageId);
 
         if (parentPage == null) {
-            System.err.println("Warning: Parent page " + parentPageId + " not found when creating child " + childPageId);
-            return;
+            logger.warn("Parent page {} not found when adding {} child page(s).", parentPageId, childPageIds.size());
+            return false;
         }
 
         if (parentPage.isLeaf()) {
@@ -152,17 +209,20 @@ public class PageService {
             newContainerPage.setCreatedAt(parentPage.getCreatedAt());
             newContainerPage.setSharingInfo(parentPage.getSharingInfo());
             newContainerPage.setPublished(parentPage.isPublished());
+            newContainerPage.setVersion(parentPage.getVersion());
+            newContainerPage.setAncestorIds(parentPage.getAncestorIds());
 
             if (newContainerPage.getChildrenIds() == null) {
                 newContainerPage.setChildrenIds(new ArrayList<>());
             }
-            newContainerPage.getChildrenIds().add(childPageId);
+            newContainerPage.getChildrenIds().addAll(childPageIds);
 
             boolean updated = pageRepository.updatePage(newContainerPage);
             if (updated) {
                 PageSubject subject = subjectManager.getSubject(parentPageId); // Now compiles
                 subject.notifyObservers(newContainerPage);
             }
+            return updated;
         } else if (parentPage instanceof ContainerPage) {
             ContainerPage containerParent = (ContainerPage) parentPage;
 
@@ -170,8 +230,15 @@ public class PageService {
                 containerParent.setChildrenIds(new ArrayList<>());
             }
 
-            if (!containerParent.getChildrenIds().contains(childPageId)) {
-                containerParent.getChildrenIds().add(childPageId);
+            Set<String> existing = new HashSet<>(containerParent.getChildrenIds());
+            boolean added = false;
+            for (String childPageId : childPageIds) {
+                if (existing.add(childPageId)) {
+                    containerParent.getChildrenIds().add(childPageId);
+                    added = true;
+                }
+            }
+            if (added) {
                 containerParent.setLastUpdated(new Date());
 
                 boolean updated = pageRepository.updatePage(containerParent);
@@ -179,12 +246,14 @@ public class PageService {
                     PageSubject subject = subjectManager.getSubject(parentPageId); // Now compiles
                     subject.notifyObservers(containerParent);
                 }
+                return updated;
             }
         }
+        return true;
     }
 
     public PageComponent getPage(String pageId) throws ExecutionException, InterruptedException {
-        PageComponent page = pageRepository.getPage(pageId);
+        PageComponent page = readPage(pageId);
         if (page == null) {
             return null;
         }
@@ -202,13 +271,13 @@ public class PageService {
 
     public List<PageComponent> getPagesByIds(List<String> pageIds) throws ExecutionException, InterruptedException {
         logger.debug("Fetching pages by IDs: {}", pageIds);
-        List<PageComponent> pages = pageRepository.getPagesByIds(pageIds);
+        List<PageComponent> pages = writeBuffer.overlay(pageRepository.getPagesByIds(pageIds));
         logger.debug("Found {} pages for IDs: {}", pages.size(), pageIds);
         return pages;
     }
 
     public PageComponent getPageForEditing(String pageId) throws ExecutionException, InterruptedException {
-        PageComponent page = pageRepository.getPage(pageId);
+        PageComponent page = readPage(pageId);
         if (page == null) {
             return null;
         }
@@ -224,7 +293,22 @@ public class PageService {
         return page;
     }
 
-    private String getCurrentUserEmail() {
+    /**
+     * A page with its buffered edits, read at most once per request (see {@link RequestReadContext}).
+     */
+    private PageComponent readPage(String pageId) throws ExecutionException, InterruptedException {
+        return RequestReadContext.page(pageId, id -> writeBuffer.overlay(pageRepository.getPage(id)));
+    }
+
+    /**
+     * The existing pages among {@code pageIds} with their buffered edits, in no particular order;
+     * pages already read in this request are not fetched again.
+     */
+    private List<PageComponent> readPages(List<String> pageIds) throws ExecutionException, InterruptedException {
+        return RequestReadContext.pages(pageIds, ids -> writeBuffer.overlay(pageRepository.fetchPagesByIds(ids).getPages()));
+    }
+
+    String getCurrentUserEmail() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.isAuthenticated() &&
                 authentication.getPrincipal() != null &&
@@ -246,6 +330,159 @@ public class PageService {
             return false;
         }
 
+        if (grantsAccess(page, userEmail, requiredAccessLevel)) {
+            return true;
+        }
+
+        if (page.getParentPageId() != null && !page.getParentPageId().isEmpty()) {
+            logger.trace("Checking inherited access for page '{}' via its ancestors.", page.getPageId());
+            try {
+                PagePermissionCache.Entry inherited = inheritedAccess(page, userEmail);
+                if (inherited.allows(requiredAccessLevel)) {
+                    logger.trace("hasAccess check passed for page '{}': access inherited from ancestor '{}'.", page.getPageId(), inherited.getSourcePageId());
+                    return true;
+                }
+            } catch (Exception e) {
+                logger.error("Error checking ancestor page access for page '{}': {}", page.getPageId(), e.getMessage());
+                return false;
+            }
+        }
+
+        logger.trace("hasAccess check failed for page '{}': No applicable access rules matched for user '{}' requiring '{}'.", page.getPageId(), userEmail != null ? userEmail : "anonymous", requiredAccessLevel);
+        return false;
+    }
+
+    /**
+     * The best access any ancestor of a page grants the user, from the permission cache if possible.
+     */
+    private PagePermissionCache.Entry inheritedAccess(PageComponent page, String userEmail) throws ExecutionException, InterruptedException {
+        PagePermissionCache.Entry cached = cachedInheritedAccess(page, userEmail);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = permissionCache.stamp();
+        PagePermissionCache.Entry entry = resolveInheritedAccess(page, userEmail, loadAncestors(page));
+        permissionCache.put(userEmail, page.getPageId(), entry, stamp);
+        RequestReadContext.putInheritedAccess(userEmail, page.getPageId(), entry);
+        return entry;
+    }
+
+    /**
+     * Inherited access resolved earlier in this request, or else from the permission cache.
+     */
+    private PagePermissionCache.Entry cachedInheritedAccess(PageComponent page, String userEmail) {
+        PagePermissionCache.Entry entry = RequestReadContext.inheritedAccess(userEmail, page.getPageId());
+        if (entry == null) {
+            entry = permissionCache.get(userEmail, page);
+            if (entry != null) {
+                RequestReadContext.putInheritedAccess(userEmail, page.getPageId(), entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * The pages the user has {@code requiredAccessLevel} access to, in their original order.
+     * Access is resolved for all pages together: the distinct ancestors of every page that is
+     * not settled by its own grants or the permission cache are read with one batched fetch.
+     * Pages stored without an ancestor path are resolved parent by parent.
+     */
+    public List<PageComponent> filterAccessible(String userEmail, List<PageComponent> pages, String requiredAccessLevel)
+            throws ExecutionException, InterruptedException {
+        return filterAccessible(userEmail, pages, requiredAccessLevel, List.of());
+    }
+
+    /**
+     * @param knownPages pages already read that may be ancestors of the input, such as the parent
+     *                   of a child listing; they are not fetched again.
+     */
+    private List<PageComponent> filterAccessible(String userEmail, List<PageComponent> pages, String requiredAccessLevel,
+                                                 List<PageComponent> knownPages) throws ExecutionException, InterruptedException {
+        long stamp = permissionCache.stamp();
+        boolean[] accessible = new boolean[pages.size()];
+        List<Integer> unresolved = new ArrayList<>();
+        Map<String, PageComponent> pagesById = new HashMap<>();
+        for (PageComponent page : knownPages) {
+            pagesById.put(page.getPageId(), page);
+        }
+        for (PageComponent page : pages) {
+            pagesById.put(page.getPageId(), page);
+        }
+        Set<String> ancestorIdsToFetch = new LinkedHashSet<>();
+        for (int i = 0; i < pages.size(); i++) {
+            PageComponent page = pages.get(i);
+            if (grantsAccess(page, userEmail, requiredAccessLevel)) {
+                accessible[i] = true;
+                continue;
+            }
+            if (page.getParentPageId() == null || page.getParentPageId().isEmpty()) {
+                continue;
+            }
+            PagePermissionCache.Entry cached = cachedInheritedAccess(page, userEmail);
+            if (cached != null) {
+                accessible[i] = cached.allows(requiredAccessLevel);
+                continue;
+            }
+            unresolved.add(i);
+            if (page.hasAncestorPath() && page.getAncestorIds() != null) {
+                for (String ancestorId : page.getAncestorIds()) {
+                    if (!pagesById.containsKey(ancestorId)) {
+                        ancestorIdsToFetch.add(ancestorId);
+                    }
+                }
+            }
+        }
+        if (!ancestorIdsToFetch.isEmpty()) {
+            for (PageComponent ancestor : readPages(new ArrayList<>(ancestorIdsToFetch))) {
+                pagesById.put(ancestor.getPageId(), ancestor);
+            }
+        }
+        for (int i : unresolved) {
+            PageComponent page = pages.get(i);
+            List<PageComponent> ancestors = page.hasAncestorPath() ? ancestorsFrom(page, pagesById) : loadAncestors(page);
+            PagePermissionCache.Entry entry = resolveInheritedAccess(page, userEmail, ancestors);
+            permissionCache.put(userEmail, page.getPageId(), entry, stamp);
+            RequestReadContext.putInheritedAccess(userEmail, page.getPageId(), entry);
+            accessible[i] = entry.allows(requiredAccessLevel);
+        }
+
+        List<PageComponent> result = new ArrayList<>();
+        for (int i = 0; i < pages.size(); i++) {
+            if (accessible[i]) {
+                result.add(pages.get(i));
+            }
+        }
+        logger.debug("{} of {} pages accessible to '{}' for '{}' ({} resolved from {} fetched ancestors).", result.size(), pages.size(),
+                userEmail != null ? userEmail : "anonymous", requiredAccessLevel, unresolved.size(), ancestorIdsToFetch.size());
+        return result;
+    }
+
+    /**
+     * The walk up the chain stops at the first ancestor granting edit access.
+     */
+    private PagePermissionCache.Entry resolveInheritedAccess(PageComponent page, String userEmail, List<PageComponent> ancestors) {
+        PagePermissionCache.Level level = PagePermissionCache.Level.NONE;
+        String sourcePageId = null;
+        List<String> resolvedFrom = new ArrayList<>();
+        for (PageComponent ancestor : ancestors) {
+            resolvedFrom.add(ancestor.getPageId());
+            if (grantsAccess(ancestor, userEmail, "edit")) {
+                level = PagePermissionCache.Level.EDIT;
+                sourcePageId = ancestor.getPageId();
+                break;
+            }
+            if (level == PagePermissionCache.Level.NONE && grantsAccess(ancestor, userEmail, "view")) {
+                level = PagePermissionCache.Level.VIEW;
+                sourcePageId = ancestor.getPageId();
+            }
+        }
+        return new PagePermissionCache.Entry(level, sourcePageId, page.getParentPageId(), resolvedFrom);
+    }
+
+    /**
+     * Access granted by the page itself: ownership, publication (view only) or a direct share.
+     */
+    private boolean grantsAccess(PageComponent page, String userEmail, String requiredAccessLevel) {
         if (userEmail != null && userEmail.equals(page.getOwner())) {
             logger.trace("hasAccess check passed for page '{}': User '{}' is owner.", page.getPageId(), userEmail);
             return true;
@@ -268,24 +505,88 @@ public class PageService {
                 }
             }
         }
+        return false;
+    }
 
-        if (page.getParentPageId() != null && !page.getParentPageId().isEmpty()) {
-            logger.trace("Checking inherited access for page '{}' via parent '{}'.", page.getPageId(), page.getParentPageId());
-            try {
-                PageComponent parentPage = pageRepository.getPage(page.getParentPageId());
-                if (parentPage != null) {
-                    return hasAccess(parentPage, userEmail, requiredAccessLevel);
-                } else {
-                    logger.warn("Parent page '{}' not found during inherited access check for page '{}'.", page.getParentPageId(), page.getPageId());
-                }
-            } catch (Exception e) {
-                logger.error("Error checking parent page access for page '{}': {}", page.getPageId(), e.getMessage());
-                return false;
+    /**
+     * Loads the ancestors of a page, nearest first. Pages with a stored ancestor path need a single
+     * batched read; pages stored before the path was maintained are walked parent by parent.
+     * Stops at the first ancestor that no longer exists.
+     */
+    private List<PageComponent> loadAncestors(PageComponent page) throws ExecutionException, InterruptedException {
+        List<PageComponent> ancestors = new ArrayList<>();
+        if (page.hasAncestorPath()) {
+            List<String> ancestorIds = page.getAncestorIds();
+            if (ancestorIds == null || ancestorIds.isEmpty()) {
+                return ancestors;
+            }
+            Map<String, PageComponent> ancestorsById = new HashMap<>();
+            for (PageComponent ancestor : readPages(ancestorIds)) {
+                ancestorsById.put(ancestor.getPageId(), ancestor);
             }
+            return ancestorsFrom(page, ancestorsById);
         }
 
-        logger.trace("hasAccess check failed for page '{}': No applicable access rules matched for user '{}' requiring '{}'.", page.getPageId(), userEmail != null ? userEmail : "anonymous", requiredAccessLevel);
-        return false;
+        Set<String> visited = new HashSet<>();
+        String parentId = page.getParentPageId();
+        while (parentId != null && !parentId.isEmpty() && visited.add(parentId)) {
+            PageComponent parent = readPage(parentId);
+            if (parent == null) {
+                logger.warn("Parent page '{}' not found during inherited access check for page '{}'.", parentId, page.getPageId());
+                break;
+            }
+            ancestors.add(parent);
+            parentId = parent.getParentPageId();
+        }
+        return ancestors;
+    }
+
+    /**
+     * The ancestors of a page with a stored ancestor path, nearest first, taken from pages already
+     * read. Stops at the first ancestor that is not among them.
+     */
+    private List<PageComponent> ancestorsFrom(PageComponent page, Map<String, PageComponent> pagesById) {
+        List<PageComponent> ancestors = new ArrayList<>();
+        List<String> ancestorIds = page.getAncestorIds() != null ? page.getAncestorIds() : List.of();
+        for (int i = ancestorIds.size() - 1; i >= 0; i--) {
+            PageComponent ancestor = pagesById.get(ancestorIds.get(i));
+            if (ancestor == null) {
+                logger.warn("Ancestor page '{}' not found during inherited access check for page '{}'.", ancestorIds.get(i), page.getPageId());
+                break;
+            }
+            ancestors.add(ancestor);
+        }
+        return ancestors;
+    }
+
+    /**
+     * The ancestor path of a page, root first, computed from its parents if it is not stored.
+     */
+    List<String> ancestorPathOf(PageComponent page) throws ExecutionException, InterruptedException {
+        if (page.hasAncestorPath()) {
+            return page.getAncestorIds() != null ? new ArrayList<>(page.getAncestorIds()) : new ArrayList<>();
+        }
+        List<String> path = new ArrayList<>();
+        for (PageComponent ancestor : loadAncestors(page)) {
+            path.add(0, ancestor.getPageId());
+        }
+        return path;
+    }
+
+    /**
+     * The ancestor path for a new child of {@code parentPageId}, or null if the parent does not exist.
+     */
+    private List<String> resolveChildAncestorIds(String parentPageId) throws ExecutionException, InterruptedException {
+        if (parentPageId == null || parentPageId.isEmpty()) {
+            return new ArrayList<>();
+        }
+        PageComponent parent = pageRepository.getPage(parentPageId);
+        if (parent == null) {
+            return null;
+        }
+        List<String> path = ancestorPathOf(parent);
+        path.add(parentPageId);
+        return path;
     }
 
     public List<PageComponent> getAllPages() throws ExecutionException, InterruptedException {
@@ -299,26 +600,132 @@ public class PageService {
         }
 
         ContainerPage containerParent = (ContainerPage) parent;
-        List<String> childIds = containerParent.getChildrenIds();
-        List<PageComponent> children = new ArrayList<>();
-
-        for (String childId : childIds) {
-            PageComponent child = pageRepository.getPage(childId);
-            if (child != null) {
-                children.add(child);
-            }
+        PageBatchResult result = pageRepository.fetchPagesByIds(containerParent.getChildrenIds());
+        if (result.hasMissing()) {
+            logger.warn("Container {} lists child pages {} that no longer exist.", parentPageId, result.getMissingIds());
         }
+        List<PageComponent> children = filterAccessible(getCurrentUserEmail(), writeBuffer.overlay(result.getPages()), "view",
+                List.of(containerParent));
 
         containerParent.setLoadedChildren(children);
 
         return children;
     }
 
+    /**
+     * Summaries of the children of a page the current user may view, without their content.
+     */
+    public List<PageSummary> getChildPageSummaries(String parentPageId) throws ExecutionException, InterruptedException {
+        PageComponent parent = getPage(parentPageId);
+        if (parent == null || parent.isLeaf()) {
+            return new ArrayList<>();
+        }
+        return writeBuffer.overlaySummaries(pageRepository.getChildPageSummaries(parentPageId));
+    }
+
+    /**
+     * One slice of all pages, ordered by page id.
+     */
+    public PageSlice listPages(String cursor, Integer limit) throws ExecutionException, InterruptedException {
+        return overlay(pageRepository.listPages(cursor, clampLimit(limit)));
+    }
+
+    /**
+     * Iterates over all pages, loading them one slice at a time.
+     */
+    public Iterator<PageComponent> streamAllPages() {
+        return new PageCursorIterator((cursor, limit) -> overlay(pageRepository.listPages(cursor, limit)), STREAM_BATCH_SIZE);
+    }
+
+    /**
+     * One slice of the children of a page the current user may view.
+     */
+    public PageSlice getChildPages(String parentPageId, String cursor, Integer limit) throws ExecutionException, InterruptedException {
+        PageComponent parent = getPage(parentPageId);
+        if (parent == null || parent.isLeaf()) {
+            return PageSlice.empty();
+        }
+        PageSlice slice = overlay(pageRepository.getChildPages(parentPageId, cursor, clampLimit(limit)));
+        return new PageSlice(filterAccessible(getCurrentUserEmail(), slice.getPages(), "view", List.of(parent)), slice.getNextCursor());
+    }
+
+    public PageSlice getPagesOwnedByUser(String userEmail, String cursor, Integer limit) throws ExecutionException, InterruptedException {
+        return overlay(pageRepository.findPagesByOwner(userEmail, cursor, clampLimit(limit)));
+    }
+
+    /**
+     * One slice of the pages of a workspace the current user belongs to.
+     */
+    public PageSlice getWorkspacePages(String workspaceId, String cursor, Integer limit) throws ExecutionException, InterruptedException {
+        Workspace workspace = RequestReadContext.workspace(workspaceId, workspaceRepository::getWorkspaceById);
+        if (workspace == null) {
+            return PageSlice.empty();
+        }
+        checkWorkspaceMember(workspace);
+        return overlay(pageRepository.findPagesByWorkspaceIds(List.of(workspaceId), cursor, clampLimit(limit)));
+    }
+
+    /**
+     * Every page the current user may view in the trees below the root pages of a workspace they
+     * belong to, each page before its children. Pages are read {@value #STREAM_BATCH_SIZE} at a time as the
+     * iterator advances, with unsaved buffered edits applied.
+     *
+     * @return null if the workspace does not exist.
+     */
+    public Iterator<PageComponent> streamWorkspacePageTree(String workspaceId) throws ExecutionException, InterruptedException {
+        Workspace workspace = RequestReadContext.workspace(workspaceId, workspaceRepository::getWorkspaceById);
+        if (workspace == null) {
+            return null;
+        }
+        checkWorkspaceMember(workspace);
+        // Resolved now: the iterator is consumed outside the request's security context.
+        String currentUserEmail = getCurrentUserEmail();
+        List<String> rootPageIds = workspace.getRootPageIds() != null ? workspace.getRootPageIds() : List.of();
+        return new PageTreeIterator(rootPageIds,
+                pageIds -> writeBuffer.overlay(pageRepository.fetchPagesByIds(pageIds).getPages()),
+                pages -> filterAccessible(currentUserEmail, pages, "view"), STREAM_BATCH_SIZE);
+    }
+
+    private void checkWorkspaceMember(Workspace workspace) {
+        String currentUserEmail = getCurrentUserEmail();
+        boolean member = currentUserEmail != null
+                && (currentUserEmail.equals(workspace.getOwner()) || workspace.getMembers().contains(currentUserEmail));
+        if (!member) {
+            throw new AccessDeniedException("User " + (currentUserEmail != null ? currentUserEmail : "anonymous") + " is not a member of workspace " + workspace.getId());
+        }
+    }
+
+    private PageSlice overlay(PageSlice slice) {
+        return new PageSlice(writeBuffer.overlay(slice.getPages()), slice.getNextCursor());
+    }
+
+    private static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        return Math.min(limit, MAX_PAGE_LIMIT);
+    }
+
     public boolean updatePage(String pageId, String newTitle, String newContent) throws ExecutionException, InterruptedException {
+        return updatePage(pageId, newTitle, newContent, null) != null;
+    }
+
+    /**
+     * Applies a title/content edit. When {@code expectedVersion} is given, the edit is rejected with
+     * {@link PageVersionConflictException} if the page has moved on since the client loaded that version.
+     * With the write buffer enabled the edit is staged and broadcast immediately and written on the next flush.
+     *
+     * @return the page as saved (carrying its new version), or null if the page does not exist or the write failed.
+     */
+    public PageComponent updatePage(String pageId, String newTitle, String newContent, Long expectedVersion) throws ExecutionException, InterruptedException {
         PageComponent page = getPageForEditing(pageId);
         if (page == null) {
             logger.warn("Attempted to update non-existent or inaccessible page: {}", pageId);
-            return false;
+            return null;
+        }
+        if (expectedVersion != null && expectedVersion != page.getVersion()) {
+            logger.info("Update to page {} based on version {} rejected, current version is {}.", pageId, expectedVersion, page.getVersion());
+            throw new PageVersionConflictException(pageId, page.getVersion());
         }
 
         boolean changed = false;
@@ -345,22 +752,91 @@ public class PageService {
         }
 
         if (changed) {
+            RequestReadContext.invalidatePages(List.of(pageId));
+        }
+        if (changed && writeBuffer.isEnabled()) {
             page.setLastUpdated(new Date());
-            boolean success = pageRepository.updatePage(page);
-            if (success) {
-                logger.info("Successfully updated page {}", pageId);
-                PageSubject subject = subjectManager.getSubject(pageId); // Now compiles
-                subject.notifyObservers(page);
-            } else {
-                logger.error("Repository failed to update page {}", pageId);
+            if (!writeBuffer.stage(page, page.getVersion(), expectedVersion != null)) {
+                PageComponent pending = writeBuffer.getPending(pageId);
+                long currentVersion = pending != null ? pending.getVersion() : page.getVersion();
+                logger.info("Update to page {} based on version {} rejected, pending version is {}.", pageId, expectedVersion, currentVersion);
+                throw new PageVersionConflictException(pageId, currentVersion);
+            }
+            logger.debug("Staged update to page {} as version {}", pageId, page.getVersion());
+            PageSubject subject = subjectManager.getSubject(pageId);
+            subject.notifyObservers(page);
+            return page;
+        } else if (changed) {
+            page.setLastUpdated(new Date());
+            PageUpdateResult result = pageRepository.updatePageVersioned(page);
+            switch (result.getStatus()) {
+                case UPDATED:
+                    logger.info("Successfully updated page {} to version {}", pageId, result.getCurrentVersion());
+                    revisionService.recordSave(page);
+                    PageSubject subject = subjectManager.getSubject(pageId); // Now compiles
+                    subject.notifyObservers(page);
+                    return page;
+                case CONFLICT:
+                    throw new PageVersionConflictException(pageId, result.getCurrentVersion());
+                default:
+                    logger.error("Repository failed to update page {}", pageId);
+                    return null;
             }
-            return success;
         } else {
             logger.info("No changes detected for page {}, skipping update.", pageId);
-            return true;
+            return page;
         }
     }
 
+    /**
+     * The buffered edit of a page that could not be written because the page was saved elsewhere
+     * in the meantime, for a user who can edit the page. It is replaced by the next save.
+     *
+     * @return null if the page does not exist or has no such edit.
+     */
+    public PageComponent getConflictedEdit(String pageId) throws ExecutionException, InterruptedException {
+        if (getPageForEditing(pageId) == null) {
+            return null;
+        }
+        return writeBuffer.getConflicted(pageId);
+    }
+
+    /**
+     * Revision history of a page the current user can view, newest first, without content.
+     *
+     * @return null if the page does not exist.
+     */
+    public List<PageRevision> getPageRevisions(String pageId, Long beforeRevision, Integer limit) throws ExecutionException, InterruptedException {
+        if (getPage(pageId) == null) {
+            return null;
+        }
+        return revisionService.listRevisions(pageId, beforeRevision, limit);
+    }
+
+    /**
+     * One revision of a page the current user can view, with its content.
+     *
+     * @return null if the page or the revision does not exist.
+     */
+    public PageRevision getPageRevision(String pageId, long revision) throws ExecutionException, InterruptedException {
+        if (getPage(pageId) == null) {
+            return null;
+        }
+        return revisionService.getRevision(pageId, revision);
+    }
+
+    /**
+     * A page the current user can view as it was at {@code at}, with its content.
+     *
+     * @return null if the page does not exist or had no revision yet at that time.
+     */
+    public PageRevision getPageRevisionAt(String pageId, Date at) throws ExecutionException, InterruptedException {
+        if (getPage(pageId) == null) {
+            return null;
+        }
+        return revisionService.getRevisionAt(pageId, at);
+    }
+
     public List<String> deletePage(String pageId) throws ExecutionException, InterruptedException {
         PageComponent pageToDelete;
         try {
@@ -378,72 +854,60 @@ public class PageService {
             return Collections.emptyList();
         }
 
-        List<String> deletedIds = new ArrayList<>();
-        return deletePageRecursive(pageToDelete, deletedIds);
-    }
-
-    private List<String> deletePageRecursive(PageComponent pageToDelete, List<String> deletedIds) throws ExecutionException, InterruptedException {
-        String pageId = pageToDelete.getPageId();
-        String parentId = pageToDelete.getParentPageId();
-
-        if (!pageToDelete.isLeaf() && pageToDelete instanceof ContainerPage) {
-            ContainerPage containerPage = (ContainerPage) pageToDelete;
-            List<String> childIds = containerPage.getChildrenIds();
-            if (childIds != null && !childIds.isEmpty()) {
-                List<String> childIdsCopy = new ArrayList<>(childIds);
-                for (String childId : childIdsCopy) {
-                    try {
-                        PageComponent childPage = pageRepository.getPage(childId);
-                        if (childPage != null) {
-                            deletePageRecursive(childPage, deletedIds);
-                        } else {
-                             logger.warn("Child page {} not found during recursive delete of parent {}.", childId, pageId);
-                        }
-                    } catch (AccessDeniedException e) {
-                        logger.warn("Access denied while trying to recursively delete child page {}. Skipping deletion of this child.", childId);
-                    } catch (Exception e) {
-                        logger.error("Error recursively deleting child page {}: {}", childId, e.getMessage());
-                    }
-                }
-            }
-        }
+        return deleteSubtrees(List.of(pageToDelete));
+    }
 
-        if (parentId != null && !parentId.isEmpty()) {
-            try {
-                PageComponent parentPage = pageRepository.getPage(parentId);
-                if (parentPage != null && !parentPage.isLeaf() && parentPage instanceof ContainerPage) {
-                    ContainerPage containerParent = (ContainerPage) parentPage;
-                    boolean removed = containerParent.getChildrenIds().remove(pageId);
-                    if (removed) {
-                        pageRepository.updatePage(containerParent);
-                        logger.debug("Removed child {} from parent {}", pageId, parentId);
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("Error updating parent page {} after deleting child {}: {}", parentId, pageId, e.getMessage());
+    /**
+     * Deletes several pages and their subtrees in one pass. Pages the current user cannot edit
+     * are skipped.
+     *
+     * @return the ids of all deleted pages, including descendants.
+     */
+    public List<String> deletePages(List<String> pageIds) throws ExecutionException, InterruptedException {
+        String currentUserEmail = getCurrentUserEmail();
+        List<PageComponent> deletable = new ArrayList<>();
+        for (PageComponent page : pageRepository.fetchPagesByIds(pageIds).getPages()) {
+            if (hasAccess(page, currentUserEmail, "edit")) {
+                deletable.add(page);
+            } else {
+                logger.warn("Access denied for deleting page {} by user {}, skipping it.", page.getPageId(), currentUserEmail);
             }
         }
+        return deletable.isEmpty() ? Collections.<String>emptyList() : deleteSubtrees(deletable);
+    }
 
-        boolean deleted = pageRepository.deletePage(pageId);
-
-        if (deleted) {
-            logger.info("Successfully deleted page: ID={}, Title='{}'", pageId, pageToDelete.getTitle());
-            deletedIds.add(pageId);
-
-            if (parentId != null && !parentId.isEmpty()) {
-                String destination = "/topic/pages/" + parentId + "/children/deleted";
-                logger.info("Sending WebSocket message to {}: {}", destination, pageId);
-                messagingTemplate.convertAndSend(destination, pageId);
-            }
-
-            PageSubject subject = subjectManager.getSubject(pageId); // Now compiles
-            subjectManager.removeSubjectIfUnused(pageId); // Clean up the subject manager
-
-        } else {
-             logger.error("Repository failed to delete page {}", pageId);
+    private List<String> deleteSubtrees(List<PageComponent> roots) throws ExecutionException, InterruptedException {
+        List<String> rootIds = new ArrayList<>();
+        for (PageComponent root : roots) {
+            rootIds.add(root.getPageId());
+            // The parent's child list is rewritten by the repository, so buffered edits go first.
+            writeBuffer.flush(root.getParentPageId());
         }
+        PageDeletionResult result = pageRepository.deletePages(rootIds);
+        handleDeletedPages(result);
+        return result.getDeletedIds();
+    }
 
-        return deletedIds;
+    /**
+     * Cleans up after a subtree delete: drops buffered edits, observer subjects and revision history
+     * of the deleted pages and sends each surviving parent one message listing all of its removed children.
+     */
+    public void handleDeletedPages(PageDeletionResult result) {
+        for (String deletedId : result.getDeletedIds()) {
+            writeBuffer.discard(deletedId);
+            subjectManager.removeSubjectIfUnused(deletedId);
+        }
+        revisionService.deleteRevisions(result.getDeletedIds());
+        permissionCache.invalidate(result.getDeletedIds());
+        RequestReadContext.invalidatePages(result.getDeletedIds());
+        RequestReadContext.invalidatePages(result.getRemovedChildrenByParent().keySet());
+        accessIndexService.removePages(result.getDeletedIds());
+        for (Map.Entry<String, List<String>> entry : result.getRemovedChildrenByParent().entrySet()) {
+            String destination = "/topic/pages/" + entry.getKey() + "/children/deleted";
+            logger.info("Sending WebSocket message to {}: {}", destination, entry.getValue());
+            messagingTemplate.convertAndSend(destination, entry.getValue());
+        }
+        logger.info("Deleted {} pages, notified {} parent pages.", result.getDeletedIds().size(), result.getRemovedChildrenByParent().size());
     }
 
     public boolean hasChildren(String pageId) throws ExecutionException, InterruptedException {
@@ -452,6 +916,7 @@ public class PageService {
     }
 
     public boolean convertToContainerPage(String pageId) throws ExecutionException, InterruptedException {
+        writeBuffer.flush(pageId);
         PageComponent page = getPage(pageId);
 
         if (page == null || !page.isLeaf()) {
@@ -467,8 +932,119 @@ public class PageService {
                 contentPage.getOwner()
         );
         containerPage.setPageId(pageId);
+        containerPage.setVersion(contentPage.getVersion());
+        containerPage.setAncestorIds(contentPage.getAncestorIds());
+
+        // The container is written without the page's shares and publication.
+        permissionCache.invalidate(List.of(pageId));
+        RequestReadContext.invalidatePages(List.of(pageId));
+        boolean updated = pageRepository.updatePage(containerPage);
+        if (updated) {
+            accessIndexService.refreshSubtrees(List.of(pageId));
+        }
+        return updated;
+    }
 
-        return pageRepository.updatePage(containerPage);
+    /**
+     * Moves a page, with its subtree, under another page. Requires edit access to the page and to
+     * the new parent. The ancestor paths of all descendants are rewritten in one batch.
+     *
+     * @return the moved page, or null if the page or the new parent does not exist.
+     * @throws IllegalArgumentException if the move would create a cycle or the page is a workspace root page.
+     */
+    public PageComponent movePage(String pageId, String newParentId) throws ExecutionException, InterruptedException {
+        if (newParentId == null || newParentId.isEmpty()) {
+            throw new IllegalArgumentException("A target parent page is required.");
+        }
+        if (newParentId.equals(pageId)) {
+            throw new IllegalArgumentException("A page cannot be moved under itself.");
+        }
+        writeBuffer.flush(pageId);
+        PageComponent page = getPageForEditing(pageId);
+        if (page == null) {
+            return null;
+        }
+        String oldParentId = page.getParentPageId();
+        if (oldParentId == null || oldParentId.isEmpty()) {
+            throw new IllegalArgumentException("Root pages belong to a workspace and cannot be moved under another page.");
+        }
+        if (newParentId.equals(oldParentId)) {
+            return page;
+        }
+        writeBuffer.flush(newParentId);
+        PageComponent newParent = getPageForEditing(newParentId);
+        if (newParent == null) {
+            return null;
+        }
+        List<String> newAncestorIds = ancestorPathOf(newParent);
+        newAncestorIds.add(newParentId);
+        if (newAncestorIds.contains(pageId)) {
+            throw new IllegalArgumentException("A page cannot be moved under one of its own descendants.");
+        }
+
+        writeBuffer.flush(oldParentId);
+        PageComponent oldParent = pageRepository.getPage(oldParentId);
+        if (oldParent instanceof ContainerPage && ((ContainerPage) oldParent).getChildrenIds().remove(pageId)) {
+            oldParent.setLastUpdated(new Date());
+            if (pageRepository.updatePage(oldParent)) {
+                messagingTemplate.convertAndSend("/topic/pages/" + oldParentId + "/children/deleted", List.of(pageId));
+                subjectManager.getSubject(oldParentId).notifyObservers(oldParent);
+            }
+        }
+        updateParentChildRelationship(newParentId, pageId);
+
+        page.setParentPageId(newParentId);
+        page.setAncestorIds(newAncestorIds);
+        page.setLastUpdated(new Date());
+        RequestReadContext.invalidatePages(List.of(pageId, oldParentId, newParentId));
+        if (!pageRepository.updatePage(page)) {
+            logger.error("Repository failed to move page {} under {}", pageId, newParentId);
+            return null;
+        }
+        // Descendants resolved through the moved page inherited from its old ancestors.
+        permissionCache.invalidate(List.of(pageId));
+        int descendants = rewriteDescendantAncestorIds(page);
+        accessIndexService.refreshSubtrees(List.of(pageId));
+        logger.info("Moved page {} from {} to {} ({} descendants re-pathed).", pageId, oldParentId, newParentId, descendants);
+        subjectManager.getSubject(pageId).notifyObservers(page);
+        return page;
+    }
+
+    /**
+     * Recomputes the ancestor paths below {@code page} level by level and writes them in one batch.
+     *
+     * @return the number of descendants updated.
+     */
+    private int rewriteDescendantAncestorIds(PageComponent page) throws ExecutionException, InterruptedException {
+        Map<String, List<String>> ancestorIdsByPageId = new LinkedHashMap<>();
+        List<PageComponent> level = List.of(page);
+        while (!level.isEmpty()) {
+            List<String> childIds = new ArrayList<>();
+            for (PageComponent parent : level) {
+                if (!(parent instanceof ContainerPage)) {
+                    continue;
+                }
+                List<String> childPath = new ArrayList<>(parent == page ? page.getAncestorIds() : ancestorIdsByPageId.get(parent.getPageId()));
+                childPath.add(parent.getPageId());
+                for (String childId : ((ContainerPage) parent).getChildrenIds()) {
+                    if (!childId.equals(page.getPageId()) && !ancestorIdsByPageId.containsKey(childId)) {
+                        ancestorIdsByPageId.put(childId, childPath);
+                        childIds.add(childId);
+                    }
+                }
+            }
+            // Buffered edits carry the old path, so they are written before the paths change.
+            childIds.forEach(writeBuffer::flush);
+            if (childIds.isEmpty()) {
+                break;
+            }
+            PageBatchResult children = pageRepository.fetchPagesByIds(childIds);
+            children.getMissingIds().forEach(ancestorIdsByPageId::remove);
+            level = children.getPages();
+        }
+        pageRepository.updateAncestorIds(ancestorIdsByPageId);
+        RequestReadContext.invalidatePages(ancestorIdsByPageId.keySet());
+        return ancestorIdsByPageId.size();
     }
 
     public boolean sharePage(String pageId, String userEmailToShareWith, String accessLevel) throws ExecutionException, InterruptedException {
@@ -476,6 +1052,7 @@ public class PageService {
             throw new IllegalArgumentException("Invalid access level. Must be 'view' or 'edit'.");
         }
 
+        writeBuffer.flush(pageId);
         PageComponent page = getPageForEditing(pageId);
         if (page == null) {
             return false;
@@ -486,6 +1063,9 @@ public class PageService {
         boolean success = pageRepository.updatePage(page);
         if (success) {
             logger.info("Page {} shared with {} ({} access).", pageId, userEmailToShareWith, accessLevel);
+            permissionCache.invalidate(List.of(pageId));
+            RequestReadContext.invalidatePages(List.of(pageId));
+            accessIndexService.refreshSubtrees(List.of(pageId), userEmailToShareWith);
             PageSubject subject = subjectManager.getSubject(pageId); // Now compiles
             subject.notifyObservers(page);
         }
@@ -493,6 +1073,7 @@ public class PageService {
     }
 
     public boolean unsharePage(String pageId, String userEmailToUnshare) throws ExecutionException, InterruptedException {
+        writeBuffer.flush(pageId);
         PageComponent page = getPageForEditing(pageId);
         if (page == null) {
             return false;
@@ -503,6 +1084,9 @@ public class PageService {
         boolean success = pageRepository.updatePage(page);
         if (success) {
             logger.info("Sharing removed for user {} from page {}.", userEmailToUnshare, pageId);
+            permissionCache.invalidate(List.of(pageId));
+            RequestReadContext.invalidatePages(List.of(pageId));
+            accessIndexService.refreshSubtrees(List.of(pageId), userEmailToUnshare);
             PageSubject subject = subjectManager.getSubject(pageId); // Now compiles
             subject.notifyObservers(page);
         }
@@ -510,6 +1094,7 @@ public class PageService {
     }
 
     public boolean publishPage(String pageId) throws ExecutionException, InterruptedException {
+        writeBuffer.flush(pageId);
         PageComponent page = getPageForEditing(pageId);
         if (page == null) {
             return false;
@@ -520,6 +1105,8 @@ public class PageService {
         boolean success = pageRepository.updatePage(page);
         if (success) {
             logger.info("Page {} published successfully.", pageId);
+            permissionCache.invalidate(List.of(pageId));
+            RequestReadContext.invalidatePages(List.of(pageId));
             PageSubject subject = subjectManager.getSubject(pageId); // Now compiles
             subject.notifyObservers(page);
         }
@@ -527,6 +1114,7 @@ public class PageService {
     }
 
     public boolean unpublishPage(String pageId) throws ExecutionException, InterruptedException {
+        writeBuffer.flush(pageId);
         PageComponent page = getPageForEditing(pageId);
         if (page == null) {
             return false;
@@ -537,6 +1125,8 @@ public class PageService {
         boolean success = pageRepository.updatePage(page);
         if (success) {
             logger.info("Page {} unpublished successfully.", pageId);
+            permissionCache.invalidate(List.of(pageId));
+            RequestReadContext.invalidatePages(List.of(pageId));
             PageSubject subject = subjectManager.getSubject(pageId); // Now compiles
             subject.notifyObservers(page);
         }
@@ -544,7 +1134,7 @@ public class PageService {
     }
 
     public PageComponent getExpandedPageWithSubpages(String pageId) throws ExecutionException, InterruptedException {
-        PageComponent page = pageRepository.getPage(pageId);
+        PageComponent page = readPage(pageId);
         
         // Check permissions first
         String currentUserEmail = getCurrentUserEmail();
@@ -568,7 +1158,7 @@ public class PageService {
         if (children != null) {
             for (int i = 0; i < children.size(); i++) {
                 PageComponent child = children.get(i);
-                PageComponent fullChild = pageRepository.getPage(child.getPageId());
+                PageComponent fullChild = readPage(child.getPageId());
 
                 if (fullChild instanceof ContainerPage) {
                     fetchSubPagesRecursively((ContainerPage) fullChild);
@@ -603,6 +1193,16 @@ public class PageService {
         return pageRepository.findPagesSharedWithUser(userEmail);
     }
 
+    public CompletableFuture<List<PageComponent>> getSharedPagesForUserAsync(String userEmail) {
+        logger.debug("Service: Getting pages shared directly with user {}", userEmail);
+        return asyncPageRepository.findPagesSharedWithUserAsync(userEmail);
+    }
+
+    public CompletableFuture<List<PageSummary>> getSharedPageSummariesForUserAsync(String userEmail) {
+        logger.debug("Service: Getting summaries of pages shared directly with user {}", userEmail);
+        return asyncPageRepository.findPageSummariesSharedWithUserAsync(userEmail).thenApply(writeBuffer::overlaySummaries);
+    }
+
     /**
      * Retrieves root pages (no parent) that are accessible by the specified user.
      * Accessible means the user owns the page OR it's shared with them (and they are not the owner).
@@ -616,13 +1216,17 @@ public class PageService {
         logger.debug("Service: Getting root pages accessible by user {}", userEmail);
         Set<PageComponent> accessiblePages = new HashSet<>();
 
+        // Owned and shared pages are independent queries, so issue both before waiting on either
+        CompletableFuture<List<PageComponent>> ownedLookup = asyncPageRepository.findPagesByOwnerAsync(userEmail);
+        CompletableFuture<List<PageComponent>> sharedLookup = asyncPageRepository.findPagesSharedWithUserAsync(userEmail);
+
         // Get pages owned by the user
-        List<PageComponent> ownedPages = pageRepository.findPagesByOwner(userEmail); // Use repository method
+        List<PageComponent> ownedPages = ownedLookup.get();
         accessiblePages.addAll(ownedPages);
         logger.debug("Found {} pages owned by user {}", ownedPages.size(), userEmail);
 
         // Get pages shared with the user (excluding owned ones, handled by repository method)
-        List<PageComponent> sharedPages = pageRepository.findPagesSharedWithUser(userEmail); // Use repository method
+        List<PageComponent> sharedPages = sharedLookup.get();
         accessiblePages.addAll(sharedPages);
         logger.debug("Found {} pages shared with user {}", sharedPages.size(), userEmail);
 
@@ -646,36 +1250,102 @@ public class PageService {
      * @throws InterruptedException If the data fetching thread is interrupted.
      */
     public List<PageComponent> getAllAccessiblePagesForUser(String userId) throws ExecutionException, InterruptedException {
+        return getAllAccessiblePagesForUserAsync(userId, RequestReadContext.workspacesForMember(userId,
+                () -> asyncWorkspaceRepository.findWorkspacesByUserEmailAsync(userId))).get();
+    }
+
+    /**
+     * Non-blocking variant of {@link #getAllAccessiblePagesForUser(String)}. The owned-pages query runs
+     * concurrently with the workspace lookup; only the workspace-pages query waits for the workspaces.
+     * Callers that already load the user's workspaces pass that lookup in so it is not issued twice.
+     * With the access index enabled, the pages are instead read from the user's index entries, which
+     * also cover shared and inherited access; the workspace lookup is then not needed.
+     *
+     * @param userId The email/ID of the user.
+     * @param userWorkspaces Lookup of the workspaces the user is a member of.
+     * @return A future completing with all accessible pages, one entry per page ID.
+     */
+    public CompletableFuture<List<PageComponent>> getAllAccessiblePagesForUserAsync(String userId, CompletableFuture<List<Workspace>> userWorkspaces) {
         logger.debug("Service: Getting all accessible pages for user {}", userId);
-        Set<PageComponent> accessiblePages = new HashSet<>();
+        if (accessIndexService.isEnabled()) {
+            return accessIndexService.findAccessiblePageIdsAsync(userId)
+                    .thenCompose(asyncPageRepository::fetchPagesByIdsAsync)
+                    .thenApply(result -> writeBuffer.overlay(result.getPages()));
+        }
 
         // 1. Get pages owned by the user
-        List<PageComponent> ownedPages = pageRepository.findPagesByOwner(userId);
-        accessiblePages.addAll(ownedPages);
-        logger.debug("Found {} pages owned by user {}", ownedPages.size(), userId);
-
-        // 2. Get workspaces the user is a member of
-        List<Workspace> userWorkspaces = workspaceRepository.findWorkspacesByUserEmail(userId);
-        List<String> userWorkspaceIds = userWorkspaces.stream()
-                                                    .map(Workspace::getId)
-                                                    .collect(Collectors.toList());
-        logger.debug("User {} is a member of {} workspaces: {}", userId, userWorkspaceIds.size(), userWorkspaceIds);
-
-        // 3. Get pages belonging to those workspaces (if any)
-        if (!userWorkspaceIds.isEmpty()) {
-            // Assuming PageRepository has a method like findPagesByWorkspaceIds
-            // If not, this method needs to be added to PageRepository
-            List<PageComponent> workspacePages = pageRepository.findPagesByWorkspaceIds(userWorkspaceIds);
-            accessiblePages.addAll(workspacePages);
+        CompletableFuture<List<PageComponent>> ownedLookup = asyncPageRepository.findPagesByOwnerAsync(userId);
+
+        // 2. Get workspaces the user is a member of, then 3. the pages belonging to them (if any)
+        CompletableFuture<List<PageComponent>> workspacePagesLookup = userWorkspaces.thenCompose(workspaces -> {
+            List<String> userWorkspaceIds = workspaces.stream()
+                                                      .map(Workspace::getId)
+                                                      .collect(Collectors.toList());
+            logger.debug("User {} is a member of {} workspaces: {}", userId, userWorkspaceIds.size(), userWorkspaceIds);
+            if (userWorkspaceIds.isEmpty()) {
+                logger.debug("User {} is not part of any workspaces, skipping workspace page fetch.", userId);
+                return CompletableFuture.completedFuture(Collections.<PageComponent>emptyList());
+            }
+            return asyncPageRepository.findPagesByWorkspaceIdsAsync(userWorkspaceIds);
+        });
+
+        // 4. Combine, keeping one entry per page ID
+        return ownedLookup.thenCombine(workspacePagesLookup, (ownedPages, workspacePages) -> {
+            logger.debug("Found {} pages owned by user {}", ownedPages.size(), userId);
             logger.debug("Found {} pages belonging to user's workspaces", workspacePages.size());
-        } else {
-            logger.debug("User {} is not part of any workspaces, skipping workspace page fetch.", userId);
-        }
+            Map<String, PageComponent> accessiblePages = new LinkedHashMap<>();
+            for (PageComponent page : ownedPages) {
+                accessiblePages.putIfAbsent(page.getPageId(), page);
+            }
+            for (PageComponent page : workspacePages) {
+                accessiblePages.putIfAbsent(page.getPageId(), page);
+            }
+            List<PageComponent> resultList = new ArrayList<>(accessiblePages.values());
+            logger.info("Found {} total unique accessible pages for user {}", resultList.size(), userId);
+            return resultList;
+        });
+    }
+
+    public List<PageSummary> getAllAccessiblePageSummariesForUser(String userId) throws ExecutionException, InterruptedException {
+        return getAllAccessiblePageSummariesForUserAsync(userId, RequestReadContext.workspacesForMember(userId,
+                () -> asyncWorkspaceRepository.findWorkspacesByUserEmailAsync(userId))).get();
+    }
 
-        // 4. Combine and return (HashSet already handles duplicates)
-        List<PageComponent> resultList = new ArrayList<>(accessiblePages);
-        logger.info("Found {} total unique accessible pages for user {}", resultList.size(), userId);
-        return resultList;
+    /**
+     * Same pages as {@link #getAllAccessiblePagesForUserAsync(String, CompletableFuture)}, read as
+     * summaries so navigation trees never download page content.
+     */
+    public CompletableFuture<List<PageSummary>> getAllAccessiblePageSummariesForUserAsync(String userId, CompletableFuture<List<Workspace>> userWorkspaces) {
+        logger.debug("Service: Getting summaries of all accessible pages for user {}", userId);
+        if (accessIndexService.isEnabled()) {
+            return accessIndexService.findAccessiblePageIdsAsync(userId)
+                    .thenCompose(asyncPageRepository::findPageSummariesByIdsAsync)
+                    .thenApply(summaries -> {
+                        logger.info("Found {} accessible page summaries for user {} in the access index", summaries.size(), userId);
+                        return writeBuffer.overlaySummaries(summaries);
+                    });
+        }
+        CompletableFuture<List<PageSummary>> ownedLookup = asyncPageRepository.findPageSummariesByOwnerAsync(userId);
+        CompletableFuture<List<PageSummary>> workspacePagesLookup = userWorkspaces.thenCompose(workspaces -> {
+            List<String> userWorkspaceIds = workspaces.stream()
+                                                      .map(Workspace::getId)
+                                                      .collect(Collectors.toList());
+            if (userWorkspaceIds.isEmpty()) {
+                return CompletableFuture.completedFuture(Collections.<PageSummary>emptyList());
+            }
+            return asyncPageRepository.findPageSummariesByWorkspaceIdsAsync(userWorkspaceIds);
+        });
+        return ownedLookup.thenCombine(workspacePagesLookup, (ownedPages, workspacePages) -> {
+            Map<String, PageSummary> accessiblePages = new LinkedHashMap<>();
+            for (PageSummary page : ownedPages) {
+                accessiblePages.putIfAbsent(page.getPageId(), page);
+            }
+            for (PageSummary page : workspacePages) {
+                accessiblePages.putIfAbsent(page.getPageId(), page);
+            }
+            logger.info("Found {} total unique accessible page summaries for user {}", accessiblePages.size(), userId);
+            return writeBuffer.overlaySummaries(accessiblePages.values());
+        });
     }
 
     private void broadcastPageUpdate(String pageId, PageComponent page) {
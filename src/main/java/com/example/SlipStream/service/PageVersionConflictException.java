@@ -0,0 +1,26 @@
+package com.example.SlipStream.service;
+
+/**
+ * Thrown when a page update was based on a version that is no longer the stored one.
+ */
+public class PageVersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String pageId;
+    private final long currentVersion;
+
+    public PageVersionConflictException(String pageId, long currentVersion) {
+        super("Page " + pageId + " was modified concurrently; current version is " + currentVersion + ".");
+        this.pageId = pageId;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.SlipStream.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.PageSummary;
+import com.example.SlipStream.repository.PageRepository;
+import com.example.SlipStream.repository.PageUpdateResult;
+
+/**
+ * Write-behind buffer for editor saves. Each staged edit replaces the pending state of its page,
+ * so a burst of autosaves from any number of collaborators costs one repository write per flush.
+ * Pending pages are flushed on a fixed interval, as soon as the number of pending pages reaches
+ * the size threshold, on demand through {@link #flush(String)}, and on shutdown.
+ *
+ * A pending entry stays visible to readers until its write has completed, and version numbers are
+ * assigned here when an edit is staged, so clients see the same version before and after the flush.
+ *
+ * Flushes are conditional on the stored page still being the one the pending edits were based on,
+ * so a page saved through another instance meanwhile is not overwritten. Such a conflict is not
+ * retried: the unsaved edit is kept but no longer shown to readers, who see the stored page again,
+ * and it is broadcast to {@code /topic/pages/{id}/conflict}, where the editor offers to reload or to
+ * save its content again. The next save of the page replaces the edit; if none comes within
+ * {@code conflictTtlMs} it is dropped.
+ *
+ * Staged edits have been acknowledged to the client but live only in this instance's memory until
+ * they are flushed, so a crash loses up to one flush interval of them. The buffer is off unless
+ * {@code slipstream.write-buffer.enabled} is set.
+ */
+@Component
+public class PageWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageWriteBuffer.class);
+
+    /**
+     * The latest staged state of a page and the stored page it was based on. A conflicted entry
+     * records the stored version that won instead of being written, and when that was found.
+     */
+    private static final class Pending {
+        final PageComponent page;
+        final long storedVersion;
+        final Instant storedUpdateTime;
+        final List<String> storedBlockIds;
+        final Long conflictVersion;
+        final long conflictedAtMillis;
+
+        Pending(PageComponent page, long storedVersion, Instant storedUpdateTime, List<String> storedBlockIds) {
+            this(page, storedVersion, storedUpdateTime, storedBlockIds, null, 0L);
+        }
+
+        Pending(PageComponent page, long storedVersion, Instant storedUpdateTime, List<String> storedBlockIds,
+                Long conflictVersion, long conflictedAtMillis) {
+            this.page = page;
+            this.storedVersion = storedVersion;
+            this.storedUpdateTime = storedUpdateTime;
+            this.storedBlockIds = storedBlockIds;
+            this.conflictVersion = conflictVersion;
+            this.conflictedAtMillis = conflictedAtMillis;
+        }
+
+        boolean isConflicted() {
+            return conflictVersion != null;
+        }
+    }
+
+    private final PageRepository pageRepository;
+    private final PageRevisionService revisionService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final boolean enabled;
+    private final int maxPending;
+    private final long conflictTtlMs;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean thresholdFlushScheduled = new AtomicBoolean();
+    private final AtomicLong stagedCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final ScheduledExecutorService flusher;
+
+    public PageWriteBuffer(PageRepository pageRepository,
+                           PageRevisionService revisionService,
+                           SimpMessagingTemplate messagingTemplate,
+                           @Value("${slipstream.write-buffer.enabled:false}") boolean enabled,
+                           @Value("${slipstream.write-buffer.flush-interval-ms:10000}") long flushIntervalMs,
+                           @Value("${slipstream.write-buffer.max-pending:500}") int maxPending,
+                           @Value("${slipstream.write-buffer.conflict-ttl-ms:600000}") long conflictTtlMs) {
+        this.pageRepository = pageRepository;
+        this.revisionService = revisionService;
+        this.messagingTemplate = messagingTemplate;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.conflictTtlMs = conflictTtlMs;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "page-write-buffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            flusher.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+            logger.info("Page write buffer enabled (flush every {} ms or at {} pending pages).", flushIntervalMs, maxPending);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stages {@code page} as the latest state of its page, assigning it the next version.
+     *
+     * @param baseVersion the version the edit was applied to; when {@code checkVersion} is set and
+     *                    a newer edit is already pending, nothing is staged. Without a pending edit,
+     *                    or with a conflicted one, it is the stored version {@code page} was read at.
+     * @return true if the edit was staged, false on a version conflict.
+     */
+    public boolean stage(PageComponent page, long baseVersion, boolean checkVersion) {
+        AtomicBoolean staged = new AtomicBoolean();
+        pending.compute(page.getPageId(), (pageId, current) -> {
+            if (current == null || current.isConflicted()) {
+                page.setVersion(baseVersion + 1);
+                staged.set(true);
+                return new Pending(page.copy(), baseVersion, page.getStoredUpdateTime(), page.getStoredBlockIds());
+            }
+            if (checkVersion && current.page.getVersion() != baseVersion) {
+                return current;
+            }
+            page.setVersion(Math.max(current.page.getVersion(), baseVersion) + 1);
+            staged.set(true);
+            return new Pending(page.copy(), current.storedVersion, current.storedUpdateTime, current.storedBlockIds);
+        });
+        if (staged.get()) {
+            stagedCount.incrementAndGet();
+            if (pending.size() >= maxPending) {
+                scheduleThresholdFlush();
+            }
+        }
+        return staged.get();
+    }
+
+    /**
+     * Returns a copy of the pending state of a page, or null if nothing is pending for it.
+     */
+    public PageComponent getPending(String pageId) {
+        Pending entry = pageId != null ? pending.get(pageId) : null;
+        return entry != null && !entry.isConflicted() ? entry.page.copy() : null;
+    }
+
+    /**
+     * Returns a copy of the edit that could not be written because the page was changed elsewhere,
+     * or null if the page has no such edit.
+     */
+    public PageComponent getConflicted(String pageId) {
+        Pending entry = pageId != null ? pending.get(pageId) : null;
+        return entry != null && entry.isConflicted() ? entry.page.copy() : null;
+    }
+
+    /**
+     * Returns the pending state of the page if there is one, otherwise {@code stored} itself.
+     */
+    public PageComponent overlay(PageComponent stored) {
+        if (stored == null || pending.isEmpty()) {
+            return stored;
+        }
+        PageComponent page = getPending(stored.getPageId());
+        return page != null ? page : stored;
+    }
+
+    /**
+     * Replaces every page in the list that has pending state.
+     */
+    public List<PageComponent> overlay(Collection<PageComponent> stored) {
+        List<PageComponent> pages = new ArrayList<>(stored.size());
+        for (PageComponent page : stored) {
+            pages.add(overlay(page));
+        }
+        return pages;
+    }
+
+    /**
+     * Replaces every summary whose page has pending state with a summary of that state.
+     */
+    public List<PageSummary> overlaySummaries(Collection<PageSummary> stored) {
+        List<PageSummary> summaries = new ArrayList<>(stored);
+        if (pending.isEmpty()) {
+            return summaries;
+        }
+        for (int i = 0; i < summaries.size(); i++) {
+            PageComponent page = getPending(summaries.get(i).getPageId());
+            if (page != null) {
+                summaries.set(i, PageSummary.from(page));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Writes the pending state of one page, if any, before returning. Called before operations
+     * that read the page from the repository or publish it outside the editor; those operations
+     * also read the page again rather than from the request's {@link RequestReadContext}.
+     * A conflicted edit is not written and does not hold them up.
+     */
+    public void flush(String pageId) {
+        if (pageId != null) {
+            RequestReadContext.invalidatePages(List.of(pageId));
+        }
+        if (getPending(pageId) == null) {
+            return;
+        }
+        synchronized (flushLock) {
+            write(pageId);
+        }
+    }
+
+    public void flushAll() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            int flushed = 0;
+            for (String pageId : new ArrayList<>(pending.keySet())) {
+                if (write(pageId)) {
+                    flushed++;
+                }
+            }
+            logger.debug("Flushed {} pending pages ({} edits staged, {} writes so far).", flushed, stagedCount.get(), writeCount.get());
+        }
+    }
+
+    /**
+     * Drops pending state without writing it, e.g. because the page has been deleted.
+     */
+    public void discard(String pageId) {
+        if (pageId != null && pending.remove(pageId) != null) {
+            logger.debug("Discarded pending write for page {}.", pageId);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getStagedCount() {
+        return stagedCount.get();
+    }
+
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        if (!pending.isEmpty()) {
+            logger.error("{} pages still had unwritten edits at shutdown: {}", pending.size(), pending.keySet());
+        }
+    }
+
+    /**
+     * Writes the current pending state of a page, provided the stored page is still the one the
+     * pending edits were based on, and removes the entry unless a newer edit was staged meanwhile;
+     * that edit is then based on the page just written. Failed writes stay pending and are retried
+     * on the next flush, conflicts are kept and reported instead until they expire.
+     */
+    private boolean write(String pageId) {
+        Pending entry = pending.get(pageId);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.isConflicted()) {
+            if (System.currentTimeMillis() - entry.conflictedAtMillis >= conflictTtlMs && pending.remove(pageId, entry)) {
+                logger.warn("Dropped conflicting edit of page {} at version {}: not resolved within {} ms.",
+                        pageId, entry.page.getVersion(), conflictTtlMs);
+            }
+            return false;
+        }
+        PageComponent toWrite = entry.page.copy();
+        toWrite.setStoredUpdateTime(entry.storedUpdateTime);
+        toWrite.setStoredBlockIds(entry.storedBlockIds);
+        try {
+            PageUpdateResult result = pageRepository.updatePageVersioned(toWrite, entry.storedVersion);
+            writeCount.incrementAndGet();
+            switch (result.getStatus()) {
+                case UPDATED:
+                    revisionService.recordSave(entry.page);
+                    if (!pending.remove(pageId, entry)) {
+                        pending.computeIfPresent(pageId, (id, newer) -> newer.isConflicted() ? newer
+                                : new Pending(newer.page, toWrite.getVersion(), toWrite.getStoredUpdateTime(), toWrite.getStoredBlockIds()));
+                    }
+                    return true;
+                case CONFLICT:
+                    PageComponent unsaved = markConflicted(pageId, result.getCurrentVersion());
+                    if (unsaved != null) {
+                        logger.warn("Pending write for page {} at version {} conflicts with stored version {}; kept for the editor to resolve.",
+                                pageId, unsaved.getVersion(), result.getCurrentVersion());
+                        broadcastConflict(unsaved, result.getCurrentVersion());
+                    }
+                    return false;
+                default:
+                    logger.warn("Dropping pending write for page {}: the page no longer exists.", pageId);
+                    pending.remove(pageId, entry);
+                    return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while flushing page {}; it stays pending.", pageId);
+        } catch (Exception e) {
+            logger.error("Failed to flush page {}; it stays pending: {}", pageId, e.getMessage(), e);
+        }
+        return false;
+    }
+
+    /**
+     * Marks the latest pending edit of a page as conflicted, which may be newer than the one
+     * whose write was rejected, and returns it.
+     */
+    private PageComponent markConflicted(String pageId, long storedVersion) {
+        Pending entry = pending.computeIfPresent(pageId, (id, current) ->
+                new Pending(current.page, current.storedVersion, current.storedUpdateTime, current.storedBlockIds,
+                        storedVersion, System.currentTimeMillis()));
+        return entry != null ? entry.page : null;
+    }
+
+    private void broadcastConflict(PageComponent unsaved, long storedVersion) {
+        String destination = "/topic/pages/" + unsaved.getPageId() + "/conflict";
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("pageId", unsaved.getPageId());
+        payload.put("title", unsaved.getTitle());
+        payload.put("content", unsaved.getContent());
+        payload.put("unsavedVersion", unsaved.getVersion());
+        payload.put("currentVersion", storedVersion);
+        try {
+            messagingTemplate.convertAndSend(destination, payload);
+        } catch (Exception e) {
+            logger.error("Error broadcasting write conflict for page {}: {}", unsaved.getPageId(), e.getMessage(), e);
+        }
+    }
+
+    private void scheduleThresholdFlush() {
+        if (thresholdFlushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    thresholdFlushScheduled.set(false);
+                    flushAll();
+                });
+            } catch (RejectedExecutionException e) {
+                thresholdFlushScheduled.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.SlipStream.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import com.example.SlipStream.model.PageComponent;
+import com.example.SlipStream.model.Workspace;
+
+/**
+ * Unit of work for the reads of one HTTP request or STOMP message: pages, workspaces and
+ * inherited access are read from the repositories at most once and then served from here, so
+ * a request that checks the same page for view and edit access and then lists its children
+ * does not repeat the page read or the ancestor walk.
+ *
+ * The context is bound to the handling thread between {@link #open} and {@link #close}; the
+ * static accessors fall through to the loader when no context is open, so services can use them
+ * unconditionally. Futures returned by asynchronous lookups are memoized as futures, since they
+ * may complete on another thread. Every caller gets its own copy of a page or workspace.
+ *
+ * Values are not refreshed within a request: writes made through the services invalidate the
+ * entries they affect, writes from other requests become visible to the next request.
+ */
+public final class RequestReadContext {
+
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws ExecutionException, InterruptedException;
+    }
+
+    private static final ThreadLocal<RequestReadContext> CURRENT = new ThreadLocal<>();
+
+    private final String description;
+    private final RequestReadContext previous;
+    // A null value records a page that does not exist.
+    private final Map<String, PageComponent> pages = new HashMap<>();
+    private final Map<String, Workspace> workspaces = new HashMap<>();
+    private final Map<String, CompletableFuture<List<Workspace>>> workspacesByMember = new HashMap<>();
+    // user + '\n' + page id -> inherited access
+    private final Map<String, PagePermissionCache.Entry> inheritedAccess = new HashMap<>();
+    private int repositoryReads;
+    private int pagesRead;
+    private int servedFromContext;
+
+    private RequestReadContext(String description, RequestReadContext previous) {
+        this.description = description;
+        this.previous = previous;
+    }
+
+    /**
+     * Binds a new context to the current thread. A context already open on the thread is
+     * restored when the new one is closed.
+     */
+    public static RequestReadContext open(String description) {
+        RequestReadContext context = new RequestReadContext(description, CURRENT.get());
+        CURRENT.set(context);
+        return context;
+    }
+
+    public void close() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Request read context for " + description + " is not the current context.");
+        }
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * The context bound to the current thread, or null if none is open.
+     */
+    public static RequestReadContext current() {
+        return CURRENT.get();
+    }
+
+    static PageComponent page(String pageId, Loader<String, PageComponent> loader) throws ExecutionException, InterruptedException {
+        RequestReadContext context = CURRENT.get();
+        if (context == null || pageId == null) {
+            return loader.load(pageId);
+        }
+        if (context.pages.containsKey(pageId)) {
+            context.servedFromContext++;
+            return copyOf(context.pages.get(pageId));
+        }
+        PageComponent page = loader.load(pageId);
+        context.repositoryReads++;
+        context.pagesRead++;
+        context.pages.put(pageId, copyOf(page));
+        return page;
+    }
+
+    /**
+     * The pages among {@code pageIds} that exist, in no particular order. Pages not yet read in
+     * this request are loaded with one call to {@code loader}.
+     */
+    static List<PageComponent> pages(List<String> pageIds, Loader<List<String>, List<PageComponent>> loader)
+            throws ExecutionException, InterruptedException {
+        RequestReadContext context = CURRENT.get();
+        if (context == null) {
+            return loader.load(pageIds);
+        }
+        List<PageComponent> found = new ArrayList<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String pageId : pageIds) {
+            if (pageId == null || missing.contains(pageId)) {
+                continue;
+            }
+            if (context.pages.containsKey(pageId)) {
+                context.servedFromContext++;
+                PageComponent page = context.pages.get(pageId);
+                if (page != null) {
+                    found.add(page.copy());
+                }
+            } else {
+                missing.add(pageId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        Map<String, PageComponent> loaded = new HashMap<>();
+        for (PageComponent page : loader.load(new ArrayList<>(missing))) {
+            loaded.put(page.getPageId(), page);
+        }
+        context.repositoryReads++;
+        context.pagesRead += missing.size();
+        for (String pageId : missing) {
+            PageComponent page = loaded.get(pageId);
+            context.pages.put(pageId, copyOf(page));
+            if (page != null) {
+                found.add(page);
+            }
+        }
+        return found;
+    }
+
+    static Workspace workspace(String workspaceId, Loader<String, Workspace> loader) throws ExecutionException, InterruptedException {
+        RequestReadContext context = CURRENT.get();
+        if (context == null || workspaceId == null) {
+            return loader.load(workspaceId);
+        }
+        if (context.workspaces.containsKey(workspaceId)) {
+            context.servedFromContext++;
+            return copyOf(context.workspaces.get(workspaceId));
+        }
+        Workspace workspace = loader.load(workspaceId);
+        context.repositoryReads++;
+        context.workspaces.put(workspaceId, copyOf(workspace));
+        return workspace;
+    }
+
+    static CompletableFuture<List<Workspace>> workspacesForMember(String userEmail, Supplier<CompletableFuture<List<Workspace>>> loader) {
+        RequestReadContext context = CURRENT.get();
+        if (context == null || userEmail == null) {
+            return loader.get();
+        }
+        CompletableFuture<List<Workspace>> lookup = context.workspacesByMember.get(userEmail);
+        if (lookup != null) {
+            context.servedFromContext++;
+        } else {
+            lookup = loader.get();
+            context.repositoryReads++;
+            context.workspacesByMember.put(userEmail, lookup);
+        }
+        return lookup.thenApply(RequestReadContext::copyOfAll);
+    }
+
+    static PagePermissionCache.Entry inheritedAccess(String userEmail, String pageId) {
+        RequestReadContext context = CURRENT.get();
+        if (context == null) {
+            return null;
+        }
+        PagePermissionCache.Entry entry = context.inheritedAccess.get(userEmail + "\n" + pageId);
+        if (entry != null) {
+            context.servedFromContext++;
+        }
+        return entry;
+    }
+
+    static void putInheritedAccess(String userEmail, String pageId, PagePermissionCache.Entry entry) {
+        RequestReadContext context = CURRENT.get();
+        if (context != null) {
+            context.inheritedAccess.put(userEmail + "\n" + pageId, entry);
+        }
+    }
+
+    /**
+     * Drops the given pages and, since any of them may be an ancestor of another page, all
+     * memoized inherited access.
+     */
+    static void invalidatePages(Collection<String> pageIds) {
+        RequestReadContext context = CURRENT.get();
+        if (context != null) {
+            pageIds.forEach(context.pages::remove);
+            context.inheritedAccess.clear();
+        }
+    }
+
+    static void invalidateWorkspaces() {
+        RequestReadContext context = CURRENT.get();
+        if (context != null) {
+            context.workspaces.clear();
+            context.workspacesByMember.clear();
+        }
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Reads this request sent to the repositories; a batched page fetch counts once.
+     */
+    public int getRepositoryReadCount() {
+        return repositoryReads;
+    }
+
+    public int getPagesReadCount() {
+        return pagesRead;
+    }
+
+    /**
+     * Lookups answered from this context instead of the repositories.
+     */
+    public int getServedFromContextCount() {
+        return servedFromContext;
+    }
+
+    private static PageComponent copyOf(PageComponent page) {
+        return page != null ? page.copy() : null;
+    }
+
+    private static Workspace copyOf(Workspace workspace) {
+        return workspace != null ? workspace.copy() : null;
+    }
+
+    private static List<Workspace> copyOfAll(List<Workspace> workspaces) {
+        List<Workspace> copies = new ArrayList<>(workspaces.size());
+        for (Workspace workspace : workspaces) {
+            copies.add(workspace.copy());
+        }
+        return copies;
+    }
+}
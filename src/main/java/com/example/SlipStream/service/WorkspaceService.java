@@ -2,6 +2,10 @@ package com.example.SlipStream.service;
 
 import com.example.SlipStream.model.PageComponent;
 import com.example.SlipStream.model.Workspace;
+import com.example.SlipStream.repository.AsyncPageRepository;
+import com.example.SlipStream.repository.AsyncWorkspaceRepository;
+import com.example.SlipStream.repository.PageBatchResult;
+import com.example.SlipStream.repository.PageDeletionResult;
 import com.example.SlipStream.repository.PageRepository;
 import com.example.SlipStream.repository.WorkspaceRepository;
 import org.slf4j.Logger;
@@ -14,6 +18,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -27,13 +32,21 @@ public class WorkspaceService {
     private static final Logger logger = LoggerFactory.getLogger(WorkspaceService.class);
 
     private final WorkspaceRepository workspaceRepository;
+    private final AsyncWorkspaceRepository asyncWorkspaceRepository;
     private final PageRepository pageRepository;
+    private final AsyncPageRepository asyncPageRepository;
     private final PageService pageService;
+    private final PageAccessIndexService accessIndexService;
 
-    public WorkspaceService(WorkspaceRepository workspaceRepository, PageRepository pageRepository, PageService pageService) {
+    public WorkspaceService(WorkspaceRepository workspaceRepository, AsyncWorkspaceRepository asyncWorkspaceRepository,
+                            PageRepository pageRepository, AsyncPageRepository asyncPageRepository, PageService pageService,
+                            PageAccessIndexService accessIndexService) {
         this.workspaceRepository = workspaceRepository;
+        this.asyncWorkspaceRepository = asyncWorkspaceRepository;
         this.pageRepository = pageRepository;
+        this.asyncPageRepository = asyncPageRepository;
         this.pageService = pageService;
+        this.accessIndexService = accessIndexService;
     }
 
     private String getCurrentUserEmail() {
@@ -66,7 +79,9 @@ public class WorkspaceService {
             logger.debug("Added owner {} to members list for workspace {}", workspace.getOwner(), workspace.getId());
         }
 
-        return workspaceRepository.createWorkspace(workspace);
+        String workspaceId = workspaceRepository.createWorkspace(workspace);
+        RequestReadContext.invalidateWorkspaces();
+        return workspaceId;
     }
 
     public Workspace getWorkspaceById(String workspaceId) throws ExecutionException, InterruptedException {
@@ -74,7 +89,7 @@ public class WorkspaceService {
         if (currentUser == null) {
             throw new SecurityException("User not authenticated.");
         }
-        Workspace ws = workspaceRepository.getWorkspaceById(workspaceId);
+        Workspace ws = RequestReadContext.workspace(workspaceId, workspaceRepository::getWorkspaceById);
         if (ws != null && !ws.getMembers().contains(currentUser)) {
             logger.warn("User {} attempted to access workspace {} without being a member.", currentUser, workspaceId);
             throw new SecurityException("User does not have access to this workspace.");
@@ -83,7 +98,7 @@ public class WorkspaceService {
     }
 
     public Workspace getWorkspaceByIdForMember(String workspaceId, String userEmail) throws ExecutionException, InterruptedException {
-        Workspace workspace = workspaceRepository.getWorkspaceById(workspaceId);
+        Workspace workspace = RequestReadContext.workspace(workspaceId, workspaceRepository::getWorkspaceById);
         if (workspace != null && workspace.getMembers() != null && workspace.getMembers().contains(userEmail)) {
             return workspace;
         }
@@ -101,7 +116,12 @@ public class WorkspaceService {
 
     public List<Workspace> getWorkspacesForUser(String userEmail) throws ExecutionException, InterruptedException {
         logger.debug("Service: Getting workspaces for user {}", userEmail);
-        return workspaceRepository.getWorkspacesForUser(userEmail);
+        return RequestReadContext.workspacesForMember(userEmail, () -> asyncWorkspaceRepository.getWorkspacesForUserAsync(userEmail)).get();
+    }
+
+    public CompletableFuture<List<Workspace>> getWorkspacesForUserAsync(String userEmail) {
+        logger.debug("Service: Getting workspaces for user {}", userEmail);
+        return RequestReadContext.workspacesForMember(userEmail, () -> asyncWorkspaceRepository.getWorkspacesForUserAsync(userEmail));
     }
 
     public boolean updateWorkspaceName(String workspaceId, String newName) throws ExecutionException, InterruptedException {
@@ -110,7 +130,9 @@ public class WorkspaceService {
             return false;
         }
         workspace.setName(newName);
-        return workspaceRepository.updateWorkspace(workspace);
+        boolean updated = workspaceRepository.updateWorkspace(workspace);
+        RequestReadContext.invalidateWorkspaces();
+        return updated;
     }
 
     public boolean addMember(String workspaceId, String memberEmail) throws ExecutionException, InterruptedException {
@@ -130,9 +152,11 @@ public class WorkspaceService {
         }
 
         boolean memberAddedToWorkspace = workspaceRepository.addMemberToWorkspace(workspaceId, memberEmail);
+        RequestReadContext.invalidateWorkspaces();
 
         if (memberAddedToWorkspace) {
             logger.info("Successfully added member {} to workspace {}.", memberEmail, workspaceId);
+            accessIndexService.refreshSubtrees(workspace.getRootPageIds(), memberEmail);
         } else {
             logger.warn("Failed to add member {} to workspace {} via repository.", memberEmail, workspaceId);
         }
@@ -158,8 +182,10 @@ public class WorkspaceService {
             throw new SecurityException("User does not have permission to remove this member.");
         }
         boolean removed = workspaceRepository.removeMemberFromWorkspace(workspaceId, memberEmail);
+        RequestReadContext.invalidateWorkspaces();
         if (removed) {
             logger.info("Member {} removed from workspace {}.", memberEmail, workspaceId);
+            accessIndexService.refreshSubtrees(workspace.getRootPageIds(), memberEmail);
         }
         return removed;
     }
@@ -178,20 +204,18 @@ public class WorkspaceService {
         List<String> rootPageIds = workspace.getRootPageIds();
         if (rootPageIds != null && !rootPageIds.isEmpty()) {
             logger.info("Deleting {} root pages for workspace {}", rootPageIds.size(), workspaceId);
-            for (String pageId : rootPageIds) {
-                try {
-                    boolean deleted = pageRepository.deletePage(pageId);
-                    if (!deleted) {
-                        logger.warn("Failed to delete page {} during workspace {} deletion (returned false)", pageId, workspaceId);
-                    }
-                } catch (Exception e) {
-                    logger.error("Failed to delete page {} during workspace {} deletion", pageId, workspaceId, e);
-                }
+            try {
+                PageDeletionResult result = pageRepository.deletePages(rootPageIds);
+                pageService.handleDeletedPages(result);
+            } catch (Exception e) {
+                logger.error("Failed to delete root pages during workspace {} deletion", workspaceId, e);
             }
         } else {
             logger.info("No root pages found to delete for workspace {}", workspaceId);
         }
-        return workspaceRepository.deleteWorkspace(workspaceId);
+        boolean deleted = workspaceRepository.deleteWorkspace(workspaceId);
+        RequestReadContext.invalidateWorkspaces();
+        return deleted;
     }
 
     public boolean deleteWorkspace(String workspaceId, String currentUserEmail) throws ExecutionException, InterruptedException {
@@ -208,22 +232,26 @@ public class WorkspaceService {
 
         if (workspace.getRootPageIds() != null && !workspace.getRootPageIds().isEmpty()) {
             logger.info("Deleting {} root pages for workspace {}", workspace.getRootPageIds().size(), workspaceId);
-            for (String pageId : workspace.getRootPageIds()) {
-                try {
-                    pageService.deletePage(pageId);
-                    logger.debug("Deleted page {} during workspace {} deletion.", pageId, workspaceId);
-                } catch (Exception e) {
-                    logger.error("Error deleting page {} during workspace {} deletion: {}", pageId, workspaceId, e.getMessage(), e);
-                }
+            try {
+                List<String> deletedIds = pageService.deletePages(workspace.getRootPageIds());
+                logger.debug("Deleted {} pages during workspace {} deletion.", deletedIds.size(), workspaceId);
+            } catch (Exception e) {
+                logger.error("Error deleting pages during workspace {} deletion: {}", workspaceId, e.getMessage(), e);
             }
         }
 
-        return workspaceRepository.deleteWorkspace(workspaceId);
+        boolean deleted = workspaceRepository.deleteWorkspace(workspaceId);
+        RequestReadContext.invalidateWorkspaces();
+        // Root pages the owner could not delete are no longer listed for the members.
+        accessIndexService.refreshSubtrees(workspace.getRootPageIds());
+        return deleted;
     }
 
     public boolean addRootPageToWorkspace(String workspaceId, String pageId) throws ExecutionException, InterruptedException {
+        // The page lookup does not depend on the workspace, so it runs while the workspace is loaded.
+        CompletableFuture<PageComponent> pageLookup = asyncPageRepository.getPageAsync(pageId);
         Workspace workspace = getWorkspaceById(workspaceId);
-        PageComponent page = pageRepository.getPage(pageId);
+        PageComponent page = pageLookup.get();
         if (workspace == null || page == null) {
             logger.error("Workspace {} or Page {} not found for linking.", workspaceId, pageId);
             return false;
@@ -238,14 +266,20 @@ public class WorkspaceService {
             logger.warn("Page {} already has a parent {}, cannot add as root page to workspace {}", pageId, page.getParentPageId(), workspaceId);
             return false;
         }
-        return workspaceRepository.addRootPageToWorkspace(workspaceId, pageId);
+        boolean added = workspaceRepository.addRootPageToWorkspace(workspaceId, pageId);
+        RequestReadContext.invalidateWorkspaces();
+        if (added) {
+            accessIndexService.refreshSubtrees(List.of(pageId));
+        }
+        return added;
     }
 
     public boolean removeRootPageFromWorkspace(String workspaceId, String pageId) throws ExecutionException, InterruptedException {
+        CompletableFuture<PageComponent> pageLookup = asyncPageRepository.getPageAsync(pageId);
         Workspace workspace = getWorkspaceById(workspaceId);
         if (workspace == null) return false;
         String currentUser = getCurrentUserEmail();
-        PageComponent page = pageRepository.getPage(pageId);
+        PageComponent page = pageLookup.get();
         if (page != null) {
             boolean canEditPage = page.getOwner().equals(currentUser) || (page.getSharingInfo() != null && "edit".equals(page.getSharingInfo().get(currentUser)));
             if (!canEditPage) {
@@ -255,7 +289,12 @@ public class WorkspaceService {
         } else {
             logger.warn("Page {} not found while attempting to remove from workspace {}. Proceeding with removal from workspace list.", pageId, workspaceId);
         }
-        return workspaceRepository.removeRootPageFromWorkspace(workspaceId, pageId);
+        boolean removed = workspaceRepository.removeRootPageFromWorkspace(workspaceId, pageId);
+        RequestReadContext.invalidateWorkspaces();
+        if (removed) {
+            accessIndexService.refreshSubtrees(List.of(pageId));
+        }
+        return removed;
     }
 
     public List<PageComponent> getRootPagesForWorkspace(String workspaceId) throws ExecutionException, InterruptedException {
@@ -268,26 +307,10 @@ public class WorkspaceService {
         if (rootPageIds == null || rootPageIds.isEmpty()) {
             return List.of();
         }
-        List<PageComponent> accessibleRootPages = new ArrayList<>();
-        for (String pageId : rootPageIds) {
-            try {
-                PageComponent page = pageRepository.getPage(pageId);
-                if (page != null) {
-                    boolean canViewPage = page.isPublished()
-                            || page.getOwner().equals(currentUser)
-                            || (page.getSharingInfo() != null && page.getSharingInfo().containsKey(currentUser));
-                    if (canViewPage) {
-                        accessibleRootPages.add(page);
-                    } else {
-                        logger.debug("User {} cannot view page {} within workspace {}", currentUser, pageId, workspaceId);
-                    }
-                } else {
-                    logger.warn("Root page ID {} listed in workspace {} but page not found.", pageId, workspaceId);
-                }
-            } catch (Exception e) {
-                logger.error("Error fetching root page {} for workspace {}", pageId, workspaceId, e);
-            }
+        PageBatchResult result = pageRepository.fetchPagesByIds(rootPageIds);
+        if (result.hasMissing()) {
+            logger.warn("Root page IDs {} listed in workspace {} but pages not found.", result.getMissingIds(), workspaceId);
         }
-        return accessibleRootPages;
+        return pageService.filterAccessible(currentUser, result.getPages(), "view");
     }
 }
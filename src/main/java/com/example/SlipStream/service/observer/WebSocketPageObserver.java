@@ -35,7 +35,8 @@ public class WebSocketPageObserver implements PageObserver {
                 "content", page.getContent(), // Ensure getContent() returns appropriate summary/content
                 "lastUpdated", page.getLastUpdated(),
                 "isPublished", page.isPublished(),
-                "sharingInfo", page.getSharingInfo()
+                "sharingInfo", page.getSharingInfo(),
+                "version", page.getVersion()
                 // Add other relevant fields if needed
             );
             logger.info("Broadcasting update for page {} to WebSocket destination {}", pageId, destination);
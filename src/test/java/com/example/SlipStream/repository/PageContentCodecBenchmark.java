@@ -0,0 +1,103 @@
+package com.example.SlipStream.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Measures what compressing page bodies costs and saves: compressed size, and encode/decode
+ * time per body, for a range of body sizes and deflate levels. Run it from the IDE or with
+ * {@code java -cp target/classes:target/test-classes:<firestore jars> com.example.SlipStream.repository.PageContentCodecBenchmark}.
+ *
+ * Bodies are generated markdown-like text (headings, paragraphs from a fixed vocabulary, lists,
+ * code), which compresses less well than real pages with repeated boilerplate but better than
+ * random data.
+ */
+public class PageContentCodecBenchmark {
+
+    private static final int[] SIZES = {4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024};
+    private static final int[] LEVELS = {1, 6, 9};
+    private static final String[] WORDS = {
+            "page", "workspace", "share", "editor", "content", "block", "version", "owner", "the", "a",
+            "of", "to", "and", "in", "is", "for", "with", "that", "on", "draft", "review", "release",
+            "meeting", "notes", "action", "item", "deadline", "customer", "feedback", "design"};
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %5s %10s %7s %12s %12s %14s%n",
+                "raw bytes", "level", "stored", "ratio", "encode us", "decode us", "saved KB/ms");
+        for (int size : SIZES) {
+            String content = generate(size, new Random(size));
+            byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+            for (int level : LEVELS) {
+                PageContentCodec codec = new PageContentCodec(true, 0, level);
+                int iterations = Math.max(20, (8 * 1024 * 1024) / raw.length);
+
+                byte[] compressed = PageContentCodec.deflate(raw, level);
+                for (int i = 0; i < iterations; i++) {
+                    PageContentCodec.Encoded encoded = codec.encode(content);
+                    PageContentCodec.decode(encoded.getValue(), encoded.getEncoding());
+                }
+
+                long start = System.nanoTime();
+                PageContentCodec.Encoded encoded = null;
+                for (int i = 0; i < iterations; i++) {
+                    encoded = codec.encode(content);
+                }
+                double encodeMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+                start = System.nanoTime();
+                String decoded = null;
+                for (int i = 0; i < iterations; i++) {
+                    decoded = PageContentCodec.decode(encoded.getValue(), encoded.getEncoding());
+                }
+                double decodeMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+                if (!content.equals(decoded)) {
+                    throw new IllegalStateException("Round trip changed the content at size " + size + ", level " + level);
+                }
+
+                double savedKb = (raw.length - compressed.length) / 1024.0;
+                System.out.printf("%10d %5d %10d %6.1f%% %12.1f %12.1f %14.1f%n",
+                        raw.length, level, compressed.length, 100.0 * compressed.length / raw.length,
+                        encodeMicros, decodeMicros, savedKb / ((encodeMicros + decodeMicros) / 1000.0));
+            }
+        }
+    }
+
+    private static String generate(int size, Random random) {
+        StringBuilder text = new StringBuilder(size + 256);
+        while (text.length() < size) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    text.append("## ").append(sentence(random, 3)).append("\n\n");
+                    break;
+                case 1:
+                    for (int i = 0; i < 3; i++) {
+                        text.append("- ").append(sentence(random, 6)).append('\n');
+                    }
+                    text.append('\n');
+                    break;
+                case 2:
+                    text.append("```\nconst ").append(WORDS[random.nextInt(WORDS.length)])
+                            .append(" = ").append(random.nextInt(10000)).append(";\n```\n\n");
+                    break;
+                default:
+                    for (int i = 0; i < 4; i++) {
+                        text.append(sentence(random, 8 + random.nextInt(10))).append(". ");
+                    }
+                    text.append("\n\n");
+            }
+        }
+        return text.substring(0, size);
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        sentence.setCharAt(0, Character.toUpperCase(sentence.charAt(0)));
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.SlipStream.repository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.example.SlipStream.model.ContainerPage;
+import com.example.SlipStream.model.ContentPage;
+import com.example.SlipStream.model.PageComponent;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+
+/**
+ * Compares {@link PageDocumentCodec} with the {@code getData()}-based conversion it replaced:
+ * time and allocated bytes per document read, and per document map written. Run it from the IDE
+ * or with {@code java -cp target/classes:target/test-classes:<firestore jars> com.example.SlipStream.repository.PageDocumentCodecBenchmark}.
+ *
+ * Snapshots are built from encoded Firestore values, the same form the client hands out after a
+ * read, so both sides pay the real decoding cost. No connection to Firestore is made.
+ */
+public class PageDocumentCodecBenchmark {
+
+    private static final int DOCUMENTS = 2_000;
+    private static final int ROUNDS = 20;
+    private static final int[] CONTENT_SIZES = {256, 4 * 1024};
+
+    public static void main(String[] args) throws Exception {
+        Firestore firestore = FirestoreOptions.newBuilder()
+                .setProjectId("benchmark")
+                .setCredentials(NoCredentials.getInstance())
+                .build()
+                .getService();
+        PageDocumentCodec codec = new PageDocumentCodec(new PageContentCodec(false, 0, 1));
+
+        System.out.printf("%12s %-10s %-8s %12s %14s%n", "content", "operation", "codec", "ns/doc", "bytes/doc");
+        for (int contentSize : CONTENT_SIZES) {
+            List<PageComponent> pages = new ArrayList<>(DOCUMENTS);
+            List<DocumentSnapshot> snapshots = new ArrayList<>(DOCUMENTS);
+            for (int i = 0; i < DOCUMENTS; i++) {
+                PageComponent page = page(i, contentSize);
+                pages.add(page);
+                snapshots.add(snapshot(firestore, page.getPageId(), codec.toMap(page)));
+            }
+
+            run(contentSize, "read", "getData", snapshots, PageDocumentCodecBenchmark::legacyToPage);
+            run(contentSize, "read", "codec", snapshots, codec::toPage);
+            run(contentSize, "write", "getData", pages, PageDocumentCodecBenchmark::legacyToMap);
+            run(contentSize, "write", "codec", pages, codec::toMap);
+        }
+        firestore.close();
+    }
+
+    private static <T> void run(int contentSize, String operation, String name, List<T> inputs, Function<T, Object> convert) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Object sink = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (T input : inputs) {
+                sink = convert.apply(input);
+            }
+        }
+
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (T input : inputs) {
+                sink = convert.apply(input);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        if (sink == null) {
+            throw new IllegalStateException("Conversion returned null");
+        }
+
+        long operations = (long) ROUNDS * inputs.size();
+        System.out.printf("%12d %-10s %-8s %12d %14d%n", contentSize, operation, name, elapsed / operations, allocated / operations);
+    }
+
+    private static PageComponent page(int index, int contentSize) {
+        PageComponent page;
+        if (index % 4 == 0) {
+            ContainerPage container = new ContainerPage();
+            container.setSummary("x".repeat(contentSize / 8));
+            List<String> childrenIds = new ArrayList<>();
+            for (int child = 0; child < 12; child++) {
+                childrenIds.add("page-" + index + "-" + child);
+            }
+            container.setChildrenIds(childrenIds);
+            page = container;
+        } else {
+            ContentPage content = new ContentPage();
+            content.setContent("Lorem ipsum dolor sit amet. ".repeat(contentSize / 28 + 1).substring(0, contentSize));
+            page = content;
+        }
+        page.setPageId("page-" + index);
+        page.setTitle("Page " + index);
+        page.setParentPageId("page-" + (index / 4));
+        page.setOwner("owner" + (index % 50) + "@example.com");
+        page.setWorkspaceId("workspace-" + (index % 10));
+        page.setAncestorIds(List.of("root", "page-" + (index / 16), "page-" + (index / 4)));
+        Map<String, String> sharingInfo = new HashMap<>();
+        if (index % 3 == 0) {
+            sharingInfo.put("editor" + (index % 7) + "@example.com", "edit");
+            sharingInfo.put("viewer" + (index % 11) + "@example.com", "view");
+        }
+        page.setSharingInfo(sharingInfo);
+        page.setCreatedAt(new Date(1_700_000_000_000L + index));
+        page.setLastUpdated(new Date(1_700_000_500_000L + index));
+        return page;
+    }
+
+    // DocumentSnapshot has no public factory; the client builds snapshots from encoded values the same way.
+    private static DocumentSnapshot snapshot(Firestore firestore, String pageId, Map<String, Object> data) throws Exception {
+        DocumentReference ref = firestore.collection("pages").document(pageId);
+        Map<String, Object> stored = new HashMap<>(data);
+        stored.values().removeIf(value -> value == null);
+        Class<?> rpcContext = Class.forName("com.google.cloud.firestore.FirestoreRpcContext");
+        Class<?> options = Class.forName("com.google.cloud.firestore.UserDataConverter$EncodingOptions");
+        Field noDeletes = Class.forName("com.google.cloud.firestore.UserDataConverter").getDeclaredField("NO_DELETES");
+        noDeletes.setAccessible(true);
+        Method fromObject = DocumentSnapshot.class.getDeclaredMethod("fromObject", rpcContext, DocumentReference.class, Map.class, options);
+        fromObject.setAccessible(true);
+        return (DocumentSnapshot) fromObject.invoke(null, firestore, ref, stored, noDeletes.get(null));
+    }
+
+    // The conversion FirebasePageRepository used before PageDocumentCodec, kept here for comparison.
+    @SuppressWarnings("unchecked")
+    private static PageComponent legacyToPage(DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        if (data == null) return null;
+
+        Boolean isLeaf = (Boolean) data.get("isLeaf");
+        PageComponent component;
+        if (isLeaf != null && isLeaf) {
+            component = new ContentPage();
+            ((ContentPage) component).setContent(PageContentCodec.decode(data.get("content"), data.get(PageContentCodec.FIELD_CONTENT_ENCODING)));
+        } else {
+            component = new ContainerPage();
+            ((ContainerPage) component).setSummary(PageContentCodec.decode(data.get("content"), data.get(PageContentCodec.FIELD_CONTENT_ENCODING)));
+            List<String> childrenIds = (List<String>) data.get("childrenIds");
+            if (childrenIds != null) {
+                ((ContainerPage) component).setChildrenIds(childrenIds);
+            }
+        }
+
+        component.setPageId((String) data.get("pageId"));
+        component.setTitle((String) data.get("title"));
+        component.setOwner((String) data.get("owner"));
+        component.setParentPageId((String) data.get("parentPageId"));
+        component.setPublished(data.get("isPublished") != null ? (Boolean) data.get("isPublished") : false);
+        component.setWorkspaceId((String) data.get("workspaceId"));
+        List<String> ancestorIds = (List<String>) data.get("ancestorIds");
+        component.setAncestorIds(ancestorIds != null ? new ArrayList<>(ancestorIds) : null);
+        component.setStoredBlockIds((List<String>) data.get(PageBlockStore.FIELD_BLOCK_IDS));
+        Map<String, String> sharingInfo = (Map<String, String>) data.get("sharingInfo");
+        component.setSharingInfo(sharingInfo != null ? sharingInfo : new HashMap<>());
+        if (data.get("createdAt") instanceof Timestamp) {
+            component.setCreatedAt(((Timestamp) data.get("createdAt")).toDate());
+        }
+        if (data.get("lastUpdated") instanceof Timestamp) {
+            component.setLastUpdated(((Timestamp) data.get("lastUpdated")).toDate());
+        }
+        component.setVersion(PageDocumentCodec.readVersion(document));
+        component.markClean();
+        return component;
+    }
+
+    private static Map<String, Object> legacyToMap(PageComponent page) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("pageId", page.getPageId());
+        map.put("title", page.getTitle());
+        map.put("parentPageId", page.getParentPageId());
+        map.put("owner", page.getOwner());
+        map.put("createdAt", page.getCreatedAt());
+        map.put("lastUpdated", page.getLastUpdated());
+        map.put("isLeaf", page.isLeaf());
+        map.put("isPublished", page.isPublished());
+        map.put("sharingInfo", page.getSharingInfo() != null ? page.getSharingInfo() : new HashMap<>());
+        map.putAll(FirebasePageRepository.sharingArrays(page.getSharingInfo()));
+        map.put("ancestorIds", page.getAncestorIds());
+        map.put("content", page.getContent());
+        map.put(PageContentCodec.FIELD_CONTENT_ENCODING, null);
+        if (!page.isLeaf() && page instanceof ContainerPage) {
+            List<String> childrenIds = ((ContainerPage) page).getChildrenIds();
+            map.put("childrenIds", childrenIds != null ? childrenIds : new ArrayList<String>());
+        } else {
+            map.put("childrenIds", new ArrayList<String>());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.SlipStream.repository.local;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tornTailIsTruncatedOnOpen() throws IOException {
+        Path path = dir.resolve("pages.log");
+        long intactSize;
+        try (LogStore store = LogStore.open(path, true)) {
+            store.put("a", bytes("first"));
+            intactSize = store.getFileSize();
+            store.put("b", bytes("second"));
+        }
+        // A crash mid-append leaves only part of the last frame on disk.
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+
+        try (LogStore store = LogStore.open(path, true)) {
+            assertArrayEquals(bytes("first"), store.get("a"));
+            assertNull(store.get("b"));
+            assertEquals(intactSize, Files.size(path));
+            assertEquals(intactSize, store.getFileSize());
+            store.put("c", bytes("third"));
+        }
+        try (LogStore store = LogStore.open(path, true)) {
+            assertArrayEquals(bytes("first"), store.get("a"));
+            assertArrayEquals(bytes("third"), store.get("c"));
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void lastRecordWithCorruptChecksumIsDropped() throws IOException {
+        Path path = dir.resolve("pages.log");
+        long intactSize;
+        try (LogStore store = LogStore.open(path, true)) {
+            store.put("a", bytes("first"));
+            store.put("b", bytes("second"));
+            intactSize = store.getFileSize();
+            store.put("b", bytes("third"));
+        }
+        flipLastByte(path);
+
+        try (LogStore store = LogStore.open(path, true)) {
+            assertArrayEquals(bytes("first"), store.get("a"));
+            // The superseded value is current again once the corrupt update is dropped.
+            assertArrayEquals(bytes("second"), store.get("b"));
+            assertEquals(intactSize, Files.size(path));
+        }
+    }
+
+    @Test
+    void deletesSurviveReopen() throws IOException {
+        Path path = dir.resolve("pages.log");
+        try (LogStore store = LogStore.open(path, true)) {
+            store.put("a", bytes("first"));
+            store.put("b", bytes("second"));
+            assertTrue(store.delete("a"));
+            assertFalse(store.delete("missing"));
+        }
+
+        try (LogStore store = LogStore.open(path, true)) {
+            assertNull(store.get("a"));
+            assertFalse(store.contains("a"));
+            assertArrayEquals(bytes("second"), store.get("b"));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void compactKeepsEveryLiveKeyAndDropsGarbage() throws IOException {
+        Path path = dir.resolve("pages.log");
+        Map<String, byte[]> expected = new HashMap<>();
+        try (LogStore store = LogStore.open(path, false)) {
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 50; i++) {
+                    byte[] value = bytes("value-" + i + "-" + round);
+                    store.put("key-" + i, value);
+                    expected.put("key-" + i, value);
+                }
+            }
+            for (int i = 0; i < 50; i += 5) {
+                store.delete("key-" + i);
+                expected.remove("key-" + i);
+            }
+            long sizeBefore = store.getFileSize();
+            assertTrue(store.getGarbageRatio() > 0.5);
+
+            store.compact();
+
+            assertEquals(0.0, store.getGarbageRatio());
+            assertTrue(store.getFileSize() < sizeBefore);
+            assertEquals(Files.size(path), store.getFileSize());
+            assertContents(expected, store);
+
+            store.put("after", bytes("compaction"));
+            expected.put("after", bytes("compaction"));
+            assertContents(expected, store);
+        }
+
+        try (LogStore store = LogStore.open(path, false)) {
+            assertContents(expected, store);
+            assertEquals(0.0, store.getGarbageRatio());
+        }
+    }
+
+    private static void assertContents(Map<String, byte[]> expected, LogStore store) {
+        assertEquals(expected.size(), store.size());
+        expected.forEach((key, value) -> assertArrayEquals(value, store.get(key), key));
+        Map<String, byte[]> visited = new HashMap<>();
+        store.forEach(visited::put);
+        assertEquals(expected.keySet(), visited.keySet());
+    }
+
+    private static void flipLastByte(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = channel.size() - 1;
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, position);
+            last.flip();
+            byte flipped = (byte) (last.get() ^ 0xFF);
+            channel.write(ByteBuffer.wrap(new byte[] {flipped}), position);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.SlipStream.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.SlipStream.model.PageRevision;
+import com.example.SlipStream.repository.PageRevisionRecord;
+import com.example.SlipStream.repository.local.LocalPageRevisionRepository;
+import com.example.SlipStream.repository.local.LocalStoreManager;
+
+class PageRevisionServiceTest {
+
+    private static final String PAGE_ID = "page-1";
+    private static final int SNAPSHOT_INTERVAL = 4;
+    // Two grinning faces and a musical note, each a surrogate pair.
+    private static final String GRIN = "😀";
+    private static final String BEAM = "😁";
+    private static final String NOTE = "𝄞";
+
+    @TempDir
+    Path dir;
+
+    private LocalStoreManager storeManager;
+    private LocalPageRevisionRepository repository;
+    private PageRevisionService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storeManager = new LocalStoreManager(dir.toString(), false, 0.5, 1 << 20, 3600);
+        repository = new LocalPageRevisionRepository(storeManager);
+        // Keep every revision of the last two hours and the last of each hour for a day.
+        service = new PageRevisionService(repository, true, SNAPSHOT_INTERVAL, 2, 1, 600, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        storeManager.close();
+    }
+
+    @Test
+    void spliceNeverSplitsASurrogatePair() {
+        // Same high surrogate, different low surrogate: the common prefix must not end inside the pair.
+        assertSplice("a" + GRIN + "b", "a" + BEAM + "b", 1, 2, BEAM);
+        // Same low surrogate, different high surrogate: the common suffix must not start inside the pair.
+        assertSplice("x🔞y", "x" + NOTE + "y", 1, 2, NOTE);
+        assertSplice(GRIN + GRIN, GRIN + BEAM + GRIN, 2, 0, BEAM);
+        assertSplice("", NOTE, 0, 0, NOTE);
+        assertSplice(BEAM, "", 0, 2, "");
+        assertSplice("same" + GRIN, "same" + GRIN, 6, 0, "");
+    }
+
+    @Test
+    void rebuildsEveryRevisionAcrossSnapshotBoundaries() throws Exception {
+        List<String> contents = new ArrayList<>();
+        String content = "";
+        for (int revision = 1; revision <= 3 * SNAPSHOT_INTERVAL + 1; revision++) {
+            content = edit(content, revision);
+            contents.add(content);
+            service.record(PAGE_ID, revision, "Title " + revision, content);
+        }
+
+        PageRevisionRecord first = repository.getRevision(PAGE_ID, 1);
+        PageRevisionRecord boundary = repository.getRevision(PAGE_ID, SNAPSHOT_INTERVAL + 1);
+        PageRevisionRecord afterBoundary = repository.getRevision(PAGE_ID, SNAPSHOT_INTERVAL + 2);
+        assertTrue(first.isSnapshot());
+        assertFalse(repository.getRevision(PAGE_ID, SNAPSHOT_INTERVAL).isSnapshot());
+        assertTrue(boundary.isSnapshot());
+        assertEquals(boundary.getRevision(), afterBoundary.getSnapshotRevision());
+
+        for (int revision = 1; revision <= contents.size(); revision++) {
+            PageRevision rebuilt = service.getRevision(PAGE_ID, revision);
+            assertEquals(contents.get(revision - 1), rebuilt.getContent(), "revision " + revision);
+            assertEquals("Title " + revision, rebuilt.getTitle());
+        }
+
+        // A service without the cached head rebuilds it from the store before appending.
+        PageRevisionService restarted = new PageRevisionService(repository, true, SNAPSHOT_INTERVAL, 2, 1, 600, 1);
+        try {
+            String next = edit(content, contents.size() + 1);
+            restarted.record(PAGE_ID, contents.size() + 1, "Title", next);
+            PageRevisionRecord appended = repository.getLatestRevision(PAGE_ID);
+            assertFalse(appended.isSnapshot());
+            assertEquals(next, restarted.getRevision(PAGE_ID, appended.getRevision()).getContent());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void compactionKeepsEveryRetainedRevisionIdentical() throws Exception {
+        // Three days of history, one save every 40 minutes, oldest first, off the hour boundaries.
+        long now = System.currentTimeMillis();
+        int count = 3 * 24 * 60 / 40;
+        List<String> contents = new ArrayList<>();
+        String content = "";
+        for (int revision = 1; revision <= count; revision++) {
+            String previous = content;
+            content = edit(content, revision);
+            contents.add(content);
+            Date savedAt = new Date(now - TimeUnit.MINUTES.toMillis(40L * (count - revision) + 20));
+            int position = (revision - 1) % SNAPSHOT_INTERVAL;
+            PageRevisionRecord record;
+            if (position == 0) {
+                record = PageRevisionRecord.snapshot(PAGE_ID, revision, revision, "Title " + revision, savedAt, content);
+            } else {
+                PageRevisionService.Splice splice = PageRevisionService.Splice.between(previous, content);
+                record = PageRevisionRecord.delta(PAGE_ID, revision, revision, "Title " + revision, savedAt,
+                        revision - position, revision - 1, splice.offset, splice.removed, splice.inserted);
+            }
+            assertTrue(repository.appendRevision(record));
+        }
+
+        int dropped = service.compact(PAGE_ID);
+
+        assertTrue(dropped > 0);
+        int kept = 0;
+        for (int revision = 1; revision <= count; revision++) {
+            PageRevision rebuilt = service.getRevision(PAGE_ID, revision);
+            if (rebuilt == null) {
+                continue;
+            }
+            kept++;
+            assertArrayEquals(contents.get(revision - 1).getBytes(StandardCharsets.UTF_8),
+                    rebuilt.getContent().getBytes(StandardCharsets.UTF_8), "revision " + revision);
+            assertEquals("Title " + revision, rebuilt.getTitle());
+        }
+        assertEquals(count - dropped, kept);
+        // The chain new saves are appended to is left alone.
+        PageRevisionRecord latest = repository.getLatestRevision(PAGE_ID);
+        for (long revision = latest.getSnapshotRevision(); revision <= count; revision++) {
+            assertNotNull(repository.getRevision(PAGE_ID, revision));
+        }
+
+        // A second pass has nothing left to drop and changes no retained revision.
+        assertEquals(0, service.compact(PAGE_ID));
+        for (int revision = 1; revision <= count; revision++) {
+            PageRevision rebuilt = service.getRevision(PAGE_ID, revision);
+            if (rebuilt != null) {
+                assertEquals(contents.get(revision - 1), rebuilt.getContent());
+            }
+        }
+    }
+
+    private static void assertSplice(String before, String after, int offset, int removed, String inserted) {
+        PageRevisionService.Splice splice = PageRevisionService.Splice.between(before, after);
+        assertEquals(offset, splice.offset, "offset");
+        assertEquals(removed, splice.removed, "removed");
+        assertEquals(inserted, splice.inserted, "inserted");
+        assertEquals(after, before.substring(0, splice.offset) + splice.inserted + before.substring(splice.offset + splice.removed));
+    }
+
+    /**
+     * A typical editor save: text typed, replaced or deleted somewhere in the body, sometimes
+     * next to or inside a surrogate pair.
+     */
+    private static String edit(String content, int revision) {
+        int at = content.isEmpty() ? 0 : (revision * 7) % content.length();
+        if (at > 0 && Character.isLowSurrogate(content.charAt(at))) {
+            at--;
+        }
+        switch (revision % 4) {
+            case 0:
+                return content.substring(0, at) + "line " + revision + " " + GRIN + "\n" + content.substring(at);
+            case 1:
+                return content + "paragraph " + revision + " " + NOTE + " text\n";
+            case 2:
+                return content.substring(0, at).replace(GRIN, BEAM) + "~" + revision + content.substring(at);
+            default:
+                int end = Math.min(content.length(), at + 3);
+                if (end < content.length() && Character.isLowSurrogate(content.charAt(end))) {
+                    end++;
+                }
+                return content.substring(0, at) + content.substring(end);
+        }
+    }
+}